@@ -0,0 +1,127 @@
+package HashMap;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Бенчмарк мап с постоянной сменой элементов: вставка с удалением и очистка с повторным заполнением.
+ * Главная метрика - gc.alloc.rate.norm от профилировщика GC (BenchmarkRunner включает его всегда):
+ * CustomCompactMap переиспользует слоты и массивы и в установившемся режиме не выделяет память,
+ * а CustomMap и HashMap создают узел на каждую вставку. После замера печатается оценка
+ * занятой памяти на элемент для реализаций, которые ее считают.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms2g", "-Xmx2g"})
+@State(Scope.Benchmark)
+public class ChurnBenchmark {
+    /**
+     * Количество ключей, по которым ходит вставка с удалением
+     */
+    private static final int LOOKUP_KEYS = 1 << 16;
+
+    @Param({"HASH_MAP", "CUSTOM_MAP", "OPEN_ADDRESSING", "COMPACT", "SWISS"})
+    public MapImplementation implementation;
+
+    @Param({"INTEGER", "STRING"})
+    public KeyType keyType;
+
+    @Param({"1000", "100000"})
+    public int size;
+
+    /**
+     * Все ключи заполненной мапы
+     */
+    private Object[] keys;
+    /**
+     * Перемешанная выборка присутствующих ключей
+     */
+    private Object[] hitKeys;
+    /**
+     * Ключи, которых нет в мапе
+     */
+    private Object[] missKeys;
+    /**
+     * Заполненная мапа
+     */
+    private Map<Object, Object> map;
+    /**
+     * Позиция в массивах ключей
+     */
+    private int cursor;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        keys = keyType.keys(0, size);
+        map = implementation.create(16);
+        for (Object key : keys) {
+            map.put(key, key);
+        }
+        Random random = new Random(42);
+        hitKeys = new Object[LOOKUP_KEYS];
+        for (int i = 0; i < LOOKUP_KEYS; i++) {
+            hitKeys[i] = keys[random.nextInt(size)];
+        }
+        missKeys = keyType.keys(size, LOOKUP_KEYS);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        long bytes;
+        if (map instanceof CustomCompactMap<Object, Object> compact) {
+            bytes = compact.memoryFootprint();
+        } else if (map instanceof CustomMap<Object, Object> customMap) {
+            bytes = customMap.memoryFootprint();
+        } else {
+            return;
+        }
+        System.out.printf("%n%s %s %d: %.1f bytes per entry%n", implementation, keyType, size, (double) bytes / size);
+    }
+
+    /**
+     * Метод возвращает следующую позицию в массивах ключей
+     *
+     * @return позиция
+     */
+    private int next() {
+        return cursor = (cursor + 1) & (LOOKUP_KEYS - 1);
+    }
+
+    /**
+     * Вставка нового ключа и его удаление: размер мапы не меняется между вызовами
+     */
+    @Benchmark
+    public Object putInsertAndRemove() {
+        Object key = missKeys[next()];
+        map.put(key, key);
+        return map.remove(key);
+    }
+
+    /**
+     * Удаление существующего ключа и его возврат
+     */
+    @Benchmark
+    public Object removeAndReinsert() {
+        Object key = hitKeys[next()];
+        Object value = map.remove(key);
+        map.put(key, value);
+        return value;
+    }
+
+    /**
+     * Очистка и заполнение теми же ключами, время на один элемент - делением на size
+     */
+    @Benchmark
+    public Map<Object, Object> clearAndRefill() {
+        map.clear();
+        for (Object key : keys) {
+            map.put(key, key);
+        }
+        return map;
+    }
+}
@@ -0,0 +1,153 @@
+package HashMap;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+
+/**
+ * Бенчмарк вычисляющих методов Map: merge, compute, computeIfAbsent, computeIfPresent,
+ * putIfAbsent, replace и getOrDefault. CustomMap находит корзину один раз, а методы Map
+ * по умолчанию ищут ключ через get и затем еще раз через put или remove.
+ * Значения - счетчики Integer, как в типичном merge(key, 1, Integer::sum).
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms4g", "-Xmx4g"})
+@State(Scope.Benchmark)
+public class ComputeBenchmark {
+    /**
+     * Количество ключей, по которым ходят операции
+     */
+    private static final int LOOKUP_KEYS = 1 << 16;
+    /**
+     * Значение для вставки
+     */
+    private static final Integer ONE = 1;
+    /**
+     * Сложение счетчиков
+     */
+    private static final BiFunction<Object, Object, Object> SUM = (left, right) -> (Integer) left + (Integer) right;
+    /**
+     * Увеличение счетчика на единицу
+     */
+    private static final BiFunction<Object, Object, Object> INCREMENT =
+            (key, value) -> value == null ? ONE : (Integer) value + 1;
+    /**
+     * Значение для отсутствующего ключа
+     */
+    private static final Function<Object, Object> CREATE = key -> ONE;
+
+    @Param({"HASH_MAP", "CUSTOM_MAP", "CUSTOM_MAP_INCREMENTAL"})
+    public MapImplementation implementation;
+
+    @Param({"STRING", "INTEGER", "COLLIDING"})
+    public KeyType keyType;
+
+    @Param({"1000", "100000", "1000000"})
+    public int size;
+
+    /**
+     * Перемешанная выборка присутствующих ключей
+     */
+    private Object[] hitKeys;
+    /**
+     * Ключи, которых нет в мапе
+     */
+    private Object[] missKeys;
+    /**
+     * Заполненная мапа счетчиков
+     */
+    private Map<Object, Object> map;
+    /**
+     * Позиция в массивах ключей
+     */
+    private int cursor;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        Object[] keys = keyType.keys(0, size);
+        map = implementation.create(16);
+        for (Object key : keys) {
+            map.put(key, ONE);
+        }
+        Random random = new Random(42);
+        hitKeys = new Object[LOOKUP_KEYS];
+        for (int i = 0; i < LOOKUP_KEYS; i++) {
+            hitKeys[i] = keys[random.nextInt(size)];
+        }
+        missKeys = keyType.keys(size, LOOKUP_KEYS);
+    }
+
+    /**
+     * Метод возвращает следующую позицию в массивах ключей
+     *
+     * @return позиция
+     */
+    private int next() {
+        return cursor = (cursor + 1) & (LOOKUP_KEYS - 1);
+    }
+
+    /**
+     * Увеличение существующего счетчика
+     */
+    @Benchmark
+    public Object mergeHit() {
+        return map.merge(hitKeys[next()], ONE, SUM);
+    }
+
+    /**
+     * Создание нового счетчика и его удаление
+     */
+    @Benchmark
+    public Object mergeInsertAndRemove() {
+        Object key = missKeys[next()];
+        map.merge(key, ONE, SUM);
+        return map.remove(key);
+    }
+
+    @Benchmark
+    public Object computeHit() {
+        return map.compute(hitKeys[next()], INCREMENT);
+    }
+
+    @Benchmark
+    public Object computeIfAbsentHit() {
+        return map.computeIfAbsent(hitKeys[next()], CREATE);
+    }
+
+    /**
+     * Вычисление значения нового ключа и его удаление
+     */
+    @Benchmark
+    public Object computeIfAbsentInsertAndRemove() {
+        Object key = missKeys[next()];
+        map.computeIfAbsent(key, CREATE);
+        return map.remove(key);
+    }
+
+    @Benchmark
+    public Object computeIfPresentHit() {
+        return map.computeIfPresent(hitKeys[next()], INCREMENT);
+    }
+
+    @Benchmark
+    public Object putIfAbsentHit() {
+        return map.putIfAbsent(hitKeys[next()], ONE);
+    }
+
+    @Benchmark
+    public Object replaceHit() {
+        return map.replace(hitKeys[next()], ONE);
+    }
+
+    @Benchmark
+    public Object getOrDefaultMiss() {
+        return map.getOrDefault(missKeys[next()], ONE);
+    }
+}
@@ -0,0 +1,141 @@
+package HashMap;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.results.RunResult;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Бенчмарк пропускной способности потокобезопасных мап на нескольких потоках.
+ * CustomConcurrentMap сравнивается с CustomMap под Collections.synchronizedMap и с ConcurrentHashMap.
+ * Количество потоков меняется опцией -t, а main прогоняет бенчмарк на 1, 2, 4, ... потоках
+ * до числа процессоров и печатает сводку масштабирования:
+ * java -cp target/benchmarks.jar HashMap.ConcurrentMapBenchmark [опции JMH]
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms4g", "-Xmx4g"})
+@Threads(4)
+@State(Scope.Benchmark)
+public class ConcurrentMapBenchmark {
+    @Param({"CUSTOM_CONCURRENT", "SYNCHRONIZED_CUSTOM_MAP", "CONCURRENT_HASH_MAP"})
+    public String implementation;
+
+    @Param({"1000", "1000000"})
+    public int size;
+
+    /**
+     * Ключи мапы
+     */
+    private Integer[] keys;
+    /**
+     * Измеряемая мапа
+     */
+    private Map<Integer, Integer> map;
+
+    /**
+     * Метод прогоняет бенчмарк на каждом количестве потоков и печатает пропускную способность
+     *
+     * @param args опции JMH, например -p size=1000000
+     * @throws RunnerException            при ошибке запуска бенчмарка
+     * @throws CommandLineOptionException при неверных опциях
+     */
+    public static void main(String[] args) throws RunnerException, CommandLineOptionException {
+        CommandLineOptions options = new CommandLineOptions(args);
+        List<String> summary = new ArrayList<>();
+        for (int threads : threadCounts(Runtime.getRuntime().availableProcessors())) {
+            Collection<RunResult> results = new Runner(new OptionsBuilder()
+                    .parent(options)
+                    .include(ConcurrentMapBenchmark.class.getName() + "\\.")
+                    .threads(threads)
+                    .build())
+                    .run();
+            for (RunResult result : results) {
+                summary.add(String.format("%-24s %-7s %-10s %3d threads %14.3f %s",
+                        result.getParams().getParam("implementation"),
+                        result.getParams().getParam("size"),
+                        result.getParams().getBenchmark().substring(ConcurrentMapBenchmark.class.getName().length() + 1),
+                        threads,
+                        result.getPrimaryResult().getScore(),
+                        result.getPrimaryResult().getScoreUnit()));
+            }
+        }
+        summary.forEach(System.out::println);
+    }
+
+    /**
+     * Метод возвращает степени двойки меньше processors и само processors
+     *
+     * @param processors число процессоров
+     * @return количества потоков по возрастанию
+     */
+    private static List<Integer> threadCounts(int processors) {
+        List<Integer> counts = new ArrayList<>();
+        for (int threads = 1; threads < processors; threads *= 2) {
+            counts.add(threads);
+        }
+        counts.add(processors);
+        return counts;
+    }
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        map = switch (implementation) {
+            case "CUSTOM_CONCURRENT" -> new CustomConcurrentMap<>();
+            case "SYNCHRONIZED_CUSTOM_MAP" -> Collections.synchronizedMap(new CustomMap<>());
+            case "CONCURRENT_HASH_MAP" -> new ConcurrentHashMap<>();
+            default -> throw new IllegalArgumentException(implementation);
+        };
+        keys = new Integer[size];
+        for (int i = 0; i < size; i++) {
+            keys[i] = i;
+            map.put(keys[i], i);
+        }
+    }
+
+    /**
+     * Метод возвращает случайный присутствующий ключ
+     *
+     * @return ключ
+     */
+    private Integer randomKey() {
+        return keys[ThreadLocalRandom.current().nextInt(size)];
+    }
+
+    @Benchmark
+    public Integer get() {
+        return map.get(randomKey());
+    }
+
+    @Benchmark
+    public Integer put() {
+        Integer key = randomKey();
+        return map.put(key, key);
+    }
+
+    /**
+     * Смешанная нагрузка: 90% чтений и 10% записей
+     */
+    @Benchmark
+    public Integer readMostly() {
+        Integer key = randomKey();
+        if (ThreadLocalRandom.current().nextInt(10) == 0) {
+            return map.put(key, key);
+        }
+        return map.get(key);
+    }
+}
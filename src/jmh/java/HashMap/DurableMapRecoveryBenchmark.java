@@ -0,0 +1,76 @@
+package HashMap;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Бенчмарк времени открытия CustomDurableMap после перезапуска.
+ * LOG - все элементы только в журнале и воспроизводятся по одной записи,
+ * SNAPSHOT - журнал свернут в снимок, который загружается через отображение файла.
+ * Для сравнения BASELINE заново заполняет CustomMap теми же put, как это делают сервисы без журнала.
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = {"-Xms6g", "-Xmx6g"})
+@State(Scope.Benchmark)
+public class DurableMapRecoveryBenchmark {
+    @Param({"LOG", "SNAPSHOT", "BASELINE"})
+    public String layout;
+
+    @Param({"100000", "1000000"})
+    public int size;
+
+    /**
+     * Каталог мапы
+     */
+    private Path directory;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        directory = Files.createTempDirectory("durable-map-benchmark");
+        if (layout.equals("BASELINE")) {
+            return;
+        }
+        try (CustomDurableMap<String, String> map = CustomDurableMap.open(directory, Serializer.STRING,
+                Serializer.STRING, CustomDurableMap.SyncPolicy.OS, Long.MAX_VALUE)) {
+            for (int i = 0; i < size; i++) {
+                map.put("key " + i, "value " + i);
+            }
+            if (layout.equals("SNAPSHOT")) {
+                map.compact();
+            }
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        try (Stream<Path> files = Files.walk(directory)) {
+            for (Path path : files.sorted(Comparator.reverseOrder()).toList()) {
+                Files.delete(path);
+            }
+        }
+    }
+
+    @Benchmark
+    public int recover() throws IOException {
+        if (layout.equals("BASELINE")) {
+            CustomMap<String, String> map = new CustomMap<>();
+            for (int i = 0; i < size; i++) {
+                map.put("key " + i, "value " + i);
+            }
+            return map.size();
+        }
+        try (CustomDurableMap<String, String> map = CustomDurableMap.open(directory, Serializer.STRING,
+                Serializer.STRING, CustomDurableMap.SyncPolicy.OS, Long.MAX_VALUE)) {
+            return map.size();
+        }
+    }
+}
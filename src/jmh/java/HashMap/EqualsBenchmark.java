@@ -0,0 +1,87 @@
+package HashMap;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Бенчмарк сравнения двух мап одной реализации: равных, отличающихся одним ключом
+ * и отличающихся одним значением. Вторая мапа заполняется в обратном порядке,
+ * поэтому порядок узлов в корзинах у мап разный. CustomMap отвергает мапы
+ * с другим набором ключей по сумме хэшей, не обходя корзины
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms4g", "-Xmx4g"})
+@State(Scope.Benchmark)
+public class EqualsBenchmark {
+    @Param({"HASH_MAP", "CUSTOM_MAP"})
+    public MapImplementation implementation;
+
+    @Param({"STRING", "INTEGER"})
+    public KeyType keyType;
+
+    @Param({"1000", "1000000"})
+    public int size;
+
+    /**
+     * Заполненная мапа
+     */
+    private Map<Object, Object> map;
+    /**
+     * Мапа с теми же парами
+     */
+    private Map<Object, Object> equalMap;
+    /**
+     * Мапа, в которой один ключ заменен другим
+     */
+    private Map<Object, Object> otherKeyMap;
+    /**
+     * Мапа, в которой у одного ключа другое значение
+     */
+    private Map<Object, Object> otherValueMap;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        Object[] keys = keyType.keys(0, size);
+        map = implementation.create(16);
+        equalMap = implementation.create(16);
+        otherKeyMap = implementation.create(16);
+        otherValueMap = implementation.create(16);
+        for (Object key : keys) {
+            map.put(key, key);
+        }
+        for (int i = keys.length - 1; i >= 0; i--) {
+            equalMap.put(keys[i], keys[i]);
+            otherKeyMap.put(keys[i], keys[i]);
+            otherValueMap.put(keys[i], keys[i]);
+        }
+        Object last = keys[keys.length - 1];
+        otherKeyMap.remove(last);
+        otherKeyMap.put(keyType.keys(size, 1)[0], last);
+        otherValueMap.put(last, keys[0]);
+    }
+
+    @Benchmark
+    public boolean equalsEqual() {
+        return map.equals(equalMap);
+    }
+
+    @Benchmark
+    public boolean equalsOtherKey() {
+        return map.equals(otherKeyMap);
+    }
+
+    @Benchmark
+    public boolean equalsOtherValue() {
+        return map.equals(otherValueMap);
+    }
+
+    @Benchmark
+    public int hashCodeFull() {
+        return map.hashCode();
+    }
+}
@@ -0,0 +1,120 @@
+package HashMap;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Бенчмарк неизменяемой CustomFrozenMap против изменяемой CustomMap, из которой она построена:
+ * время построения (freeze для FROZEN, заполнение через put для CUSTOM_MAP), задержка get
+ * и объем структуры на элемент, который выводится после прогона.
+ * Для CustomMap объем оценивается как массив корзин плюс 32 байта на узел при сжатых ссылках.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms6g", "-Xmx6g"})
+@State(Scope.Benchmark)
+public class FrozenMapBenchmark {
+    /**
+     * Количество ключей, по которым ходят точечные операции
+     */
+    private static final int LOOKUP_KEYS = 1 << 16;
+
+    @Param({"CUSTOM_MAP", "FROZEN"})
+    public String implementation;
+
+    @Param({"STRING", "INTEGER"})
+    public KeyType keyType;
+
+    @Param({"1000", "1000000", "10000000"})
+    public int size;
+
+    /**
+     * Все ключи
+     */
+    private Object[] keys;
+    /**
+     * Заполненная изменяемая мапа
+     */
+    private CustomMap<Object, Object> source;
+    /**
+     * Измеряемая мапа
+     */
+    private Map<Object, Object> map;
+    /**
+     * Перемешанная выборка присутствующих ключей
+     */
+    private Object[] hitKeys;
+    /**
+     * Ключи, которых нет в мапе
+     */
+    private Object[] missKeys;
+    /**
+     * Позиция в массивах ключей
+     */
+    private int cursor;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        keys = keyType.keys(0, size);
+        source = new CustomMap<>();
+        for (Object key : keys) {
+            source.put(key, key);
+        }
+        map = implementation.equals("FROZEN") ? source.freeze() : source;
+        Random random = new Random(42);
+        hitKeys = new Object[LOOKUP_KEYS];
+        for (int i = 0; i < LOOKUP_KEYS; i++) {
+            hitKeys[i] = keys[random.nextInt(size)];
+        }
+        missKeys = keyType.keys(size, LOOKUP_KEYS);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        long bytes = map instanceof CustomFrozenMap<Object, Object> frozen
+                ? frozen.memoryFootprint()
+                : source.memoryFootprint();
+        System.out.printf("%n%s %s %d: %.1f bytes per entry%n", implementation, keyType, size, (double) bytes / size);
+    }
+
+    /**
+     * Метод возвращает следующую позицию в массивах ключей
+     *
+     * @return позиция
+     */
+    private int next() {
+        return cursor = (cursor + 1) & (LOOKUP_KEYS - 1);
+    }
+
+    @Benchmark
+    public Object getHit() {
+        return map.get(hitKeys[next()]);
+    }
+
+    @Benchmark
+    public Object getMiss() {
+        return map.get(missKeys[next()]);
+    }
+
+    /**
+     * Построение мапы из всех ключей
+     */
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public Map<Object, Object> build() {
+        if (implementation.equals("FROZEN")) {
+            return source.freeze();
+        }
+        CustomMap<Object, Object> built = new CustomMap<>();
+        for (Object key : keys) {
+            built.put(key, key);
+        }
+        return built;
+    }
+}
@@ -0,0 +1,105 @@
+package HashMap;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Бенчмарк задержки get и put при хэш-флуде: тысячи ключей с одним хэшем в одной корзине.
+ * FLOODING дает сравнимые ключи, и CustomMap с HashMap ищут по дереву корзины.
+ * FLOODING_UNORDERED и CONCURRENT, у которой нет деревьев, служат базой «только список»:
+ * каждая операция проходит всю корзину.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms4g", "-Xmx4g"})
+@State(Scope.Benchmark)
+public class HashFloodingBenchmark {
+    /**
+     * Количество ключей, по которым ходят точечные операции
+     */
+    private static final int LOOKUP_KEYS = 1 << 12;
+
+    @Param({"CUSTOM_MAP", "HASH_MAP", "CONCURRENT"})
+    public MapImplementation implementation;
+
+    @Param({"FLOODING", "FLOODING_UNORDERED"})
+    public KeyType keyType;
+
+    @Param({"1000", "10000"})
+    public int size;
+
+    /**
+     * Перемешанная выборка присутствующих ключей
+     */
+    private Object[] hitKeys;
+    /**
+     * Ключи, которых нет в мапе, с тем же хэшем
+     */
+    private Object[] missKeys;
+    /**
+     * Заполненная мапа
+     */
+    private Map<Object, Object> map;
+    /**
+     * Позиция в массивах ключей
+     */
+    private int cursor;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        Object[] keys = keyType.keys(0, size);
+        map = implementation.create(16);
+        for (Object key : keys) {
+            map.put(key, key);
+        }
+        Random random = new Random(42);
+        hitKeys = new Object[LOOKUP_KEYS];
+        for (int i = 0; i < LOOKUP_KEYS; i++) {
+            hitKeys[i] = keys[random.nextInt(size)];
+        }
+        missKeys = keyType.keys(size, LOOKUP_KEYS);
+    }
+
+    /**
+     * Метод возвращает следующую позицию в массивах ключей
+     *
+     * @return позиция
+     */
+    private int next() {
+        return cursor = (cursor + 1) & (LOOKUP_KEYS - 1);
+    }
+
+    @Benchmark
+    public Object getHit() {
+        return map.get(hitKeys[next()]);
+    }
+
+    @Benchmark
+    public Object getMiss() {
+        return map.get(missKeys[next()]);
+    }
+
+    /**
+     * Замена значения существующего ключа
+     */
+    @Benchmark
+    public Object putUpdate() {
+        Object key = hitKeys[next()];
+        return map.put(key, key);
+    }
+
+    /**
+     * Вставка нового ключа в корзину флуда и его удаление: размер мапы не меняется между вызовами
+     */
+    @Benchmark
+    public Object putInsertAndRemove() {
+        Object key = missKeys[next()];
+        map.put(key, key);
+        return map.remove(key);
+    }
+}
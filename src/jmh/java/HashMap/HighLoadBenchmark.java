@@ -0,0 +1,118 @@
+package HashMap;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Бенчмарк поиска и обновления в таблице, заполненной ровно до заданного коэффициента загрузки.
+ * Длина массива фиксирована, а количество ключей равно tableLength * loadFactor без одного,
+ * поэтому ни одна реализация не расширяется и все сравниваются при одинаковой загрузке.
+ * CustomSwissMap при высокой загрузке отсеивает чужие ячейки по управляющим байтам,
+ * а цепочки CustomMap и HashMap и кластеры CustomOpenAddressingMap удлиняются
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms4g", "-Xmx4g"})
+@State(Scope.Benchmark)
+public class HighLoadBenchmark {
+    /**
+     * Количество ключей, по которым ходят операции
+     */
+    private static final int LOOKUP_KEYS = 1 << 16;
+
+    @Param({"HASH_MAP", "CUSTOM_MAP", "OPEN_ADDRESSING", "SWISS"})
+    public MapImplementation implementation;
+
+    @Param({"STRING", "INTEGER"})
+    public KeyType keyType;
+
+    @Param({"0.5", "0.75", "0.875", "0.95"})
+    public float loadFactor;
+
+    @Param({"1024", "1048576"})
+    public int tableLength;
+
+    /**
+     * Перемешанная выборка присутствующих ключей
+     */
+    private Object[] hitKeys;
+    /**
+     * Ключи, которых нет в мапе, со случайными номерами: последовательные номера
+     * попадали бы в соседние корзины HashMap и давали ей преимущество кэша
+     */
+    private Object[] missKeys;
+    /**
+     * Заполненная мапа
+     */
+    private Map<Object, Object> map;
+    /**
+     * Позиция в массивах ключей
+     */
+    private int cursor;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        int size = (int) (tableLength * loadFactor) - 1;
+        Object[] keys = keyType.keys(0, size);
+        map = switch (implementation) {
+            case HASH_MAP -> new HashMap<>(tableLength, loadFactor);
+            case CUSTOM_MAP -> new CustomMap<>(tableLength, loadFactor);
+            case OPEN_ADDRESSING -> new CustomOpenAddressingMap<>(tableLength, loadFactor);
+            case SWISS -> new CustomSwissMap<>(tableLength, loadFactor);
+            default -> throw new IllegalArgumentException("Unsupported implementation: " + implementation);
+        };
+        for (Object key : keys) {
+            map.put(key, key);
+        }
+        Random random = new Random(42);
+        hitKeys = new Object[LOOKUP_KEYS];
+        for (int i = 0; i < LOOKUP_KEYS; i++) {
+            hitKeys[i] = keys[random.nextInt(size)];
+        }
+        missKeys = new Object[LOOKUP_KEYS];
+        for (int i = 0; i < LOOKUP_KEYS; i++) {
+            missKeys[i] = keyType.key(size + random.nextInt(Integer.MAX_VALUE - size));
+        }
+    }
+
+    /**
+     * Метод возвращает следующую позицию в массивах ключей
+     *
+     * @return позиция
+     */
+    private int next() {
+        return cursor = (cursor + 1) & (LOOKUP_KEYS - 1);
+    }
+
+    @Benchmark
+    public Object getHit() {
+        return map.get(hitKeys[next()]);
+    }
+
+    @Benchmark
+    public Object getMiss() {
+        return map.get(missKeys[next()]);
+    }
+
+    @Benchmark
+    public Object putUpdate() {
+        Object key = hitKeys[next()];
+        return map.put(key, key);
+    }
+
+    /**
+     * Вставка нового ключа и его удаление: загрузка не меняется между вызовами
+     */
+    @Benchmark
+    public Object putInsertAndRemove() {
+        Object key = missKeys[next()];
+        map.put(key, key);
+        return map.remove(key);
+    }
+}
@@ -0,0 +1,166 @@
+package HashMap;
+
+/**
+ * Виды ключей для бенчмарков.
+ * Ключи с одинаковыми номерами равны, с разными — различны, поэтому диапазон
+ * [count, 2 * count) гарантированно дает промахи для мапы, заполненной диапазоном [0, count).
+ */
+public enum KeyType {
+    /**
+     * Строки вида "key 123", как в CustomMapTest
+     */
+    STRING {
+        @Override
+        Object key(int id) {
+            return "key " + id;
+        }
+    },
+    /**
+     * Упакованные Integer
+     */
+    INTEGER {
+        @Override
+        Object key(int id) {
+            return id;
+        }
+    },
+    /**
+     * Ключи, у которых по COLLISIONS штук делят один хэш: длинные цепочки, которые еще не становятся деревьями.
+     * Деревья в корзинах нагружает FLOODING
+     */
+    COLLIDING {
+        @Override
+        Object key(int id) {
+            return new CollidingKey(id);
+        }
+    },
+    /**
+     * Хэш-флуд: все ключи делят один хэш и попадают в одну корзину. Ключи сравнимы,
+     * поэтому CustomMap превращает корзину в дерево и ищет за логарифм
+     */
+    FLOODING {
+        @Override
+        Object key(int id) {
+            return new ComparableFloodingKey(id);
+        }
+    },
+    /**
+     * Тот же хэш-флуд без Comparable: дерево не может упорядочить ключи и поиск
+     * проходит всю корзину, как по списку
+     */
+    FLOODING_UNORDERED {
+        @Override
+        Object key(int id) {
+            return new FloodingKey(id);
+        }
+    };
+
+    /**
+     * Количество ключей с одинаковым хэшем
+     */
+    static final int COLLISIONS = 8;
+    /**
+     * Общий хэш ключей FLOODING и FLOODING_UNORDERED
+     */
+    static final int FLOODING_HASH = 0x5f3759df;
+
+    /**
+     * Метод создает ключ с заданным номером
+     *
+     * @param id номер ключа
+     * @return ключ
+     */
+    abstract Object key(int id);
+
+    /**
+     * Метод создает ключи с номерами [from, from + count)
+     *
+     * @param from  первый номер
+     * @param count количество ключей
+     * @return массив ключей
+     */
+    Object[] keys(int from, int count) {
+        Object[] keys = new Object[count];
+        for (int i = 0; i < count; i++) {
+            keys[i] = key(from + i);
+        }
+        return keys;
+    }
+
+    /**
+     * Ключ с намеренно плохим хэшем. Сравним, чтобы CustomMap мог строить деревья в корзинах
+     */
+    static final class CollidingKey implements Comparable<CollidingKey> {
+        /**
+         * Номер ключа
+         */
+        private final int id;
+
+        CollidingKey(int id) {
+            this.id = id;
+        }
+
+        @Override
+        public boolean equals(Object object) {
+            return object instanceof CollidingKey other && other.id == id;
+        }
+
+        @Override
+        public int hashCode() {
+            return id / COLLISIONS;
+        }
+
+        @Override
+        public int compareTo(CollidingKey other) {
+            return Integer.compare(id, other.id);
+        }
+
+        @Override
+        public String toString() {
+            return "colliding " + id;
+        }
+    }
+
+    /**
+     * Ключ, у которого хэш одинаков для всех ключей
+     */
+    static class FloodingKey {
+        /**
+         * Номер ключа
+         */
+        final int id;
+
+        FloodingKey(int id) {
+            this.id = id;
+        }
+
+        @Override
+        public boolean equals(Object object) {
+            return object instanceof FloodingKey other && other.getClass() == getClass() && other.id == id;
+        }
+
+        @Override
+        public int hashCode() {
+            return FLOODING_HASH;
+        }
+
+        @Override
+        public String toString() {
+            return "flooding " + id;
+        }
+    }
+
+    /**
+     * Ключ хэш-флуда, упорядоченный по номеру
+     */
+    static final class ComparableFloodingKey extends FloodingKey implements Comparable<ComparableFloodingKey> {
+        ComparableFloodingKey(int id) {
+            super(id);
+        }
+
+        @Override
+        public int compareTo(ComparableFloodingKey other) {
+            return Integer.compare(id, other.id);
+        }
+    }
+}
@@ -0,0 +1,60 @@
+package HashMap;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Реализации Map, которые сравниваются в бенчмарках. java.util.HashMap служит эталоном
+ */
+public enum MapImplementation {
+    HASH_MAP {
+        @Override
+        Map<Object, Object> create(int capacity) {
+            return new HashMap<>(capacity);
+        }
+    },
+    CUSTOM_MAP {
+        @Override
+        Map<Object, Object> create(int capacity) {
+            return new CustomMap<>(capacity);
+        }
+    },
+    CUSTOM_MAP_INCREMENTAL {
+        @Override
+        Map<Object, Object> create(int capacity) {
+            return new CustomMap<>(capacity, 0.75f, true);
+        }
+    },
+    OPEN_ADDRESSING {
+        @Override
+        Map<Object, Object> create(int capacity) {
+            return new CustomOpenAddressingMap<>(capacity);
+        }
+    },
+    COMPACT {
+        @Override
+        Map<Object, Object> create(int capacity) {
+            return new CustomCompactMap<>(capacity);
+        }
+    },
+    SWISS {
+        @Override
+        Map<Object, Object> create(int capacity) {
+            return new CustomSwissMap<>(capacity);
+        }
+    },
+    CONCURRENT {
+        @Override
+        Map<Object, Object> create(int capacity) {
+            return new CustomConcurrentMap<>(capacity);
+        }
+    };
+
+    /**
+     * Метод создает пустую мапу
+     *
+     * @param capacity начальная длина массива
+     * @return мапа
+     */
+    abstract Map<Object, Object> create(int capacity);
+}
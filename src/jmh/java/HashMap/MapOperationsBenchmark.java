@@ -0,0 +1,208 @@
+package HashMap;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Бенчмарк основных операций Map для всех реализаций, размеров и видов ключей.
+ * Операции над заполненной мапой берут ключи из заранее перемешанных массивов,
+ * чтобы не измерять создание ключей и не попадать все время в одни и те же корзины.
+ * Для CustomMap в конце прогона печатается распределение длин цепочек из stats(),
+ * чтобы рядом с пропускной способностью было видно, как хэш раскладывает ключи STRING и INTEGER.
+ */
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms6g", "-Xmx6g"})
+@State(Scope.Benchmark)
+public class MapOperationsBenchmark {
+    /**
+     * Количество ключей, по которым ходят точечные операции
+     */
+    private static final int LOOKUP_KEYS = 1 << 16;
+
+    @Param({"HASH_MAP", "CUSTOM_MAP", "CUSTOM_MAP_INCREMENTAL", "OPEN_ADDRESSING", "COMPACT", "SWISS", "CONCURRENT"})
+    public MapImplementation implementation;
+
+    @Param({"STRING", "INTEGER", "COLLIDING"})
+    public KeyType keyType;
+
+    @Param({"16", "1000", "100000", "1000000", "10000000"})
+    public int size;
+
+    /**
+     * Все ключи заполненной мапы
+     */
+    private Object[] keys;
+    /**
+     * Перемешанная выборка присутствующих ключей
+     */
+    private Object[] hitKeys;
+    /**
+     * Ключи, которых нет в мапе
+     */
+    private Object[] missKeys;
+    /**
+     * Заполненная мапа
+     */
+    private Map<Object, Object> map;
+    /**
+     * Значение, которого нет в мапе: containsValue обходит всю таблицу
+     */
+    private final Object absentValue = new Object();
+    /**
+     * Позиция в массивах ключей
+     */
+    private int cursor;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        keys = keyType.keys(0, size);
+        map = implementation.create(16);
+        for (Object key : keys) {
+            map.put(key, key);
+        }
+        Random random = new Random(42);
+        hitKeys = new Object[LOOKUP_KEYS];
+        for (int i = 0; i < LOOKUP_KEYS; i++) {
+            hitKeys[i] = keys[random.nextInt(size)];
+        }
+        missKeys = keyType.keys(size, LOOKUP_KEYS);
+    }
+
+    @TearDown(Level.Trial)
+    public void printChainLengths() {
+        if (!(map instanceof CustomMap<Object, Object> customMap)) {
+            return;
+        }
+        CustomMapStats stats = customMap.stats();
+        StringBuilder histogram = new StringBuilder();
+        int[] chains = stats.getChainLengthHistogram();
+        for (int length = 0; length < chains.length; length++) {
+            if (chains[length] != 0) {
+                histogram.append(' ').append(length).append('=').append(chains[length]);
+            }
+        }
+        System.out.printf("%n%s %s size=%d capacity=%d load=%.3f longestChain=%d treeBins=%d chains:%s%n",
+                implementation, keyType, stats.getSize(), stats.getCapacity(), stats.getLoad(),
+                stats.getLongestChain(), stats.getTreeBins(), histogram);
+    }
+
+    /**
+     * Метод возвращает следующую позицию в массивах ключей
+     *
+     * @return позиция
+     */
+    private int next() {
+        return cursor = (cursor + 1) & (LOOKUP_KEYS - 1);
+    }
+
+    @Benchmark
+    public Object getHit() {
+        return map.get(hitKeys[next()]);
+    }
+
+    @Benchmark
+    public Object getMiss() {
+        return map.get(missKeys[next()]);
+    }
+
+    @Benchmark
+    public boolean containsKeyHit() {
+        return map.containsKey(hitKeys[next()]);
+    }
+
+    @Benchmark
+    public boolean containsKeyMiss() {
+        return map.containsKey(missKeys[next()]);
+    }
+
+    /**
+     * Замена значения существующего ключа
+     */
+    @Benchmark
+    public Object putUpdate() {
+        Object key = hitKeys[next()];
+        return map.put(key, key);
+    }
+
+    /**
+     * Вставка нового ключа и его удаление: размер мапы не меняется между вызовами
+     */
+    @Benchmark
+    public Object putInsertAndRemove() {
+        Object key = missKeys[next()];
+        map.put(key, key);
+        return map.remove(key);
+    }
+
+    /**
+     * Удаление существующего ключа и его возврат
+     */
+    @Benchmark
+    public Object removeAndReinsert() {
+        Object key = hitKeys[next()];
+        Object value = map.remove(key);
+        map.put(key, value);
+        return value;
+    }
+
+    @Benchmark
+    public boolean containsValueMiss() {
+        return map.containsValue(absentValue);
+    }
+
+    @Benchmark
+    public void iterateEntrySet(Blackhole blackhole) {
+        for (Map.Entry<Object, Object> entry : map.entrySet()) {
+            blackhole.consume(entry.getKey());
+            blackhole.consume(entry.getValue());
+        }
+    }
+
+    @Benchmark
+    public void iterateKeySet(Blackhole blackhole) {
+        for (Object key : map.keySet()) {
+            blackhole.consume(key);
+        }
+    }
+
+    /**
+     * Копирование заполненной мапы в новую мапу той же реализации
+     */
+    @Benchmark
+    public Map<Object, Object> putAll() {
+        Map<Object, Object> copy = implementation.create(16);
+        copy.putAll(map);
+        return copy;
+    }
+
+    /**
+     * Заполнение мапы с длиной массива по умолчанию: включает все расширения
+     */
+    @Benchmark
+    public Map<Object, Object> fillWithResize() {
+        Map<Object, Object> filled = implementation.create(16);
+        for (Object key : keys) {
+            filled.put(key, key);
+        }
+        return filled;
+    }
+
+    /**
+     * Заполнение мапы, созданной сразу нужного размера: разница с fillWithResize — цена расширений
+     */
+    @Benchmark
+    public Map<Object, Object> fillPresized() {
+        Map<Object, Object> filled = implementation.create((int) (size / 0.75f) + 1);
+        for (Object key : keys) {
+            filled.put(key, key);
+        }
+        return filled;
+    }
+}
@@ -0,0 +1,118 @@
+package HashMap;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Бенчмарк нагрузки на кучу от 2 млн строковых записей в CustomMap и CustomOffHeapMap.
+ * Кроме времени заполнения выводит живую кучу после полной сборки (liveHeapBytes),
+ * суммарную паузу сборщика во время заполнения (fillGcMillis) и длительность полной сборки
+ * при заполненной мапе (fullGcMillis): у CUSTOM_MAP сборщик обходит все узлы и строки,
+ * у OFF_HEAP в куче остаются только буферы индекса и чанков.
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = {"-Xms6g", "-Xmx6g", "-XX:MaxDirectMemorySize=8g"})
+@State(Scope.Benchmark)
+public class OffHeapGcBenchmark {
+    @Param({"OFF_HEAP", "CUSTOM_MAP"})
+    public String implementation;
+
+    @Param({"2000000"})
+    public int size;
+
+    /**
+     * Заполненная мапа, которая должна пережить полную сборку
+     */
+    private Map<String, String> map;
+    /**
+     * Занятая куча до заполнения
+     */
+    private long baselineHeap;
+
+    /**
+     * Счетчики памяти и пауз сборщика за одну итерацию
+     */
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class HeapCounters {
+        /**
+         * Живая куча после полной сборки за вычетом кучи до заполнения, байты
+         */
+        public long liveHeapBytes;
+        /**
+         * Суммарная пауза сборщика во время заполнения, миллисекунды
+         */
+        public long fillGcMillis;
+        /**
+         * Длительность полной сборки при заполненной мапе, миллисекунды
+         */
+        public long fullGcMillis;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            liveHeapBytes = 0;
+            fillGcMillis = 0;
+            fullGcMillis = 0;
+        }
+    }
+
+    @Setup(Level.Iteration)
+    public void setUp() {
+        System.gc();
+        baselineHeap = usedHeap();
+    }
+
+    @TearDown(Level.Iteration)
+    public void tearDown() {
+        if (map instanceof CustomOffHeapMap<String, String> offHeapMap) {
+            offHeapMap.close();
+        }
+        map = null;
+    }
+
+    @Benchmark
+    public int fill(HeapCounters counters) {
+        long gcBefore = gcMillis();
+        map = implementation.equals("OFF_HEAP")
+                ? new CustomOffHeapMap<>(Serializer.STRING, Serializer.STRING)
+                : new CustomMap<>();
+        for (int i = 0; i < size; i++) {
+            map.put("key " + i, "value " + i);
+        }
+        long gcFilled = gcMillis();
+        System.gc();
+        counters.fullGcMillis = gcMillis() - gcFilled;
+        counters.fillGcMillis = gcFilled - gcBefore;
+        counters.liveHeapBytes = usedHeap() - baselineHeap;
+        return map.size();
+    }
+
+    /**
+     * Метод возвращает занятую кучу
+     *
+     * @return байты
+     */
+    private static long usedHeap() {
+        return ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed();
+    }
+
+    /**
+     * Метод возвращает суммарное время всех сборок с запуска JVM
+     *
+     * @return миллисекунды
+     */
+    private static long gcMillis() {
+        long total = 0;
+        for (GarbageCollectorMXBean collector : ManagementFactory.getGarbageCollectorMXBeans()) {
+            total += Math.max(0, collector.getCollectionTime());
+        }
+        return total;
+    }
+}
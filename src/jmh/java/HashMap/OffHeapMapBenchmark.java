@@ -0,0 +1,87 @@
+package HashMap;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Бенчмарк мапы вне кучи против CustomMap на строковых ключах и значениях.
+ * Профилировщик GC показывает цену десериализации при каждом get и отсутствие
+ * долгоживущих объектов в куче у CustomOffHeapMap.
+ */
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms6g", "-Xmx6g", "-XX:MaxDirectMemorySize=8g"})
+@State(Scope.Benchmark)
+public class OffHeapMapBenchmark {
+    /**
+     * Количество ключей, по которым ходят точечные операции
+     */
+    private static final int LOOKUP_KEYS = 1 << 16;
+
+    @Param({"OFF_HEAP", "CUSTOM_MAP"})
+    public String implementation;
+
+    @Param({"1000", "1000000", "10000000"})
+    public int size;
+
+    /**
+     * Перемешанная выборка присутствующих ключей
+     */
+    private String[] hitKeys;
+    /**
+     * Измеряемая мапа
+     */
+    private Map<String, String> map;
+    /**
+     * Позиция в массиве ключей
+     */
+    private int cursor;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        map = implementation.equals("OFF_HEAP")
+                ? new CustomOffHeapMap<>(Serializer.STRING, Serializer.STRING)
+                : new CustomMap<>();
+        for (int i = 0; i < size; i++) {
+            map.put("key " + i, "value " + i);
+        }
+        Random random = new Random(42);
+        hitKeys = new String[LOOKUP_KEYS];
+        for (int i = 0; i < LOOKUP_KEYS; i++) {
+            hitKeys[i] = "key " + random.nextInt(size);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        if (map instanceof CustomOffHeapMap<String, String> offHeapMap) {
+            offHeapMap.close();
+        }
+    }
+
+    /**
+     * Метод возвращает следующий ключ
+     *
+     * @return ключ
+     */
+    private String nextKey() {
+        cursor = (cursor + 1) & (LOOKUP_KEYS - 1);
+        return hitKeys[cursor];
+    }
+
+    @Benchmark
+    public String get() {
+        return map.get(nextKey());
+    }
+
+    @Benchmark
+    public String putUpdate() {
+        String key = nextKey();
+        return map.put(key, key);
+    }
+}
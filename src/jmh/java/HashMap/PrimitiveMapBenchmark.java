@@ -0,0 +1,126 @@
+package HashMap;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Бенчмарк примитивных мап против мап с упакованными ключами.
+ * С профилировщиком GC видно, что get и put в CustomIntIntMap и CustomLongLongMap не выделяют память.
+ */
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms6g", "-Xmx6g"})
+@State(Scope.Benchmark)
+public class PrimitiveMapBenchmark {
+    /**
+     * Количество ключей, по которым ходят точечные операции
+     */
+    private static final int LOOKUP_KEYS = 1 << 16;
+
+    @Param({"1000", "1000000", "10000000"})
+    public int size;
+
+    /**
+     * Перемешанная выборка присутствующих ключей
+     */
+    private int[] hitKeys;
+    /**
+     * Мапа int-int
+     */
+    private CustomIntIntMap intIntMap;
+    /**
+     * Мапа long-long
+     */
+    private CustomLongLongMap longLongMap;
+    /**
+     * Эталон с упакованными ключами
+     */
+    private Map<Integer, Integer> hashMap;
+    /**
+     * CustomMap с упакованными ключами
+     */
+    private Map<Integer, Integer> customMap;
+    /**
+     * Позиция в массиве ключей
+     */
+    private int cursor;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        intIntMap = new CustomIntIntMap();
+        longLongMap = new CustomLongLongMap();
+        hashMap = new HashMap<>();
+        customMap = new CustomMap<>();
+        for (int key = 0; key < size; key++) {
+            intIntMap.put(key, key);
+            longLongMap.put(key, key);
+            hashMap.put(key, key);
+            customMap.put(key, key);
+        }
+        Random random = new Random(42);
+        hitKeys = new int[LOOKUP_KEYS];
+        for (int i = 0; i < LOOKUP_KEYS; i++) {
+            hitKeys[i] = random.nextInt(size);
+        }
+    }
+
+    /**
+     * Метод возвращает следующий ключ
+     *
+     * @return ключ
+     */
+    private int nextKey() {
+        cursor = (cursor + 1) & (LOOKUP_KEYS - 1);
+        return hitKeys[cursor];
+    }
+
+    @Benchmark
+    public int getIntInt() {
+        return intIntMap.get(nextKey());
+    }
+
+    @Benchmark
+    public long getLongLong() {
+        return longLongMap.get(nextKey());
+    }
+
+    @Benchmark
+    public Integer getHashMap() {
+        return hashMap.get(nextKey());
+    }
+
+    @Benchmark
+    public Integer getCustomMap() {
+        return customMap.get(nextKey());
+    }
+
+    @Benchmark
+    public int putIntInt() {
+        int key = nextKey();
+        return intIntMap.put(key, key);
+    }
+
+    @Benchmark
+    public long putLongLong() {
+        int key = nextKey();
+        return longLongMap.put(key, key);
+    }
+
+    @Benchmark
+    public Integer putHashMap() {
+        int key = nextKey();
+        return hashMap.put(key, key);
+    }
+
+    @Benchmark
+    public Integer putCustomMap() {
+        int key = nextKey();
+        return customMap.put(key, key);
+    }
+}
@@ -0,0 +1,58 @@
+package HashMap;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Бенчмарк задержки отдельного put при росте мапы с длины по умолчанию.
+ * В режиме SampleTime видны хвосты распределения: у обычного расширения редкие put
+ * переносят всю таблицу, у инкрементального перенос размазан по последующим операциям.
+ * Достигнув size элементов, мапа заменяется новой пустой, чтобы рост повторялся.
+ */
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms6g", "-Xmx6g"})
+@State(Scope.Benchmark)
+public class ResizeLatencyBenchmark {
+    @Param({"HASH_MAP", "CUSTOM_MAP", "CUSTOM_MAP_INCREMENTAL", "OPEN_ADDRESSING", "CONCURRENT"})
+    public MapImplementation implementation;
+
+    @Param({"STRING", "INTEGER"})
+    public KeyType keyType;
+
+    @Param({"1000000", "10000000"})
+    public int size;
+
+    /**
+     * Ключи в порядке вставки
+     */
+    private Object[] keys;
+    /**
+     * Заполняемая мапа
+     */
+    private Map<Object, Object> map;
+    /**
+     * Количество ключей в текущей мапе
+     */
+    private int inserted;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        keys = keyType.keys(0, size);
+        map = implementation.create(16);
+    }
+
+    @Benchmark
+    public Object put() {
+        if (inserted == size) {
+            map = implementation.create(16);
+            inserted = 0;
+        }
+        Object key = keys[inserted++];
+        return map.put(key, key);
+    }
+}
@@ -0,0 +1,121 @@
+package HashMap;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Бенчмарк поиска строковых ключей, пришедших в изменяемом буфере. HashMap требует
+ * скопировать буфер в новую String на каждый поиск, а CustomMap со стратегией
+ * CHAR_SEQUENCE или BYTE_ARRAY ищет по самому буферу. Запуск с -prof gc показывает,
+ * что поиск по буферу не выделяет памяти
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms4g", "-Xmx4g"})
+@State(Scope.Benchmark)
+public class StrategyBenchmark {
+    /**
+     * Количество ключей, по которым ходят операции
+     */
+    private static final int LOOKUP_KEYS = 1 << 12;
+
+    @Param({"1000", "1000000"})
+    public int size;
+
+    /**
+     * Мапа со строковыми ключами
+     */
+    private Map<String, Integer> hashMap;
+    /**
+     * Мапа с ключами-последовательностями символов
+     */
+    private CustomMap<CharSequence, Integer> charSequenceMap;
+    /**
+     * Мапа с ключами-массивами байт
+     */
+    private CustomMap<byte[], Integer> byteArrayMap;
+    /**
+     * Символы искомых ключей
+     */
+    private char[][] lookupChars;
+    /**
+     * Байты искомых ключей в UTF-8, читаемые как заимствованные буферы
+     */
+    private byte[][] lookupBytes;
+    /**
+     * Переиспользуемый буфер символов
+     */
+    private StringBuilder buffer;
+    /**
+     * Позиция в массивах ключей
+     */
+    private int cursor;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        hashMap = new HashMap<>();
+        charSequenceMap = new CustomMap<>(HashStrategy.CHAR_SEQUENCE);
+        byteArrayMap = new CustomMap<>(HashStrategy.BYTE_ARRAY);
+        for (int i = 0; i < size; i++) {
+            String key = "key-" + i;
+            hashMap.put(key, i);
+            charSequenceMap.put(key, i);
+            byteArrayMap.put(key.getBytes(StandardCharsets.UTF_8), i);
+        }
+        Random random = new Random(42);
+        lookupChars = new char[LOOKUP_KEYS][];
+        lookupBytes = new byte[LOOKUP_KEYS][];
+        for (int i = 0; i < LOOKUP_KEYS; i++) {
+            String key = "key-" + random.nextInt(size);
+            lookupChars[i] = key.toCharArray();
+            lookupBytes[i] = key.getBytes(StandardCharsets.UTF_8);
+        }
+        buffer = new StringBuilder();
+    }
+
+    /**
+     * Метод возвращает следующую позицию в массивах ключей
+     *
+     * @return позиция
+     */
+    private int next() {
+        return cursor = (cursor + 1) & (LOOKUP_KEYS - 1);
+    }
+
+    /**
+     * Метод заполняет переиспользуемый буфер символами следующего ключа
+     *
+     * @return буфер
+     */
+    private StringBuilder nextBuffer() {
+        buffer.setLength(0);
+        return buffer.append(lookupChars[next()]);
+    }
+
+    @Benchmark
+    public Integer hashMapCharsCopy() {
+        return hashMap.get(nextBuffer().toString());
+    }
+
+    @Benchmark
+    public Integer charSequenceBorrowed() {
+        return charSequenceMap.get(nextBuffer());
+    }
+
+    @Benchmark
+    public Integer hashMapBytesDecode() {
+        return hashMap.get(new String(lookupBytes[next()], StandardCharsets.UTF_8));
+    }
+
+    @Benchmark
+    public Integer byteArrayBorrowed() {
+        return byteArrayMap.get(lookupBytes[next()]);
+    }
+}
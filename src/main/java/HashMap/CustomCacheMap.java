@@ -0,0 +1,946 @@
+package HashMap;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiConsumer;
+import java.util.function.BiFunction;
+import java.util.function.LongSupplier;
+import java.util.function.ToIntBiFunction;
+
+/**
+ * Класс описывает ограниченный кэш на основе CustomMap.
+ * Узлы таблицы дополнительно связаны в списки порядка доступа, поэтому вытеснение выполняется за O(1).
+ * Ограничение задается количеством элементов или суммарным весом, который считает weigher.
+ * Политика LRU вытесняет давно не использованный элемент. Политика W_TINY_LFU делит кэш
+ * на небольшое окно LRU (1% веса) и основную часть из испытательного и защищенного сегментов (80%).
+ * Элемент, покидающий окно, попадает в основную часть, только если по счетчику частот FrequencySketch
+ * он популярнее элемента, который пришлось бы вытеснить вместо него.
+ * Элементам можно задать срок жизни: общий после записи или после последнего обращения
+ * (expireAfterWrite, expireAfterAccess) или свой для отдельной записи (put с ttl).
+ * Сроки хранятся в иерархическом колесе таймеров TimerWheel, связанном с узлами, поэтому
+ * удаление истекших элементов стоит O(истекших), а не O(size). Колесо продвигается лениво
+ * в начале get, containsKey, put и remove, а также методом cleanUp(), который можно вызывать
+ * по своему расписанию из того же потока. Истекший элемент никогда не возвращается get,
+ * но до очередной операции учитывается в size() и виден при обходе.
+ * Время берется из часов, которые можно подменить (clock), например в тестах.
+ * Вытесненные и истекшие элементы передаются слушателям. Явные удаления слушателям не передаются.
+ * Тип параметров:
+ * @param <K> тип ключей.
+ * @param <V> тип значений.
+ */
+public class CustomCacheMap<K, V> extends CustomMap<K, V> {
+    /**
+     * Политика вытеснения
+     */
+    public enum Policy {
+        /**
+         * Вытеснение давно не использованных элементов
+         */
+        LRU,
+        /**
+         * Окно LRU и сегментированный LRU с фильтром допуска TinyLFU
+         */
+        W_TINY_LFU
+    }
+
+    /**
+     * Номер списка окна (в режиме LRU единственного списка)
+     */
+    private static final byte WINDOW = 0;
+    /**
+     * Номер испытательного списка основной части
+     */
+    private static final byte PROBATION = 1;
+    /**
+     * Номер защищенного списка основной части
+     */
+    private static final byte PROTECTED = 2;
+    /**
+     * Доля веса, отводимая окну в режиме W_TINY_LFU
+     */
+    private static final double WINDOW_PERCENT = 0.01;
+    /**
+     * Доля основной части, отводимая защищенному списку
+     */
+    private static final double PROTECTED_PERCENT = 0.8;
+
+    /**
+     * Максимальный суммарный вес
+     */
+    private final long maximumWeight;
+    /**
+     * Функция веса элемента
+     */
+    private final ToIntBiFunction<? super K, ? super V> weigher;
+    /**
+     * Счетчик частот, null в режиме LRU
+     */
+    private final FrequencySketch sketch;
+    /**
+     * Максимальный вес окна
+     */
+    private final long windowMaximum;
+    /**
+     * Максимальный вес защищенного списка
+     */
+    private final long protectedMaximum;
+    /**
+     * Окно, куда попадают новые элементы. В режиме LRU единственный список
+     */
+    private final AccessQueue<K, V> window = new AccessQueue<>();
+    /**
+     * Испытательный список основной части: элементы, пережившие окно
+     */
+    private final AccessQueue<K, V> probation = new AccessQueue<>();
+    /**
+     * Защищенный список основной части: элементы, к которым обращались повторно
+     */
+    private final AccessQueue<K, V> protectedQueue = new AccessQueue<>();
+    /**
+     * Слушатели вытеснения
+     */
+    private final List<BiConsumer<? super K, ? super V>> evictionListeners = new ArrayList<>();
+    /**
+     * Суммарный вес элементов
+     */
+    private long weightedSize;
+    /**
+     * Последний записанный узел: узел тяжелее всего кэша вытесняется первым
+     */
+    private LinkedNode<K, V> lastWritten;
+    /**
+     * Количество попаданий get
+     */
+    private long hitCount;
+    /**
+     * Количество промахов get
+     */
+    private long missCount;
+    /**
+     * Количество вытесненных элементов
+     */
+    private long evictionCount;
+    /**
+     * Количество истекших элементов
+     */
+    private long expirationCount;
+    /**
+     * Часы в наносекундах
+     */
+    private LongSupplier clock = System::nanoTime;
+    /**
+     * Показание часов, от которого отсчитываются сроки
+     */
+    private long clockBase;
+    /**
+     * Срок жизни после записи в наносекундах или -1
+     */
+    private long expireAfterWriteNanos = -1;
+    /**
+     * Срок жизни после обращения в наносекундах или -1
+     */
+    private long expireAfterAccessNanos = -1;
+    /**
+     * Срок жизни для текущего вызова put с ttl или -1
+     */
+    private long pendingTtlNanos = -1;
+    /**
+     * Колесо таймеров, создается при первом использовании сроков жизни
+     */
+    private TimerWheel<K, V> timerWheel;
+
+    /**
+     * Конструктор LRU-кэша на заданное количество элементов
+     *
+     * @param maximumSize максимальное количество элементов
+     */
+    public CustomCacheMap(long maximumSize) {
+        this(maximumSize, Policy.LRU);
+    }
+    /**
+     * Конструктор кэша на заданное количество элементов
+     *
+     * @param maximumSize максимальное количество элементов
+     * @param policy      политика вытеснения
+     */
+    public CustomCacheMap(long maximumSize, Policy policy) {
+        this(maximumSize, (key, value) -> 1, policy);
+    }
+    /**
+     * Конструктор кэша с ограничением по весу
+     *
+     * @param maximumWeight максимальный суммарный вес
+     * @param weigher       функция веса элемента, вес не может быть отрицательным
+     * @param policy        политика вытеснения
+     */
+    public CustomCacheMap(long maximumWeight, ToIntBiFunction<? super K, ? super V> weigher, Policy policy) {
+        if (maximumWeight < 0) {
+            throw new IllegalArgumentException("Illegal maximum weight: " + maximumWeight);
+        }
+        this.maximumWeight = maximumWeight;
+        this.weigher = Objects.requireNonNull(weigher);
+        if (Objects.requireNonNull(policy) == Policy.LRU) {
+            this.sketch = null;
+            this.windowMaximum = maximumWeight;
+            this.protectedMaximum = 0;
+        } else {
+            this.sketch = new FrequencySketch(maximumWeight);
+            this.windowMaximum = Math.max(1, (long) (maximumWeight * WINDOW_PERCENT));
+            this.protectedMaximum = (long) ((maximumWeight - windowMaximum) * PROTECTED_PERCENT);
+        }
+    }
+    /**
+     * Метод возвращает значение по ключу и отмечает доступ к элементу
+     *
+     * @param key ключ по которому возвращаем значение
+     * @return значение полученное по ключу
+     */
+    @Override
+    public V get(Object key) {
+        expireEntries();
+        if (sketch != null) {
+            sketch.increment(key);
+        }
+        LinkedNode<K, V> node = getLiveNode(key);
+        if (node == null) {
+            missCount++;
+            return null;
+        }
+        hitCount++;
+        if (expireAfterAccessNanos >= 0) {
+            scheduleExpiry(node, expireAfterAccessNanos);
+        }
+        onAccess(node);
+        return node.value;
+    }
+    /**
+     * Метод проверяет имеется ли ключ в кэше. Порядок доступа не меняется
+     *
+     * @param key ключ который нужно проверить есть ли он в мапе
+     * @return ключ есть и его срок не истек
+     */
+    @Override
+    public boolean containsKey(Object key) {
+        expireEntries();
+        return getLiveNode(key) != null;
+    }
+    /**
+     * Метод добавляет ключ/значение со сроком жизни по умолчанию
+     *
+     * @param key   ключ с которым должно быть связано значение
+     * @param value значение, которое связано с ключом
+     * @return добавлено значение, которое соответсвует ключу
+     */
+    @Override
+    public V put(K key, V value) {
+        expireEntries();
+        return super.put(key, value);
+    }
+    /**
+     * Метод добавляет ключ/значение с собственным сроком жизни, который заменяет expireAfterWrite
+     *
+     * @param key   ключ с которым должно быть связано значение
+     * @param value значение, которое связано с ключом
+     * @param ttl   срок жизни
+     * @param unit  единица измерения срока
+     * @return добавлено значение, которое соответсвует ключу
+     */
+    public V put(K key, V value, long ttl, TimeUnit unit) {
+        if (ttl < 0) {
+            throw new IllegalArgumentException("Illegal ttl: " + ttl);
+        }
+        long ttlNanos = unit.toNanos(ttl);
+        ensureTimerWheel();
+        pendingTtlNanos = ttlNanos;
+        try {
+            return put(key, value);
+        } finally {
+            pendingTtlNanos = -1;
+        }
+    }
+    /**
+     * Метод удаляет ключ и значение связанное с ним
+     *
+     * @param key ключ который должен быть удален
+     * @return удаленное значение
+     */
+    @Override
+    public V remove(Object key) {
+        expireEntries();
+        return super.remove(key);
+    }
+    /**
+     * Метод возвращает значение по ключу через get, поэтому обращение учитывается в счетчиках
+     *
+     * @param key          ключ по которому возвращаем значение
+     * @param defaultValue значение по умолчанию
+     * @return значение ключа или defaultValue
+     */
+    @Override
+    public V getOrDefault(Object key, V defaultValue) {
+        V value = get(key);
+        return value != null || containsKey(key) ? value : defaultValue;
+    }
+    /**
+     * Метод добавляет значение, если ключа нет или его срок истек
+     *
+     * @param key   ключ
+     * @param value значение
+     * @return предыдущее значение или null
+     */
+    @Override
+    public V putIfAbsent(K key, V value) {
+        expireKey(key);
+        return super.putIfAbsent(key, value);
+    }
+    /**
+     * Метод заменяет значение живого ключа
+     *
+     * @param key   ключ
+     * @param value новое значение
+     * @return предыдущее значение или null, если ключа нет
+     */
+    @Override
+    public V replace(K key, V value) {
+        expireKey(key);
+        return super.replace(key, value);
+    }
+    /**
+     * Метод заменяет значение живого ключа, если текущее значение равно oldValue
+     *
+     * @param key      ключ
+     * @param oldValue ожидаемое текущее значение
+     * @param newValue новое значение
+     * @return было ли значение заменено
+     */
+    @Override
+    public boolean replace(K key, V oldValue, V newValue) {
+        expireKey(key);
+        return super.replace(key, oldValue, newValue);
+    }
+    /**
+     * Метод добавляет все элементы другой мапы по одному через put,
+     * чтобы каждый элемент получил срок жизни и прошел через политику вытеснения
+     *
+     * @param map мапа в которую добавляются элементы
+     */
+    @Override
+    public void putAll(Map<? extends K, ? extends V> map) {
+        for (Entry<? extends K, ? extends V> entry : map.entrySet()) {
+            put(entry.getKey(), entry.getValue());
+        }
+    }
+    /**
+     * Метод возвращает значения для набора ключей через get,
+     * поэтому каждое обращение учитывается в счетчиках и порядке доступа
+     *
+     * @param keys ключи
+     * @return мапа найденных ключей и их значений
+     */
+    @Override
+    public Map<K, V> getAll(Collection<? extends K> keys) {
+        Map<K, V> result = new CustomMap<>();
+        for (K key : keys) {
+            V value = get(key);
+            if (value != null) {
+                result.put(key, value);
+            }
+        }
+        return result;
+    }
+    /**
+     * Метод удаляет все заданные ключи
+     *
+     * @param keys ключи, которые нужно удалить
+     * @return количество удаленных элементов
+     */
+    @Override
+    public int removeAll(Collection<?> keys) {
+        expireEntries();
+        return super.removeAll(keys);
+    }
+    /**
+     * Метод заменяет значения последовательно через put, чтобы пересчитать веса
+     * и сроки жизни. Пул и порог параллелизма не используются
+     *
+     * @param pool                 пул потоков
+     * @param parallelismThreshold минимальный размер мапы для параллельного обхода
+     * @param function             функция нового значения
+     */
+    @Override
+    public void replaceAll(ForkJoinPool pool, long parallelismThreshold,
+                           BiFunction<? super K, ? super V, ? extends V> function) {
+        Objects.requireNonNull(function);
+        expireEntries();
+        for (K key : new ArrayList<>(keySet())) {
+            Node<K, V> node = getNode(key);
+            if (node != null) {
+                super.put(key, function.apply(key, node.value));
+            }
+        }
+    }
+    /**
+     * Метод очищает кэш. Счетчики попаданий и вытеснений сохраняются
+     */
+    @Override
+    public void clear() {
+        if (timerWheel != null) {
+            timerWheel.clear();
+        }
+        super.clear();
+        window.clear();
+        probation.clear();
+        protectedQueue.clear();
+        weightedSize = 0;
+        lastWritten = null;
+    }
+
+    /**
+     * Метод задает срок жизни элементов после записи.
+     * Настраивать сроки и часы нужно до добавления элементов
+     *
+     * @param duration срок жизни
+     * @param unit     единица измерения срока
+     * @return этот кэш
+     */
+    public CustomCacheMap<K, V> expireAfterWrite(long duration, TimeUnit unit) {
+        expireAfterWriteNanos = toConfiguredNanos(duration, unit);
+        return this;
+    }
+
+    /**
+     * Метод задает срок жизни элементов после последнего обращения (get или запись)
+     *
+     * @param duration срок жизни
+     * @param unit     единица измерения срока
+     * @return этот кэш
+     */
+    public CustomCacheMap<K, V> expireAfterAccess(long duration, TimeUnit unit) {
+        expireAfterAccessNanos = toConfiguredNanos(duration, unit);
+        return this;
+    }
+
+    /**
+     * Метод подменяет часы кэша
+     *
+     * @param clock часы, возвращающие время в наносекундах
+     * @return этот кэш
+     */
+    public CustomCacheMap<K, V> clock(LongSupplier clock) {
+        if (!isEmpty()) {
+            throw new IllegalStateException("Clock must be set before entries are added");
+        }
+        this.clock = Objects.requireNonNull(clock);
+        timerWheel = null;
+        if (expireAfterWriteNanos >= 0 || expireAfterAccessNanos >= 0) {
+            ensureTimerWheel();
+        }
+        return this;
+    }
+
+    /**
+     * Метод удаляет истекшие элементы. Его можно вызывать по расписанию,
+     * если кэш долго не используется, но только из потока, который работает с кэшем
+     */
+    public void cleanUp() {
+        expireEntries();
+    }
+
+    /**
+     * Метод возвращает количество истекших и удаленных элементов
+     *
+     * @return количество истечений
+     */
+    public long getExpirationCount() {
+        return expirationCount;
+    }
+
+    /**
+     * Метод добавляет слушателя вытеснения
+     *
+     * @param listener функция от ключа и значения вытесненного элемента
+     */
+    public void addEvictionListener(BiConsumer<? super K, ? super V> listener) {
+        evictionListeners.add(Objects.requireNonNull(listener));
+    }
+
+    /**
+     * Метод возвращает суммарный вес элементов
+     *
+     * @return суммарный вес
+     */
+    public long weightedSize() {
+        return weightedSize;
+    }
+
+    /**
+     * Метод возвращает максимальный суммарный вес
+     *
+     * @return максимальный вес
+     */
+    public long maximumWeight() {
+        return maximumWeight;
+    }
+
+    /**
+     * Метод возвращает количество попаданий get
+     *
+     * @return количество попаданий
+     */
+    public long getHitCount() {
+        return hitCount;
+    }
+
+    /**
+     * Метод возвращает количество промахов get
+     *
+     * @return количество промахов
+     */
+    public long getMissCount() {
+        return missCount;
+    }
+
+    /**
+     * Метод возвращает долю попаданий среди всех get
+     *
+     * @return доля попаданий или 0, если get не вызывался
+     */
+    public double hitRate() {
+        long requests = hitCount + missCount;
+        return requests == 0 ? 0 : (double) hitCount / requests;
+    }
+
+    /**
+     * Метод возвращает количество вытесненных элементов
+     *
+     * @return количество вытеснений
+     */
+    public long getEvictionCount() {
+        return evictionCount;
+    }
+
+    @Override
+    Node<K, V> newNode(K key, V value, int hash, Node<K, V> next) {
+        LinkedNode<K, V> node = new LinkedNode<>(key, value, hash, next);
+        onInsert(node);
+        return node;
+    }
+
+    @Override
+    TreeNode<K, V> newTreeNode(K key, V value, int hash, Node<K, V> next) {
+        TreeNode<K, V> node = super.newTreeNode(key, value, hash, next);
+        onInsert(node);
+        return node;
+    }
+
+    @Override
+    Node<K, V> replacementNode(Node<K, V> node, Node<K, V> next) {
+        LinkedNode<K, V> replacement = new LinkedNode<>(node.key, node.value, node.hashCode, next);
+        transferLinks((LinkedNode<K, V>) node, replacement);
+        return replacement;
+    }
+
+    @Override
+    TreeNode<K, V> replacementTreeNode(Node<K, V> node, Node<K, V> next) {
+        TreeNode<K, V> replacement = super.replacementTreeNode(node, next);
+        transferLinks((LinkedNode<K, V>) node, replacement);
+        return replacement;
+    }
+
+    @Override
+    void afterNodeAccess(Node<K, V> node) {
+        LinkedNode<K, V> linked = (LinkedNode<K, V>) node;
+        int weight = weigh(linked.key, linked.value);
+        queueOf(linked).weight += weight - linked.weight;
+        weightedSize += weight - linked.weight;
+        linked.weight = weight;
+        lastWritten = linked;
+        scheduleWriteExpiry(linked);
+        onAccess(linked);
+        evict();
+    }
+
+    @Override
+    V computeValue(K key, BiFunction<? super K, ? super V, ? extends V> function,
+                   boolean onlyIfAbsent, boolean onlyIfPresent) {
+        expireKey(key);
+        return super.computeValue(key, function, onlyIfAbsent, onlyIfPresent);
+    }
+
+    @Override
+    void afterNodeInsertion() {
+        evict();
+    }
+
+    @Override
+    void afterNodeRemoval(Node<K, V> node) {
+        LinkedNode<K, V> linked = (LinkedNode<K, V>) node;
+        queueOf(linked).unlink(linked);
+        weightedSize -= linked.weight;
+        if (lastWritten == linked) {
+            lastWritten = null;
+        }
+        if (timerWheel != null) {
+            timerWheel.deschedule(linked);
+        }
+    }
+
+    /**
+     * Метод ставит новый узел в конец окна
+     *
+     * @param node новый узел
+     */
+    private void onInsert(LinkedNode<K, V> node) {
+        if (sketch != null) {
+            sketch.increment(node.key);
+        }
+        node.weight = weigh(node.key, node.value);
+        node.queue = WINDOW;
+        window.linkLast(node);
+        weightedSize += node.weight;
+        lastWritten = node;
+        node.expiresAt = Long.MAX_VALUE;
+        scheduleWriteExpiry(node);
+    }
+
+    /**
+     * Метод ищет узел и удаляет его, если срок жизни истек
+     *
+     * @param key ключ
+     * @return живой узел или null
+     */
+    private LinkedNode<K, V> getLiveNode(Object key) {
+        LinkedNode<K, V> node = (LinkedNode<K, V>) getNode(key);
+        if (node != null && timerWheel != null && node.expiresAt <= now()) {
+            expireNode(node);
+            return null;
+        }
+        return node;
+    }
+
+    /**
+     * Метод продвигает колесо таймеров и удаляет истекшие элементы
+     */
+    private void expireEntries() {
+        if (timerWheel != null) {
+            timerWheel.advance(now(), this::expireNode);
+        }
+    }
+
+    /**
+     * Метод удаляет истекшие элементы перед записью ключа, в том числе сам ключ,
+     * если его срок истек, но колесо до него еще не дошло
+     *
+     * @param key ключ
+     */
+    private void expireKey(Object key) {
+        expireEntries();
+        if (timerWheel != null) {
+            getLiveNode(key);
+        }
+    }
+
+    /**
+     * Метод удаляет истекший узел и оповещает слушателей
+     *
+     * @param node истекший узел
+     */
+    private void expireNode(LinkedNode<K, V> node) {
+        super.remove(node.key);
+        expirationCount++;
+        notifyListeners(node);
+    }
+
+    /**
+     * Метод назначает срок жизни записанному узлу: срок текущего put с ttl,
+     * иначе expireAfterWrite, иначе expireAfterAccess. Без сроков узел живет бессрочно
+     *
+     * @param node записанный узел
+     */
+    private void scheduleWriteExpiry(LinkedNode<K, V> node) {
+        long ttl = pendingTtlNanos >= 0 ? pendingTtlNanos
+                : expireAfterWriteNanos >= 0 ? expireAfterWriteNanos : expireAfterAccessNanos;
+        if (ttl >= 0) {
+            scheduleExpiry(node, ttl);
+        } else if (node.expiresAt != Long.MAX_VALUE) {
+            node.expiresAt = Long.MAX_VALUE;
+            timerWheel.deschedule(node);
+        }
+    }
+
+    /**
+     * Метод переносит срок жизни узла на ttl от текущего момента
+     *
+     * @param node узел
+     * @param ttl  срок жизни в наносекундах
+     */
+    private void scheduleExpiry(LinkedNode<K, V> node, long ttl) {
+        long now = now();
+        node.expiresAt = ttl > Long.MAX_VALUE - now ? Long.MAX_VALUE - 1 : now + ttl;
+        timerWheel.schedule(node);
+    }
+
+    /**
+     * Метод возвращает время по часам кэша от момента включения сроков жизни
+     *
+     * @return время в наносекундах
+     */
+    private long now() {
+        return clock.getAsLong() - clockBase;
+    }
+
+    /**
+     * Метод создает колесо таймеров при первом использовании сроков жизни
+     */
+    private void ensureTimerWheel() {
+        if (timerWheel == null) {
+            clockBase = clock.getAsLong();
+            timerWheel = new TimerWheel<>(0);
+        }
+    }
+
+    /**
+     * Метод проверяет и переводит настроенный срок жизни в наносекунды
+     *
+     * @param duration срок жизни
+     * @param unit     единица измерения срока
+     * @return срок в наносекундах
+     */
+    private long toConfiguredNanos(long duration, TimeUnit unit) {
+        if (duration < 0) {
+            throw new IllegalArgumentException("Illegal duration: " + duration);
+        }
+        if (!isEmpty()) {
+            throw new IllegalStateException("Expiration must be configured before entries are added");
+        }
+        long nanos = unit.toNanos(duration);
+        ensureTimerWheel();
+        return nanos;
+    }
+
+    /**
+     * Метод переупорядочивает узел после обращения к нему.
+     * Узел испытательного списка переходит в защищенный, а лишние узлы защищенного
+     * списка возвращаются в испытательный
+     *
+     * @param node узел, к которому обратились
+     */
+    private void onAccess(LinkedNode<K, V> node) {
+        if (node.queue != PROBATION) {
+            queueOf(node).moveToLast(node);
+            return;
+        }
+        probation.unlink(node);
+        node.queue = PROTECTED;
+        protectedQueue.linkLast(node);
+        while (protectedQueue.weight > protectedMaximum && protectedQueue.head != node) {
+            LinkedNode<K, V> demoted = protectedQueue.head;
+            protectedQueue.unlink(demoted);
+            demoted.queue = PROBATION;
+            probation.linkLast(demoted);
+        }
+    }
+
+    /**
+     * Метод вытесняет элементы, пока суммарный вес превышает максимальный
+     */
+    private void evict() {
+        if (lastWritten != null && lastWritten.weight > maximumWeight) {
+            evictNode(lastWritten);
+        }
+        if (sketch == null) {
+            while (weightedSize > maximumWeight) {
+                evictNode(window.head);
+            }
+            return;
+        }
+        LinkedNode<K, V> candidate = null;
+        while (window.weight > windowMaximum) {
+            candidate = window.head;
+            window.unlink(candidate);
+            candidate.queue = PROBATION;
+            probation.linkLast(candidate);
+        }
+        while (weightedSize > maximumWeight) {
+            LinkedNode<K, V> victim = probation.head != null ? probation.head
+                    : protectedQueue.head != null ? protectedQueue.head : window.head;
+            if (candidate == null || candidate == victim) {
+                candidate = null;
+                evictNode(victim);
+            } else if (sketch.frequency(candidate.key) > sketch.frequency(victim.key)) {
+                evictNode(victim);
+            } else {
+                evictNode(candidate);
+                candidate = null;
+            }
+        }
+    }
+
+    /**
+     * Метод удаляет узел из кэша и оповещает слушателей
+     *
+     * @param node вытесняемый узел
+     */
+    private void evictNode(LinkedNode<K, V> node) {
+        super.remove(node.key);
+        evictionCount++;
+        notifyListeners(node);
+    }
+
+    /**
+     * Метод передает удаленный узел слушателям
+     *
+     * @param node удаленный узел
+     */
+    private void notifyListeners(LinkedNode<K, V> node) {
+        for (BiConsumer<? super K, ? super V> listener : evictionListeners) {
+            listener.accept(node.key, node.value);
+        }
+    }
+
+    /**
+     * Метод переносит положение в списке со старого узла на заменяющий его
+     *
+     * @param node        старый узел
+     * @param replacement новый узел
+     */
+    private void transferLinks(LinkedNode<K, V> node, LinkedNode<K, V> replacement) {
+        AccessQueue<K, V> queue = queueOf(node);
+        replacement.weight = node.weight;
+        replacement.queue = node.queue;
+        replacement.before = node.before;
+        replacement.after = node.after;
+        if (replacement.before == null) {
+            queue.head = replacement;
+        } else {
+            replacement.before.after = replacement;
+        }
+        if (replacement.after == null) {
+            queue.tail = replacement;
+        } else {
+            replacement.after.before = replacement;
+        }
+        if (lastWritten == node) {
+            lastWritten = replacement;
+        }
+        replacement.expiresAt = node.expiresAt;
+        if (node.nextInWheel != null) {
+            replacement.previousInWheel = node.previousInWheel;
+            replacement.nextInWheel = node.nextInWheel;
+            replacement.previousInWheel.nextInWheel = replacement;
+            replacement.nextInWheel.previousInWheel = replacement;
+            node.previousInWheel = null;
+            node.nextInWheel = null;
+        }
+    }
+
+    /**
+     * Метод считает вес элемента
+     *
+     * @param key   ключ
+     * @param value значение
+     * @return вес
+     */
+    private int weigh(K key, V value) {
+        int weight = weigher.applyAsInt(key, value);
+        if (weight < 0) {
+            throw new IllegalArgumentException("Negative weight: " + weight);
+        }
+        return weight;
+    }
+
+    /**
+     * Метод возвращает список, в котором находится узел
+     *
+     * @param node узел
+     * @return список
+     */
+    private AccessQueue<K, V> queueOf(LinkedNode<K, V> node) {
+        return node.queue == WINDOW ? window : node.queue == PROBATION ? probation : protectedQueue;
+    }
+
+    /**
+     * Двусвязный список узлов в порядке доступа: в начале давно использованные
+     *
+     * @param <K> тип ключа
+     * @param <V> тип значения
+     */
+    private static final class AccessQueue<K, V> {
+        /**
+         * Первый узел
+         */
+        LinkedNode<K, V> head;
+        /**
+         * Последний узел
+         */
+        LinkedNode<K, V> tail;
+        /**
+         * Суммарный вес узлов
+         */
+        long weight;
+
+        /**
+         * Метод добавляет узел в конец списка
+         *
+         * @param node узел
+         */
+        void linkLast(LinkedNode<K, V> node) {
+            node.before = tail;
+            node.after = null;
+            if (tail == null) {
+                head = node;
+            } else {
+                tail.after = node;
+            }
+            tail = node;
+            weight += node.weight;
+        }
+
+        /**
+         * Метод исключает узел из списка
+         *
+         * @param node узел
+         */
+        void unlink(LinkedNode<K, V> node) {
+            if (node.before == null) {
+                head = node.after;
+            } else {
+                node.before.after = node.after;
+            }
+            if (node.after == null) {
+                tail = node.before;
+            } else {
+                node.after.before = node.before;
+            }
+            node.before = null;
+            node.after = null;
+            weight -= node.weight;
+        }
+
+        /**
+         * Метод перемещает узел в конец списка
+         *
+         * @param node узел
+         */
+        void moveToLast(LinkedNode<K, V> node) {
+            if (tail != node) {
+                unlink(node);
+                linkLast(node);
+            }
+        }
+
+        /**
+         * Метод очищает список
+         */
+        void clear() {
+            head = null;
+            tail = null;
+            weight = 0;
+        }
+    }
+}
@@ -0,0 +1,652 @@
+package HashMap;
+
+import java.util.*;
+
+/**
+ * Класс описывает компактную реализацию HashMap с цепочками без объектов-узлов.
+ * Записи лежат в двух массивах и адресуются номером слота: links хранит рядом хэш и ссылку next,
+ * entries - рядом ключ и значение, поэтому проверка записи читает две соседние пары ячеек.
+ * Корзины и ссылки next хранят номер слота + 1 (0 - конец цепочки). Запись занимает 16 байт
+ * в массивах вместо узла CustomMap в 32 байта с заголовком объекта.
+ * Освобожденные remove слоты связываются в список свободных через next и занимаются следующими
+ * вставками, а clear() только обнуляет массивы и сохраняет их длину. Поэтому в установившемся
+ * режиме put/remove и очистка с повторным заполнением не выделяют память.
+ * Массивы слотов растут вместе с таблицей корзин: при расширении записи не перемещаются,
+ * перестраиваются только цепочки.
+ * Тип параметров:
+ * @param <K> тип ключей.
+ * @param <V> тип значений.
+ */
+public class CustomCompactMap<K, V> extends AbstractMap<K, V> implements Map<K, V> {
+    /**
+     * Коэффициент загрузки, используемый по умолчанию.
+     */
+    private static final float DEFAULT_LOAD_FACTOR = 0.75f;
+    /**
+     * Емкость хеш-таблицы по умолчанию.
+     */
+    private static final int DEFAULT_INITIAL_CAPACITY = 16;
+    /**
+     * Максимальная длина таблицы корзин. Длина всегда является степенью двойки
+     */
+    private static final int MAXIMUM_CAPACITY = 1 << 30;
+    /**
+     * Объект, который хранится в массиве ключей свободного слота
+     */
+    private static final Object FREE = new Object();
+    /**
+     * Количество элементов
+     */
+    private int size;
+    /**
+     * Коэффициент загрузки
+     */
+    private final float loadFactor;
+    /**
+     * Количество элементов, при превышении которого таблица расширяется
+     */
+    private int threshold;
+    /**
+     * Первый слот каждой корзины + 1, 0 - пустая корзина
+     */
+    private int[] buckets;
+    /**
+     * Хэш ключа (2 * slot) и следующий слот цепочки + 1 (2 * slot + 1) для каждого слота.
+     * У свободного слота вместо следующего в цепочке хранится следующий свободный слот + 1
+     */
+    private int[] links;
+    /**
+     * Ключ (2 * slot) и значение (2 * slot + 1) для каждого слота. В свободном слоте ключ - FREE
+     */
+    private Object[] entries;
+    /**
+     * Количество слотов, которые когда-либо занимались после последней очистки
+     */
+    private int used;
+    /**
+     * Первый свободный слот + 1, 0 - свободных слотов нет
+     */
+    private int free;
+    /**
+     * Количество структурных изменений мапы.
+     * Используется итераторами представлений для быстрого обнаружения конкурентной модификации.
+     */
+    private int modCount;
+    /**
+     * Представление набора ключей, создается при первом обращении
+     */
+    private Set<K> keySetView;
+    /**
+     * Представление коллекции значений, создается при первом обращении
+     */
+    private Collection<V> valuesView;
+    /**
+     * Представление набора ключ-значений, создается при первом обращении
+     */
+    private Set<Entry<K, V>> entrySetView;
+
+    /**
+     * Конструктор с параметрами по умолчанию
+     */
+    public CustomCompactMap() {
+        this(DEFAULT_INITIAL_CAPACITY, DEFAULT_LOAD_FACTOR);
+    }
+    /**
+     * Конструктор с заданной длиной таблицы
+     *
+     * @param arrayLength длинна таблицы
+     */
+    public CustomCompactMap(int arrayLength) {
+        this(arrayLength, DEFAULT_LOAD_FACTOR);
+    }
+    /**
+     * Конструктор инициализируется произвольной длиной таблицы и коэффициентом загрузки.
+     * Длина округляется вверх до степени двойки
+     *
+     * @param arrayLength длинна таблицы.
+     * @param loadFactor  коэффициент загрузки.
+     */
+    public CustomCompactMap(int arrayLength, float loadFactor) {
+        if (arrayLength < 0) {
+            throw new IllegalArgumentException("Illegal array length: " + arrayLength);
+        }
+        if (!(loadFactor > 0)) {
+            throw new IllegalArgumentException("Illegal load factor: " + loadFactor);
+        }
+        this.loadFactor = loadFactor;
+        buckets = new int[HashTables.tableSizeFor(arrayLength, 1, MAXIMUM_CAPACITY)];
+        int slots = slotsFor(buckets.length);
+        links = new int[2 * slots];
+        entries = new Object[2 * slots];
+    }
+    /**
+     * Метод возвращает количество сохраненных элементов.
+     *
+     * @return количество сохраненных элементов.
+     */
+    @Override
+    public int size() {
+        return size;
+    }
+    /**
+     * Метод проверяет мапу на наличие элементов
+     *
+     * @return мапа пуста
+     */
+    @Override
+    public boolean isEmpty() {
+        return size == 0;
+    }
+    /**
+     * Метод проверяет имеется ли ключ в мапе.
+     *
+     * @param key ключ который нужно проверить есть ли он в мапе
+     * @return ключ.
+     */
+    @Override
+    public boolean containsKey(Object key) {
+        return findSlot(key) >= 0;
+    }
+    /**
+     * Метод проверяет имеется ли значение в мапе.
+     *
+     * @param value значение которое нужно проверить есть ли он в мапе
+     * @return значение
+     */
+    @Override
+    public boolean containsValue(Object value) {
+        for (int slot = 0; slot < used; slot++) {
+            if (entries[2 * slot] != FREE && Objects.equals(value, entries[2 * slot + 1])) {
+                return true;
+            }
+        }
+        return false;
+    }
+    /**
+     * Метод возвращает значение по ключу
+     *
+     * @param key ключ по которому возвращаем значение
+     * @return значение полученное по ключу
+     */
+    @Override
+    public V get(Object key) {
+        int slot = findSlot(key);
+        return slot < 0 ? null : valueAt(slot);
+    }
+    /**
+     * Метод добавляет ключ/значение. Новая запись занимает освобожденный слот, если он есть
+     *
+     * @param key   ключ с которым должно быть связано значение
+     * @param value значение, которое связано с ключом
+     * @return добавлено значение, которое соответсвует ключу
+     */
+    @Override
+    public V put(K key, V value) {
+        int hash = HashTables.hash(key);
+        int index = hash & (buckets.length - 1);
+        for (int slot = buckets[index] - 1; slot >= 0; slot = links[2 * slot + 1] - 1) {
+            if (links[2 * slot] == hash && Objects.equals(key, entries[2 * slot])) {
+                entries[2 * slot + 1] = value;
+                return value;
+            }
+        }
+        int slot = allocateSlot();
+        links[2 * slot] = hash;
+        entries[2 * slot] = key;
+        entries[2 * slot + 1] = value;
+        links[2 * slot + 1] = buckets[index];
+        buckets[index] = slot + 1;
+        size++;
+        modCount++;
+        if (size > threshold) {
+            resize();
+        }
+        return value;
+    }
+    /**
+     * Метод удаляет ключ и значение связанное с ним. Слот записи становится свободным
+     *
+     * @param key ключ который должен быть удален
+     * @return удаленное значение
+     */
+    @Override
+    public V remove(Object key) {
+        int hash = HashTables.hash(key);
+        int index = hash & (buckets.length - 1);
+        int previous = -1;
+        for (int slot = buckets[index] - 1; slot >= 0; previous = slot, slot = links[2 * slot + 1] - 1) {
+            if (links[2 * slot] == hash && Objects.equals(key, entries[2 * slot])) {
+                V value = valueAt(slot);
+                unlink(index, previous, slot);
+                return value;
+            }
+        }
+        return null;
+    }
+    /**
+     * Метод очищает мапу. Длина таблицы и массивов слотов сохраняется,
+     * поэтому повторное заполнение до прежнего размера не выделяет память
+     */
+    @Override
+    public void clear() {
+        Arrays.fill(buckets, 0);
+        Arrays.fill(entries, 0, 2 * used, null);
+        used = 0;
+        free = 0;
+        size = 0;
+        modCount++;
+    }
+    /**
+     * Метод возвращает набор ключей
+     *
+     * @return набор ключей
+     */
+    @Override
+    public Set<K> keySet() {
+        Set<K> view = keySetView;
+        if (view == null) {
+            view = new KeySet();
+            keySetView = view;
+        }
+        return view;
+    }
+    /**
+     * Метод возвращает коллекцию значений, включая повторяющиеся
+     *
+     * @return коллекция значений
+     */
+    @Override
+    public Collection<V> values() {
+        Collection<V> view = valuesView;
+        if (view == null) {
+            view = new Values();
+            valuesView = view;
+        }
+        return view;
+    }
+    /**
+     * Метод возвращает набор всех ключ-значений
+     *
+     * @return набор entries
+     */
+    @Override
+    public Set<Entry<K, V>> entrySet() {
+        Set<Entry<K, V>> view = entrySetView;
+        if (view == null) {
+            view = new EntrySet();
+            entrySetView = view;
+        }
+        return view;
+    }
+
+    /**
+     * Метод возвращает текущую длину таблицы корзин
+     *
+     * @return длина таблицы
+     */
+    public int capacity() {
+        return buckets.length;
+    }
+
+    /**
+     * Метод возвращает приблизительный объем кучи, занятый структурой мапы без самих ключей и значений.
+     * Считается для сжатых ссылок: 4 байта на ссылку и int, 16 байт на заголовок массива
+     *
+     * @return количество байт
+     */
+    public long memoryFootprint() {
+        return 48L + 16L + 4L * buckets.length + 2 * (16L + 4L * entries.length);
+    }
+
+    /**
+     * Метод ищет слот с заданным ключом
+     *
+     * @param key ключ
+     * @return номер слота или -1, если ключа нет
+     */
+    private int findSlot(Object key) {
+        int hash = HashTables.hash(key);
+        for (int slot = buckets[hash & (buckets.length - 1)] - 1; slot >= 0; slot = links[2 * slot + 1] - 1) {
+            if (links[2 * slot] == hash && Objects.equals(key, entries[2 * slot])) {
+                return slot;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Метод возвращает свободный слот: из списка освобожденных или следующий неиспользованный.
+     * Массивы слотов рассчитаны на threshold + 1 записей, поэтому место всегда есть
+     *
+     * @return номер слота
+     */
+    private int allocateSlot() {
+        if (free != 0) {
+            int slot = free - 1;
+            free = links[2 * slot + 1];
+            return slot;
+        }
+        return used++;
+    }
+
+    /**
+     * Метод находит предыдущий слот цепочки и удаляет слот
+     *
+     * @param slot номер слота
+     */
+    private void removeSlot(int slot) {
+        int index = links[2 * slot] & (buckets.length - 1);
+        int previous = -1;
+        for (int current = buckets[index] - 1; current != slot; current = links[2 * current + 1] - 1) {
+            previous = current;
+        }
+        unlink(index, previous, slot);
+    }
+
+    /**
+     * Метод отцепляет слот от цепочки корзины и добавляет в список свободных
+     *
+     * @param index    корзина
+     * @param previous предыдущий слот цепочки или -1
+     * @param slot     номер слота
+     */
+    private void unlink(int index, int previous, int slot) {
+        if (previous < 0) {
+            buckets[index] = links[2 * slot + 1];
+        } else {
+            links[2 * previous + 1] = links[2 * slot + 1];
+        }
+        entries[2 * slot] = FREE;
+        entries[2 * slot + 1] = null;
+        links[2 * slot + 1] = free;
+        free = slot + 1;
+        size--;
+        modCount++;
+    }
+
+    /**
+     * Метод увеличивает таблицу вдвое и массивы слотов до нового порога.
+     * Записи остаются в своих слотах, заново строятся только цепочки
+     */
+    private void resize() {
+        if (buckets.length == MAXIMUM_CAPACITY) {
+            throw new IllegalStateException("Map is full");
+        }
+        buckets = new int[buckets.length << 1];
+        int slots = slotsFor(buckets.length);
+        links = Arrays.copyOf(links, 2 * slots);
+        entries = Arrays.copyOf(entries, 2 * slots);
+        int mask = buckets.length - 1;
+        for (int slot = 0; slot < used; slot++) {
+            if (entries[2 * slot] != FREE) {
+                int index = links[2 * slot] & mask;
+                links[2 * slot + 1] = buckets[index];
+                buckets[index] = slot + 1;
+            }
+        }
+    }
+
+    /**
+     * Метод вычисляет порог расширения для таблицы и возвращает нужное количество слотов
+     *
+     * @param length длина таблицы
+     * @return количество слотов
+     */
+    private int slotsFor(int length) {
+        threshold = (int) Math.min(length * loadFactor, MAXIMUM_CAPACITY - 1);
+        return threshold + 1;
+    }
+
+    /**
+     * Метод возвращает значение из слота
+     *
+     * @param slot номер слота
+     * @return значение
+     */
+    @SuppressWarnings("unchecked")
+    private V valueAt(int slot) {
+        return (V) entries[2 * slot + 1];
+    }
+
+    /**
+     * Метод возвращает ключ из слота
+     *
+     * @param slot номер слота
+     * @return ключ
+     */
+    @SuppressWarnings("unchecked")
+    private K keyAt(int slot) {
+        return (K) entries[2 * slot];
+    }
+
+    /**
+     * Базовый итератор по занятым слотам в порядке номеров
+     *
+     * @param <T> тип возвращаемых элементов
+     */
+    private abstract class SlotIterator<T> implements Iterator<T> {
+        /**
+         * Слот следующей записи или -1
+         */
+        private int nextSlot = -1;
+        /**
+         * Слот последней возвращенной записи или -1
+         */
+        private int current = -1;
+        /**
+         * Ожидаемое значение modCount
+         */
+        private int expectedModCount = modCount;
+
+        SlotIterator() {
+            advance(0);
+        }
+
+        @Override
+        public boolean hasNext() {
+            return nextSlot >= 0;
+        }
+
+        /**
+         * Метод возвращает слот следующей записи
+         *
+         * @return номер слота
+         */
+        int nextSlot() {
+            if (modCount != expectedModCount) {
+                throw new ConcurrentModificationException();
+            }
+            if (nextSlot < 0) {
+                throw new NoSuchElementException();
+            }
+            current = nextSlot;
+            advance(current + 1);
+            return current;
+        }
+
+        @Override
+        public void remove() {
+            if (current < 0) {
+                throw new IllegalStateException();
+            }
+            if (modCount != expectedModCount) {
+                throw new ConcurrentModificationException();
+            }
+            removeSlot(current);
+            current = -1;
+            expectedModCount = modCount;
+        }
+
+        /**
+         * Метод находит следующий занятый слот
+         *
+         * @param from слот, с которого начинается поиск
+         */
+        private void advance(int from) {
+            nextSlot = -1;
+            for (int slot = from; slot < used; slot++) {
+                if (entries[2 * slot] != FREE) {
+                    nextSlot = slot;
+                    return;
+                }
+            }
+        }
+    }
+
+    /**
+     * Итератор по ключам
+     */
+    private final class KeyIterator extends SlotIterator<K> {
+        @Override
+        public K next() {
+            return keyAt(nextSlot());
+        }
+    }
+
+    /**
+     * Итератор по значениям
+     */
+    private final class ValueIterator extends SlotIterator<V> {
+        @Override
+        public V next() {
+            return valueAt(nextSlot());
+        }
+    }
+
+    /**
+     * Итератор по парам ключ-значение
+     */
+    private final class EntryIterator extends SlotIterator<Entry<K, V>> {
+        @Override
+        public Entry<K, V> next() {
+            int slot = nextSlot();
+            return new SlotEntry(keyAt(slot), valueAt(slot));
+        }
+    }
+
+    /**
+     * Пара ключ-значение, возвращаемая итератором. Изменение значения записывается в мапу
+     */
+    private final class SlotEntry extends SimpleEntry<K, V> {
+        /**
+         * Версия сериализованной формы
+         */
+        private static final long serialVersionUID = 1L;
+
+        SlotEntry(K key, V value) {
+            super(key, value);
+        }
+
+        @Override
+        public V setValue(V value) {
+            super.setValue(value);
+            int slot = findSlot(getKey());
+            if (slot >= 0) {
+                entries[2 * slot + 1] = value;
+            }
+            return value;
+        }
+    }
+
+    /**
+     * Представление набора ключей
+     */
+    private final class KeySet extends AbstractSet<K> {
+        @Override
+        public Iterator<K> iterator() {
+            return new KeyIterator();
+        }
+
+        @Override
+        public int size() {
+            return size;
+        }
+
+        @Override
+        public boolean contains(Object key) {
+            return containsKey(key);
+        }
+
+        @Override
+        public boolean remove(Object key) {
+            int slot = findSlot(key);
+            if (slot < 0) {
+                return false;
+            }
+            removeSlot(slot);
+            return true;
+        }
+
+        @Override
+        public void clear() {
+            CustomCompactMap.this.clear();
+        }
+    }
+
+    /**
+     * Представление коллекции значений
+     */
+    private final class Values extends AbstractCollection<V> {
+        @Override
+        public Iterator<V> iterator() {
+            return new ValueIterator();
+        }
+
+        @Override
+        public int size() {
+            return size;
+        }
+
+        @Override
+        public boolean contains(Object value) {
+            return containsValue(value);
+        }
+
+        @Override
+        public void clear() {
+            CustomCompactMap.this.clear();
+        }
+    }
+
+    /**
+     * Представление набора ключ-значений
+     */
+    private final class EntrySet extends AbstractSet<Entry<K, V>> {
+        @Override
+        public Iterator<Entry<K, V>> iterator() {
+            return new EntryIterator();
+        }
+
+        @Override
+        public int size() {
+            return size;
+        }
+
+        @Override
+        public boolean contains(Object object) {
+            if (!(object instanceof Map.Entry<?, ?> entry)) {
+                return false;
+            }
+            int slot = findSlot(entry.getKey());
+            return slot >= 0 && Objects.equals(entries[2 * slot + 1], entry.getValue());
+        }
+
+        @Override
+        public boolean remove(Object object) {
+            if (!(object instanceof Map.Entry<?, ?> entry)) {
+                return false;
+            }
+            int slot = findSlot(entry.getKey());
+            if (slot >= 0 && Objects.equals(entries[2 * slot + 1], entry.getValue())) {
+                removeSlot(slot);
+                return true;
+            }
+            return false;
+        }
+
+        @Override
+        public void clear() {
+            CustomCompactMap.this.clear();
+        }
+    }
+}
@@ -0,0 +1,1124 @@
+package HashMap;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.*;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+
+/**
+ * Класс описывает потокобезопасную реализацию HashMap на тех же корзинах-цепочках, что и CustomMap.
+ * Чтение не берет блокировок: корзины читаются через VarHandle с семантикой acquire,
+ * а поля узлов next и value объявлены volatile. Запись блокирует только первый узел своей корзины.
+ * Расширение массива кооперативное: потоки, встретившие расширение, забирают порции корзин
+ * и переносят их в новый массив, оставляя в старом массиве перенаправляющие узлы.
+ * Ключи и значения null не допускаются.
+ * putIfAbsent, compute и merge выполняются атомарно и следуют контракту ConcurrentMap.
+ * Итераторы слабо согласованы и никогда не бросают ConcurrentModificationException.
+ * Тип параметров:
+ * @param <K> тип ключей.
+ * @param <V> тип значений.
+ */
+public class CustomConcurrentMap<K, V> extends AbstractMap<K, V> implements ConcurrentMap<K, V> {
+    /**
+     * Коэффициент загрузки, используемый по умолчанию.
+     */
+    private static final float DEFAULT_LOAD_FACTOR = 0.75f;
+    /**
+     * Емкость хеш-таблицы по умолчанию.
+     */
+    private static final int DEFAULT_INITIAL_CAPACITY = 16;
+    /**
+     * Максимальная длина массива. Длина всегда является степенью двойки
+     */
+    private static final int MAXIMUM_CAPACITY = 1 << 30;
+    /**
+     * Количество корзин, которое поток забирает за раз при переносе
+     */
+    private static final int TRANSFER_STRIDE = 16;
+    /**
+     * Хэш перенаправляющего узла
+     */
+    private static final int MOVED = -1;
+    /**
+     * Хэш узла-резерва, которым compute занимает пустую корзину
+     */
+    private static final int RESERVED = -2;
+    /**
+     * Маска хэшей обычных узлов: они всегда неотрицательны
+     */
+    private static final int HASH_BITS = 0x7fffffff;
+    /**
+     * Доступ к ячейкам массива корзин с барьерами памяти
+     */
+    private static final VarHandle BINS = MethodHandles.arrayElementVarHandle(Node[].class);
+    /**
+     * Доступ к полю transfer для атомарного начала расширения
+     */
+    private static final VarHandle TRANSFER;
+
+    static {
+        try {
+            TRANSFER = MethodHandles.lookup().findVarHandle(CustomConcurrentMap.class, "transfer", Transfer.class);
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    /**
+     * Коэффициент загрузки
+     */
+    private final float loadFactor;
+    /**
+     * Хеш-таблица, реализованная на основе массива
+     */
+    private volatile Node<K, V>[] table;
+    /**
+     * Текущее расширение или null
+     */
+    private volatile Transfer<K, V> transfer;
+    /**
+     * Счетчик элементов, распределенный по ячейкам, чтобы пишущие потоки не соперничали за одно поле
+     */
+    private final LongAdder count = new LongAdder();
+    /**
+     * Представление набора ключей, создается при первом обращении
+     */
+    private Set<K> keySetView;
+    /**
+     * Представление коллекции значений, создается при первом обращении
+     */
+    private Collection<V> valuesView;
+    /**
+     * Представление набора ключ-значений, создается при первом обращении
+     */
+    private Set<Entry<K, V>> entrySetView;
+
+    /**
+     * Конструктор с параметрами по умолчанию
+     */
+    public CustomConcurrentMap() {
+        this(DEFAULT_INITIAL_CAPACITY, DEFAULT_LOAD_FACTOR);
+    }
+    /**
+     * Конструктор с заданной длиной массива
+     *
+     * @param arrayLength длинна массива
+     */
+    public CustomConcurrentMap(int arrayLength) {
+        this(arrayLength, DEFAULT_LOAD_FACTOR);
+    }
+    /**
+     * Конструктор инициализируется произвольной длиной массива и коэффициентом загрузки.
+     * Длина массива округляется вверх до ближайшей степени двойки.
+     *
+     * @param arrayLength длинна массива.
+     * @param loadFactor  коэффициент загрузки.
+     */
+    @SuppressWarnings({"rawtypes", "unchecked"})
+    public CustomConcurrentMap(int arrayLength, float loadFactor) {
+        if (arrayLength < 0) {
+            throw new IllegalArgumentException("Illegal array length: " + arrayLength);
+        }
+        if (loadFactor <= 0 || Float.isNaN(loadFactor)) {
+            throw new IllegalArgumentException("Illegal load factor: " + loadFactor);
+        }
+        this.loadFactor = loadFactor;
+        this.table = new Node[HashTables.tableSizeFor(arrayLength, 1, MAXIMUM_CAPACITY)];
+    }
+    /**
+     * Метод возвращает количество сохраненных элементов.
+     * При параллельных изменениях результат приблизителен.
+     *
+     * @return количество сохраненных элементов.
+     */
+    @Override
+    public int size() {
+        long sum = count.sum();
+        return sum < 0 ? 0 : (int) Math.min(sum, Integer.MAX_VALUE);
+    }
+    /**
+     * Метод проверяет мапу на наличие элементов
+     *
+     * @return мапа пуста
+     */
+    @Override
+    public boolean isEmpty() {
+        return count.sum() <= 0;
+    }
+    /**
+     * Метод проверяет имеется ли ключ в мапе.
+     *
+     * @param key ключ который нужно проверить есть ли он в мапе
+     * @return ключ.
+     */
+    @Override
+    public boolean containsKey(Object key) {
+        return get(key) != null;
+    }
+    /**
+     * Метод проверяет имеется ли значение в мапе.
+     *
+     * @param value значение которое нужно проверить есть ли он в мапе
+     * @return значение
+     */
+    @Override
+    public boolean containsValue(Object value) {
+        Objects.requireNonNull(value);
+        Iterator<V> iterator = values().iterator();
+        while (iterator.hasNext()) {
+            if (value.equals(iterator.next())) {
+                return true;
+            }
+        }
+        return false;
+    }
+    /**
+     * Метод возвращает значение по ключу без блокировок
+     *
+     * @param key ключ по которому возвращаем значение
+     * @return значение полученное по ключу
+     */
+    @Override
+    public V get(Object key) {
+        int hash = spread(key.hashCode());
+        Node<K, V>[] tab = table;
+        while (true) {
+            Node<K, V> node = tabAt(tab, hash & (tab.length - 1));
+            if (node == null) {
+                return null;
+            }
+            if (node.hash == MOVED) {
+                tab = ((ForwardingNode<K, V>) node).nextTable;
+                continue;
+            }
+            for (; node != null; node = node.next) {
+                if (node.hash == hash && (node.key == key || key.equals(node.key))) {
+                    return node.value;
+                }
+            }
+            return null;
+        }
+    }
+    /**
+     * Метод возвращает значение по ключу или значение по умолчанию
+     *
+     * @param key          ключ по которому возвращаем значение
+     * @param defaultValue значение, если ключа нет
+     * @return значение полученное по ключу или defaultValue
+     */
+    @Override
+    public V getOrDefault(Object key, V defaultValue) {
+        V value = get(key);
+        return value == null ? defaultValue : value;
+    }
+    /**
+     * Метод добавляет ключ/значение
+     *
+     * @param key   ключ с которым должно быть связано значение
+     * @param value значение, которое связано с ключом
+     * @return добавлено значение, которое соответсвует ключу
+     */
+    @Override
+    public V put(K key, V value) {
+        putValue(key, value, false);
+        return value;
+    }
+    /**
+     * Метод атомарно добавляет значение, если ключа еще нет
+     *
+     * @param key   ключ с которым должно быть связано значение
+     * @param value значение, которое связано с ключом
+     * @return текущее значение или null, если значение добавлено
+     */
+    @Override
+    public V putIfAbsent(K key, V value) {
+        return putValue(key, value, true);
+    }
+    /**
+     * Метод удаляет ключ и значение связанное с ним
+     *
+     * @param key ключ который должен быть удален
+     * @return удаленное значение
+     */
+    @Override
+    public V remove(Object key) {
+        return replaceNode(key, null, null);
+    }
+    /**
+     * Метод атомарно удаляет ключ, если он связан с заданным значением
+     *
+     * @param key   ключ
+     * @param value ожидаемое значение
+     * @return ключ удален
+     */
+    @Override
+    public boolean remove(Object key, Object value) {
+        Objects.requireNonNull(key);
+        return value != null && replaceNode(key, null, value) != null;
+    }
+    /**
+     * Метод атомарно заменяет значение, если ключ есть в мапе
+     *
+     * @param key   ключ
+     * @param value новое значение
+     * @return предыдущее значение или null
+     */
+    @Override
+    public V replace(K key, V value) {
+        return replaceNode(key, Objects.requireNonNull(value), null);
+    }
+    /**
+     * Метод атомарно заменяет значение, если ключ связан с ожидаемым значением
+     *
+     * @param key      ключ
+     * @param oldValue ожидаемое значение
+     * @param newValue новое значение
+     * @return значение заменено
+     */
+    @Override
+    public boolean replace(K key, V oldValue, V newValue) {
+        return replaceNode(key, Objects.requireNonNull(newValue), Objects.requireNonNull(oldValue)) != null;
+    }
+    /**
+     * Метод атомарно вычисляет значение для отсутствующего ключа.
+     * Присутствующий ключ находится чтением без блокировки, как в get, поэтому попадания
+     * в кэш не выстраиваются в очередь на блокировке корзины.
+     * Функция вызывается не больше одного раза под блокировкой корзины
+     *
+     * @param key             ключ
+     * @param mappingFunction функция вычисления значения
+     * @return текущее или вычисленное значение
+     */
+    @Override
+    public V computeIfAbsent(K key, Function<? super K, ? extends V> mappingFunction) {
+        Objects.requireNonNull(mappingFunction);
+        V value = get(key);
+        if (value != null) {
+            return value;
+        }
+        return compute(key, (k, oldValue) -> oldValue != null ? oldValue : mappingFunction.apply(k));
+    }
+    /**
+     * Метод атомарно пересчитывает значение существующего ключа
+     *
+     * @param key               ключ
+     * @param remappingFunction функция пересчета, null в результате удаляет ключ
+     * @return новое значение или null
+     */
+    @Override
+    public V computeIfPresent(K key, BiFunction<? super K, ? super V, ? extends V> remappingFunction) {
+        Objects.requireNonNull(remappingFunction);
+        return compute(key, (k, oldValue) -> oldValue == null ? null : remappingFunction.apply(k, oldValue));
+    }
+    /**
+     * Метод атомарно вычисляет новое значение ключа.
+     * Функция вызывается под блокировкой корзины, поэтому она должна быть короткой
+     * и не должна менять эту мапу
+     *
+     * @param key               ключ
+     * @param remappingFunction функция от ключа и текущего значения (или null), null в результате удаляет ключ
+     * @return новое значение или null
+     */
+    @Override
+    public V compute(K key, BiFunction<? super K, ? super V, ? extends V> remappingFunction) {
+        Objects.requireNonNull(remappingFunction);
+        int hash = spread(key.hashCode());
+        Node<K, V>[] tab = table;
+        while (true) {
+            int index = hash & (tab.length - 1);
+            Node<K, V> first = tabAt(tab, index);
+            if (first == null) {
+                Node<K, V> reservation = new Node<>(RESERVED, null, null, null);
+                V value = null;
+                boolean done = false;
+                synchronized (reservation) {
+                    if (casTabAt(tab, index, null, reservation)) {
+                        try {
+                            value = remappingFunction.apply(key, null);
+                        } finally {
+                            setTabAt(tab, index, value == null ? null : new Node<>(hash, key, value, null));
+                        }
+                        done = true;
+                    }
+                }
+                if (done) {
+                    if (value != null) {
+                        addCount(tab, 1);
+                    }
+                    return value;
+                }
+            } else if (first.hash == MOVED) {
+                tab = helpTransfer((ForwardingNode<K, V>) first);
+            } else {
+                V value = null;
+                int delta = 0;
+                boolean done = false;
+                synchronized (first) {
+                    if (tabAt(tab, index) == first) {
+                        done = true;
+                        Node<K, V> previous = null;
+                        Node<K, V> node = first;
+                        while (true) {
+                            if (node.hash == hash && (node.key == key || key.equals(node.key))) {
+                                value = remappingFunction.apply(key, node.value);
+                                if (value != null) {
+                                    node.value = value;
+                                } else {
+                                    unlink(tab, index, previous, node);
+                                    delta = -1;
+                                }
+                                break;
+                            }
+                            previous = node;
+                            node = node.next;
+                            if (node == null) {
+                                value = remappingFunction.apply(key, null);
+                                if (value != null) {
+                                    previous.next = new Node<>(hash, key, value, null);
+                                    delta = 1;
+                                }
+                                break;
+                            }
+                        }
+                    }
+                }
+                if (done) {
+                    if (delta != 0) {
+                        addCount(tab, delta);
+                    }
+                    return value;
+                }
+            }
+        }
+    }
+    /**
+     * Метод атомарно объединяет значение ключа с заданным значением
+     *
+     * @param key               ключ
+     * @param value             значение для отсутствующего ключа и второй аргумент функции
+     * @param remappingFunction функция объединения, null в результате удаляет ключ
+     * @return новое значение или null
+     */
+    @Override
+    public V merge(K key, V value, BiFunction<? super V, ? super V, ? extends V> remappingFunction) {
+        Objects.requireNonNull(value);
+        Objects.requireNonNull(remappingFunction);
+        return compute(key, (k, oldValue) -> oldValue == null ? value : remappingFunction.apply(oldValue, value));
+    }
+    /**
+     * Метод очищает мапу, блокируя корзины по одной
+     */
+    @Override
+    public void clear() {
+        Node<K, V>[] tab = table;
+        int index = 0;
+        while (index < tab.length) {
+            Node<K, V> first = tabAt(tab, index);
+            if (first == null) {
+                index++;
+            } else if (first.hash == MOVED) {
+                tab = helpTransfer((ForwardingNode<K, V>) first);
+                index = 0;
+            } else {
+                synchronized (first) {
+                    if (tabAt(tab, index) == first) {
+                        int removed = 0;
+                        for (Node<K, V> node = first; node != null; node = node.next) {
+                            if (node.hash >= 0) {
+                                removed++;
+                            }
+                        }
+                        setTabAt(tab, index, null);
+                        count.add(-removed);
+                        index++;
+                    }
+                }
+            }
+        }
+    }
+    /**
+     * Метод возвращает набор ключей
+     *
+     * @return набор ключей
+     */
+    @Override
+    public Set<K> keySet() {
+        Set<K> view = keySetView;
+        if (view == null) {
+            view = new AbstractSet<>() {
+                @Override
+                public Iterator<K> iterator() {
+                    return new KeyIterator();
+                }
+
+                @Override
+                public int size() {
+                    return CustomConcurrentMap.this.size();
+                }
+
+                @Override
+                public boolean contains(Object key) {
+                    return containsKey(key);
+                }
+
+                @Override
+                public boolean remove(Object key) {
+                    return CustomConcurrentMap.this.remove(key) != null;
+                }
+            };
+            keySetView = view;
+        }
+        return view;
+    }
+    /**
+     * Метод возвращает коллекцию значений
+     *
+     * @return коллекция значений
+     */
+    @Override
+    public Collection<V> values() {
+        Collection<V> view = valuesView;
+        if (view == null) {
+            view = new AbstractCollection<>() {
+                @Override
+                public Iterator<V> iterator() {
+                    return new ValueIterator();
+                }
+
+                @Override
+                public int size() {
+                    return CustomConcurrentMap.this.size();
+                }
+            };
+            valuesView = view;
+        }
+        return view;
+    }
+    /**
+     * Метод возвращает набор всех ключ-значений
+     *
+     * @return набор entries
+     */
+    @Override
+    public Set<Entry<K, V>> entrySet() {
+        Set<Entry<K, V>> view = entrySetView;
+        if (view == null) {
+            view = new AbstractSet<>() {
+                @Override
+                public Iterator<Entry<K, V>> iterator() {
+                    return new EntryIterator();
+                }
+
+                @Override
+                public int size() {
+                    return CustomConcurrentMap.this.size();
+                }
+
+                @Override
+                public boolean contains(Object object) {
+                    if (!(object instanceof Map.Entry<?, ?> entry) || entry.getKey() == null) {
+                        return false;
+                    }
+                    V value = get(entry.getKey());
+                    return value != null && value.equals(entry.getValue());
+                }
+
+                @Override
+                public boolean remove(Object object) {
+                    return object instanceof Map.Entry<?, ?> entry
+                            && entry.getKey() != null
+                            && CustomConcurrentMap.this.remove(entry.getKey(), entry.getValue());
+                }
+            };
+            entrySetView = view;
+        }
+        return view;
+    }
+
+    /**
+     * Метод возвращает текущую длину массива корзин
+     *
+     * @return длина массива
+     */
+    public int capacity() {
+        return table.length;
+    }
+
+    /**
+     * Метод добавляет или заменяет значение под блокировкой корзины
+     *
+     * @param key          ключ
+     * @param value        значение
+     * @param onlyIfAbsent не заменять существующее значение
+     * @return предыдущее значение или null
+     */
+    private V putValue(K key, V value, boolean onlyIfAbsent) {
+        Objects.requireNonNull(value);
+        int hash = spread(key.hashCode());
+        Node<K, V>[] tab = table;
+        while (true) {
+            int index = hash & (tab.length - 1);
+            Node<K, V> first = tabAt(tab, index);
+            if (first == null) {
+                if (casTabAt(tab, index, null, new Node<>(hash, key, value, null))) {
+                    addCount(tab, 1);
+                    return null;
+                }
+            } else if (first.hash == MOVED) {
+                tab = helpTransfer((ForwardingNode<K, V>) first);
+            } else {
+                V previous = null;
+                boolean done = false;
+                boolean added = false;
+                synchronized (first) {
+                    if (tabAt(tab, index) == first) {
+                        done = true;
+                        Node<K, V> node = first;
+                        while (true) {
+                            if (node.hash == hash && (node.key == key || key.equals(node.key))) {
+                                previous = node.value;
+                                if (!onlyIfAbsent) {
+                                    node.value = value;
+                                }
+                                break;
+                            }
+                            if (node.next == null) {
+                                node.next = new Node<>(hash, key, value, null);
+                                added = true;
+                                break;
+                            }
+                            node = node.next;
+                        }
+                    }
+                }
+                if (done) {
+                    if (added) {
+                        addCount(tab, 1);
+                    }
+                    return previous;
+                }
+            }
+        }
+    }
+
+    /**
+     * Метод заменяет или удаляет значение под блокировкой корзины
+     *
+     * @param key      ключ
+     * @param value    новое значение или null для удаления
+     * @param expected ожидаемое текущее значение или null, если подходит любое
+     * @return предыдущее значение, если замена или удаление выполнены, иначе null
+     */
+    private V replaceNode(Object key, V value, Object expected) {
+        int hash = spread(key.hashCode());
+        Node<K, V>[] tab = table;
+        while (true) {
+            int index = hash & (tab.length - 1);
+            Node<K, V> first = tabAt(tab, index);
+            if (first == null) {
+                return null;
+            }
+            if (first.hash == MOVED) {
+                tab = helpTransfer((ForwardingNode<K, V>) first);
+                continue;
+            }
+            V previous = null;
+            boolean done = false;
+            synchronized (first) {
+                if (tabAt(tab, index) == first) {
+                    done = true;
+                    Node<K, V> previousNode = null;
+                    for (Node<K, V> node = first; node != null; previousNode = node, node = node.next) {
+                        if (node.hash == hash && (node.key == key || key.equals(node.key))) {
+                            V current = node.value;
+                            if (expected == null || expected.equals(current)) {
+                                previous = current;
+                                if (value != null) {
+                                    node.value = value;
+                                } else {
+                                    unlink(tab, index, previousNode, node);
+                                }
+                            }
+                            break;
+                        }
+                    }
+                }
+            }
+            if (done) {
+                if (previous != null && value == null) {
+                    addCount(tab, -1);
+                }
+                return previous;
+            }
+        }
+    }
+
+    /**
+     * Метод исключает узел из цепочки. Вызывается под блокировкой корзины
+     *
+     * @param tab      массив
+     * @param index    индекс корзины
+     * @param previous предыдущий узел или null
+     * @param node     исключаемый узел
+     */
+    private void unlink(Node<K, V>[] tab, int index, Node<K, V> previous, Node<K, V> node) {
+        if (previous == null) {
+            setTabAt(tab, index, node.next);
+        } else {
+            previous.next = node.next;
+        }
+    }
+
+    /**
+     * Метод меняет счетчик элементов и при превышении порога начинает расширение или помогает ему.
+     * Расширение привязано к массиву, с которого оно начато: поток мог прочитать table до того,
+     * как другой поток завершил расширение этого же массива. Такое запоздавшее расширение
+     * снимается сразу после установки, а помогающие потоки его не выполняют
+     *
+     * @param tab   массив, в который выполнялась запись
+     * @param delta изменение количества элементов
+     */
+    private void addCount(Node<K, V>[] tab, int delta) {
+        count.add(delta);
+        if (delta <= 0) {
+            return;
+        }
+        Transfer<K, V> current = transfer;
+        if (current != null) {
+            helpTransfer(current);
+            return;
+        }
+        if (tab.length < MAXIMUM_CAPACITY && count.sum() > (long) (tab.length * loadFactor) && table == tab) {
+            @SuppressWarnings({"rawtypes", "unchecked"})
+            Transfer<K, V> started = new Transfer<>(tab, new Node[tab.length * 2]);
+            if (TRANSFER.compareAndSet(this, null, started)) {
+                helpTransfer(started);
+            }
+        }
+    }
+
+    /**
+     * Метод помогает расширению, к которому относится перенаправляющий узел
+     *
+     * @param forwardingNode перенаправляющий узел
+     * @return новый массив, в котором нужно повторить операцию
+     */
+    private Node<K, V>[] helpTransfer(ForwardingNode<K, V> forwardingNode) {
+        helpTransfer(forwardingNode.transfer);
+        return forwardingNode.nextTable;
+    }
+
+    /**
+     * Метод забирает порции корзин и переносит их, пока порции не закончатся.
+     * Поток, перенесший последнюю порцию, публикует новый массив.
+     * Расширение, чей старый массив уже не текущий, устарело: оно снимается без переноса корзин.
+     * Новый массив публикуется раньше, чем снимается расширение, поэтому у действующего
+     * расширения старый массив всегда совпадает с table
+     *
+     * @param current расширение
+     */
+    private void helpTransfer(Transfer<K, V> current) {
+        while (true) {
+            if (current.table != table) {
+                TRANSFER.compareAndSet(this, current, null);
+                return;
+            }
+            int start = current.transferIndex.get();
+            if (start <= 0) {
+                return;
+            }
+            int end = Math.max(start - TRANSFER_STRIDE, 0);
+            if (!current.transferIndex.compareAndSet(start, end)) {
+                continue;
+            }
+            for (int index = start - 1; index >= end; index--) {
+                transferBin(current, index);
+            }
+            if (current.remaining.addAndGet(end - start) == 0) {
+                table = current.nextTable;
+                TRANSFER.compareAndSet(this, current, null);
+                return;
+            }
+        }
+    }
+
+    /**
+     * Метод переносит одну корзину в новый массив. Узлы старой цепочки не меняются,
+     * так как их могут читать другие потоки: копируются все узлы, кроме общего «хвоста»,
+     * который целиком попадает в одну корзину. Уже перенесенная корзина не копируется повторно
+     *
+     * @param current расширение
+     * @param index   индекс корзины в старом массиве
+     */
+    private void transferBin(Transfer<K, V> current, int index) {
+        Node<K, V>[] from = current.table;
+        Node<K, V>[] to = current.nextTable;
+        int bit = from.length;
+        while (true) {
+            Node<K, V> first = tabAt(from, index);
+            if (first == null) {
+                if (casTabAt(from, index, null, current.forwardingNode)) {
+                    return;
+                }
+                continue;
+            }
+            if (first.hash == MOVED) {
+                return;
+            }
+            synchronized (first) {
+                if (tabAt(from, index) != first) {
+                    continue;
+                }
+                int runBit = first.hash & bit;
+                Node<K, V> lastRun = first;
+                for (Node<K, V> node = first.next; node != null; node = node.next) {
+                    int nodeBit = node.hash & bit;
+                    if (nodeBit != runBit) {
+                        runBit = nodeBit;
+                        lastRun = node;
+                    }
+                }
+                Node<K, V> low = runBit == 0 ? lastRun : null;
+                Node<K, V> high = runBit == 0 ? null : lastRun;
+                for (Node<K, V> node = first; node != lastRun; node = node.next) {
+                    if ((node.hash & bit) == 0) {
+                        low = new Node<>(node.hash, node.key, node.value, low);
+                    } else {
+                        high = new Node<>(node.hash, node.key, node.value, high);
+                    }
+                }
+                setTabAt(to, index, low);
+                setTabAt(to, index + bit, high);
+                setTabAt(from, index, current.forwardingNode);
+                return;
+            }
+        }
+    }
+
+    /**
+     * Метод читает корзину с семантикой acquire
+     *
+     * @param tab   массив
+     * @param index индекс корзины
+     * @return первый узел корзины
+     */
+    @SuppressWarnings("unchecked")
+    private static <K, V> Node<K, V> tabAt(Node<K, V>[] tab, int index) {
+        return (Node<K, V>) BINS.getAcquire(tab, index);
+    }
+
+    /**
+     * Метод записывает корзину с семантикой release
+     *
+     * @param tab   массив
+     * @param index индекс корзины
+     * @param node  первый узел корзины
+     */
+    private static <K, V> void setTabAt(Node<K, V>[] tab, int index, Node<K, V> node) {
+        BINS.setRelease(tab, index, node);
+    }
+
+    /**
+     * Метод атомарно заменяет корзину
+     *
+     * @param tab      массив
+     * @param index    индекс корзины
+     * @param expected ожидаемый первый узел
+     * @param node     новый первый узел
+     * @return замена выполнена
+     */
+    private static <K, V> boolean casTabAt(Node<K, V>[] tab, int index, Node<K, V> expected, Node<K, V> node) {
+        return BINS.compareAndSet(tab, index, expected, node);
+    }
+
+    /**
+     * Метод перемешивает хэш ключа и делает его неотрицательным:
+     * отрицательные хэши зарезервированы для служебных узлов
+     *
+     * @param hash хэш ключа
+     * @return хэш узла
+     */
+    private static int spread(int hash) {
+        return (hash ^ (hash >>> 16)) & HASH_BITS;
+    }
+
+    /**
+     * Класс описывает узел цепочки. Поля value и next изменяются только под блокировкой корзины,
+     * а читаются без блокировок
+     *
+     * @param <K> тип ключа
+     * @param <V> тип значения
+     */
+    private static class Node<K, V> implements Map.Entry<K, V> {
+        /**
+         * Хэш для ключа, отрицательный у служебных узлов
+         */
+        final int hash;
+        /**
+         * Поле, в котором хранится ключ
+         */
+        final K key;
+        /**
+         * Поле, в котором хранится значение
+         */
+        volatile V value;
+        /**
+         * Ссылка на следущую ноду
+         */
+        volatile Node<K, V> next;
+
+        /**
+         * Конструктор объекта Ноды
+         *
+         * @param hash  хэш для ключа
+         * @param key   ключ с которым связано значение
+         * @param value значение связанное с ключом
+         * @param next  ссылка на следующую ноду
+         */
+        Node(int hash, K key, V value, Node<K, V> next) {
+            this.hash = hash;
+            this.key = key;
+            this.value = value;
+            this.next = next;
+        }
+
+        @Override
+        public K getKey() {
+            return key;
+        }
+
+        @Override
+        public V getValue() {
+            return value;
+        }
+
+        @Override
+        public V setValue(V value) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public boolean equals(Object object) {
+            return object instanceof Map.Entry<?, ?> entry
+                    && Objects.equals(key, entry.getKey())
+                    && Objects.equals(value, entry.getValue());
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hashCode(key) ^ Objects.hashCode(value);
+        }
+
+        @Override
+        public String toString() {
+            return key + " = " + value;
+        }
+    }
+
+    /**
+     * Перенаправляющий узел: ставится в корзину старого массива после ее переноса
+     *
+     * @param <K> тип ключа
+     * @param <V> тип значения
+     */
+    private static final class ForwardingNode<K, V> extends Node<K, V> {
+        /**
+         * Расширение, к которому относится узел
+         */
+        final Transfer<K, V> transfer;
+        /**
+         * Новый массив
+         */
+        final Node<K, V>[] nextTable;
+
+        ForwardingNode(Transfer<K, V> transfer) {
+            super(MOVED, null, null, null);
+            this.transfer = transfer;
+            this.nextTable = transfer.nextTable;
+        }
+    }
+
+    /**
+     * Состояние одного расширения массива, общее для всех помогающих потоков
+     *
+     * @param <K> тип ключа
+     * @param <V> тип значения
+     */
+    private static final class Transfer<K, V> {
+        /**
+         * Старый массив
+         */
+        final Node<K, V>[] table;
+        /**
+         * Новый массив
+         */
+        final Node<K, V>[] nextTable;
+        /**
+         * Граница еще не розданных корзин: порции раздаются от конца массива к началу
+         */
+        final AtomicInteger transferIndex;
+        /**
+         * Количество еще не перенесенных корзин
+         */
+        final AtomicInteger remaining;
+        /**
+         * Перенаправляющий узел, общий для всех корзин
+         */
+        final ForwardingNode<K, V> forwardingNode;
+
+        Transfer(Node<K, V>[] table, Node<K, V>[] nextTable) {
+            this.table = table;
+            this.nextTable = nextTable;
+            this.transferIndex = new AtomicInteger(table.length);
+            this.remaining = new AtomicInteger(table.length);
+            this.forwardingNode = new ForwardingNode<>(this);
+        }
+    }
+
+    /**
+     * Слабо согласованный итератор по узлам. Встретив перенесенную корзину,
+     * обходит две соответствующие корзины нового массива
+     *
+     * @param <T> тип возвращаемых элементов
+     */
+    private abstract class NodeIterator<T> implements Iterator<T> {
+        /**
+         * Массив, с которого начат обход
+         */
+        private final Node<K, V>[] baseTable;
+        /**
+         * Следующая корзина базового массива
+         */
+        private int baseIndex;
+        /**
+         * Отложенные первые узлы корзин нового массива
+         */
+        private final ArrayDeque<Node<K, V>> pending = new ArrayDeque<>();
+        /**
+         * Следующий узел
+         */
+        private Node<K, V> next;
+        /**
+         * Последний возвращенный узел
+         */
+        private Node<K, V> current;
+
+        NodeIterator() {
+            baseTable = table;
+            advance();
+        }
+
+        @Override
+        public boolean hasNext() {
+            return next != null;
+        }
+
+        /**
+         * Метод возвращает следующий узел
+         *
+         * @return узел
+         */
+        Node<K, V> nextNode() {
+            if (next == null) {
+                throw new NoSuchElementException();
+            }
+            current = next;
+            next = next.next;
+            advance();
+            return current;
+        }
+
+        @Override
+        public void remove() {
+            if (current == null) {
+                throw new IllegalStateException();
+            }
+            CustomConcurrentMap.this.remove(current.key);
+            current = null;
+        }
+
+        /**
+         * Метод находит следующий обычный узел, пропуская пустые корзины и узлы-резервы
+         */
+        private void advance() {
+            while (next == null || next.hash < 0) {
+                if (!pending.isEmpty()) {
+                    next = pending.pop();
+                } else if (baseIndex < baseTable.length) {
+                    next = tabAt(baseTable, baseIndex++);
+                    if (next != null && next.hash == MOVED) {
+                        ForwardingNode<K, V> forwardingNode = (ForwardingNode<K, V>) next;
+                        next = null;
+                        pushBins(forwardingNode.nextTable, baseIndex - 1, baseTable.length);
+                    }
+                } else {
+                    next = null;
+                    return;
+                }
+            }
+        }
+
+        /**
+         * Метод откладывает корзины нового массива, в которые перенесена корзина index
+         *
+         * @param nextTable новый массив
+         * @param index     индекс корзины в массиве длины length
+         * @param length    длина массива, которому принадлежит index
+         */
+        private void pushBins(Node<K, V>[] nextTable, int index, int length) {
+            for (int bin = index; bin < nextTable.length; bin += length) {
+                Node<K, V> node = tabAt(nextTable, bin);
+                if (node == null) {
+                    continue;
+                }
+                if (node.hash == MOVED) {
+                    pushBins(((ForwardingNode<K, V>) node).nextTable, bin, nextTable.length);
+                } else {
+                    pending.push(node);
+                }
+            }
+        }
+    }
+
+    /**
+     * Итератор по ключам
+     */
+    private final class KeyIterator extends NodeIterator<K> {
+        @Override
+        public K next() {
+            return nextNode().key;
+        }
+    }
+
+    /**
+     * Итератор по значениям
+     */
+    private final class ValueIterator extends NodeIterator<V> {
+        @Override
+        public V next() {
+            return nextNode().value;
+        }
+    }
+
+    /**
+     * Итератор по парам ключ-значение. Пары являются снимками: setValue записывает значение в мапу
+     */
+    private final class EntryIterator extends NodeIterator<Entry<K, V>> {
+        @Override
+        public Entry<K, V> next() {
+            Node<K, V> node = nextNode();
+            return new SimpleEntry<>(node.key, node.value) {
+                @Override
+                public V setValue(V value) {
+                    V previous = super.setValue(value);
+                    put(getKey(), value);
+                    return previous;
+                }
+            };
+        }
+    }
+}
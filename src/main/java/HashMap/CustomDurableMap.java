@@ -0,0 +1,1080 @@
+package HashMap;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.BiConsumer;
+import java.util.function.BiFunction;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+/**
+ * Класс описывает CustomMap, которая переживает падение процесса и машины.
+ * Каждое изменение сначала дописывается в журнал упреждающей записи (WAL) в каталоге мапы
+ * и только потом применяется к таблице. Запись журнала - длина, CRC32 и тело:
+ * тип операции, ключ и значение в байтах Serializer. Оборванная при падении последняя запись
+ * отбрасывается при восстановлении.
+ * Когда данные попадают на диск, определяет SyncPolicy: после каждой операции, раз в заданный
+ * интервал или на усмотрение операционной системы. В режиме ALWAYS используется групповая фиксация:
+ * один поток выполняет fsync за все записи, добавленные к этому моменту, а остальные потоки
+ * ждут его результата вместо собственных fsync.
+ * Журнал делится на сегменты. Когда сегмент вырастает больше порога, мапа начинает новый,
+ * а фоновый поток сворачивает закрытые сегменты вместе с прежним снимком в новый снимок
+ * CustomMapSnapshot и удаляет их. Писатели при этом не блокируются.
+ * При открытии мапа загружает последний снимок и применяет к нему сегменты журнала после него.
+ * Все операции синхронизированы на мапе, а ожидание fsync выполняется вне блокировки.
+ * Обходить представления нужно внутри synchronized (map). Изменение значения через
+ * Entry.setValue не записывается в журнал, для этого нужно использовать put или replaceAll.
+ * Ключ null не поддерживается.
+ * Тип параметров:
+ * @param <K> тип ключей.
+ * @param <V> тип значений.
+ */
+public class CustomDurableMap<K, V> extends CustomMap<K, V> implements AutoCloseable {
+    /**
+     * Порог размера сегмента журнала по умолчанию
+     */
+    private static final long DEFAULT_COMPACTION_THRESHOLD = 64L << 20;
+    /**
+     * Запись журнала: добавление ключа
+     */
+    private static final byte PUT = 1;
+    /**
+     * Запись журнала: удаление ключа
+     */
+    private static final byte REMOVE = 2;
+    /**
+     * Запись журнала: очистка мапы
+     */
+    private static final byte CLEAR = 3;
+    /**
+     * Длина значения null
+     */
+    private static final int NULL_LENGTH = -1;
+    /**
+     * Размер заголовка записи журнала: длина тела и CRC32
+     */
+    private static final int RECORD_HEADER_SIZE = 8;
+    /**
+     * Префикс и суффикс имен сегментов журнала
+     */
+    private static final String LOG_PREFIX = "wal-";
+    private static final String LOG_SUFFIX = ".log";
+    /**
+     * Префикс и суффикс имен снимков
+     */
+    private static final String SNAPSHOT_PREFIX = "snapshot-";
+    private static final String SNAPSHOT_SUFFIX = ".snap";
+    /**
+     * Windows не позволяет открыть каталог как файл, и сбросить запись каталога на диск там нельзя
+     */
+    private static final boolean WINDOWS = System.getProperty("os.name", "").startsWith("Windows");
+
+    /**
+     * Каталог мапы
+     */
+    private final Path directory;
+    /**
+     * Сериализатор ключей
+     */
+    private final Serializer<K> keySerializer;
+    /**
+     * Сериализатор значений
+     */
+    private final Serializer<V> valueSerializer;
+    /**
+     * Политика сброса журнала на диск
+     */
+    private final SyncPolicy syncPolicy;
+    /**
+     * Размер сегмента, после которого начинается новый сегмент и сворачивание
+     */
+    private final long compactionThreshold;
+    /**
+     * Монитор групповой фиксации: защищает syncing и syncedPosition
+     */
+    private final Object syncMonitor = new Object();
+    /**
+     * Поток фонового сворачивания и периодического fsync
+     */
+    private final ScheduledExecutorService background;
+    /**
+     * Запущено ли фоновое сворачивание
+     */
+    private final AtomicBoolean compacting = new AtomicBoolean();
+    /**
+     * Монитор сворачивания: снимки пишутся по одному
+     */
+    private final Object foldMonitor = new Object();
+    /**
+     * Текущий сегмент журнала, null во время восстановления и после закрытия.
+     * Пока он null, операции применяются к таблице без записи в журнал
+     */
+    private volatile FileChannel log;
+    /**
+     * Номер текущего сегмента
+     */
+    private long segment;
+    /**
+     * Размер текущего сегмента
+     */
+    private long segmentSize;
+    /**
+     * Сквозная позиция конца журнала по всем сегментам
+     */
+    private volatile long writtenPosition;
+    /**
+     * Позиция, до которой журнал гарантированно на диске
+     */
+    private long syncedPosition;
+    /**
+     * Выполняет ли какой-либо поток fsync
+     */
+    private boolean syncing;
+    /**
+     * Выполняется ли операция, которая сама дождется fsync
+     */
+    private boolean inOperation;
+    /**
+     * Закрыта ли мапа
+     */
+    private boolean closed;
+    /**
+     * Ошибка записи журнала. После нее мапа отказывается выполнять изменения
+     */
+    private volatile IOException failure;
+
+    /**
+     * Политика сброса журнала на диск
+     */
+    public static final class SyncPolicy {
+        /**
+         * fsync перед возвратом из каждой изменяющей операции, с групповой фиксацией
+         */
+        public static final SyncPolicy ALWAYS = new SyncPolicy(0);
+        /**
+         * fsync только при смене сегмента и закрытии, остальное на усмотрение ОС.
+         * Переживает падение процесса, но не машины
+         */
+        public static final SyncPolicy OS = new SyncPolicy(-1);
+        /**
+         * Интервал fsync в миллисекундах, 0 - после каждой операции, -1 - не выполнять
+         */
+        private final long intervalMillis;
+
+        private SyncPolicy(long intervalMillis) {
+            this.intervalMillis = intervalMillis;
+        }
+
+        /**
+         * Метод возвращает политику с fsync по таймеру. При падении машины теряется
+         * не больше последнего интервала
+         *
+         * @param intervalMillis интервал в миллисекундах
+         * @return политика
+         */
+        public static SyncPolicy every(long intervalMillis) {
+            if (intervalMillis <= 0) {
+                throw new IllegalArgumentException("Illegal sync interval: " + intervalMillis);
+            }
+            return new SyncPolicy(intervalMillis);
+        }
+
+        @Override
+        public String toString() {
+            return intervalMillis == 0 ? "ALWAYS" : intervalMillis < 0 ? "OS" : "EVERY " + intervalMillis + " ms";
+        }
+    }
+
+    /**
+     * Конструктор открывает мапу и восстанавливает ее из каталога
+     *
+     * @param directory           каталог мапы
+     * @param keySerializer       сериализатор ключей
+     * @param valueSerializer     сериализатор значений
+     * @param syncPolicy          политика сброса журнала на диск
+     * @param compactionThreshold размер сегмента, после которого он сворачивается в снимок
+     * @throws IOException при ошибке чтения или записи
+     */
+    private CustomDurableMap(Path directory, Serializer<K> keySerializer, Serializer<V> valueSerializer,
+                             SyncPolicy syncPolicy, long compactionThreshold) throws IOException {
+        this.directory = directory;
+        this.keySerializer = keySerializer;
+        this.valueSerializer = valueSerializer;
+        this.syncPolicy = syncPolicy;
+        this.compactionThreshold = compactionThreshold;
+        Files.createDirectories(directory);
+        long last = recover();
+        segment = last + 1;
+        log = openSegment(segment);
+        background = Executors.newSingleThreadScheduledExecutor(task -> {
+            Thread thread = new Thread(task, "custom-durable-map-" + directory.getFileName());
+            thread.setDaemon(true);
+            return thread;
+        });
+        if (syncPolicy.intervalMillis > 0) {
+            background.scheduleWithFixedDelay(this::periodicSync, syncPolicy.intervalMillis,
+                    syncPolicy.intervalMillis, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * Метод открывает мапу с порогом сворачивания по умолчанию (64 МБ)
+     *
+     * @param directory       каталог мапы, создается при необходимости
+     * @param keySerializer   сериализатор ключей
+     * @param valueSerializer сериализатор значений
+     * @param syncPolicy      политика сброса журнала на диск
+     * @param <K>             тип ключей
+     * @param <V>             тип значений
+     * @return восстановленная мапа
+     * @throws IOException при ошибке чтения или записи
+     */
+    public static <K, V> CustomDurableMap<K, V> open(Path directory, Serializer<K> keySerializer,
+                                                     Serializer<V> valueSerializer, SyncPolicy syncPolicy)
+            throws IOException {
+        return open(directory, keySerializer, valueSerializer, syncPolicy, DEFAULT_COMPACTION_THRESHOLD);
+    }
+
+    /**
+     * Метод открывает мапу
+     *
+     * @param directory           каталог мапы, создается при необходимости
+     * @param keySerializer       сериализатор ключей
+     * @param valueSerializer     сериализатор значений
+     * @param syncPolicy          политика сброса журнала на диск
+     * @param compactionThreshold размер сегмента журнала в байтах, после которого он сворачивается в снимок
+     * @param <K>                 тип ключей
+     * @param <V>                 тип значений
+     * @return восстановленная мапа
+     * @throws IOException при ошибке чтения или записи
+     */
+    public static <K, V> CustomDurableMap<K, V> open(Path directory, Serializer<K> keySerializer,
+                                                     Serializer<V> valueSerializer, SyncPolicy syncPolicy,
+                                                     long compactionThreshold) throws IOException {
+        if (compactionThreshold <= 0) {
+            throw new IllegalArgumentException("Illegal compaction threshold: " + compactionThreshold);
+        }
+        return new CustomDurableMap<>(directory, Objects.requireNonNull(keySerializer),
+                Objects.requireNonNull(valueSerializer), Objects.requireNonNull(syncPolicy), compactionThreshold);
+    }
+
+    @Override
+    public synchronized int size() {
+        return super.size();
+    }
+
+    @Override
+    public synchronized boolean isEmpty() {
+        return super.isEmpty();
+    }
+
+    @Override
+    public synchronized boolean containsKey(Object key) {
+        return super.containsKey(key);
+    }
+
+    @Override
+    public synchronized boolean containsValue(Object value) {
+        return super.containsValue(value);
+    }
+
+    @Override
+    public synchronized V get(Object key) {
+        return super.get(key);
+    }
+
+    @Override
+    public synchronized V getOrDefault(Object key, V defaultValue) {
+        return super.getOrDefault(key, defaultValue);
+    }
+
+    @Override
+    public synchronized Map<K, V> getAll(Collection<? extends K> keys) {
+        return super.getAll(keys);
+    }
+
+    @Override
+    public synchronized void forEach(ForkJoinPool pool, long parallelismThreshold,
+                                     BiConsumer<? super K, ? super V> action) {
+        super.forEach(pool, parallelismThreshold, action);
+    }
+
+    @Override
+    public synchronized <U> U reduce(ForkJoinPool pool, long parallelismThreshold,
+                                     BiFunction<? super K, ? super V, ? extends U> transformer,
+                                     BiFunction<? super U, ? super U, ? extends U> reducer) {
+        return super.reduce(pool, parallelismThreshold, transformer, reducer);
+    }
+
+    @Override
+    public synchronized <U> U search(ForkJoinPool pool, long parallelismThreshold,
+                                     BiFunction<? super K, ? super V, ? extends U> searchFunction) {
+        return super.search(pool, parallelismThreshold, searchFunction);
+    }
+
+    @Override
+    public synchronized boolean equals(Object object) {
+        return super.equals(object);
+    }
+
+    @Override
+    public synchronized int hashCode() {
+        return super.hashCode();
+    }
+
+    @Override
+    public synchronized long memoryFootprint() {
+        return super.memoryFootprint();
+    }
+
+    @Override
+    public synchronized CustomMapStats stats() {
+        return super.stats();
+    }
+
+    @Override
+    public synchronized void ensureCapacity(int expectedSize) {
+        super.ensureCapacity(expectedSize);
+    }
+
+    @Override
+    public synchronized void trimToSize() {
+        super.trimToSize();
+    }
+    /**
+     * Метод записывает ключ/значение в журнал и затем добавляет в мапу
+     *
+     * @param key   ключ с которым должно быть связано значение
+     * @param value значение, которое связано с ключом
+     * @return добавлено значение, которое соответсвует ключу
+     */
+    @Override
+    public V put(K key, V value) {
+        long position;
+        synchronized (this) {
+            appendPut(key, value);
+            super.put(key, value);
+            position = writtenPosition;
+        }
+        awaitSync(position);
+        return value;
+    }
+    /**
+     * Метод записывает ключ/значение в журнал, если ключа нет или его значение null
+     *
+     * @param key   ключ
+     * @param value значение
+     * @return предыдущее значение или null
+     */
+    @Override
+    public V putIfAbsent(K key, V value) {
+        long position;
+        synchronized (this) {
+            Node<K, V> node = getNode(key);
+            if (node != null && node.value != null) {
+                return node.value;
+            }
+            appendPut(key, value);
+            super.put(key, value);
+            position = writtenPosition;
+        }
+        awaitSync(position);
+        return null;
+    }
+    /**
+     * Метод записывает в журнал новое значение ключа, только если ключ есть в мапе
+     *
+     * @param key   ключ
+     * @param value новое значение
+     * @return предыдущее значение или null, если ключа нет
+     */
+    @Override
+    public V replace(K key, V value) {
+        V oldValue;
+        long position;
+        synchronized (this) {
+            Node<K, V> node = getNode(key);
+            if (node == null) {
+                return null;
+            }
+            oldValue = node.value;
+            appendPut(key, value);
+            super.put(key, value);
+            position = writtenPosition;
+        }
+        awaitSync(position);
+        return oldValue;
+    }
+    /**
+     * Метод записывает в журнал новое значение ключа, если текущее значение равно oldValue
+     *
+     * @param key      ключ
+     * @param oldValue ожидаемое текущее значение
+     * @param newValue новое значение
+     * @return было ли значение заменено
+     */
+    @Override
+    public boolean replace(K key, V oldValue, V newValue) {
+        long position;
+        synchronized (this) {
+            Node<K, V> node = getNode(key);
+            if (node == null || !Objects.equals(node.value, oldValue)) {
+                return false;
+            }
+            appendPut(key, newValue);
+            super.put(key, newValue);
+            position = writtenPosition;
+        }
+        awaitSync(position);
+        return true;
+    }
+    /**
+     * Метод записывает в журнал все элементы другой мапы и добавляет их.
+     * В режиме ALWAYS выполняется один fsync на всю пачку
+     *
+     * @param map мапа в которую добавляются элементы
+     */
+    @Override
+    public void putAll(Map<? extends K, ? extends V> map) {
+        long position;
+        synchronized (this) {
+            for (Entry<? extends K, ? extends V> entry : map.entrySet()) {
+                appendPut(entry.getKey(), entry.getValue());
+                super.put(entry.getKey(), entry.getValue());
+            }
+            position = writtenPosition;
+        }
+        awaitSync(position);
+    }
+    /**
+     * Метод удаляет ключ и значение связанное с ним. Запись журнала добавляется в afterNodeRemoval
+     *
+     * @param key ключ который должен быть удален
+     * @return удаленное значение
+     */
+    @Override
+    public V remove(Object key) {
+        V removed;
+        long position;
+        synchronized (this) {
+            checkWritable();
+            inOperation = true;
+            try {
+                removed = super.remove(key);
+            } finally {
+                inOperation = false;
+            }
+            position = writtenPosition;
+        }
+        awaitSync(position);
+        return removed;
+    }
+
+    @Override
+    public int removeAll(Collection<?> keys) {
+        int removed;
+        long position;
+        synchronized (this) {
+            checkWritable();
+            inOperation = true;
+            try {
+                removed = super.removeAll(keys);
+            } finally {
+                inOperation = false;
+            }
+            position = writtenPosition;
+        }
+        awaitSync(position);
+        return removed;
+    }
+    /**
+     * Метод записывает очистку в журнал и очищает мапу
+     */
+    @Override
+    public void clear() {
+        long position;
+        synchronized (this) {
+            append(ByteBuffer.allocate(1).put(CLEAR).flip());
+            super.clear();
+            position = writtenPosition;
+        }
+        awaitSync(position);
+    }
+    /**
+     * Метод заменяет значения последовательно через журнал
+     *
+     * @param function функция нового значения
+     */
+    @Override
+    public void replaceAll(BiFunction<? super K, ? super V, ? extends V> function) {
+        Objects.requireNonNull(function);
+        long position;
+        synchronized (this) {
+            for (K key : new ArrayList<>(keySet())) {
+                V value = function.apply(key, super.get(key));
+                appendPut(key, value);
+                super.put(key, value);
+            }
+            position = writtenPosition;
+        }
+        awaitSync(position);
+    }
+    /**
+     * Метод заменяет значения последовательно через журнал. Пул и порог параллелизма не используются
+     *
+     * @param pool                 пул потоков
+     * @param parallelismThreshold минимальный размер мапы для параллельного обхода
+     * @param function             функция нового значения
+     */
+    @Override
+    public void replaceAll(ForkJoinPool pool, long parallelismThreshold,
+                           BiFunction<? super K, ? super V, ? extends V> function) {
+        replaceAll(function);
+    }
+    /**
+     * Метод начинает новый сегмент журнала и сворачивает закрытые сегменты в снимок.
+     * Писатели блокируются только на время смены сегмента, сворачивание идет вне блокировки
+     *
+     * @throws IOException при ошибке чтения или записи
+     */
+    public void compact() throws IOException {
+        long folded;
+        synchronized (this) {
+            checkWritable();
+            folded = rotate();
+        }
+        fold(folded);
+    }
+    /**
+     * Метод сбрасывает журнал на диск и закрывает мапу. После закрытия изменять мапу нельзя
+     *
+     * @throws IOException при ошибке записи
+     */
+    @Override
+    public void close() throws IOException {
+        background.shutdown();
+        try {
+            background.awaitTermination(1, TimeUnit.MINUTES);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        synchronized (this) {
+            FileChannel channel = log;
+            if (closed) {
+                return;
+            }
+            closed = true;
+            synchronized (syncMonitor) {
+                waitForSyncer();
+                log = null;
+                try {
+                    channel.force(false);
+                    syncedPosition = writtenPosition;
+                } finally {
+                    channel.close();
+                }
+            }
+        }
+    }
+
+    /**
+     * Метод вычисляет значение под блокировкой мапы. Новое значение сначала записывается в журнал
+     * и только потом применяется через put или remove, поэтому ключ ищется повторно:
+     * по сравнению с записью журнала это незаметно
+     *
+     * @param key           ключ
+     * @param function      функция нового значения по ключу и текущему значению
+     * @param onlyIfAbsent  не вызывать функцию, если у ключа есть значение
+     * @param onlyIfPresent не вызывать функцию, если у ключа нет значения
+     * @return новое значение, текущее, если функция не вызывалась, или null
+     */
+    @Override
+    V computeValue(K key, BiFunction<? super K, ? super V, ? extends V> function,
+                   boolean onlyIfAbsent, boolean onlyIfPresent) {
+        V value;
+        long position;
+        synchronized (this) {
+            Node<K, V> node = getNode(key);
+            V oldValue = node == null ? null : node.value;
+            if (onlyIfAbsent && oldValue != null) {
+                return oldValue;
+            }
+            if (onlyIfPresent && oldValue == null) {
+                return null;
+            }
+            value = function.apply(key, oldValue);
+            if (value == null) {
+                if (node == null || onlyIfAbsent) {
+                    return null;
+                }
+                checkWritable();
+                inOperation = true;
+                try {
+                    super.remove(key);
+                } finally {
+                    inOperation = false;
+                }
+            } else {
+                appendPut(key, value);
+                super.put(key, value);
+            }
+            position = writtenPosition;
+        }
+        awaitSync(position);
+        return value;
+    }
+
+    @Override
+    void afterNodeRemoval(Node<K, V> node) {
+        checkWritable();
+        if (log == null) {
+            return;
+        }
+        byte[] keyBytes = keySerializer.serialize(node.key);
+        append(ByteBuffer.allocate(1 + Integer.BYTES + keyBytes.length)
+                .put(REMOVE).putInt(keyBytes.length).put(keyBytes).flip());
+        if (!inOperation) {
+            awaitSync(writtenPosition);
+        }
+    }
+
+    /**
+     * Метод записывает в журнал добавление ключа
+     *
+     * @param key   ключ
+     * @param value значение
+     */
+    private void appendPut(K key, V value) {
+        checkWritable();
+        if (log == null) {
+            return;
+        }
+        byte[] keyBytes = keySerializer.serialize(Objects.requireNonNull(key, "Null keys are not supported"));
+        byte[] valueBytes = value == null ? null : valueSerializer.serialize(value);
+        int valueLength = valueBytes == null ? 0 : valueBytes.length;
+        ByteBuffer body = ByteBuffer.allocate(1 + 2 * Integer.BYTES + keyBytes.length + valueLength)
+                .put(PUT).putInt(keyBytes.length).put(keyBytes)
+                .putInt(valueBytes == null ? NULL_LENGTH : valueLength);
+        if (valueBytes != null) {
+            body.put(valueBytes);
+        }
+        append(body.flip());
+    }
+
+    /**
+     * Метод дописывает запись в текущий сегмент. Вызывается под блокировкой мапы.
+     * При переполнении сегмента начинает новый и запускает фоновое сворачивание
+     *
+     * @param body тело записи
+     */
+    private void append(ByteBuffer body) {
+        checkWritable();
+        if (log == null) {
+            return;
+        }
+        CRC32 crc = new CRC32();
+        crc.update(body.duplicate());
+        ByteBuffer header = ByteBuffer.allocate(RECORD_HEADER_SIZE).putInt(body.remaining())
+                .putInt((int) crc.getValue()).flip();
+        long length = RECORD_HEADER_SIZE + body.remaining();
+        try {
+            ByteBuffer[] parts = {header, body};
+            long written = 0;
+            while (written < length) {
+                written += log.write(parts);
+            }
+            segmentSize += length;
+            writtenPosition += length;
+            if (segmentSize >= compactionThreshold && compacting.compareAndSet(false, true)) {
+                long folded = rotate();
+                background.execute(() -> {
+                    try {
+                        fold(folded);
+                    } catch (IOException e) {
+                        // сегменты остаются на диске и будут свернуты при следующем сворачивании
+                    } finally {
+                        compacting.set(false);
+                    }
+                });
+            }
+        } catch (IOException e) {
+            failure = e;
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Метод сбрасывает на диск текущий сегмент и начинает новый. Вызывается под блокировкой мапы
+     *
+     * @return номер последнего закрытого сегмента
+     * @throws IOException при ошибке записи
+     */
+    private long rotate() throws IOException {
+        synchronized (syncMonitor) {
+            waitForSyncer();
+            FileChannel previous = log;
+            previous.force(false);
+            syncedPosition = writtenPosition;
+            log = openSegment(segment + 1);
+            previous.close();
+            segmentSize = 0;
+            return segment++;
+        }
+    }
+
+    /**
+     * Метод сворачивает последний снимок и сегменты с номерами не больше folded в новый снимок,
+     * после чего удаляет свернутые файлы. Таблица мапы при этом не читается
+     *
+     * @param folded номер последнего сворачиваемого сегмента
+     * @throws IOException при ошибке чтения или записи
+     */
+    private void fold(long folded) throws IOException {
+        synchronized (foldMonitor) {
+            if (latest(SNAPSHOT_PREFIX, SNAPSHOT_SUFFIX, Long.MAX_VALUE) >= folded) {
+                return;
+            }
+            long snapshot = latest(SNAPSHOT_PREFIX, SNAPSHOT_SUFFIX, folded);
+            CustomMap<K, V> state = new CustomMap<>();
+            if (snapshot >= 0) {
+                try (CustomMapSnapshot<K, V> previous = CustomMapSnapshot.open(
+                        file(SNAPSHOT_PREFIX, snapshot, SNAPSHOT_SUFFIX), keySerializer, valueSerializer)) {
+                    state.putAll(previous);
+                }
+            }
+            for (long number : numbers(LOG_PREFIX, LOG_SUFFIX)) {
+                if (number > snapshot && number <= folded) {
+                    replay(file(LOG_PREFIX, number, LOG_SUFFIX), state);
+                }
+            }
+            CustomMapSnapshot.write(state, file(SNAPSHOT_PREFIX, folded, SNAPSHOT_SUFFIX),
+                    keySerializer, valueSerializer);
+            syncDirectory();
+            deleteUpTo(folded);
+        }
+    }
+
+    /**
+     * Метод восстанавливает таблицу из последнего снимка и следующих за ним сегментов.
+     * Оборванная запись в конце последнего сегмента отрезается
+     *
+     * @return номер последнего сегмента или снимка, -1 для пустого каталога
+     * @throws IOException при ошибке чтения или если поврежден не последний сегмент
+     */
+    private long recover() throws IOException {
+        long snapshot = latest(SNAPSHOT_PREFIX, SNAPSHOT_SUFFIX, Long.MAX_VALUE);
+        if (snapshot >= 0) {
+            try (CustomMapSnapshot<K, V> loaded = CustomMapSnapshot.open(
+                    file(SNAPSHOT_PREFIX, snapshot, SNAPSHOT_SUFFIX), keySerializer, valueSerializer)) {
+                super.putAll(loaded);
+            }
+        }
+        deleteUpTo(snapshot);
+        long last = snapshot;
+        List<Long> segments = numbers(LOG_PREFIX, LOG_SUFFIX);
+        for (int i = 0; i < segments.size(); i++) {
+            Path path = file(LOG_PREFIX, segments.get(i), LOG_SUFFIX);
+            long valid = replay(path, this);
+            if (valid < Files.size(path)) {
+                if (i != segments.size() - 1) {
+                    throw new IOException("Corrupted write-ahead log segment: " + path);
+                }
+                try (FileChannel channel = FileChannel.open(path, StandardOpenOption.WRITE)) {
+                    channel.truncate(valid);
+                    channel.force(false);
+                }
+            }
+            last = segments.get(i);
+        }
+        return last;
+    }
+
+    /**
+     * Метод применяет записи сегмента к мапе до первой оборванной или поврежденной записи. Длина записи
+     * сверяется с остатком файла до выделения буфера, поэтому испорченный заголовок не приводит к
+     * выделению гигабайтного массива, а считается концом корректных данных
+     *
+     * @param path   сегмент журнала
+     * @param target мапа, к которой применяются записи. Пока журнал не открыт, записи не журналируются
+     * @return длина корректной части сегмента
+     * @throws IOException при ошибке чтения
+     */
+    private long replay(Path path, Map<K, V> target) throws IOException {
+        long valid = 0;
+        long fileSize = Files.size(path);
+        try (InputStream file = Files.newInputStream(path);
+             DataInputStream in = new DataInputStream(new BufferedInputStream(file, 1 << 16))) {
+            CRC32 crc = new CRC32();
+            while (true) {
+                byte[] body;
+                int checksum;
+                try {
+                    int length = in.readInt();
+                    checksum = in.readInt();
+                    if (length <= 0 || length > fileSize - valid - RECORD_HEADER_SIZE) {
+                        return valid;
+                    }
+                    body = new byte[length];
+                    in.readFully(body);
+                } catch (EOFException e) {
+                    return valid;
+                }
+                crc.reset();
+                crc.update(body);
+                if ((int) crc.getValue() != checksum) {
+                    return valid;
+                }
+                apply(ByteBuffer.wrap(body), target);
+                valid += RECORD_HEADER_SIZE + body.length;
+            }
+        }
+    }
+
+    /**
+     * Метод применяет к мапе одну запись журнала
+     *
+     * @param body   тело записи
+     * @param target мапа
+     */
+    private void apply(ByteBuffer body, Map<K, V> target) {
+        byte type = body.get();
+        if (type == CLEAR) {
+            target.clear();
+            return;
+        }
+        int keyLength = body.getInt();
+        K key = keySerializer.deserialize(body, body.position(), keyLength);
+        body.position(body.position() + keyLength);
+        if (type == REMOVE) {
+            target.remove(key);
+            return;
+        }
+        int valueLength = body.getInt();
+        V value = valueLength == NULL_LENGTH ? null : valueSerializer.deserialize(body, body.position(), valueLength);
+        target.put(key, value);
+    }
+
+    /**
+     * Метод ждет, пока журнал до заданной позиции окажется на диске, если этого требует политика.
+     * Первый пришедший поток выполняет fsync за всех, остальные ждут его
+     *
+     * @param position позиция конца записи
+     */
+    private void awaitSync(long position) {
+        if (syncPolicy != SyncPolicy.ALWAYS) {
+            return;
+        }
+        sync(position);
+    }
+
+    /**
+     * Метод выполняет групповую фиксацию журнала до заданной позиции
+     *
+     * @param position позиция, которая должна оказаться на диске
+     */
+    private void sync(long position) {
+        FileChannel channel;
+        long target;
+        synchronized (syncMonitor) {
+            while (syncing && syncedPosition < position) {
+                waitForSyncer();
+            }
+            if (syncedPosition >= position) {
+                return;
+            }
+            channel = log;
+            if (channel == null) {
+                return;
+            }
+            target = writtenPosition;
+            syncing = true;
+        }
+        boolean synced = false;
+        try {
+            channel.force(false);
+            synced = true;
+        } catch (IOException e) {
+            failure = e;
+            throw new UncheckedIOException(e);
+        } finally {
+            synchronized (syncMonitor) {
+                syncing = false;
+                if (synced) {
+                    syncedPosition = Math.max(syncedPosition, target);
+                }
+                syncMonitor.notifyAll();
+            }
+        }
+    }
+
+    /**
+     * Метод ждет окончания fsync другого потока. Вызывается под syncMonitor
+     */
+    private void waitForSyncer() {
+        boolean interrupted = false;
+        while (syncing) {
+            try {
+                syncMonitor.wait();
+            } catch (InterruptedException e) {
+                interrupted = true;
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Метод периодического fsync для политики every
+     */
+    private void periodicSync() {
+        try {
+            sync(writtenPosition);
+        } catch (UncheckedIOException e) {
+            // ошибка сохранена в failure и будет брошена следующей изменяющей операцией
+        }
+    }
+
+    /**
+     * Метод проверяет, что мапа открыта и журнал исправен
+     */
+    private void checkWritable() {
+        if (failure != null) {
+            throw new IllegalStateException("Write-ahead log failed", failure);
+        }
+        if (closed) {
+            throw new IllegalStateException("Map is closed");
+        }
+    }
+
+    /**
+     * Метод открывает новый сегмент журнала и сбрасывает на диск запись о нем в каталоге.
+     * Сброс самого файла запись каталога не сохраняет, поэтому отдельно сбрасывается каталог
+     *
+     * @param number номер сегмента
+     * @return канал сегмента
+     * @throws IOException при ошибке записи
+     */
+    private FileChannel openSegment(long number) throws IOException {
+        FileChannel channel = FileChannel.open(file(LOG_PREFIX, number, LOG_SUFFIX),
+                StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE);
+        try {
+            syncDirectory();
+        } catch (IOException e) {
+            channel.close();
+            throw e;
+        }
+        return channel;
+    }
+
+    /**
+     * Метод сбрасывает на диск каталог мапы, чтобы созданные, переименованные и удаленные файлы
+     * пережили падение машины. На Windows каталог открыть нельзя, и ошибка там игнорируется
+     *
+     * @throws IOException при ошибке записи
+     */
+    private void syncDirectory() throws IOException {
+        try (FileChannel channel = FileChannel.open(directory, StandardOpenOption.READ)) {
+            channel.force(true);
+        } catch (IOException e) {
+            if (!WINDOWS) {
+                throw e;
+            }
+        }
+    }
+
+    /**
+     * Метод удаляет снимки и сегменты с номерами не больше заданного, кроме снимка с этим номером
+     *
+     * @param number номер последнего свернутого сегмента
+     * @throws IOException при ошибке удаления
+     */
+    private void deleteUpTo(long number) throws IOException {
+        boolean deleted = false;
+        for (long segmentNumber : numbers(LOG_PREFIX, LOG_SUFFIX)) {
+            if (segmentNumber <= number) {
+                deleted |= Files.deleteIfExists(file(LOG_PREFIX, segmentNumber, LOG_SUFFIX));
+            }
+        }
+        for (long snapshotNumber : numbers(SNAPSHOT_PREFIX, SNAPSHOT_SUFFIX)) {
+            if (snapshotNumber < number) {
+                deleted |= Files.deleteIfExists(file(SNAPSHOT_PREFIX, snapshotNumber, SNAPSHOT_SUFFIX));
+            }
+        }
+        if (deleted) {
+            syncDirectory();
+        }
+    }
+
+    /**
+     * Метод возвращает наибольший номер файла вида prefix + номер + suffix, не больший limit
+     *
+     * @param prefix префикс имени
+     * @param suffix суффикс имени
+     * @param limit  наибольший допустимый номер
+     * @return номер или -1
+     * @throws IOException при ошибке чтения каталога
+     */
+    private long latest(String prefix, String suffix, long limit) throws IOException {
+        long latest = -1;
+        for (long number : numbers(prefix, suffix)) {
+            if (number <= limit) {
+                latest = Math.max(latest, number);
+            }
+        }
+        return latest;
+    }
+
+    /**
+     * Метод возвращает отсортированные номера файлов вида prefix + номер + suffix
+     *
+     * @param prefix префикс имени
+     * @param suffix суффикс имени
+     * @return номера по возрастанию
+     * @throws IOException при ошибке чтения каталога
+     */
+    private List<Long> numbers(String prefix, String suffix) throws IOException {
+        List<Long> numbers = new ArrayList<>();
+        try (Stream<Path> files = Files.list(directory)) {
+            for (Path path : (Iterable<Path>) files::iterator) {
+                String name = path.getFileName().toString();
+                if (name.startsWith(prefix) && name.endsWith(suffix)) {
+                    try {
+                        numbers.add(Long.parseLong(name.substring(prefix.length(), name.length() - suffix.length())));
+                    } catch (NumberFormatException e) {
+                        // посторонний файл
+                    }
+                }
+            }
+        }
+        Collections.sort(numbers);
+        return numbers;
+    }
+
+    /**
+     * Метод возвращает путь к файлу с заданным номером
+     *
+     * @param prefix префикс имени
+     * @param number номер
+     * @param suffix суффикс имени
+     * @return путь
+     */
+    private Path file(String prefix, long number, String suffix) {
+        return directory.resolve(prefix + String.format("%020d", number) + suffix);
+    }
+}
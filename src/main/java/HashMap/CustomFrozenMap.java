@@ -0,0 +1,490 @@
+package HashMap;
+
+import java.util.*;
+
+/**
+ * Класс описывает неизменяемую мапу с минимальным совершенным хэшированием для мап,
+ * которые заполняются один раз и дальше только читаются.
+ * Пары лежат в двух плоских массивах keys и values длины size без узлов и ссылок next.
+ * Позицию ключа задает схема «hash and displace» (CHD): ключи делятся по хэшу на корзины
+ * в среднем не больше чем по BUCKET_SIZE ключей, и для каждой корзины при построении подбирается seed,
+ * при котором все ее ключи попадают в свободные позиции. Корзины из одного ключа
+ * хранят вместо seed сразу позицию (отрицательным числом). На корзину приходится одно int,
+ * то есть 1,5-3 байта на элемент сверх массивов.
+ * get вычисляет позицию по хэшу ключа и seed его корзины и сравнивает один ключ - одно обращение
+ * к массиву вместо прохода по цепочке.
+ * Ключи с полностью совпадающим hashCode никакая функция от хэша не разделит,
+ * поэтому все ключи такой группы, кроме первого, хранятся в небольшой CustomMap overflow,
+ * к которой get обращается только при промахе.
+ * Тип параметров:
+ * @param <K> тип ключей.
+ * @param <V> тип значений.
+ */
+public final class CustomFrozenMap<K, V> extends AbstractMap<K, V> implements Map<K, V> {
+    /**
+     * Наибольшее среднее количество ключей в корзине. Количество корзин округляется вверх
+     * до степени двойки, поэтому в среднем в корзине от 1,5 до 3 ключей. При больших корзинах
+     * последние корзины из двух ключей размещаются в почти заполненной таблице и перебор seed растет
+     */
+    private static final int BUCKET_SIZE = 3;
+    /**
+     * Максимальное количество seed, перебираемых для одной корзины
+     */
+    private static final int MAX_SEED_ATTEMPTS = 1 << 20;
+    /**
+     * Пустой массив для пустой мапы
+     */
+    private static final Object[] EMPTY = {};
+
+    /**
+     * Ключи по позициям
+     */
+    private final Object[] keys;
+    /**
+     * Значения по позициям
+     */
+    private final Object[] values;
+    /**
+     * seed каждой корзины или -(позиция + 1) для корзины из одного ключа
+     */
+    private final int[] seeds;
+    /**
+     * Ключи с совпадающими хэшами, которые не удалось разместить
+     */
+    private final CustomMap<K, V> overflow;
+    /**
+     * Представление набора ключ-значений, создается при первом обращении
+     */
+    private Set<Entry<K, V>> entrySetView;
+
+    /**
+     * Конструктор мапы по готовым массивам
+     *
+     * @param keys     ключи по позициям
+     * @param values   значения по позициям
+     * @param seeds    seed корзин
+     * @param overflow ключи с совпадающими хэшами
+     */
+    private CustomFrozenMap(Object[] keys, Object[] values, int[] seeds, CustomMap<K, V> overflow) {
+        this.keys = keys;
+        this.values = values;
+        this.seeds = seeds;
+        this.overflow = overflow;
+    }
+
+    /**
+     * Метод строит неизменяемую копию мапы. Время построения O(n) в среднем
+     *
+     * @param map мапа
+     * @param <K> тип ключей
+     * @param <V> тип значений
+     * @return неизменяемая мапа
+     */
+    public static <K, V> CustomFrozenMap<K, V> copyOf(Map<? extends K, ? extends V> map) {
+        if (map instanceof CustomFrozenMap<? extends K, ? extends V> frozen) {
+            @SuppressWarnings("unchecked")
+            CustomFrozenMap<K, V> same = (CustomFrozenMap<K, V>) frozen;
+            return same;
+        }
+        int count = map.size();
+        Object[] entryKeys = new Object[count];
+        Object[] entryValues = new Object[count];
+        int[] hashes = new int[count];
+        int index = 0;
+        for (Entry<? extends K, ? extends V> entry : map.entrySet()) {
+            entryKeys[index] = entry.getKey();
+            entryValues[index] = entry.getValue();
+            hashes[index] = HashTables.hash(entry.getKey());
+            index++;
+        }
+        if (index != count) {
+            throw new ConcurrentModificationException();
+        }
+        return build(entryKeys, entryValues, hashes);
+    }
+
+    /**
+     * Метод возвращает количество элементов в мапе.
+     *
+     * @return размер мапы
+     */
+    @Override
+    public int size() {
+        return keys.length + overflow.size();
+    }
+    /**
+     * Метод проверяет имеется ли ключ в мапе.
+     *
+     * @param key ключ который нужно проверить есть ли он в мапе
+     * @return есть ли ключ в мапе
+     */
+    @Override
+    public boolean containsKey(Object key) {
+        return slotOf(key) >= 0 || (!overflow.isEmpty() && overflow.containsKey(key));
+    }
+    /**
+     * Метод возвращает значение по ключу за одно обращение к массиву ключей
+     *
+     * @param key ключ по которому возвращаем значение
+     * @return значение полученное по ключу
+     */
+    @Override
+    @SuppressWarnings("unchecked")
+    public V get(Object key) {
+        int slot = slotOf(key);
+        if (slot >= 0) {
+            return (V) values[slot];
+        }
+        return overflow.isEmpty() ? null : overflow.get(key);
+    }
+    /**
+     * Метод возвращает набор всех ключ-значений, доступный только для чтения
+     *
+     * @return набор entries
+     */
+    @Override
+    public Set<Entry<K, V>> entrySet() {
+        Set<Entry<K, V>> view = entrySetView;
+        if (view == null) {
+            view = new AbstractSet<>() {
+                @Override
+                public Iterator<Entry<K, V>> iterator() {
+                    return new EntryIterator();
+                }
+
+                @Override
+                public int size() {
+                    return CustomFrozenMap.this.size();
+                }
+            };
+            entrySetView = view;
+        }
+        return view;
+    }
+    /**
+     * Метод возвращает приблизительный объем кучи, занятый структурой мапы без самих ключей и значений.
+     * Считается для сжатых ссылок: 4 байта на ссылку и 16 байт на заголовок массива
+     *
+     * @return количество байт
+     */
+    public long memoryFootprint() {
+        return 16L + 3 * 16L + 4L * keys.length * 2 + 4L * seeds.length
+                + (overflow.isEmpty() ? 0 : 32L * overflow.size() + 4L * overflow.capacity());
+    }
+
+    /**
+     * Метод возвращает позицию ключа или -1
+     *
+     * @param key ключ
+     * @return позиция
+     */
+    private int slotOf(Object key) {
+        int length = keys.length;
+        if (length == 0) {
+            return -1;
+        }
+        int hash = HashTables.hash(key);
+        int slot = slot(hash, seeds[bucket(hash, seeds.length - 1)], length);
+        return Objects.equals(key, keys[slot]) ? slot : -1;
+    }
+
+    /**
+     * Метод строит мапу по массивам пар. Корзины обрабатываются от больших к меньшим:
+     * большие труднее разместить, пока свободных позиций много. Корзины из одного ключа
+     * занимают оставшиеся позиции без перебора seed
+     *
+     * @param entryKeys   ключи
+     * @param entryValues значения
+     * @param hashes      хэши ключей
+     * @param <K>         тип ключей
+     * @param <V>         тип значений
+     * @return мапа
+     */
+    @SuppressWarnings("unchecked")
+    private static <K, V> CustomFrozenMap<K, V> build(Object[] entryKeys, Object[] entryValues, int[] hashes) {
+        CustomMap<K, V> overflow = new CustomMap<>(1);
+        int targetBuckets = (hashes.length + BUCKET_SIZE - 1) / BUCKET_SIZE;
+        int bucketCount = targetBuckets <= 1 ? 1 : Integer.highestOneBit(targetBuckets - 1) << 1;
+        int[] bucketStarts = new int[bucketCount + 1];
+        for (int hash : hashes) {
+            bucketStarts[bucket(hash, bucketCount - 1) + 1]++;
+        }
+        for (int bucket = 0; bucket < bucketCount; bucket++) {
+            bucketStarts[bucket + 1] += bucketStarts[bucket];
+        }
+        int[] members = new int[hashes.length];
+        int[] fill = Arrays.copyOf(bucketStarts, bucketCount);
+        for (int entry = 0; entry < hashes.length; entry++) {
+            members[fill[bucket(hashes[entry], bucketCount - 1)]++] = entry;
+        }
+        int[] sizes = new int[bucketCount];
+        int count = 0;
+        int largest = 0;
+        for (int bucket = 0; bucket < bucketCount; bucket++) {
+            int from = bucketStarts[bucket];
+            int size = 0;
+            for (int member = from; member < bucketStarts[bucket + 1]; member++) {
+                int entry = members[member];
+                if (containsHash(members, from, size, hashes, hashes[entry])) {
+                    overflow.put((K) entryKeys[entry], (V) entryValues[entry]);
+                } else {
+                    members[from + size++] = entry;
+                }
+            }
+            sizes[bucket] = size;
+            count += size;
+            largest = Math.max(largest, size);
+        }
+        if (count == 0) {
+            return new CustomFrozenMap<>(EMPTY, EMPTY, new int[1], overflow);
+        }
+        int[] order = bucketsBySizeDescending(sizes, largest);
+        Object[] keys = new Object[count];
+        Object[] values = new Object[count];
+        int[] seeds = new int[bucketCount];
+        long[] occupied = new long[(count + Long.SIZE - 1) / Long.SIZE];
+        int[] slots = new int[largest];
+        int freeSlot = 0;
+        int placed = 0;
+        for (int bucket : order) {
+            int from = bucketStarts[bucket];
+            int size = sizes[bucket];
+            if (size == 0) {
+                break;
+            }
+            if (size == 1) {
+                while (isOccupied(occupied, freeSlot)) {
+                    freeSlot++;
+                }
+                seeds[bucket] = -freeSlot - 1;
+                place(members[from], freeSlot, entryKeys, entryValues, keys, values, occupied);
+                placed++;
+                continue;
+            }
+            int seed = findSeed(members, from, size, hashes, occupied, count, slots);
+            if (seed < 0) {
+                for (int member = from; member < from + size; member++) {
+                    overflow.put((K) entryKeys[members[member]], (V) entryValues[members[member]]);
+                }
+                continue;
+            }
+            seeds[bucket] = seed;
+            for (int member = 0; member < size; member++) {
+                place(members[from + member], slots[member], entryKeys, entryValues, keys, values, occupied);
+            }
+            placed += size;
+        }
+        if (placed < count) {
+            return compactAfterOverflow(keys, values, seeds, occupied, overflow);
+        }
+        return new CustomFrozenMap<>(keys, values, seeds, overflow);
+    }
+
+    /**
+     * Метод подбирает seed, при котором ключи корзины попадают в разные свободные позиции
+     *
+     * @param members  номера пар по корзинам
+     * @param from     начало корзины в members
+     * @param size     количество ключей в корзине
+     * @param hashes   хэши ключей
+     * @param occupied битовая карта занятых позиций
+     * @param length   количество позиций
+     * @param slots    массив для найденных позиций
+     * @return seed или -1, если подобрать не удалось
+     */
+    private static int findSeed(int[] members, int from, int size, int[] hashes, long[] occupied, int length,
+                                int[] slots) {
+        for (int seed = 1; seed <= MAX_SEED_ATTEMPTS; seed++) {
+            int placed = 0;
+            while (placed < size) {
+                int slot = slot(hashes[members[from + placed]], seed, length);
+                if (isOccupied(occupied, slot) || contains(slots, placed, slot)) {
+                    break;
+                }
+                slots[placed++] = slot;
+            }
+            if (placed == size) {
+                return seed;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Метод пересобирает мапу, если корзину не удалось разместить и часть позиций осталась пустой.
+     * Такое возможно только при очень неудачном распределении хэшей
+     *
+     * @param keys     ключи по позициям
+     * @param values   значения по позициям
+     * @param seeds    seed корзин
+     * @param occupied битовая карта занятых позиций
+     * @param overflow неразмещенные пары
+     * @param <K>      тип ключей
+     * @param <V>      тип значений
+     * @return мапа
+     */
+    @SuppressWarnings("unchecked")
+    private static <K, V> CustomFrozenMap<K, V> compactAfterOverflow(Object[] keys, Object[] values, int[] seeds,
+                                                                     long[] occupied, CustomMap<K, V> overflow) {
+        CustomMap<K, V> all = new CustomMap<>(overflow.size() * 2);
+        for (int slot = 0; slot < keys.length; slot++) {
+            if (isOccupied(occupied, slot)) {
+                all.put((K) keys[slot], (V) values[slot]);
+            }
+        }
+        CustomFrozenMap<K, V> placed = copyOf(all);
+        CustomMap<K, V> rest = new CustomMap<>();
+        rest.putAll(placed.overflow);
+        rest.putAll(overflow);
+        return new CustomFrozenMap<>(placed.keys, placed.values, placed.seeds, rest);
+    }
+
+    /**
+     * Метод проверяет, есть ли хэш среди первых count ключей корзины.
+     * Ключи с одинаковым хэшем всегда попадают в одну корзину, поэтому достаточно проверить ее
+     *
+     * @param members номера пар по корзинам
+     * @param from    начало корзины в members
+     * @param count   количество уже оставленных ключей корзины
+     * @param hashes  хэши ключей
+     * @param hash    искомый хэш
+     * @return найден ли хэш
+     */
+    private static boolean containsHash(int[] members, int from, int count, int[] hashes, int hash) {
+        for (int member = from; member < from + count; member++) {
+            if (hashes[members[member]] == hash) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Метод упорядочивает корзины по убыванию размера сортировкой подсчетом
+     *
+     * @param sizes   размеры корзин
+     * @param largest размер наибольшей корзины
+     * @return номера корзин
+     */
+    private static int[] bucketsBySizeDescending(int[] sizes, int largest) {
+        int[] sizeStarts = new int[largest + 2];
+        for (int size : sizes) {
+            sizeStarts[largest - size + 1]++;
+        }
+        for (int size = 0; size <= largest; size++) {
+            sizeStarts[size + 1] += sizeStarts[size];
+        }
+        int[] order = new int[sizes.length];
+        for (int bucket = 0; bucket < sizes.length; bucket++) {
+            order[sizeStarts[largest - sizes[bucket]]++] = bucket;
+        }
+        return order;
+    }
+
+    /**
+     * Метод кладет пару в позицию
+     */
+    private static void place(int entry, int slot, Object[] entryKeys, Object[] entryValues,
+                              Object[] keys, Object[] values, long[] occupied) {
+        keys[slot] = entryKeys[entry];
+        values[slot] = entryValues[entry];
+        occupied[slot >>> 6] |= 1L << slot;
+    }
+
+    /**
+     * Метод проверяет, занята ли позиция. Битовая карта в восемь раз меньше массива boolean
+     * и при переборе seed остается в кэше процессора
+     *
+     * @param occupied битовая карта занятых позиций
+     * @param slot     позиция
+     * @return занята ли позиция
+     */
+    private static boolean isOccupied(long[] occupied, int slot) {
+        return (occupied[slot >>> 6] & (1L << slot)) != 0;
+    }
+
+    /**
+     * Метод проверяет, есть ли позиция среди первых count найденных
+     *
+     * @param slots позиции
+     * @param count количество позиций
+     * @param slot  искомая позиция
+     * @return найдена ли позиция
+     */
+    private static boolean contains(int[] slots, int count, int slot) {
+        for (int i = 0; i < count; i++) {
+            if (slots[i] == slot) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Метод возвращает корзину ключа. Хэш перемешивается, чтобы последовательные ключи
+     * не давали одинаковых по размеру корзин: размеры должны быть разными, иначе последние
+     * большие корзины пришлось бы размещать в почти заполненной таблице
+     *
+     * @param hash хэш ключа
+     * @param mask количество корзин минус один
+     * @return номер корзины
+     */
+    private static int bucket(int hash, int mask) {
+        int mixed = (hash ^ (hash >>> 16)) * 0x7FEB352D;
+        mixed = (mixed ^ (mixed >>> 15)) * 0x846CA68B;
+        return (mixed ^ (mixed >>> 16)) & mask;
+    }
+
+    /**
+     * Метод вычисляет позицию ключа по его хэшу и seed корзины
+     *
+     * @param hash   хэш ключа
+     * @param seed   seed корзины или -(позиция + 1)
+     * @param length количество позиций
+     * @return позиция
+     */
+    private static int slot(int hash, int seed, int length) {
+        if (seed < 0) {
+            return -seed - 1;
+        }
+        int mixed = hash ^ (seed * 0x9E3779B9);
+        mixed = (mixed ^ (mixed >>> 16)) * 0x85EBCA6B;
+        mixed = (mixed ^ (mixed >>> 13)) * 0xC2B2AE35;
+        mixed ^= mixed >>> 16;
+        return (int) (((mixed & 0xFFFFFFFFL) * length) >>> 32);
+    }
+
+    /**
+     * Итератор по парам: сначала массивы, затем overflow
+     */
+    private final class EntryIterator implements Iterator<Entry<K, V>> {
+        /**
+         * Следующая позиция в массивах
+         */
+        private int slot;
+        /**
+         * Итератор по overflow, создается после массивов
+         */
+        private Iterator<Entry<K, V>> rest;
+
+        @Override
+        public boolean hasNext() {
+            return slot < keys.length || (rest == null ? !overflow.isEmpty() : rest.hasNext());
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public Entry<K, V> next() {
+            if (slot < keys.length) {
+                Entry<K, V> entry = new SimpleImmutableEntry<>((K) keys[slot], (V) values[slot]);
+                slot++;
+                return entry;
+            }
+            if (rest == null) {
+                rest = overflow.entrySet().iterator();
+            }
+            Entry<K, V> entry = rest.next();
+            return new SimpleImmutableEntry<>(entry.getKey(), entry.getValue());
+        }
+    }
+}
@@ -0,0 +1,557 @@
+package HashMap;
+
+import java.util.*;
+
+/**
+ * Класс описывает мапу int → V без упаковки ключей.
+ * Ключи хранятся в примитивном массиве, коллизии разрешаются линейным пробированием,
+ * удаление выполняется обратным сдвигом. Ключ 0 обозначает пустую ячейку,
+ * поэтому запись с ключом 0 хранится в отдельных полях.
+ * Методы get/put/remove/forEach не создают объектов; для совместимости с кодом,
+ * работающим с Map, есть представление asMap().
+ * Тип параметров:
+ * @param <V> тип значений.
+ */
+public class CustomIntObjectMap<V> {
+    /**
+     * Коэффициент загрузки, используемый по умолчанию.
+     */
+    private static final float DEFAULT_LOAD_FACTOR = 0.75f;
+    /**
+     * Емкость хеш-таблицы по умолчанию.
+     */
+    private static final int DEFAULT_INITIAL_CAPACITY = 16;
+    /**
+     * Максимальная длина массивов. Длина всегда является степенью двойки
+     */
+    private static final int MAXIMUM_CAPACITY = 1 << 30;
+    /**
+     * Ключ пустой ячейки
+     */
+    private static final int EMPTY = 0;
+    /**
+     * Количество элементов, включая запись с ключом 0
+     */
+    private int size;
+    /**
+     * Коэффициент загрузки
+     */
+    private final float loadFactor;
+    /**
+     * Количество элементов в массивах, при превышении которого массивы расширяются
+     */
+    private int threshold;
+    /**
+     * Ключи. Значение EMPTY обозначает свободную ячейку
+     */
+    private int[] keys;
+    /**
+     * Значения
+     */
+    private Object[] values;
+    /**
+     * Есть ли в мапе запись с ключом 0
+     */
+    private boolean hasZeroKey;
+    /**
+     * Значение для ключа 0
+     */
+    private Object zeroValue;
+    /**
+     * Количество структурных изменений мапы, используется итераторами представления asMap()
+     */
+    private int modCount;
+    /**
+     * Представление в виде Map, создается при первом обращении
+     */
+    private Map<Integer, V> mapView;
+
+    /**
+     * Конструктор с параметрами по умолчанию
+     */
+    public CustomIntObjectMap() {
+        this(DEFAULT_INITIAL_CAPACITY, DEFAULT_LOAD_FACTOR);
+    }
+    /**
+     * Конструктор с заданной длиной массивов
+     *
+     * @param arrayLength длинна массивов
+     */
+    public CustomIntObjectMap(int arrayLength) {
+        this(arrayLength, DEFAULT_LOAD_FACTOR);
+    }
+    /**
+     * Конструктор инициализируется произвольной длиной массивов и коэффициентом загрузки.
+     * Длина округляется вверх до степени двойки, коэффициент загрузки должен быть меньше единицы.
+     *
+     * @param arrayLength  длинна массивов.
+     * @param loadFactor   коэффициент загрузки.
+     */
+    public CustomIntObjectMap(int arrayLength, float loadFactor) {
+        if (arrayLength < 0) {
+            throw new IllegalArgumentException("Illegal array length: " + arrayLength);
+        }
+        if (!(loadFactor > 0 && loadFactor < 1)) {
+            throw new IllegalArgumentException("Illegal load factor: " + loadFactor);
+        }
+        this.loadFactor = loadFactor;
+        allocate(HashTables.tableSizeFor(arrayLength, 2, MAXIMUM_CAPACITY));
+    }
+    /**
+     * Метод возвращает количество сохраненных элементов.
+     *
+     * @return количество сохраненных элементов.
+     */
+    public int size() {
+        return size;
+    }
+    /**
+     * Метод проверяет мапу на наличие элементов
+     *
+     * @return мапа пуста
+     */
+    public boolean isEmpty() {
+        return size == 0;
+    }
+    /**
+     * Метод проверяет имеется ли ключ в мапе.
+     *
+     * @param key ключ который нужно проверить есть ли он в мапе
+     * @return ключ есть в мапе
+     */
+    public boolean containsKey(int key) {
+        return key == EMPTY ? hasZeroKey : findSlot(key) >= 0;
+    }
+    /**
+     * Метод возвращает значение по ключу
+     *
+     * @param key ключ по которому возвращаем значение
+     * @return значение полученное по ключу или null, если ключа нет
+     */
+    @SuppressWarnings("unchecked")
+    public V get(int key) {
+        if (key == EMPTY) {
+            return hasZeroKey ? (V) zeroValue : null;
+        }
+        int slot = findSlot(key);
+        return slot < 0 ? null : (V) values[slot];
+    }
+    /**
+     * Метод возвращает значение по ключу или значение по умолчанию
+     *
+     * @param key          ключ по которому возвращаем значение
+     * @param defaultValue значение, если ключа нет
+     * @return значение полученное по ключу или defaultValue
+     */
+    @SuppressWarnings("unchecked")
+    public V getOrDefault(int key, V defaultValue) {
+        if (key == EMPTY) {
+            return hasZeroKey ? (V) zeroValue : defaultValue;
+        }
+        int slot = findSlot(key);
+        return slot < 0 ? defaultValue : (V) values[slot];
+    }
+    /**
+     * Метод добавляет ключ/значение
+     *
+     * @param key   ключ с которым должно быть связано значение
+     * @param value значение, которое связано с ключом
+     * @return предыдущее значение или null, если ключа не было
+     */
+    @SuppressWarnings("unchecked")
+    public V put(int key, V value) {
+        if (key == EMPTY) {
+            V previous = hasZeroKey ? (V) zeroValue : null;
+            if (!hasZeroKey) {
+                hasZeroKey = true;
+                size++;
+                modCount++;
+            }
+            zeroValue = value;
+            return previous;
+        }
+        int mask = keys.length - 1;
+        int slot = hash(key) & mask;
+        while (keys[slot] != EMPTY) {
+            if (keys[slot] == key) {
+                V previous = (V) values[slot];
+                values[slot] = value;
+                return previous;
+            }
+            slot = (slot + 1) & mask;
+        }
+        keys[slot] = key;
+        values[slot] = value;
+        size++;
+        modCount++;
+        if (size - (hasZeroKey ? 1 : 0) > threshold) {
+            resize();
+        }
+        return null;
+    }
+    /**
+     * Метод удаляет ключ и значение связанное с ним
+     *
+     * @param key ключ который должен быть удален
+     * @return удаленное значение или null, если ключа не было
+     */
+    @SuppressWarnings("unchecked")
+    public V remove(int key) {
+        if (key == EMPTY) {
+            if (!hasZeroKey) {
+                return null;
+            }
+            V previous = (V) zeroValue;
+            hasZeroKey = false;
+            zeroValue = null;
+            size--;
+            modCount++;
+            return previous;
+        }
+        int slot = findSlot(key);
+        if (slot < 0) {
+            return null;
+        }
+        V previous = (V) values[slot];
+        removeSlot(slot);
+        return previous;
+    }
+    /**
+     * Метод очищает мапу
+     */
+    public void clear() {
+        Arrays.fill(keys, EMPTY);
+        Arrays.fill(values, null);
+        hasZeroKey = false;
+        zeroValue = null;
+        size = 0;
+        modCount++;
+    }
+    /**
+     * Метод передает все пары ключ-значение в действие без создания объектов
+     *
+     * @param action действие над парой
+     */
+    @SuppressWarnings("unchecked")
+    public void forEach(IntObjectConsumer<V> action) {
+        if (hasZeroKey) {
+            action.accept(EMPTY, (V) zeroValue);
+        }
+        int[] tabKeys = keys;
+        for (int slot = 0; slot < tabKeys.length; slot++) {
+            if (tabKeys[slot] != EMPTY) {
+                action.accept(tabKeys[slot], (V) values[slot]);
+            }
+        }
+    }
+    /**
+     * Метод возвращает текущую длину массивов
+     *
+     * @return длина массивов
+     */
+    public int capacity() {
+        return keys.length;
+    }
+    /**
+     * Метод возвращает представление мапы в виде Map с упакованными ключами и значениями.
+     * Представление не копирует данные: изменения видны в обе стороны.
+     * Метод put представления, в отличие от CustomMap, возвращает предыдущее значение.
+     *
+     * @return представление Map
+     */
+    public Map<Integer, V> asMap() {
+        Map<Integer, V> view = mapView;
+        if (view == null) {
+            view = new MapView();
+            mapView = view;
+        }
+        return view;
+    }
+
+    /**
+     * Метод ищет ячейку с ненулевым ключом
+     *
+     * @param key ключ
+     * @return индекс ячейки или -1, если ключа нет
+     */
+    private int findSlot(int key) {
+        int[] tabKeys = keys;
+        int mask = tabKeys.length - 1;
+        int slot = hash(key) & mask;
+        while (tabKeys[slot] != EMPTY) {
+            if (tabKeys[slot] == key) {
+                return slot;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return -1;
+    }
+
+    /**
+     * Метод удаляет запись из ячейки и сдвигает назад записи кластера,
+     * которые иначе стали бы недостижимы из своих корзин
+     *
+     * @param slot индекс ячейки
+     */
+    private void removeSlot(int slot) {
+        int mask = keys.length - 1;
+        int next = (slot + 1) & mask;
+        while (keys[next] != EMPTY) {
+            int home = hash(keys[next]) & mask;
+            if (((next - home) & mask) >= ((next - slot) & mask)) {
+                keys[slot] = keys[next];
+                values[slot] = values[next];
+                slot = next;
+            }
+            next = (next + 1) & mask;
+        }
+        keys[slot] = EMPTY;
+        values[slot] = null;
+        size--;
+        modCount++;
+    }
+
+    /**
+     * Метод увеличивает массивы вдвое и заново раскладывает записи
+     */
+    private void resize() {
+        int[] oldKeys = keys;
+        Object[] oldValues = values;
+        if (oldKeys.length == MAXIMUM_CAPACITY) {
+            throw new IllegalStateException("Map is full");
+        }
+        allocate(oldKeys.length << 1);
+        int mask = keys.length - 1;
+        for (int oldSlot = 0; oldSlot < oldKeys.length; oldSlot++) {
+            int key = oldKeys[oldSlot];
+            if (key != EMPTY) {
+                int slot = hash(key) & mask;
+                while (keys[slot] != EMPTY) {
+                    slot = (slot + 1) & mask;
+                }
+                keys[slot] = key;
+                values[slot] = oldValues[oldSlot];
+            }
+        }
+    }
+
+    /**
+     * Метод создает пустые массивы заданной длины
+     *
+     * @param length длина массивов, степень двойки
+     */
+    private void allocate(int length) {
+        keys = new int[length];
+        values = new Object[length];
+        threshold = Math.min((int) (length * loadFactor), length - 1);
+    }
+
+    /**
+     * Метод возвращает перемешанный хэш ключа
+     *
+     * @param key ключ
+     * @return хэш ключа
+     */
+    private static int hash(int key) {
+        int hash = key * 0x9E3779B9;
+        return hash ^ (hash >>> 16);
+    }
+
+    /**
+     * Представление мапы в виде Map
+     */
+    private final class MapView extends AbstractMap<Integer, V> {
+        /**
+         * Представление набора ключ-значений, создается при первом обращении
+         */
+        private Set<Entry<Integer, V>> entrySetView;
+
+        @Override
+        public int size() {
+            return size;
+        }
+
+        @Override
+        public boolean containsKey(Object key) {
+            return key instanceof Integer boxed && CustomIntObjectMap.this.containsKey(boxed);
+        }
+
+        @Override
+        public V get(Object key) {
+            if (!(key instanceof Integer boxed)) {
+                return null;
+            }
+            return CustomIntObjectMap.this.get(boxed);
+        }
+
+        @Override
+        public V put(Integer key, V value) {
+            return CustomIntObjectMap.this.put(key, value);
+        }
+
+        @Override
+        public V remove(Object key) {
+            if (!(key instanceof Integer boxed)) {
+                return null;
+            }
+            return CustomIntObjectMap.this.remove(boxed);
+        }
+
+        @Override
+        public void clear() {
+            CustomIntObjectMap.this.clear();
+        }
+
+        @Override
+        public Set<Entry<Integer, V>> entrySet() {
+            Set<Entry<Integer, V>> view = entrySetView;
+            if (view == null) {
+                view = new AbstractSet<>() {
+                    @Override
+                    public Iterator<Entry<Integer, V>> iterator() {
+                        return new EntryIterator();
+                    }
+
+                    @Override
+                    public int size() {
+                        return size;
+                    }
+                };
+                entrySetView = view;
+            }
+            return view;
+        }
+    }
+
+    /**
+     * Итератор представления asMap(). Сначала возвращает запись с ключом 0, затем обходит ячейки,
+     * начиная со свободной, поэтому обратный сдвиг при удалении перемещает только еще не пройденные записи.
+     */
+    private final class EntryIterator implements Iterator<Map.Entry<Integer, V>> {
+        /**
+         * Ячейка, с которой начат обход
+         */
+        private final int start;
+        /**
+         * Нужно ли еще вернуть запись с ключом 0
+         */
+        private boolean zeroPending = hasZeroKey;
+        /**
+         * Количество уже просмотренных ячеек
+         */
+        private int visited;
+        /**
+         * Ячейка следующей записи или -1
+         */
+        private int next = -1;
+        /**
+         * Ключ последней возвращенной записи
+         */
+        private int currentKey;
+        /**
+         * Ячейка последней возвращенной записи, -1 для ключа 0
+         */
+        private int current = -1;
+        /**
+         * Была ли возвращена запись, которую еще можно удалить
+         */
+        private boolean canRemove;
+        /**
+         * Ожидаемое значение modCount
+         */
+        private int expectedModCount = modCount;
+
+        EntryIterator() {
+            int slot = 0;
+            while (keys[slot] != EMPTY) {
+                slot++;
+            }
+            start = slot;
+            advance();
+        }
+
+        @Override
+        public boolean hasNext() {
+            return zeroPending || next >= 0;
+        }
+
+        @Override
+    @SuppressWarnings("unchecked")
+        public Map.Entry<Integer, V> next() {
+            if (modCount != expectedModCount) {
+                throw new ConcurrentModificationException();
+            }
+            canRemove = true;
+            if (zeroPending) {
+                zeroPending = false;
+                current = -1;
+                currentKey = EMPTY;
+                return new PrimitiveEntry(EMPTY, (V) zeroValue);
+            }
+            if (next < 0) {
+                throw new NoSuchElementException();
+            }
+            current = next;
+            currentKey = keys[current];
+            advance();
+            int slot = current;
+            return new PrimitiveEntry(currentKey, (V) values[slot]);
+        }
+
+        @Override
+        public void remove() {
+            if (!canRemove) {
+                throw new IllegalStateException();
+            }
+            if (modCount != expectedModCount) {
+                throw new ConcurrentModificationException();
+            }
+            if (current < 0) {
+                CustomIntObjectMap.this.remove(EMPTY);
+            } else {
+                removeSlot(current);
+                visited = (current - start) & (keys.length - 1);
+                advance();
+            }
+            canRemove = false;
+            expectedModCount = modCount;
+        }
+
+        /**
+         * Метод находит следующую занятую ячейку
+         */
+        private void advance() {
+            int mask = keys.length - 1;
+            next = -1;
+            while (visited < keys.length) {
+                int slot = (start + visited) & mask;
+                visited++;
+                if (keys[slot] != EMPTY) {
+                    next = slot;
+                    return;
+                }
+            }
+        }
+    }
+
+    /**
+     * Пара ключ-значение представления asMap(). Изменение значения записывается в мапу
+     */
+    private final class PrimitiveEntry extends AbstractMap.SimpleEntry<Integer, V> {
+        /**
+         * Версия сериализованной формы
+         */
+        private static final long serialVersionUID = 1L;
+
+        PrimitiveEntry(int key, V value) {
+            super(key, value);
+        }
+
+        @Override
+        public V setValue(V value) {
+            V previous = super.setValue(value);
+            CustomIntObjectMap.this.put(getKey(), value);
+            return previous;
+        }
+    }
+}
@@ -0,0 +1,563 @@
+package HashMap;
+
+import java.util.*;
+
+/**
+ * Класс описывает мапу long → long без упаковки ключей и значений.
+ * Ключи и значения хранятся в примитивных массивах, коллизии разрешаются линейным пробированием,
+ * удаление выполняется обратным сдвигом. Ключ 0 обозначает пустую ячейку,
+ * поэтому запись с ключом 0 хранится в отдельных полях.
+ * Методы get/put/remove/forEach не создают объектов; для совместимости с кодом,
+ * работающим с Map, есть представление asMap().
+ */
+public class CustomLongLongMap {
+    /**
+     * Коэффициент загрузки, используемый по умолчанию.
+     */
+    private static final float DEFAULT_LOAD_FACTOR = 0.75f;
+    /**
+     * Емкость хеш-таблицы по умолчанию.
+     */
+    private static final int DEFAULT_INITIAL_CAPACITY = 16;
+    /**
+     * Максимальная длина массивов. Длина всегда является степенью двойки
+     */
+    private static final int MAXIMUM_CAPACITY = 1 << 30;
+    /**
+     * Ключ пустой ячейки
+     */
+    private static final long EMPTY = 0;
+    /**
+     * Количество элементов, включая запись с ключом 0
+     */
+    private int size;
+    /**
+     * Коэффициент загрузки
+     */
+    private final float loadFactor;
+    /**
+     * Количество элементов в массивах, при превышении которого массивы расширяются
+     */
+    private int threshold;
+    /**
+     * Ключи. Значение EMPTY обозначает свободную ячейку
+     */
+    private long[] keys;
+    /**
+     * Значения
+     */
+    private long[] values;
+    /**
+     * Есть ли в мапе запись с ключом 0
+     */
+    private boolean hasZeroKey;
+    /**
+     * Значение для ключа 0
+     */
+    private long zeroValue;
+    /**
+     * Значение, которое возвращается для отсутствующего ключа
+     */
+    private final long noEntryValue;
+    /**
+     * Количество структурных изменений мапы, используется итераторами представления asMap()
+     */
+    private int modCount;
+    /**
+     * Представление в виде Map, создается при первом обращении
+     */
+    private Map<Long, Long> mapView;
+
+    /**
+     * Конструктор с параметрами по умолчанию
+     */
+    public CustomLongLongMap() {
+        this(DEFAULT_INITIAL_CAPACITY, DEFAULT_LOAD_FACTOR, 0);
+    }
+    /**
+     * Конструктор с заданной длиной массивов
+     *
+     * @param arrayLength длинна массивов
+     */
+    public CustomLongLongMap(int arrayLength) {
+        this(arrayLength, DEFAULT_LOAD_FACTOR, 0);
+    }
+    /**
+     * Конструктор инициализируется произвольной длиной массивов и коэффициентом загрузки.
+     * Длина округляется вверх до степени двойки, коэффициент загрузки должен быть меньше единицы.
+     *
+     * @param arrayLength  длинна массивов.
+     * @param loadFactor   коэффициент загрузки.
+     * @param noEntryValue значение, которое возвращается для отсутствующего ключа.
+     */
+    public CustomLongLongMap(int arrayLength, float loadFactor, long noEntryValue) {
+        if (arrayLength < 0) {
+            throw new IllegalArgumentException("Illegal array length: " + arrayLength);
+        }
+        if (!(loadFactor > 0 && loadFactor < 1)) {
+            throw new IllegalArgumentException("Illegal load factor: " + loadFactor);
+        }
+        this.loadFactor = loadFactor;
+        this.noEntryValue = noEntryValue;
+        allocate(HashTables.tableSizeFor(arrayLength, 2, MAXIMUM_CAPACITY));
+    }
+    /**
+     * Метод возвращает количество сохраненных элементов.
+     *
+     * @return количество сохраненных элементов.
+     */
+    public int size() {
+        return size;
+    }
+    /**
+     * Метод проверяет мапу на наличие элементов
+     *
+     * @return мапа пуста
+     */
+    public boolean isEmpty() {
+        return size == 0;
+    }
+    /**
+     * Метод возвращает значение, которое возвращается для отсутствующего ключа
+     *
+     * @return значение для отсутствующего ключа
+     */
+    public long noEntryValue() {
+        return noEntryValue;
+    }
+    /**
+     * Метод проверяет имеется ли ключ в мапе.
+     *
+     * @param key ключ который нужно проверить есть ли он в мапе
+     * @return ключ есть в мапе
+     */
+    public boolean containsKey(long key) {
+        return key == EMPTY ? hasZeroKey : findSlot(key) >= 0;
+    }
+    /**
+     * Метод возвращает значение по ключу
+     *
+     * @param key ключ по которому возвращаем значение
+     * @return значение полученное по ключу или noEntryValue, если ключа нет
+     */
+    public long get(long key) {
+        if (key == EMPTY) {
+            return hasZeroKey ? zeroValue : noEntryValue;
+        }
+        int slot = findSlot(key);
+        return slot < 0 ? noEntryValue : values[slot];
+    }
+    /**
+     * Метод возвращает значение по ключу или значение по умолчанию
+     *
+     * @param key          ключ по которому возвращаем значение
+     * @param defaultValue значение, если ключа нет
+     * @return значение полученное по ключу или defaultValue
+     */
+    public long getOrDefault(long key, long defaultValue) {
+        if (key == EMPTY) {
+            return hasZeroKey ? zeroValue : defaultValue;
+        }
+        int slot = findSlot(key);
+        return slot < 0 ? defaultValue : values[slot];
+    }
+    /**
+     * Метод добавляет ключ/значение
+     *
+     * @param key   ключ с которым должно быть связано значение
+     * @param value значение, которое связано с ключом
+     * @return предыдущее значение или noEntryValue, если ключа не было
+     */
+    public long put(long key, long value) {
+        if (key == EMPTY) {
+            long previous = hasZeroKey ? zeroValue : noEntryValue;
+            if (!hasZeroKey) {
+                hasZeroKey = true;
+                size++;
+                modCount++;
+            }
+            zeroValue = value;
+            return previous;
+        }
+        int mask = keys.length - 1;
+        int slot = hash(key) & mask;
+        while (keys[slot] != EMPTY) {
+            if (keys[slot] == key) {
+                long previous = values[slot];
+                values[slot] = value;
+                return previous;
+            }
+            slot = (slot + 1) & mask;
+        }
+        keys[slot] = key;
+        values[slot] = value;
+        size++;
+        modCount++;
+        if (size - (hasZeroKey ? 1 : 0) > threshold) {
+            resize();
+        }
+        return noEntryValue;
+    }
+    /**
+     * Метод удаляет ключ и значение связанное с ним
+     *
+     * @param key ключ который должен быть удален
+     * @return удаленное значение или noEntryValue, если ключа не было
+     */
+    public long remove(long key) {
+        if (key == EMPTY) {
+            if (!hasZeroKey) {
+                return noEntryValue;
+            }
+            long previous = zeroValue;
+            hasZeroKey = false;
+            zeroValue = 0;
+            size--;
+            modCount++;
+            return previous;
+        }
+        int slot = findSlot(key);
+        if (slot < 0) {
+            return noEntryValue;
+        }
+        long previous = values[slot];
+        removeSlot(slot);
+        return previous;
+    }
+    /**
+     * Метод очищает мапу
+     */
+    public void clear() {
+        Arrays.fill(keys, EMPTY);
+        hasZeroKey = false;
+        size = 0;
+        modCount++;
+    }
+    /**
+     * Метод передает все пары ключ-значение в действие без создания объектов
+     *
+     * @param action действие над парой
+     */
+    public void forEach(LongLongConsumer action) {
+        if (hasZeroKey) {
+            action.accept(EMPTY, zeroValue);
+        }
+        long[] tabKeys = keys;
+        for (int slot = 0; slot < tabKeys.length; slot++) {
+            if (tabKeys[slot] != EMPTY) {
+                action.accept(tabKeys[slot], values[slot]);
+            }
+        }
+    }
+    /**
+     * Метод возвращает текущую длину массивов
+     *
+     * @return длина массивов
+     */
+    public int capacity() {
+        return keys.length;
+    }
+    /**
+     * Метод возвращает представление мапы в виде Map с упакованными ключами и значениями.
+     * Представление не копирует данные: изменения видны в обе стороны.
+     * Метод put представления, в отличие от CustomMap, возвращает предыдущее значение.
+     *
+     * @return представление Map
+     */
+    public Map<Long, Long> asMap() {
+        Map<Long, Long> view = mapView;
+        if (view == null) {
+            view = new MapView();
+            mapView = view;
+        }
+        return view;
+    }
+
+    /**
+     * Метод ищет ячейку с ненулевым ключом
+     *
+     * @param key ключ
+     * @return индекс ячейки или -1, если ключа нет
+     */
+    private int findSlot(long key) {
+        long[] tabKeys = keys;
+        int mask = tabKeys.length - 1;
+        int slot = hash(key) & mask;
+        while (tabKeys[slot] != EMPTY) {
+            if (tabKeys[slot] == key) {
+                return slot;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return -1;
+    }
+
+    /**
+     * Метод удаляет запись из ячейки и сдвигает назад записи кластера,
+     * которые иначе стали бы недостижимы из своих корзин
+     *
+     * @param slot индекс ячейки
+     */
+    private void removeSlot(int slot) {
+        int mask = keys.length - 1;
+        int next = (slot + 1) & mask;
+        while (keys[next] != EMPTY) {
+            int home = hash(keys[next]) & mask;
+            if (((next - home) & mask) >= ((next - slot) & mask)) {
+                keys[slot] = keys[next];
+                values[slot] = values[next];
+                slot = next;
+            }
+            next = (next + 1) & mask;
+        }
+        keys[slot] = EMPTY;
+        size--;
+        modCount++;
+    }
+
+    /**
+     * Метод увеличивает массивы вдвое и заново раскладывает записи
+     */
+    private void resize() {
+        long[] oldKeys = keys;
+        long[] oldValues = values;
+        if (oldKeys.length == MAXIMUM_CAPACITY) {
+            throw new IllegalStateException("Map is full");
+        }
+        allocate(oldKeys.length << 1);
+        int mask = keys.length - 1;
+        for (int oldSlot = 0; oldSlot < oldKeys.length; oldSlot++) {
+            long key = oldKeys[oldSlot];
+            if (key != EMPTY) {
+                int slot = hash(key) & mask;
+                while (keys[slot] != EMPTY) {
+                    slot = (slot + 1) & mask;
+                }
+                keys[slot] = key;
+                values[slot] = oldValues[oldSlot];
+            }
+        }
+    }
+
+    /**
+     * Метод создает пустые массивы заданной длины
+     *
+     * @param length длина массивов, степень двойки
+     */
+    private void allocate(int length) {
+        keys = new long[length];
+        values = new long[length];
+        threshold = Math.min((int) (length * loadFactor), length - 1);
+    }
+
+    /**
+     * Метод возвращает перемешанный хэш ключа
+     *
+     * @param key ключ
+     * @return хэш ключа
+     */
+    private static int hash(long key) {
+        long hash = key * 0x9E3779B97F4A7C15L;
+        int folded = (int) (hash ^ (hash >>> 32));
+        return folded ^ (folded >>> 16);
+    }
+
+    /**
+     * Представление мапы в виде Map
+     */
+    private final class MapView extends AbstractMap<Long, Long> {
+        /**
+         * Представление набора ключ-значений, создается при первом обращении
+         */
+        private Set<Entry<Long, Long>> entrySetView;
+
+        @Override
+        public int size() {
+            return size;
+        }
+
+        @Override
+        public boolean containsKey(Object key) {
+            return key instanceof Long boxed && CustomLongLongMap.this.containsKey(boxed);
+        }
+
+        @Override
+        public Long get(Object key) {
+            if (!(key instanceof Long boxed) || !CustomLongLongMap.this.containsKey(boxed)) {
+                return null;
+            }
+            return CustomLongLongMap.this.get(boxed);
+        }
+
+        @Override
+        public Long put(Long key, Long value) {
+            boolean existed = CustomLongLongMap.this.containsKey(key);
+            long previous = CustomLongLongMap.this.put(key, value);
+            return existed ? previous : null;
+        }
+
+        @Override
+        public Long remove(Object key) {
+            if (!(key instanceof Long boxed) || !CustomLongLongMap.this.containsKey(boxed)) {
+                return null;
+            }
+            return CustomLongLongMap.this.remove(boxed);
+        }
+
+        @Override
+        public void clear() {
+            CustomLongLongMap.this.clear();
+        }
+
+        @Override
+        public Set<Entry<Long, Long>> entrySet() {
+            Set<Entry<Long, Long>> view = entrySetView;
+            if (view == null) {
+                view = new AbstractSet<>() {
+                    @Override
+                    public Iterator<Entry<Long, Long>> iterator() {
+                        return new EntryIterator();
+                    }
+
+                    @Override
+                    public int size() {
+                        return size;
+                    }
+                };
+                entrySetView = view;
+            }
+            return view;
+        }
+    }
+
+    /**
+     * Итератор представления asMap(). Сначала возвращает запись с ключом 0, затем обходит ячейки,
+     * начиная со свободной, поэтому обратный сдвиг при удалении перемещает только еще не пройденные записи.
+     */
+    private final class EntryIterator implements Iterator<Map.Entry<Long, Long>> {
+        /**
+         * Ячейка, с которой начат обход
+         */
+        private final int start;
+        /**
+         * Нужно ли еще вернуть запись с ключом 0
+         */
+        private boolean zeroPending = hasZeroKey;
+        /**
+         * Количество уже просмотренных ячеек
+         */
+        private int visited;
+        /**
+         * Ячейка следующей записи или -1
+         */
+        private int next = -1;
+        /**
+         * Ключ последней возвращенной записи
+         */
+        private long currentKey;
+        /**
+         * Ячейка последней возвращенной записи, -1 для ключа 0
+         */
+        private int current = -1;
+        /**
+         * Была ли возвращена запись, которую еще можно удалить
+         */
+        private boolean canRemove;
+        /**
+         * Ожидаемое значение modCount
+         */
+        private int expectedModCount = modCount;
+
+        EntryIterator() {
+            int slot = 0;
+            while (keys[slot] != EMPTY) {
+                slot++;
+            }
+            start = slot;
+            advance();
+        }
+
+        @Override
+        public boolean hasNext() {
+            return zeroPending || next >= 0;
+        }
+
+        @Override
+        public Map.Entry<Long, Long> next() {
+            if (modCount != expectedModCount) {
+                throw new ConcurrentModificationException();
+            }
+            canRemove = true;
+            if (zeroPending) {
+                zeroPending = false;
+                current = -1;
+                currentKey = EMPTY;
+                return new PrimitiveEntry(EMPTY, zeroValue);
+            }
+            if (next < 0) {
+                throw new NoSuchElementException();
+            }
+            current = next;
+            currentKey = keys[current];
+            advance();
+            int slot = current;
+            return new PrimitiveEntry(currentKey, values[slot]);
+        }
+
+        @Override
+        public void remove() {
+            if (!canRemove) {
+                throw new IllegalStateException();
+            }
+            if (modCount != expectedModCount) {
+                throw new ConcurrentModificationException();
+            }
+            if (current < 0) {
+                CustomLongLongMap.this.remove(EMPTY);
+            } else {
+                removeSlot(current);
+                visited = (current - start) & (keys.length - 1);
+                advance();
+            }
+            canRemove = false;
+            expectedModCount = modCount;
+        }
+
+        /**
+         * Метод находит следующую занятую ячейку
+         */
+        private void advance() {
+            int mask = keys.length - 1;
+            next = -1;
+            while (visited < keys.length) {
+                int slot = (start + visited) & mask;
+                visited++;
+                if (keys[slot] != EMPTY) {
+                    next = slot;
+                    return;
+                }
+            }
+        }
+    }
+
+    /**
+     * Пара ключ-значение представления asMap(). Изменение значения записывается в мапу
+     */
+    private final class PrimitiveEntry extends AbstractMap.SimpleEntry<Long, Long> {
+        /**
+         * Версия сериализованной формы
+         */
+        private static final long serialVersionUID = 1L;
+
+        PrimitiveEntry(long key, long value) {
+            super(key, value);
+        }
+
+        @Override
+        public Long setValue(Long value) {
+            Long previous = super.setValue(value);
+            CustomLongLongMap.this.put(getKey(), value);
+            return previous;
+        }
+    }
+}
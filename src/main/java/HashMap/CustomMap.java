@@ -1,12 +1,24 @@
 package HashMap;
 
+import java.io.IOException;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.nio.file.Path;
 import java.util.Arrays;
 import java.util.*;
-import java.util.stream.Collectors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.BiConsumer;
+import java.util.function.BiFunction;
+import java.util.function.Consumer;
+import java.util.function.Function;
 
 /**
  * Класс описывает собственную реализацию HashMap.
  * Для разрешения коллизий используется метод цепочек.
+ * Слишком длинные цепочки превращаются в красно-черные деревья,
+ * упорядоченные по хэшу, а затем по Comparable, что ограничивает поиск в корзине O(log n).
  * Тип параметров:
  * @param <K> тип ключей.
  * @param <V> тип значений.
@@ -26,13 +38,76 @@ public class CustomMap<K,V> extends AbstractMap<K,V> implements Map<K,V> {
      */
     private static final int EXPANSION_COEFFICIENT = 2;
     /**
-     * Длина массива
+     * Максимальная длина массива. Длина всегда является степенью двойки
+     */
+    private static final int MAXIMUM_CAPACITY = 1 << 30;
+    /**
+     * Длина цепочки, при которой корзина превращается в дерево
+     */
+    private static final int TREEIFY_THRESHOLD = 8;
+    /**
+     * Количество узлов, при котором дерево при расширении снова превращается в цепочку
+     */
+    private static final int UNTREEIFY_THRESHOLD = 6;
+    /**
+     * Минимальная длина массива для создания деревьев. В меньшем массиве
+     * вместо создания дерева массив расширяется
+     */
+    private static final int MIN_TREEIFY_CAPACITY = 64;
+    /**
+     * Количество непустых корзин, переносимых одной операцией при постепенном расширении
+     */
+    private static final int MIGRATION_STEP = 4;
+    /**
+     * Во сколько раз больше пустых корзин, чем MIGRATION_STEP, может пропустить одна операция
+     */
+    private static final int MIGRATION_EMPTY_VISITS = 10;
+    /**
+     * Сбор статистики операций, включается при запуске JVM свойством -Dcustommap.stats=true.
+     * Флаг static final, поэтому при выключенной статистике JIT вырезает все проверки и счетчики
+     */
+    static final boolean STATS_ENABLED = Boolean.getBoolean("custommap.stats");
+    /**
+     * Количество ключей, обрабатываемых пачкой в getAll, removeAll и bulkLoad
+     */
+    private static final int BATCH_SIZE = 64;
+    /**
+     * Размер узла Node при сжатых ссылках: заголовок, key, value, next и hashCode
+     */
+    private static final int NODE_BYTES = 32;
+    /**
+     * Размер узла LinkedNode: Node, связи очередей и колеса таймеров, вес и срок жизни
+     */
+    private static final int LINKED_NODE_BYTES = 64;
+    /**
+     * Размер узла TreeNode: LinkedNode, связи дерева и цвет
+     */
+    private static final int TREE_NODE_BYTES = 88;
+    /**
+     * Во сколько раз загрузка должна упасть ниже loadFactor, чтобы массив уменьшился после удаления.
+     * После уменьшения загрузка не больше loadFactor / 2, поэтому чередование вставок и удалений
+     * на границе не вызывает расширений и уменьшений подряд
+     */
+    private static final int SHRINK_DIVISOR = 4;
+    /**
+     * Длина массива, всегда степень двойки
      */
     private int arrayLength;
+    /**
+     * Длина массива, меньше которой он не уменьшается автоматически: длина из конструктора,
+     * увеличенная ensureCapacity или установленная trimToSize
+     */
+    private int minimumLength;
     /**
      * Количество элементов в массиве
      */
     private int size;
+    /**
+     * Сумма хэшей всех ключей, обновляется при вставке и удалении узлов.
+     * Не зависит от порядка узлов, поэтому мапы с разными наборами ключей
+     * обычно различаются уже по этой сумме, без обхода корзин
+     */
+    private int keyHashSum;
     /**
      * Коэффициент загрузки
      */
@@ -42,6 +117,47 @@ public class CustomMap<K,V> extends AbstractMap<K,V> implements Map<K,V> {
      * для хранения пар «ключ-значение» в виде узлов. Здесь хранятся Node
      */
     private Node<K, V>[] table;
+    /**
+     * Режим постепенного расширения: корзины переносятся в новый массив
+     * небольшими порциями при каждой операции, а не все сразу
+     */
+    private final boolean incrementalResize;
+    /**
+     * Старый массив, корзины которого еще не перенесены в table.
+     * Равен null, если перенос не выполняется
+     */
+    private Node<K, V>[] oldTable;
+    /**
+     * Индекс первой не перенесенной корзины старого массива.
+     * Ключ с индексом в oldTable меньше migrationIndex уже находится в table
+     */
+    private int migrationIndex;
+    /**
+     * Количество структурных изменений мапы (добавление и удаление узлов, расширение массива).
+     * Используется итераторами представлений для быстрого обнаружения конкурентной модификации.
+     */
+    private int modCount;
+    /**
+     * Представление набора ключей, создается при первом обращении
+     */
+    private Set<K> keySetView;
+    /**
+     * Представление коллекции значений, создается при первом обращении
+     */
+    private Collection<V> valuesView;
+    /**
+     * Представление набора ключ-значений, создается при первом обращении
+     */
+    private Set<Entry<K, V>> entrySetView;
+    /**
+     * Счетчики статистики, null если статистика выключена
+     */
+    private final StatsCounters stats = STATS_ENABLED ? new StatsCounters() : null;
+    /**
+     * Стратегия хэширования и равенства ключей, null для hashCode и equals самих ключей.
+     * Естественный случай хранится как null, чтобы обычная мапа не платила за вызов через интерфейс
+     */
+    private final HashStrategy<Object> strategy;
 
     /**
      * Конструктор с параметрами по умолчанию
@@ -72,9 +188,57 @@ public class CustomMap<K,V> extends AbstractMap<K,V> implements Map<K,V> {
      */
     public CustomMap(int arrayLength, float loadFactor)
     {
-        this.arrayLength = arrayLength;
+        this(arrayLength, loadFactor, false);
+    }
+    /**
+     * Конструктор инициализируется произвольной длиной массива, коэффициентом загрузки
+     * и режимом расширения. Длина массива округляется вверх до ближайшей степени двойки.
+     * В постепенном режиме старый и новый массивы существуют одновременно, а каждая операция
+     * put/get/remove переносит ограниченное число корзин, поэтому ни одна вставка
+     * не платит за перенос всей таблицы.
+     *
+     * @param arrayLength       длинна массива.
+     * @param loadFactor        коэффициент загрузки.
+     * @param incrementalResize включить постепенное расширение массива.
+     */
+    public CustomMap(int arrayLength, float loadFactor, boolean incrementalResize)
+    {
+        this(arrayLength, loadFactor, incrementalResize, HashStrategy.NATURAL);
+    }
+    /**
+     * Конструктор с параметрами по умолчанию и заданной стратегией хэширования ключей
+     *
+     * @param strategy стратегия хэширования и равенства ключей
+     */
+    public CustomMap(HashStrategy<? super K> strategy) {
+        this(DEFAULT_INITIAL_CAPACITY, DEFAULT_LOAD_FACTOR, false, strategy);
+    }
+    /**
+     * Конструктор инициализируется произвольной длиной массива, коэффициентом загрузки,
+     * режимом расширения и стратегией хэширования ключей. Хэш стратегии считается один раз
+     * при вставке и хранится в узле, поэтому расширение массива стратегию не вызывает.
+     *
+     * @param arrayLength       длинна массива.
+     * @param loadFactor        коэффициент загрузки.
+     * @param incrementalResize включить постепенное расширение массива.
+     * @param strategy          стратегия хэширования и равенства ключей.
+     */
+    @SuppressWarnings({"rawtypes", "unchecked"})
+    public CustomMap(int arrayLength, float loadFactor, boolean incrementalResize, HashStrategy<? super K> strategy)
+    {
+        Objects.requireNonNull(strategy);
+        if (arrayLength < 0) {
+            throw new IllegalArgumentException("Illegal array length: " + arrayLength);
+        }
+        if (loadFactor <= 0 || Float.isNaN(loadFactor)) {
+            throw new IllegalArgumentException("Illegal load factor: " + loadFactor);
+        }
+        this.arrayLength = HashTables.tableSizeFor(arrayLength, 1, MAXIMUM_CAPACITY);
+        this.minimumLength = this.arrayLength;
         this.loadFactor = loadFactor;
-        this.table = new Node[arrayLength];
+        this.incrementalResize = incrementalResize;
+        this.strategy = strategy == HashStrategy.NATURAL ? null : (HashStrategy<Object>) strategy;
+        this.table = new Node[this.arrayLength];
     }
     /**
      * Метод возвращает количество сохраненных элементов.
@@ -102,7 +266,7 @@ public class CustomMap<K,V> extends AbstractMap<K,V> implements Map<K,V> {
      */
     @Override
     public boolean containsKey(Object key) {
-        return keySet().stream().anyMatch(HaveKey -> HaveKey.equals(key));
+        return getNode(key) != null;
     }
     /**
      * Метод проверяет имеется ли значение в мапе.
@@ -112,7 +276,16 @@ public class CustomMap<K,V> extends AbstractMap<K,V> implements Map<K,V> {
      */
     @Override
     public boolean containsValue(Object value) {
-        return values().stream().anyMatch(HaveValue -> HaveValue.equals(value));
+        completeMigration();
+        for (Node<K, V> node : table) {
+            while (node != null) {
+                if (Objects.equals(value, node.value)) {
+                    return true;
+                }
+                node = node.next;
+            }
+        }
+        return false;
     }
     /**
      * Метод возвращает значение по ключу
@@ -122,29 +295,8 @@ public class CustomMap<K,V> extends AbstractMap<K,V> implements Map<K,V> {
      */
     @Override
     public V get(Object key) {
-        int hash = hashCode(key);
-        int index = getIndex(hash, arrayLength);
-        Node<K, V> node = table[index];
-        if (node == null) {
-            return null;
-        }
-        K nodeKey = node.key;
-        if (key == null && nodeKey == null) {
-            return node.value;
-        }
-        while (node.next != null) {
-            if (hash == node.hashCode) {
-                if (key != null && key.equals(node.getKey())) {
-                    return node.value;
-                }
-            } else {
-                node = node.next;
-            }
-        }
-        if (key != null && key.equals(node.getKey())) {
-            return node.value;
-        }
-        return null;
+        Node<K, V> node = getNode(key);
+        return node == null ? null : node.value;
     }
     /**
      * Метод добавляет ключ/значение
@@ -155,31 +307,7 @@ public class CustomMap<K,V> extends AbstractMap<K,V> implements Map<K,V> {
      */
     @Override
     public V put(K key, V value) {
-        int hash = hashCode(key);
-        int index = getIndex(hash, arrayLength);
-        Node<K, V> node = table[index];
-        if (node == null) {
-            node = new Node<>(key, value, hash, null);
-            table[index] = node;
-            size++;
-            increaseSize();
-        } else if (key != null && node.key != null) {
-            while (node.next != null) {
-                if (key.equals(node.getKey())) {
-                    node.setValue(value);
-                }
-                node = node.next;
-            }
-            if (key.equals(node.getKey())) {
-                node.setValue(value);
-            } else {
-                node.next = new Node<>(key, value, hash, null);
-                size++;
-                increaseSize();
-            }
-        } else {
-            table[index] = new Node<>(key, value, hash, null);
-        }
+        putValue(hashCode(key), key, value, false);
         return value;
     }
     /**
@@ -190,229 +318,2106 @@ public class CustomMap<K,V> extends AbstractMap<K,V> implements Map<K,V> {
      */
     @Override
     public V remove(Object key) {
-        int hash = hashCode(key);
-        int index = getIndex(hash, arrayLength);
-        if (table[index] != null) {
-            Node<K, V> node = table[index];
-            Node<K, V> prevNode = null;
-            if (node.key == null) {
-                node = table[index];
-                table[index] = null;
-                size--;
-                return node.value;
-            }
-            while (node != null) {
-                if (hash == node.hashCode && node.key.equals(key)) {
-                    if (prevNode == null) {
-                        node = table[index];
-                        table[index] = table[index].next;
-                        size--;
-                        return node.value;
-                    } else {
-                        prevNode.next = node.next;
-                        size--;
-                        return node.value;
-                    }
-                }
-                prevNode = node;
-                node = node.next;
-            }
+        Node<K, V> node = removeNode(key, true);
+        return node == null ? null : node.value;
+    }
+    /**
+     * Метод возвращает значение по ключу или значение по умолчанию, если ключа нет.
+     * Корзина просматривается один раз
+     *
+     * @param key          ключ по которому возвращаем значение
+     * @param defaultValue значение по умолчанию
+     * @return значение ключа или defaultValue
+     */
+    @Override
+    public V getOrDefault(Object key, V defaultValue) {
+        Node<K, V> node = getNode(key);
+        return node == null ? defaultValue : node.value;
+    }
+    /**
+     * Метод добавляет значение, если ключа нет или его значение null, за один проход по корзине
+     *
+     * @param key   ключ
+     * @param value значение
+     * @return предыдущее значение или null
+     */
+    @Override
+    public V putIfAbsent(K key, V value) {
+        return putValue(hashCode(key), key, value, true);
+    }
+    /**
+     * Метод заменяет значение ключа, только если ключ есть в мапе
+     *
+     * @param key   ключ
+     * @param value новое значение
+     * @return предыдущее значение или null, если ключа нет
+     */
+    @Override
+    public V replace(K key, V value) {
+        Node<K, V> node = getNode(key);
+        if (node == null) {
+            return null;
         }
-        return null;
+        V oldValue = node.value;
+        node.setValue(value);
+        afterNodeAccess(node);
+        return oldValue;
     }
-
     /**
-     * Метод добавляет все элементы из одной мапы в другую
+     * Метод заменяет значение ключа, только если текущее значение равно oldValue
      *
-     * @param map мапа в которую добавляются элементы
+     * @param key      ключ
+     * @param oldValue ожидаемое текущее значение
+     * @param newValue новое значение
+     * @return было ли значение заменено
      */
     @Override
-    public void putAll(Map<? extends K, ? extends V> map) {
-        for (Entry<? extends K, ? extends V> entry : map.entrySet()) {
-            put(entry.getKey(), entry.getValue());
+    public boolean replace(K key, V oldValue, V newValue) {
+        Node<K, V> node = getNode(key);
+        if (node == null || !Objects.equals(node.value, oldValue)) {
+            return false;
         }
+        node.setValue(newValue);
+        afterNodeAccess(node);
+        return true;
     }
-
     /**
-     * Метод очищает мапу
+     * Метод вычисляет значение для ключа, у которого нет значения, за один проход по корзине
+     *
+     * @param key             ключ
+     * @param mappingFunction функция значения, null не добавляет ключ
+     * @return текущее или вычисленное значение
      */
     @Override
-    public void clear() {
-        table = new Node[DEFAULT_INITIAL_CAPACITY];
-        size = 0;
+    public V computeIfAbsent(K key, Function<? super K, ? extends V> mappingFunction) {
+        Objects.requireNonNull(mappingFunction);
+        return computeValue(key, (k, oldValue) -> mappingFunction.apply(k), true, false);
     }
     /**
-     * Метод возвращает набор ключей
+     * Метод пересчитывает значение ключа, у которого есть значение, за один проход по корзине
      *
-     * @return набор ключей
+     * @param key               ключ
+     * @param remappingFunction функция нового значения, null удаляет ключ
+     * @return новое значение или null
      */
     @Override
-    public Set<K> keySet() {
-        return entrySet().stream().map(Entry::getKey).collect(Collectors.toSet());
+    public V computeIfPresent(K key, BiFunction<? super K, ? super V, ? extends V> remappingFunction) {
+        Objects.requireNonNull(remappingFunction);
+        return computeValue(key, remappingFunction, false, true);
     }
     /**
-     * Метод возвращает набор значений
+     * Метод вычисляет новое значение ключа по текущему за один проход по корзине
      *
-     * @return набор значений
+     * @param key               ключ
+     * @param remappingFunction функция нового значения, null удаляет ключ
+     * @return новое значение или null
      */
     @Override
-    public Collection<V> values() {
-        return entrySet().stream().map(Entry::getValue).collect(Collectors.toSet());
+    public V compute(K key, BiFunction<? super K, ? super V, ? extends V> remappingFunction) {
+        Objects.requireNonNull(remappingFunction);
+        return computeValue(key, remappingFunction, false, false);
     }
     /**
-     * Метод возвращает набор всех ключ-значений
+     * Метод объединяет значение с текущим за один проход по корзине.
+     * Счетчики вида merge(key, 1, Integer::sum) не ищут ключ повторно
      *
-     * @return набор entries
+     * @param key               ключ
+     * @param value             значение для отсутствующего ключа
+     * @param remappingFunction функция объединения старого и нового значения, null удаляет ключ
+     * @return новое значение или null
      */
     @Override
-    public Set<Entry<K, V>> entrySet() {
-        Set<Entry<K, V>> set = new HashSet<>();
-        for (Node<K, V> node : table) {
-            while (node != null) {
-                set.add(node);
-                node = node.next;
-            }
-        }
-        return set;
+    public V merge(K key, V value, BiFunction<? super V, ? super V, ? extends V> remappingFunction) {
+        Objects.requireNonNull(value);
+        Objects.requireNonNull(remappingFunction);
+        return computeValue(key, (k, oldValue) -> oldValue == null ? value : remappingFunction.apply(oldValue, value),
+                false, false);
     }
+
     /**
-     * Метод сравнивает объект в мапе
+     * Метод добавляет все элементы из одной мапы в другую.
+     * Массив расширяется один раз до размера, достаточного для size + map.size() элементов,
+     * а если источник тоже CustomMap с той же стратегией ключей, хэши ключей берутся из его узлов
+     * без повторного вычисления. Хэш, посчитанный другой стратегией, в этой мапе не годится.
      *
-     * @param object объект который нужно сравнить на равенство
-     * @return объект == мапе
+     * @param map мапа в которую добавляются элементы
      */
     @Override
-    public boolean equals(Object object) {
-        if (this == object) return true;
-        if (!(object instanceof CustomMap<?, ?> customMap)) return false;
-        if (!super.equals(object)) return false;
-        return arrayLength == customMap.arrayLength
-                && size == customMap.size
-                && Float.compare(loadFactor, customMap.loadFactor) == 0
-                && Arrays.equals(table, customMap.table);
+    public void putAll(Map<? extends K, ? extends V> map) {
+        presize((long) size + map.size());
+        boolean sameHashes = map instanceof CustomMap<?, ?> source && source.strategy == strategy;
+        for (Entry<? extends K, ? extends V> entry : map.entrySet()) {
+            if (sameHashes && entry instanceof Node<? extends K, ? extends V> node) {
+                putValue(node.hashCode, node.key, node.value, false);
+            } else {
+                put(entry.getKey(), entry.getValue());
+            }
+        }
     }
 
-    public Node<K, V>[] getTable() {
-        return table;
+    /**
+     * Метод возвращает значения для набора ключей. Ключи обрабатываются пачками по BATCH_SIZE:
+     * сначала для всей пачки считаются хэши, затем читаются первые узлы корзин и только потом
+     * просматриваются цепочки. Независимые чтения массива идут подряд, поэтому промахи кэша
+     * процессора по разным корзинам перекрываются, как при явной предвыборке.
+     *
+     * @param keys ключи
+     * @return мапа найденных ключей и их значений с той же стратегией ключей,
+     * отсутствующие ключи в нее не попадают
+     */
+    @SuppressWarnings({"rawtypes", "unchecked"})
+    public Map<K, V> getAll(Collection<? extends K> keys) {
+        completeMigration();
+        CustomMap<K, V> result = new CustomMap<>(capacityFor(keys.size(), DEFAULT_LOAD_FACTOR), DEFAULT_LOAD_FACTOR,
+                false, strategy == null ? HashStrategy.NATURAL : strategy);
+        Object[] batch = new Object[BATCH_SIZE];
+        int[] hashes = new int[BATCH_SIZE];
+        Node<K, V>[] heads = new Node[BATCH_SIZE];
+        Iterator<? extends K> iterator = keys.iterator();
+        while (iterator.hasNext()) {
+            int count = nextBatch(iterator, batch, hashes);
+            Node<K, V>[] tab = table;
+            for (int i = 0; i < count; i++) {
+                heads[i] = tab[getIndex(hashes[i], tab.length)];
+            }
+            for (int i = 0; i < count; i++) {
+                Node<K, V> node = findInBin(heads[i], hashes[i], batch[i]);
+                if (node != null) {
+                    result.putValue(hashes[i], node.key, node.value, false);
+                }
+                heads[i] = null;
+            }
+        }
+        return result;
     }
 
     /**
-     * Метод возвращает хэш-код ключа
+     * Метод удаляет все заданные ключи, вычисляя хэши пачками
      *
-     * @param key ключ для которого необходимо вычислить хэшкод
-     * @return хэш-код ключа
+     * @param keys ключи, которые нужно удалить
+     * @return количество удаленных элементов
      */
-    private int hashCode(Object key) {
-        return key == null ? 0 : key.hashCode();
+    public int removeAll(Collection<?> keys) {
+        Object[] batch = new Object[BATCH_SIZE];
+        int[] hashes = new int[BATCH_SIZE];
+        int removed = 0;
+        Iterator<?> iterator = keys.iterator();
+        while (iterator.hasNext()) {
+            int count = nextBatch(iterator, batch, hashes);
+            for (int i = 0; i < count; i++) {
+                if (removeNode(hashes[i], batch[i], true) != null) {
+                    removed++;
+                }
+            }
+        }
+        return removed;
     }
 
     /**
-     *Метод возвращает индекс элемента по хэшкоду и длинне массива
+     * Метод создает мапу из массивов ключей и значений за один проход.
+     * Массив сразу создается нужной длины, поэтому расширений не бывает,
+     * а хэши ключей считаются пачками перед вставкой. Повторяющийся ключ получает последнее значение.
      *
-     * @param hash   хэш для ключа.
-     * @param length длина массива.
-     * @return индекс элемента.
+     * @param keys   ключи
+     * @param values значения, values[i] соответствует keys[i]
+     * @param <K>    тип ключей
+     * @param <V>    тип значений
+     * @return заполненная мапа
      */
-    private int getIndex(int hash, int length) {
-        return Math.abs(hash) % length;
+    public static <K, V> CustomMap<K, V> bulkLoad(K[] keys, V[] values) {
+        if (keys.length != values.length) {
+            throw new IllegalArgumentException("Keys and values differ in length: "
+                    + keys.length + " != " + values.length);
+        }
+        CustomMap<K, V> map = new CustomMap<>(capacityFor(keys.length, DEFAULT_LOAD_FACTOR));
+        int[] hashes = new int[BATCH_SIZE];
+        for (int start = 0; start < keys.length; start += BATCH_SIZE) {
+            int count = Math.min(BATCH_SIZE, keys.length - start);
+            for (int i = 0; i < count; i++) {
+                hashes[i] = map.hashCode(keys[start + i]);
+            }
+            for (int i = 0; i < count; i++) {
+                map.putValue(hashes[i], keys[start + i], values[start + i], false);
+            }
+        }
+        return map;
     }
 
     /**
-     * Метод проверяет, нужно ли расширять массив,
-     * и если да (превышен коэффициент загрузки) - расширяет массив.
+     * Метод добавляет ключ/значение с уже вычисленным хэшем
+     *
+     * @param hash         хэш ключа
+     * @param key          ключ
+     * @param value        значение
+     * @param onlyIfAbsent не заменять значение, отличное от null
+     * @return предыдущее значение или null
      */
-    private void increaseSize() {
-        if (arrayLength * loadFactor < size) {
-            int newArrayLength = arrayLength * EXPANSION_COEFFICIENT;
-            Node<K, V>[] newTable = new Node[newArrayLength];
-            Set<Entry<K, V>> entrySet = entrySet();
-            for (Entry<K, V> entry : entrySet) {
-                Node<K, V> nodeFromEntry = (Node<K, V>) entry;
-                nodeFromEntry.next = null;
-                int newIndex = getIndex(nodeFromEntry.hashCode, newArrayLength);
-                Node<K, V> node = newTable[newIndex];
-                if (node == null) {
-                    newTable[newIndex] = nodeFromEntry;
-                } else {
-                    while (node.next != null) {
-                        node = node.next;
+    private V putValue(int hash, K key, V value, boolean onlyIfAbsent) {
+        migrate();
+        Node<K, V>[] tab = tableFor(hash);
+        int index = getIndex(hash, tab.length);
+        Node<K, V> node = tab[index];
+        if (node == null) {
+            tab[index] = newNode(key, value, hash, null);
+            if (STATS_ENABLED) {
+                stats.recordPut(0, true);
+            }
+        } else if (node instanceof TreeNode<K, V> treeNode) {
+            Node<K, V> existing = treeNode.putTreeVal(this, tab, hash, key, value);
+            if (STATS_ENABLED) {
+                stats.recordPut(1, existing == null);
+            }
+            if (existing != null) {
+                return updateValue(existing, value, onlyIfAbsent);
+            }
+        } else {
+            int binCount = 0;
+            while (true) {
+                if (hash == node.hashCode && keyEquals(strategy, key, node.key)) {
+                    if (STATS_ENABLED) {
+                        stats.recordPut(binCount + 1, false);
                     }
-                    node.next = nodeFromEntry;
+                    return updateValue(node, value, onlyIfAbsent);
+                }
+                if (node.next == null) {
+                    break;
                 }
+                node = node.next;
+                binCount++;
+            }
+            node.next = newNode(key, value, hash, null);
+            if (STATS_ENABLED) {
+                stats.recordPut(binCount + 1, true);
+            }
+            if (binCount >= TREEIFY_THRESHOLD - 1) {
+                treeifyBin(tab, index);
             }
-            table = newTable;
-            arrayLength = newArrayLength;
         }
+        completeInsertion(hash);
+        return null;
     }
 
     /**
-     * Класс описывает Ноду, которая хранит ключ и значение в массиве
+     * Метод заменяет значение найденного узла
      *
-     * @param <K> тип ключа
-     * @param <V> тип значения
+     * @param node         узел
+     * @param value        новое значение
+     * @param onlyIfAbsent не заменять значение, отличное от null
+     * @return предыдущее значение
      */
-    private static class Node<K, V> implements Map.Entry<K, V> {
-        /**
-         * Поле, в котором хранится ключ
-         */
-        private final K key;
-        /**
-         * Поле, в котором хранится значение
-         */
-        private V value;
-        /**
-         * Ссылка на следущую ноду
-         */
-        private Node<K, V> next;
-        /**
-         * Хэш для ключа
-         */
-        private final int hashCode;
-        /**
-         * Конструктор объекта Ноды
-         *
-         * @param key      ключ с которым связано значение
-         * @param value    значение связанное с ключом
-         * @param hashCode хэш для ключа
-         * @param next     ссылка на следующую ноду
-         */
-        private Node(K key, V value, int hashCode, Node<K, V> next) {
-            this.key = key;
-            this.value = value;
-            this.hashCode = hashCode;
-            this.next = next;
+    private V updateValue(Node<K, V> node, V value, boolean onlyIfAbsent) {
+        V oldValue = node.value;
+        if (!onlyIfAbsent || oldValue == null) {
+            node.setValue(value);
+            afterNodeAccess(node);
         }
-        /**
-         * Метод возвращает сохраненный ключ
-         *
-         * @return ключ
-         */
-        @Override
-        public K getKey() {
-            return key;
+        return oldValue;
+    }
+
+    /**
+     * Метод вычисляет новое значение ключа за один проход по корзине: узел ищется один раз,
+     * и на том же месте значение заменяется, узел удаляется или в конец цепочки добавляется новый.
+     * Подклассы переопределяют метод, чтобы все вычисляющие методы шли через их политику
+     *
+     * @param key           ключ
+     * @param function      функция нового значения по ключу и текущему значению (null, если его нет)
+     * @param onlyIfAbsent  не вызывать функцию, если у ключа есть значение
+     * @param onlyIfPresent не вызывать функцию, если у ключа нет значения
+     * @return новое значение, текущее, если функция не вызывалась, или null
+     * @throws ConcurrentModificationException если функция добавила или удалила элементы
+     */
+    V computeValue(K key, BiFunction<? super K, ? super V, ? extends V> function,
+                   boolean onlyIfAbsent, boolean onlyIfPresent) {
+        migrate();
+        int hash = hashCode(key);
+        Node<K, V>[] tab = tableFor(hash);
+        int index = getIndex(hash, tab.length);
+        Node<K, V> first = tab[index];
+        Node<K, V> node = null;
+        Node<K, V> prevNode = null;
+        int binCount = 0;
+        if (first instanceof TreeNode<K, V> treeNode) {
+            node = treeNode.getTreeNode(strategy, hash, key);
+            binCount = 1;
+        } else {
+            for (Node<K, V> current = first; current != null; current = current.next) {
+                binCount++;
+                if (hash == current.hashCode && keyEquals(strategy, key, current.key)) {
+                    node = current;
+                    break;
+                }
+                prevNode = current;
+            }
         }
-        /**
-         * Метод возвращает сохраненное значение
-         *
-         * @return значение
-         */
-        @Override
-        public V getValue() {
-            return value;
+        V oldValue = node == null ? null : node.value;
+        if (onlyIfAbsent && oldValue != null) {
+            return oldValue;
         }
-        /**
-         * Метод устанавливает новое значение для ноды
-         *
-         * @param value новое значение которое будет сохранено в Ноде
-         * @return новое значение
-         */
-        @Override
-        public V setValue(V value) {
-            this.value = value;
-            return value;
+        if (onlyIfPresent && oldValue == null) {
+            return null;
         }
-        /**
-         * Метод сравнивает полученный объект с Нодой
+        int expectedModCount = modCount;
+        V value = function.apply(key, oldValue);
+        if (modCount != expectedModCount) {
+            throw new ConcurrentModificationException();
+        }
+        if (value == null && (node == null || onlyIfAbsent)) {
+            return null;
+        }
+        if (tableFor(hash) != tab) {
+            // функция читала мапу, и постепенное расширение перенесло корзину: набор ключей тот же,
+            // поэтому результат применяется обычным путем
+            if (value == null) {
+                removeNode(hash, key, true);
+            } else {
+                putValue(hash, key, value, false);
+            }
+            return value;
+        }
+        if (value == null) {
+            if (node instanceof TreeNode<K, V> treeNode) {
+                treeNode.removeTreeNode(this, tab, true);
+            } else if (prevNode == null) {
+                tab[index] = node.next;
+            } else {
+                prevNode.next = node.next;
+            }
+            completeRemoval(node);
+            shrinkIfSparse();
+            return null;
+        }
+        if (STATS_ENABLED) {
+            stats.recordPut(first == null ? 0 : binCount, node == null);
+        }
+        if (node != null) {
+            node.setValue(value);
+            afterNodeAccess(node);
+            return value;
+        }
+        if (first instanceof TreeNode<K, V> treeNode) {
+            treeNode.putTreeVal(this, tab, hash, key, value);
+        } else if (prevNode == null) {
+            tab[index] = newNode(key, value, hash, null);
+        } else {
+            prevNode.next = newNode(key, value, hash, null);
+            if (binCount >= TREEIFY_THRESHOLD) {
+                treeifyBin(tab, index);
+            }
+        }
+        completeInsertion(hash);
+        return value;
+    }
+
+    /**
+     * Метод учитывает вставку нового узла и при необходимости расширяет массив
+     *
+     * @param hash хэш ключа нового узла
+     */
+    private void completeInsertion(int hash) {
+        size++;
+        keyHashSum += hash;
+        modCount++;
+        increaseSize();
+        afterNodeInsertion();
+    }
+
+    /**
+     * Метод учитывает удаление узла, уже отцепленного от корзины
+     *
+     * @param node удаленный узел
+     */
+    private void completeRemoval(Node<K, V> node) {
+        size--;
+        keyHashSum -= node.hashCode;
+        modCount++;
+        if (STATS_ENABLED) {
+            stats.removes++;
+        }
+        afterNodeRemoval(node);
+    }
+
+    /**
+     * Метод очищает мапу. Длина массива сохраняется: корзины обнуляются на месте,
+     * и повторное заполнение до прежнего размера обходится без расширений
+     */
+    @Override
+    public void clear() {
+        Arrays.fill(table, null);
+        oldTable = null;
+        size = 0;
+        keyHashSum = 0;
+        modCount++;
+    }
+    /**
+     * Метод возвращает набор ключей.
+     * Набор является представлением мапы: изменения мапы сразу видны в нем, а удаление
+     * ключа из набора удаляет соответствующую пару из мапы.
+     *
+     * @return набор ключей
+     */
+    @Override
+    public Set<K> keySet() {
+        Set<K> view = keySetView;
+        if (view == null) {
+            view = new KeySet();
+            keySetView = view;
+        }
+        return view;
+    }
+    /**
+     * Метод возвращает коллекцию значений.
+     * Коллекция является представлением мапы и содержит все значения, включая повторяющиеся.
+     *
+     * @return коллекция значений
+     */
+    @Override
+    public Collection<V> values() {
+        Collection<V> view = valuesView;
+        if (view == null) {
+            view = new Values();
+            valuesView = view;
+        }
+        return view;
+    }
+    /**
+     * Метод возвращает набор всех ключ-значений.
+     * Набор является представлением мапы, его элементами являются сами узлы таблицы.
+     *
+     * @return набор entries
+     */
+    @Override
+    public Set<Entry<K, V>> entrySet() {
+        Set<Entry<K, V>> view = entrySetView;
+        if (view == null) {
+            view = new EntrySet();
+            entrySetView = view;
+        }
+        return view;
+    }
+    /**
+     * Метод выполняет действие для каждой пары. Если в мапе не меньше parallelismThreshold элементов,
+     * корзины делятся на диапазоны, которые обходятся параллельно в общем пуле ForkJoinPool.
+     * Порядок вызовов не определен. Мапу нельзя изменять, пока метод выполняется
+     *
+     * @param parallelismThreshold минимальный размер мапы для параллельного обхода,
+     *                             Long.MAX_VALUE - всегда последовательно
+     * @param action               действие
+     */
+    public void forEach(long parallelismThreshold, BiConsumer<? super K, ? super V> action) {
+        forEach(ForkJoinPool.commonPool(), parallelismThreshold, action);
+    }
+    /**
+     * Метод выполняет действие для каждой пары в заданном пуле
+     *
+     * @param pool                 пул потоков
+     * @param parallelismThreshold минимальный размер мапы для параллельного обхода
+     * @param action               действие
+     */
+    public void forEach(ForkJoinPool pool, long parallelismThreshold, BiConsumer<? super K, ? super V> action) {
+        Objects.requireNonNull(action);
+        this.<Void>bulk(pool, parallelismThreshold, (tab, from, to) -> {
+            for (int index = from; index < to; index++) {
+                for (Node<K, V> node = tab[index]; node != null; node = node.next) {
+                    action.accept(node.key, node.value);
+                }
+            }
+            return null;
+        }, (left, right) -> null);
+    }
+    /**
+     * Метод преобразует каждую пару и сворачивает результаты. Результаты, равные null, пропускаются
+     *
+     * @param parallelismThreshold минимальный размер мапы для параллельного обхода
+     * @param transformer          преобразование пары
+     * @param reducer              ассоциативная функция свертки
+     * @param <U>                  тип результата
+     * @return результат свертки или null, если преобразование ни разу не вернуло значение
+     */
+    public <U> U reduce(long parallelismThreshold, BiFunction<? super K, ? super V, ? extends U> transformer,
+                        BiFunction<? super U, ? super U, ? extends U> reducer) {
+        return reduce(ForkJoinPool.commonPool(), parallelismThreshold, transformer, reducer);
+    }
+    /**
+     * Метод преобразует каждую пару и сворачивает результаты в заданном пуле
+     *
+     * @param pool                 пул потоков
+     * @param parallelismThreshold минимальный размер мапы для параллельного обхода
+     * @param transformer          преобразование пары
+     * @param reducer              ассоциативная функция свертки
+     * @param <U>                  тип результата
+     * @return результат свертки или null, если преобразование ни разу не вернуло значение
+     */
+    public <U> U reduce(ForkJoinPool pool, long parallelismThreshold,
+                        BiFunction<? super K, ? super V, ? extends U> transformer,
+                        BiFunction<? super U, ? super U, ? extends U> reducer) {
+        Objects.requireNonNull(transformer);
+        Objects.requireNonNull(reducer);
+        return this.<U>bulk(pool, parallelismThreshold, (tab, from, to) -> {
+            U result = null;
+            for (int index = from; index < to; index++) {
+                for (Node<K, V> node = tab[index]; node != null; node = node.next) {
+                    U value = transformer.apply(node.key, node.value);
+                    if (value != null) {
+                        result = result == null ? value : reducer.apply(result, value);
+                    }
+                }
+            }
+            return result;
+        }, reducer::apply);
+    }
+    /**
+     * Метод ищет первую пару, для которой функция поиска вернула не null.
+     * После находки остальные диапазоны прекращают обход
+     *
+     * @param parallelismThreshold минимальный размер мапы для параллельного обхода
+     * @param searchFunction       функция поиска
+     * @param <U>                  тип результата
+     * @return результат функции поиска для какой-либо пары или null
+     */
+    public <U> U search(long parallelismThreshold, BiFunction<? super K, ? super V, ? extends U> searchFunction) {
+        return search(ForkJoinPool.commonPool(), parallelismThreshold, searchFunction);
+    }
+    /**
+     * Метод ищет первую пару, для которой функция поиска вернула не null, в заданном пуле
+     *
+     * @param pool                 пул потоков
+     * @param parallelismThreshold минимальный размер мапы для параллельного обхода
+     * @param searchFunction       функция поиска
+     * @param <U>                  тип результата
+     * @return результат функции поиска для какой-либо пары или null
+     */
+    public <U> U search(ForkJoinPool pool, long parallelismThreshold,
+                        BiFunction<? super K, ? super V, ? extends U> searchFunction) {
+        Objects.requireNonNull(searchFunction);
+        AtomicReference<U> found = new AtomicReference<>();
+        this.<U>bulk(pool, parallelismThreshold, (tab, from, to) -> {
+            for (int index = from; index < to && found.get() == null; index++) {
+                for (Node<K, V> node = tab[index]; node != null; node = node.next) {
+                    U value = searchFunction.apply(node.key, node.value);
+                    if (value != null) {
+                        found.compareAndSet(null, value);
+                        return null;
+                    }
+                }
+            }
+            return null;
+        }, (left, right) -> null);
+        return found.get();
+    }
+    /**
+     * Метод заменяет каждое значение результатом функции, при необходимости параллельно.
+     * Узлы не пересоздаются, поэтому структура таблицы не меняется
+     *
+     * @param parallelismThreshold минимальный размер мапы для параллельного обхода
+     * @param function             функция нового значения
+     */
+    public void replaceAll(long parallelismThreshold, BiFunction<? super K, ? super V, ? extends V> function) {
+        replaceAll(ForkJoinPool.commonPool(), parallelismThreshold, function);
+    }
+    /**
+     * Метод заменяет каждое значение результатом функции в заданном пуле
+     *
+     * @param pool                 пул потоков
+     * @param parallelismThreshold минимальный размер мапы для параллельного обхода
+     * @param function             функция нового значения
+     */
+    public void replaceAll(ForkJoinPool pool, long parallelismThreshold,
+                           BiFunction<? super K, ? super V, ? extends V> function) {
+        Objects.requireNonNull(function);
+        this.<Void>bulk(pool, parallelismThreshold, (tab, from, to) -> {
+            for (int index = from; index < to; index++) {
+                for (Node<K, V> node = tab[index]; node != null; node = node.next) {
+                    node.value = function.apply(node.key, node.value);
+                }
+            }
+            return null;
+        }, (left, right) -> null);
+    }
+    /**
+     * Метод строит неизменяемую копию мапы с совершенным хэшированием для мап,
+     * которые после заполнения только читаются. Сама мапа не меняется
+     *
+     * @return неизменяемая копия
+     * @throws IllegalStateException если у мапы есть стратегия ключей: CustomFrozenMap сравнивает ключи
+     *                               только по hashCode и equals
+     */
+    public CustomFrozenMap<K, V> freeze() {
+        checkNaturalStrategy();
+        return CustomFrozenMap.copyOf(this);
+    }
+    /**
+     * Метод строит персистентную копию мапы. Дальше снимки этой копии стоят O(1),
+     * а каждое изменение копирует только путь в дереве
+     *
+     * @return персистентная копия
+     * @throws IllegalStateException если у мапы есть стратегия ключей: CustomPersistentMap сравнивает ключи
+     *                               только по hashCode и equals
+     */
+    public CustomPersistentMap<K, V> toPersistent() {
+        checkNaturalStrategy();
+        return CustomPersistentMap.copyOf(this);
+    }
+    /**
+     * Метод проверяет, что ключи сравниваются по hashCode и equals, иначе копия в другую структуру
+     * потеряла бы ключи, различимые только стратегией
+     */
+    private void checkNaturalStrategy() {
+        if (strategy != null) {
+            throw new IllegalStateException("Copy requires natural key hashing, but the map uses a HashStrategy");
+        }
+    }
+    /**
+     * Метод записывает мапу в файл снимка, который можно открыть через CustomMapSnapshot.open
+     * и читать без восстановления всех элементов
+     *
+     * @param path            путь к файлу снимка
+     * @param keySerializer   сериализатор ключей
+     * @param valueSerializer сериализатор значений
+     * @throws IOException          при ошибке записи
+     * @throws NullPointerException если в мапе есть ключ null
+     */
+    public void writeSnapshot(Path path, Serializer<K> keySerializer, Serializer<V> valueSerializer)
+            throws IOException {
+        CustomMapSnapshot.write(this, path, keySerializer, valueSerializer);
+    }
+    /**
+     * Метод сравнивает мапу с объектом по контракту Map: равны мапы с одинаковыми парами ключ-значение,
+     * длина массива и коэффициент загрузки не учитываются. Другая CustomMap с иным размером
+     * или суммой хэшей ключей отвергается за O(1), иначе корзины обходятся один раз, а узел
+     * другой мапы ищется по уже сохраненному хэшу без вызова hashCode ключа.
+     * Быстрый путь работает только для мап с одной стратегией ключей, иначе сравнение идет через get
+     *
+     * @param object объект который нужно сравнить на равенство
+     * @return объект == мапе
+     */
+    @Override
+    public boolean equals(Object object) {
+        if (this == object) return true;
+        if (!(object instanceof CustomMap<?, ?> customMap) || customMap.strategy != strategy) {
+            return super.equals(object);
+        }
+        if (size != customMap.size || keyHashSum != customMap.keyHashSum) return false;
+        completeMigration();
+        for (Node<K, V> first : table) {
+            for (Node<K, V> node = first; node != null; node = node.next) {
+                Node<?, ?> other = customMap.findNode(node.hashCode, node.key);
+                if (other == null || !Objects.equals(node.value, other.value)) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Метод возвращает хэш мапы по контракту Map: сумму хэшей пар, посчитанную одним проходом по корзинам.
+     * Со стратегией хэш ключа берется у стратегии, чтобы равные по ней мапы имели равный хэш
+     *
+     * @return хэш мапы
+     */
+    @Override
+    public int hashCode() {
+        completeMigration();
+        int hash = 0;
+        for (Node<K, V> first : table) {
+            for (Node<K, V> node = first; node != null; node = node.next) {
+                hash += strategy == null || node.key == null
+                        ? node.hashCode()
+                        : strategy.hash(node.key) ^ Objects.hashCode(node.value);
+            }
+        }
+        return hash;
+    }
+
+    /**
+     * Метод ищет узел по ключу и его хэшу, не переносит корзины и не меняет статистику
+     *
+     * @param hash хэш ключа
+     * @param key  ключ
+     * @return найденный узел или null
+     */
+    private Node<K, V> findNode(int hash, Object key) {
+        Node<K, V>[] tab = tableFor(hash);
+        return findInBin(tab[getIndex(hash, tab.length)], hash, key);
+    }
+
+    public Node<K, V>[] getTable() {
+        return table;
+    }
+
+    /**
+     * Метод возвращает текущую длину массива корзин
+     *
+     * @return длина массива
+     */
+    public int capacity() {
+        return arrayLength;
+    }
+
+    /**
+     * Метод возвращает приблизительный объем кучи, занятый структурой мапы без самих ключей и значений:
+     * массивы корзин и узлы. Считается для сжатых ссылок: 4 байта на ссылку и 16 байт на заголовок массива.
+     * Размер узла зависит от его вида, поэтому корзины обходятся за O(capacity + size)
+     *
+     * @return количество байт
+     */
+    public long memoryFootprint() {
+        long bytes = 64L + 16L + 4L * table.length;
+        Node<K, V>[] old = oldTable;
+        if (old != null) {
+            bytes += 16L + 4L * old.length + nodeBytes(old);
+        }
+        return bytes + nodeBytes(table);
+    }
+
+    /**
+     * Метод возвращает снимок статистики: длину массива, загрузку, гистограмму длин цепочек
+     * и, если JVM запущена с -Dcustommap.stats=true, счетчики операций и расширений.
+     * Гистограмма считается обходом таблицы за O(n) и не завершает постепенный перенос.
+     *
+     * @return снимок статистики
+     */
+    public CustomMapStats stats() {
+        int[] histogram = new int[1];
+        int treeBins = 0;
+        Node<K, V>[] old = oldTable;
+        if (old != null) {
+            for (int index = migrationIndex; index < old.length; index++) {
+                histogram = countChain(histogram, old[index]);
+                if (old[index] instanceof TreeNode) {
+                    treeBins++;
+                }
+            }
+        }
+        for (Node<K, V> node : table) {
+            histogram = countChain(histogram, node);
+            if (node instanceof TreeNode) {
+                treeBins++;
+            }
+        }
+        StatsCounters counters = STATS_ENABLED ? stats : new StatsCounters();
+        return new CustomMapStats(arrayLength, size, histogram, treeBins, STATS_ENABLED,
+                counters.resizes, counters.resizeNanos, counters.hits, counters.misses, counters.getProbes,
+                counters.puts, counters.putProbes, counters.inserts, counters.removes);
+    }
+
+    /**
+     * Метод ищет узел с заданным ключом, просматривая только его корзину
+     *
+     * @param key ключ, узел которого нужно найти
+     * @return найденный узел или null, если ключа нет в мапе
+     */
+    final Node<K, V> getNode(Object key) {
+        migrate();
+        int hash = hashCode(key);
+        Node<K, V>[] tab = tableFor(hash);
+        Node<K, V> node = tab[getIndex(hash, tab.length)];
+        if (node instanceof TreeNode<K, V> treeNode) {
+            TreeNode<K, V> found = treeNode.getTreeNode(strategy, hash, key);
+            if (STATS_ENABLED) {
+                stats.recordGet(1, found != null);
+            }
+            return found;
+        }
+        int probes = 0;
+        while (node != null) {
+            probes++;
+            if (hash == node.hashCode && keyEquals(strategy, key, node.key)) {
+                if (STATS_ENABLED) {
+                    stats.recordGet(probes, true);
+                }
+                return node;
+            }
+            node = node.next;
+        }
+        if (STATS_ENABLED) {
+            stats.recordGet(probes, false);
+        }
+        return null;
+    }
+
+    /**
+     * Метод удаляет из корзины узел с заданным ключом
+     *
+     * @param key     ключ, узел которого нужно удалить
+     * @param movable можно ли перемещать узлы дерева (false при удалении через итератор)
+     * @return удаленный узел или null, если ключа нет в мапе
+     */
+    private Node<K, V> removeNode(Object key, boolean movable) {
+        return removeNode(hashCode(key), key, movable);
+    }
+
+    /**
+     * Метод удаляет из корзины узел с заданным ключом и уже вычисленным хэшем
+     *
+     * @param hash    хэш ключа
+     * @param key     ключ, узел которого нужно удалить
+     * @param movable можно ли перемещать узлы дерева (false при удалении через итератор)
+     * @return удаленный узел или null, если ключа нет в мапе
+     */
+    private Node<K, V> removeNode(int hash, Object key, boolean movable) {
+        migrate();
+        Node<K, V>[] tab = tableFor(hash);
+        int index = getIndex(hash, tab.length);
+        Node<K, V> node = tab[index];
+        if (node instanceof TreeNode<K, V> treeNode) {
+            TreeNode<K, V> found = treeNode.getTreeNode(strategy, hash, key);
+            if (found != null) {
+                found.removeTreeNode(this, tab, movable);
+                completeRemoval(found);
+                if (movable) {
+                    shrinkIfSparse();
+                }
+            }
+            return found;
+        }
+        Node<K, V> prevNode = null;
+        while (node != null) {
+            if (hash == node.hashCode && keyEquals(strategy, key, node.key)) {
+                if (prevNode == null) {
+                    tab[index] = node.next;
+                } else {
+                    prevNode.next = node.next;
+                }
+                completeRemoval(node);
+                if (movable) {
+                    shrinkIfSparse();
+                }
+                return node;
+            }
+            prevNode = node;
+            node = node.next;
+        }
+        return null;
+    }
+
+    /**
+     * Метод ищет узел в корзине, не меняя статистику
+     *
+     * @param first первый узел корзины
+     * @param hash  хэш ключа
+     * @param key   ключ
+     * @return найденный узел или null
+     */
+    private Node<K, V> findInBin(Node<K, V> first, int hash, Object key) {
+        if (first instanceof TreeNode<K, V> treeNode) {
+            return treeNode.getTreeNode(strategy, hash, key);
+        }
+        for (Node<K, V> node = first; node != null; node = node.next) {
+            if (hash == node.hashCode && keyEquals(strategy, key, node.key)) {
+                return node;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Метод заполняет пачку ключами из итератора и считает их хэши
+     *
+     * @param iterator источник ключей
+     * @param batch    массив для ключей
+     * @param hashes   массив для хэшей
+     * @return количество ключей в пачке
+     */
+    private int nextBatch(Iterator<?> iterator, Object[] batch, int[] hashes) {
+        int count = 0;
+        while (count < batch.length && iterator.hasNext()) {
+            Object key = iterator.next();
+            batch[count] = key;
+            hashes[count] = hashCode(key);
+            count++;
+        }
+        return count;
+    }
+
+    /**
+     * Метод выполняет операцию над диапазонами корзин. Количество диапазонов выбирается
+     * по size / parallelismThreshold, но не больше учетверенного параллелизма пула.
+     * При одном диапазоне операция выполняется в текущем потоке
+     *
+     * @param pool                 пул потоков
+     * @param parallelismThreshold минимальный размер мапы для параллельного обхода
+     * @param action               операция над диапазоном корзин
+     * @param combiner             объединение результатов двух диапазонов, оба не null
+     * @param <R>                  тип результата
+     * @return результат операции
+     */
+    private <R> R bulk(ForkJoinPool pool, long parallelismThreshold, BinRangeAction<K, V, R> action,
+                       BiFunction<R, R, R> combiner) {
+        Objects.requireNonNull(pool);
+        completeMigration();
+        Node<K, V>[] tab = table;
+        int expectedModCount = modCount;
+        long threshold = Math.max(1L, parallelismThreshold);
+        long ranges = size < threshold ? 1 : Math.min(size / threshold, 4L * pool.getParallelism());
+        R result;
+        if (ranges <= 1 || tab.length == 1) {
+            result = action.apply(tab, 0, tab.length);
+        } else {
+            int binsPerRange = (int) Math.max(1, tab.length / ranges);
+            result = pool.invoke(new BulkTask<>(tab, 0, tab.length, binsPerRange, action, combiner));
+        }
+        if (modCount != expectedModCount) {
+            throw new ConcurrentModificationException();
+        }
+        return result;
+    }
+
+    /**
+     * Метод расширяет массив так, чтобы expectedSize элементов поместились без расширений.
+     * Пустая мапа сразу получает новый массив, заполненная переносится в массив нужной длины за один проход
+     *
+     * @param expectedSize ожидаемое количество элементов
+     */
+    @SuppressWarnings({"rawtypes", "unchecked"})
+    private void presize(long expectedSize) {
+        int target = capacityFor(expectedSize, loadFactor);
+        if (target <= table.length) {
+            return;
+        }
+        if (size == 0) {
+            table = new Node[target];
+            arrayLength = target;
+            oldTable = null;
+            modCount++;
+            return;
+        }
+        completeMigration();
+        rehash(target);
+    }
+
+    /**
+     * Метод гарантирует, что expectedSize элементов поместятся без расширений массива,
+     * и не дает массиву автоматически уменьшиться ниже этой длины
+     *
+     * @param expectedSize ожидаемое количество элементов
+     */
+    public void ensureCapacity(int expectedSize) {
+        minimumLength = Math.max(minimumLength, capacityFor(expectedSize, loadFactor));
+        presize(expectedSize);
+    }
+
+    /**
+     * Метод уменьшает массив до наименьшей длины, в которой текущие элементы не вызовут расширения.
+     * Эта длина становится нижней границей автоматического уменьшения
+     */
+    public void trimToSize() {
+        int target = capacityFor(size, loadFactor);
+        minimumLength = target;
+        completeMigration();
+        if (target < arrayLength) {
+            rehash(target);
+        }
+    }
+
+    /**
+     * Метод уменьшает массив после удаления, если загрузка упала ниже loadFactor / SHRINK_DIVISOR.
+     * Новая длина рассчитана на удвоенный размер, но не меньше minimumLength.
+     * В постепенном режиме массив автоматически не уменьшается: перенос всей таблицы внутри remove
+     * вернул бы паузу, пропорциональную размеру. Уменьшить его можно явно через trimToSize
+     */
+    private void shrinkIfSparse() {
+        if (!incrementalResize && arrayLength > minimumLength && size < arrayLength * loadFactor / SHRINK_DIVISOR) {
+            completeMigration();
+            rehash(Math.max(minimumLength, capacityFor(2L * size, loadFactor)));
+        }
+    }
+
+    /**
+     * Метод переносит все узлы в массив новой длины, в том числе меньшей текущей.
+     * Деревья превращаются в цепочки, а длинные цепочки нового массива снова становятся деревьями
+     *
+     * @param newArrayLength новая длина массива, степень двойки
+     */
+    @SuppressWarnings({"rawtypes", "unchecked"})
+    private void rehash(int newArrayLength) {
+        long start = STATS_ENABLED ? System.nanoTime() : 0L;
+        Node<K, V>[] old = table;
+        Node<K, V>[] newTable = new Node[newArrayLength];
+        for (Node<K, V> first : old) {
+            Node<K, V> node = first instanceof TreeNode<K, V> treeNode ? treeNode.untreeify(this) : first;
+            while (node != null) {
+                Node<K, V> next = node.next;
+                int index = getIndex(node.hashCode, newArrayLength);
+                node.next = newTable[index];
+                newTable[index] = node;
+                node = next;
+            }
+        }
+        table = newTable;
+        arrayLength = newArrayLength;
+        if (newArrayLength >= MIN_TREEIFY_CAPACITY) {
+            for (int index = 0; index < newArrayLength; index++) {
+                int binCount = 0;
+                Node<K, V> node = newTable[index];
+                while (node != null && binCount < TREEIFY_THRESHOLD) {
+                    binCount++;
+                    node = node.next;
+                }
+                if (binCount >= TREEIFY_THRESHOLD) {
+                    treeifyBin(newTable, index);
+                }
+            }
+        }
+        modCount++;
+        if (STATS_ENABLED) {
+            stats.resizes++;
+            stats.resizeNanos += System.nanoTime() - start;
+        }
+    }
+
+    /**
+     * Метод возвращает длину массива, в которой expectedSize элементов не вызовут расширения
+     *
+     * @param expectedSize ожидаемое количество элементов
+     * @param loadFactor   коэффициент загрузки
+     * @return длина массива, степень двойки
+     */
+    private static int capacityFor(long expectedSize, float loadFactor) {
+        double length = Math.ceil(expectedSize / (double) loadFactor);
+        return HashTables.tableSizeFor((int) Math.min(length, MAXIMUM_CAPACITY), 1, MAXIMUM_CAPACITY);
+    }
+
+    /**
+     * Метод добавляет длину цепочки в гистограмму, при необходимости расширяя ее
+     *
+     * @param histogram гистограмма длин цепочек
+     * @param node      первый узел корзины
+     * @return гистограмма с учтенной корзиной
+     */
+    private static int[] countChain(int[] histogram, Node<?, ?> node) {
+        int length = 0;
+        for (; node != null; node = node.next) {
+            length++;
+        }
+        if (length >= histogram.length) {
+            histogram = Arrays.copyOf(histogram, length + 1);
+        }
+        histogram[length]++;
+        return histogram;
+    }
+
+    /**
+     * Метод считает объем узлов всех корзин массива
+     *
+     * @param tab массив корзин
+     * @return количество байт
+     */
+    private static long nodeBytes(Node<?, ?>[] tab) {
+        long bytes = 0;
+        for (Node<?, ?> node : tab) {
+            for (; node != null; node = node.next) {
+                bytes += node instanceof TreeNode ? TREE_NODE_BYTES
+                        : node instanceof LinkedNode ? LINKED_NODE_BYTES : NODE_BYTES;
+            }
+        }
+        return bytes;
+    }
+
+    /**
+     * Метод возвращает массив, в котором находится корзина ключа с заданным хэшем.
+     * Пока идет постепенный перенос, ключи из еще не перенесенных корзин остаются в oldTable.
+     *
+     * @param hash хэш ключа
+     * @return массив с корзиной ключа
+     */
+    private Node<K, V>[] tableFor(int hash) {
+        Node<K, V>[] old = oldTable;
+        if (old != null && getIndex(hash, old.length) >= migrationIndex) {
+            return old;
+        }
+        return table;
+    }
+
+    /**
+     * Метод возвращает хэш-код ключа.
+     * Старшие 16 бит хэша примешиваются к младшим, так как индекс корзины
+     * берется только из младших бит.
+     *
+     * @param key ключ для которого необходимо вычислить хэшкод
+     * @return хэш-код ключа
+     */
+    private int hashCode(Object key) {
+        return key == null ? 0 : HashTables.spread(strategy == null ? key.hashCode() : strategy.hash(key));
+    }
+
+    /**
+     * Метод сравнивает ключи по стратегии мапы, ключ null равен только null
+     *
+     * @param strategy стратегия мапы или null для equals
+     * @param key      искомый ключ
+     * @param nodeKey  ключ узла
+     * @return ключи равны
+     */
+    private static boolean keyEquals(HashStrategy<Object> strategy, Object key, Object nodeKey) {
+        if (key == nodeKey) {
+            return true;
+        }
+        if (key == null || nodeKey == null) {
+            return false;
+        }
+        return strategy == null ? key.equals(nodeKey) : strategy.equivalent(key, nodeKey);
+    }
+
+    /**
+     *Метод возвращает индекс элемента по хэшкоду и длинне массива
+     *
+     * @param hash   хэш для ключа.
+     * @param length длина массива, степень двойки.
+     * @return индекс элемента.
+     */
+    private int getIndex(int hash, int length) {
+        return hash & (length - 1);
+    }
+
+    /**
+     * Метод проверяет, нужно ли расширять массив,
+     * и если да (превышен коэффициент загрузки) - расширяет массив.
+     * Массив увеличивается вдвое, поэтому каждая корзина за один проход
+     * делится на две цепочки по одному биту хэша без создания новых объектов, кроме самого массива.
+     */
+    private void increaseSize() {
+        if (arrayLength * loadFactor < size) {
+            resize();
+        }
+    }
+
+    /**
+     * Метод увеличивает массив вдвое. В постепенном режиме только начинает перенос корзин.
+     */
+    @SuppressWarnings({"rawtypes", "unchecked"})
+    private void resize() {
+        if (arrayLength < MAXIMUM_CAPACITY) {
+            completeMigration();
+            long start = STATS_ENABLED ? System.nanoTime() : 0L;
+            int newArrayLength = arrayLength * EXPANSION_COEFFICIENT;
+            Node<K, V>[] newTable = new Node[newArrayLength];
+            if (incrementalResize) {
+                oldTable = table;
+                migrationIndex = 0;
+            } else {
+                for (int index = 0; index < arrayLength; index++) {
+                    splitBucket(table[index], newTable, index);
+                }
+            }
+            table = newTable;
+            arrayLength = newArrayLength;
+            modCount++;
+            if (STATS_ENABLED) {
+                stats.resizes++;
+                stats.resizeNanos += System.nanoTime() - start;
+            }
+        }
+    }
+
+    /**
+     * Метод переносит очередную порцию корзин старого массива, если идет постепенное расширение.
+     * За один вызов переносится не больше MIGRATION_STEP непустых корзин
+     * и просматривается не больше MIGRATION_STEP * MIGRATION_EMPTY_VISITS корзин.
+     */
+    private void migrate() {
+        Node<K, V>[] old = oldTable;
+        if (old == null) {
+            return;
+        }
+        long start = STATS_ENABLED ? System.nanoTime() : 0L;
+        int moved = 0;
+        int visits = MIGRATION_STEP * MIGRATION_EMPTY_VISITS;
+        while (migrationIndex < old.length && moved < MIGRATION_STEP && visits-- > 0) {
+            Node<K, V> node = old[migrationIndex];
+            if (node != null) {
+                splitBucket(node, table, migrationIndex);
+                old[migrationIndex] = null;
+                moved++;
+            }
+            migrationIndex++;
+        }
+        if (migrationIndex == old.length) {
+            oldTable = null;
+        }
+        if (STATS_ENABLED) {
+            stats.resizeNanos += System.nanoTime() - start;
+        }
+    }
+
+    /**
+     * Метод завершает постепенное расширение, перенося все оставшиеся корзины.
+     * Вызывается перед полным обходом таблицы и перед следующим расширением.
+     */
+    private void completeMigration() {
+        Node<K, V>[] old = oldTable;
+        if (old == null) {
+            return;
+        }
+        long start = STATS_ENABLED ? System.nanoTime() : 0L;
+        for (int index = migrationIndex; index < old.length; index++) {
+            splitBucket(old[index], table, index);
+            old[index] = null;
+        }
+        oldTable = null;
+        if (STATS_ENABLED) {
+            stats.resizeNanos += System.nanoTime() - start;
+        }
+    }
+
+    /**
+     * Метод переносит цепочку корзины старого массива в массив вдвое большей длины.
+     * После удвоения узел из корзины index попадает либо в ту же корзину («младшая» цепочка),
+     * если бит хэша, равный старой длине, нулевой, либо в корзину index + старая длина
+     * («старшая» цепочка). Порядок узлов в цепочках сохраняется.
+     *
+     * @param node     первый узел переносимой цепочки
+     * @param newTable новый массив
+     * @param index    индекс корзины в старом массиве
+     */
+    private void splitBucket(Node<K, V> node, Node<K, V>[] newTable, int index) {
+        int oldLength = newTable.length / EXPANSION_COEFFICIENT;
+        if (node instanceof TreeNode<K, V> treeNode) {
+            treeNode.split(this, newTable, index, oldLength);
+            return;
+        }
+        Node<K, V> lowHead = null;
+        Node<K, V> lowTail = null;
+        Node<K, V> highHead = null;
+        Node<K, V> highTail = null;
+        while (node != null) {
+            Node<K, V> next = node.next;
+            if ((node.hashCode & oldLength) == 0) {
+                if (lowTail == null) {
+                    lowHead = node;
+                } else {
+                    lowTail.next = node;
+                }
+                lowTail = node;
+            } else {
+                if (highTail == null) {
+                    highHead = node;
+                } else {
+                    highTail.next = node;
+                }
+                highTail = node;
+            }
+            node = next;
+        }
+        if (lowTail != null) {
+            lowTail.next = null;
+            newTable[index] = lowHead;
+        }
+        if (highTail != null) {
+            highTail.next = null;
+            newTable[index + oldLength] = highHead;
+        }
+    }
+
+    /**
+     * Метод превращает цепочку корзины в дерево, если массив достаточно велик, иначе расширяет массив.
+     * Корзины старого массива при постепенном расширении не трогаются: они скоро будут перенесены.
+     *
+     * @param tab   массив, в котором находится корзина
+     * @param index индекс корзины
+     */
+    private void treeifyBin(Node<K, V>[] tab, int index) {
+        if (tab != table) {
+            return;
+        }
+        if (tab.length < MIN_TREEIFY_CAPACITY) {
+            resize();
+            return;
+        }
+        TreeNode<K, V> head = null;
+        TreeNode<K, V> tail = null;
+        for (Node<K, V> node = tab[index]; node != null; node = node.next) {
+            TreeNode<K, V> treeNode = replacementTreeNode(node, null);
+            if (tail == null) {
+                head = treeNode;
+            } else {
+                treeNode.prev = tail;
+                tail.next = treeNode;
+            }
+            tail = treeNode;
+        }
+        tab[index] = head;
+        if (head != null) {
+            head.treeify(tab, strategy);
+        }
+    }
+
+    /**
+     * Метод создает обычный узел цепочки
+     *
+     * @param key   ключ
+     * @param value значение
+     * @param hash  хэш ключа
+     * @param next  следующий узел
+     * @return новый узел
+     */
+    Node<K, V> newNode(K key, V value, int hash, Node<K, V> next) {
+        return new Node<>(key, value, hash, next);
+    }
+
+    /**
+     * Метод создает узел дерева
+     *
+     * @param key   ключ
+     * @param value значение
+     * @param hash  хэш ключа
+     * @param next  следующий узел
+     * @return новый узел дерева
+     */
+    TreeNode<K, V> newTreeNode(K key, V value, int hash, Node<K, V> next) {
+        return new TreeNode<>(key, value, hash, next);
+    }
+
+    /**
+     * Метод создает обычный узел на замену узлу дерева
+     *
+     * @param node заменяемый узел
+     * @param next следующий узел
+     * @return новый узел
+     */
+    Node<K, V> replacementNode(Node<K, V> node, Node<K, V> next) {
+        return new Node<>(node.key, node.value, node.hashCode, next);
+    }
+
+    /**
+     * Метод создает узел дерева на замену обычному узлу
+     *
+     * @param node заменяемый узел
+     * @param next следующий узел
+     * @return новый узел дерева
+     */
+    TreeNode<K, V> replacementTreeNode(Node<K, V> node, Node<K, V> next) {
+        return new TreeNode<>(node.key, node.value, node.hashCode, next);
+    }
+
+    /**
+     * Метод вызывается после обновления значения существующего ключа в put.
+     * Подклассы (CustomCacheMap) переупорядочивают узлы по доступу
+     *
+     * @param node обновленный узел
+     */
+    void afterNodeAccess(Node<K, V> node) {
+    }
+
+    /**
+     * Метод вызывается после вставки нового ключа и возможного расширения массива.
+     * Подклассы могут здесь вытеснять элементы
+     */
+    void afterNodeInsertion() {
+    }
+
+    /**
+     * Метод вызывается после удаления узла из таблицы любым способом
+     *
+     * @param node удаленный узел
+     */
+    void afterNodeRemoval(Node<K, V> node) {
+    }
+
+    /**
+     * Метод возвращает класс объекта, если он имеет вид «class C implements Comparable&lt;C&gt;»
+     *
+     * @param object объект
+     * @return класс объекта или null, если объекты этого класса нельзя сравнивать между собой
+     */
+    private static Class<?> comparableClassFor(Object object) {
+        if (object instanceof Comparable) {
+            Class<?> clazz = object.getClass();
+            if (clazz == String.class) {
+                return clazz;
+            }
+            for (Type type : clazz.getGenericInterfaces()) {
+                if (type instanceof ParameterizedType parameterized
+                        && parameterized.getRawType() == Comparable.class) {
+                    Type[] arguments = parameterized.getActualTypeArguments();
+                    if (arguments.length == 1 && arguments[0] == clazz) {
+                        return clazz;
+                    }
+                }
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Метод сравнивает два ключа, если второй ключ имеет класс comparableClass
+     *
+     * @param comparableClass класс первого ключа, полученный из comparableClassFor
+     * @param key             первый ключ
+     * @param other           второй ключ
+     * @return результат compareTo или 0, если ключи нельзя сравнить
+     */
+    @SuppressWarnings({"rawtypes", "unchecked"})
+    private static int compareComparables(Class<?> comparableClass, Object key, Object other) {
+        return other == null || other.getClass() != comparableClass ? 0 : ((Comparable) key).compareTo(other);
+    }
+
+    /**
+     * Метод задает порядок для ключей с равными хэшами, которые нельзя сравнить.
+     * Порядок нужен только для вставки в дерево, поэтому равенство никогда не возвращается.
+     *
+     * @param first  первый ключ
+     * @param second второй ключ
+     * @return -1 или 1
+     */
+    private static int tieBreakOrder(Object first, Object second) {
+        int order = 0;
+        if (first != null && second != null) {
+            order = first.getClass().getName().compareTo(second.getClass().getName());
+        }
+        if (order == 0) {
+            order = System.identityHashCode(first) <= System.identityHashCode(second) ? -1 : 1;
+        }
+        return order;
+    }
+
+    /**
+     * Базовый итератор по узлам таблицы. Обходит корзины по порядку,
+     * а при обнаружении изменения мапы в обход итератора бросает ConcurrentModificationException.
+     *
+     * @param <T> тип возвращаемых элементов
+     */
+    private abstract class NodeIterator<T> implements Iterator<T> {
+        /**
+         * Следующий узел, который вернет итератор
+         */
+        private Node<K, V> next;
+        /**
+         * Последний возвращенный узел
+         */
+        private Node<K, V> current;
+        /**
+         * Индекс корзины, с которой продолжится поиск следующего узла
+         */
+        private int index;
+        /**
+         * Ожидаемое значение modCount
+         */
+        private int expectedModCount = modCount;
+
+        NodeIterator() {
+            completeMigration();
+            advance();
+        }
+
+        @Override
+        public boolean hasNext() {
+            return next != null;
+        }
+
+        /**
+         * Метод возвращает следующий узел
+         *
+         * @return следующий узел
+         */
+        Node<K, V> nextNode() {
+            if (modCount != expectedModCount) {
+                throw new ConcurrentModificationException();
+            }
+            if (next == null) {
+                throw new NoSuchElementException();
+            }
+            current = next;
+            next = next.next;
+            if (next == null) {
+                advance();
+            }
+            return current;
+        }
+
+        @Override
+        public void remove() {
+            if (current == null) {
+                throw new IllegalStateException();
+            }
+            if (modCount != expectedModCount) {
+                throw new ConcurrentModificationException();
+            }
+            removeNode(current.key, false);
+            current = null;
+            expectedModCount = modCount;
+        }
+
+        /**
+         * Метод переходит к первой непустой корзине, начиная с index
+         */
+        private void advance() {
+            Node<K, V>[] tab = table;
+            while (next == null && index < tab.length) {
+                next = tab[index++];
+            }
+        }
+    }
+
+    /**
+     * Итератор по ключам
+     */
+    private final class KeyIterator extends NodeIterator<K> {
+        @Override
+        public K next() {
+            return nextNode().key;
+        }
+    }
+
+    /**
+     * Итератор по значениям
+     */
+    private final class ValueIterator extends NodeIterator<V> {
+        @Override
+        public V next() {
+            return nextNode().value;
+        }
+    }
+
+    /**
+     * Итератор по парам ключ-значение
+     */
+    private final class EntryIterator extends NodeIterator<Entry<K, V>> {
+        @Override
+        public Entry<K, V> next() {
+            return nextNode();
+        }
+    }
+
+    /**
+     * Представление набора ключей
+     */
+    private final class KeySet extends AbstractSet<K> {
+        @Override
+        public Iterator<K> iterator() {
+            return new KeyIterator();
+        }
+
+        @Override
+        public Spliterator<K> spliterator() {
+            return new KeySpliterator(0, -1, 0, 0);
+        }
+
+        @Override
+        public int size() {
+            return size;
+        }
+
+        @Override
+        public boolean contains(Object key) {
+            return containsKey(key);
+        }
+
+        @Override
+        public boolean remove(Object key) {
+            return removeNode(key, true) != null;
+        }
+
+        @Override
+        public void clear() {
+            CustomMap.this.clear();
+        }
+    }
+
+    /**
+     * Представление коллекции значений
+     */
+    private final class Values extends AbstractCollection<V> {
+        @Override
+        public Iterator<V> iterator() {
+            return new ValueIterator();
+        }
+
+        @Override
+        public Spliterator<V> spliterator() {
+            return new ValueSpliterator(0, -1, 0, 0);
+        }
+
+        @Override
+        public int size() {
+            return size;
+        }
+
+        @Override
+        public boolean contains(Object value) {
+            return containsValue(value);
+        }
+
+        @Override
+        public void clear() {
+            CustomMap.this.clear();
+        }
+    }
+
+    /**
+     * Представление набора ключ-значений
+     */
+    private final class EntrySet extends AbstractSet<Entry<K, V>> {
+        @Override
+        public Iterator<Entry<K, V>> iterator() {
+            return new EntryIterator();
+        }
+
+        @Override
+        public int size() {
+            return size;
+        }
+
+        @Override
+        public boolean contains(Object object) {
+            if (!(object instanceof Map.Entry<?, ?> entry)) {
+                return false;
+            }
+            Node<K, V> node = getNode(entry.getKey());
+            return node != null && Objects.equals(node.value, entry.getValue());
+        }
+
+        @Override
+        public boolean remove(Object object) {
+            if (contains(object)) {
+                removeNode(((Map.Entry<?, ?>) object).getKey(), true);
+                return true;
+            }
+            return false;
+        }
+
+        @Override
+        public Spliterator<Entry<K, V>> spliterator() {
+            return new EntrySpliterator(0, -1, 0, 0);
+        }
+
+        @Override
+        public void clear() {
+            CustomMap.this.clear();
+        }
+    }
+
+    /**
+     * Базовый разделяемый итератор по диапазону корзин [index, fence).
+     * Привязывается к таблице при первом использовании, деление пополам по корзинам стоит O(1).
+     * Размер известен точно только до первого деления, после него оценка делится пополам.
+     *
+     * @param <T> тип возвращаемых элементов
+     */
+    private abstract class NodeSpliterator<T> implements Spliterator<T> {
+        /**
+         * Таблица, по которой идет обход
+         */
+        Node<K, V>[] tab;
+        /**
+         * Текущий индекс корзины
+         */
+        int index;
+        /**
+         * Индекс за последней корзиной диапазона, -1 до привязки к таблице
+         */
+        int fence;
+        /**
+         * Оценка количества оставшихся элементов
+         */
+        long estimate;
+        /**
+         * Ожидаемое значение modCount
+         */
+        int expectedModCount;
+        /**
+         * Текущий узел в корзине
+         */
+        private Node<K, V> current;
+
+        NodeSpliterator(int index, int fence, long estimate, int expectedModCount) {
+            this.index = index;
+            this.fence = fence;
+            this.estimate = estimate;
+            this.expectedModCount = expectedModCount;
+        }
+
+        /**
+         * Метод привязывает итератор к таблице, если это еще не сделано
+         *
+         * @return индекс за последней корзиной
+         */
+        final int getFence() {
+            if (fence < 0) {
+                completeMigration();
+                tab = table;
+                fence = tab.length;
+                estimate = size;
+                expectedModCount = modCount;
+            }
+            return fence;
+        }
+
+        /**
+         * Метод создает итератор того же вида для части диапазона
+         *
+         * @param from     первая корзина
+         * @param to       индекс за последней корзиной
+         * @param estimate оценка количества элементов
+         * @return итератор
+         */
+        abstract NodeSpliterator<T> split(int from, int to, long estimate);
+
+        /**
+         * Метод возвращает элемент для узла
+         *
+         * @param node узел
+         * @return элемент
+         */
+        abstract T element(Node<K, V> node);
+
+        @Override
+        public Spliterator<T> trySplit() {
+            int hi = getFence();
+            int lo = index;
+            int mid = (lo + hi) >>> 1;
+            if (lo >= mid || current != null) {
+                return null;
+            }
+            index = mid;
+            estimate >>>= 1;
+            NodeSpliterator<T> prefix = split(lo, mid, estimate);
+            prefix.tab = tab;
+            return prefix;
+        }
+
+        @Override
+        public boolean tryAdvance(Consumer<? super T> action) {
+            Objects.requireNonNull(action);
+            int hi = getFence();
+            while (current != null || index < hi) {
+                if (current == null) {
+                    current = tab[index++];
+                    continue;
+                }
+                Node<K, V> node = current;
+                current = node.next;
+                action.accept(element(node));
+                if (modCount != expectedModCount) {
+                    throw new ConcurrentModificationException();
+                }
+                return true;
+            }
+            return false;
+        }
+
+        @Override
+        public void forEachRemaining(Consumer<? super T> action) {
+            Objects.requireNonNull(action);
+            int hi = getFence();
+            Node<K, V> node = current;
+            current = null;
+            while (node != null || index < hi) {
+                if (node == null) {
+                    node = tab[index++];
+                    continue;
+                }
+                action.accept(element(node));
+                node = node.next;
+            }
+            if (modCount != expectedModCount) {
+                throw new ConcurrentModificationException();
+            }
+        }
+
+        @Override
+        public long estimateSize() {
+            getFence();
+            return estimate;
+        }
+
+        @Override
+        public int characteristics() {
+            return fence < 0 || estimate == size ? Spliterator.SIZED : 0;
+        }
+    }
+
+    /**
+     * Разделяемый итератор по ключам
+     */
+    private final class KeySpliterator extends NodeSpliterator<K> {
+        KeySpliterator(int index, int fence, long estimate, int expectedModCount) {
+            super(index, fence, estimate, expectedModCount);
+        }
+
+        @Override
+        NodeSpliterator<K> split(int from, int to, long estimate) {
+            return new KeySpliterator(from, to, estimate, expectedModCount);
+        }
+
+        @Override
+        K element(Node<K, V> node) {
+            return node.key;
+        }
+
+        @Override
+        public int characteristics() {
+            return super.characteristics() | Spliterator.DISTINCT;
+        }
+    }
+
+    /**
+     * Разделяемый итератор по значениям
+     */
+    private final class ValueSpliterator extends NodeSpliterator<V> {
+        ValueSpliterator(int index, int fence, long estimate, int expectedModCount) {
+            super(index, fence, estimate, expectedModCount);
+        }
+
+        @Override
+        NodeSpliterator<V> split(int from, int to, long estimate) {
+            return new ValueSpliterator(from, to, estimate, expectedModCount);
+        }
+
+        @Override
+        V element(Node<K, V> node) {
+            return node.value;
+        }
+    }
+
+    /**
+     * Разделяемый итератор по парам ключ-значение
+     */
+    private final class EntrySpliterator extends NodeSpliterator<Entry<K, V>> {
+        EntrySpliterator(int index, int fence, long estimate, int expectedModCount) {
+            super(index, fence, estimate, expectedModCount);
+        }
+
+        @Override
+        NodeSpliterator<Entry<K, V>> split(int from, int to, long estimate) {
+            return new EntrySpliterator(from, to, estimate, expectedModCount);
+        }
+
+        @Override
+        Entry<K, V> element(Node<K, V> node) {
+            return node;
+        }
+
+        @Override
+        public int characteristics() {
+            return super.characteristics() | Spliterator.DISTINCT;
+        }
+    }
+
+    /**
+     * Операция над диапазоном корзин таблицы
+     *
+     * @param <K> тип ключей
+     * @param <V> тип значений
+     * @param <R> тип результата
+     */
+    @FunctionalInterface
+    private interface BinRangeAction<K, V, R> {
+        /**
+         * Метод обрабатывает корзины [from, to)
+         *
+         * @param tab  таблица
+         * @param from первая корзина
+         * @param to   индекс за последней корзиной
+         * @return результат или null
+         */
+        R apply(Node<K, V>[] tab, int from, int to);
+    }
+
+    /**
+     * Задача ForkJoin, которая делит диапазон корзин пополам, пока он длиннее binsPerRange,
+     * и объединяет результаты половин. Результаты null при объединении пропускаются
+     *
+     * @param <K> тип ключей
+     * @param <V> тип значений
+     * @param <R> тип результата
+     */
+    private static final class BulkTask<K, V, R> extends RecursiveTask<R> {
+        /**
+         * Версия сериализованной формы
+         */
+        private static final long serialVersionUID = 1L;
+        /**
+         * Таблица
+         */
+        private final Node<K, V>[] tab;
+        /**
+         * Первая корзина
+         */
+        private final int from;
+        /**
+         * Индекс за последней корзиной
+         */
+        private final int to;
+        /**
+         * Длина диапазона, который обрабатывается без деления
+         */
+        private final int binsPerRange;
+        /**
+         * Операция над диапазоном
+         */
+        private final BinRangeAction<K, V, R> action;
+        /**
+         * Объединение результатов
+         */
+        private final BiFunction<R, R, R> combiner;
+
+        BulkTask(Node<K, V>[] tab, int from, int to, int binsPerRange, BinRangeAction<K, V, R> action,
+                 BiFunction<R, R, R> combiner) {
+            this.tab = tab;
+            this.from = from;
+            this.to = to;
+            this.binsPerRange = binsPerRange;
+            this.action = action;
+            this.combiner = combiner;
+        }
+
+        @Override
+        protected R compute() {
+            if (to - from <= binsPerRange) {
+                return action.apply(tab, from, to);
+            }
+            int mid = (from + to) >>> 1;
+            BulkTask<K, V, R> left = new BulkTask<>(tab, from, mid, binsPerRange, action, combiner);
+            left.fork();
+            R right = new BulkTask<>(tab, mid, to, binsPerRange, action, combiner).compute();
+            R leftResult = left.join();
+            if (leftResult == null) {
+                return right;
+            }
+            return right == null ? leftResult : combiner.apply(leftResult, right);
+        }
+    }
+
+    /**
+     * Счетчики статистики одной мапы. Создаются, только если STATS_ENABLED
+     */
+    private static final class StatsCounters {
+        /**
+         * Количество расширений массива
+         */
+        long resizes;
+        /**
+         * Суммарное время расширений и переноса корзин в наносекундах
+         */
+        long resizeNanos;
+        /**
+         * Количество успешных поисков
+         */
+        long hits;
+        /**
+         * Количество неуспешных поисков
+         */
+        long misses;
+        /**
+         * Количество сравненных узлов во всех поисках
+         */
+        long getProbes;
+        /**
+         * Количество вызовов put
+         */
+        long puts;
+        /**
+         * Количество сравненных узлов во всех put
+         */
+        long putProbes;
+        /**
+         * Количество вставок новых ключей
+         */
+        long inserts;
+        /**
+         * Количество удалений
+         */
+        long removes;
+
+        /**
+         * Метод учитывает один поиск
+         *
+         * @param probes количество сравненных узлов
+         * @param hit    ключ найден
+         */
+        void recordGet(int probes, boolean hit) {
+            getProbes += probes;
+            if (hit) {
+                hits++;
+            } else {
+                misses++;
+            }
+        }
+
+        /**
+         * Метод учитывает один put
+         *
+         * @param probes   количество сравненных узлов
+         * @param inserted добавлен новый ключ
+         */
+        void recordPut(int probes, boolean inserted) {
+            puts++;
+            putProbes += probes;
+            if (inserted) {
+                inserts++;
+            }
+        }
+    }
+
+    /**
+     * Класс описывает Ноду, которая хранит ключ и значение в массиве
+     *
+     * @param <K> тип ключа
+     * @param <V> тип значения
+     */
+    static class Node<K, V> implements Map.Entry<K, V> {
+        /**
+         * Поле, в котором хранится ключ
+         */
+        final K key;
+        /**
+         * Поле, в котором хранится значение
+         */
+        V value;
+        /**
+         * Ссылка на следущую ноду
+         */
+        Node<K, V> next;
+        /**
+         * Хэш для ключа
+         */
+        final int hashCode;
+        /**
+         * Конструктор объекта Ноды
+         *
+         * @param key      ключ с которым связано значение
+         * @param value    значение связанное с ключом
+         * @param hashCode хэш для ключа
+         * @param next     ссылка на следующую ноду
+         */
+        private Node(K key, V value, int hashCode, Node<K, V> next) {
+            this.key = key;
+            this.value = value;
+            this.hashCode = hashCode;
+            this.next = next;
+        }
+        /**
+         * Метод возвращает сохраненный ключ
+         *
+         * @return ключ
+         */
+        @Override
+        public K getKey() {
+            return key;
+        }
+        /**
+         * Метод возвращает сохраненное значение
+         *
+         * @return значение
+         */
+        @Override
+        public V getValue() {
+            return value;
+        }
+        /**
+         * Метод устанавливает новое значение для ноды
+         *
+         * @param value новое значение которое будет сохранено в Ноде
+         * @return новое значение
+         */
+        @Override
+        public V setValue(V value) {
+            this.value = value;
+            return value;
+        }
+        /**
+         * Метод сравнивает полученный объект с Нодой по контракту Map.Entry: только ключ и значение
          *
          * @param object сравниваемый объект
          * @return равны ли узел и объект
@@ -420,21 +2425,18 @@ public class CustomMap<K,V> extends AbstractMap<K,V> implements Map<K,V> {
         @Override
         public boolean equals(Object object) {
             if (this == object) return true;
-            if (!(object instanceof Map.Entry<?, ?>)) return false;
-            Node<?, ?> node = (Node<?, ?>) object;
-            return hashCode == node.hashCode
-                    && Objects.equals(key, node.key)
-                    && Objects.equals(value, node.value)
-                    && Objects.equals(next, node.next);
+            if (!(object instanceof Map.Entry<?, ?> entry)) return false;
+            return Objects.equals(key, entry.getKey())
+                    && Objects.equals(value, entry.getValue());
         }
         /**
-         * Метод возвращает хэш для Ноды
+         * Метод возвращает хэш для Ноды по контракту Map.Entry
          *
-         * @return хэш
+         * @return хэш ключа, сложенный по XOR с хэшем значения
          */
         @Override
         public int hashCode() {
-            return Objects.hash(key, value, next, hashCode);
+            return Objects.hashCode(key) ^ Objects.hashCode(value);
         }
         /**
          * Метод возвращает строковое представление Ноды
@@ -446,4 +2448,755 @@ public class CustomMap<K,V> extends AbstractMap<K,V> implements Map<K,V> {
             return key + " = " + value;
         }
     }
-}
\ No newline at end of file
+
+    /**
+     * Класс описывает узел, дополнительно связанный в двусвязный список порядка доступа.
+     * CustomMap такие узлы не создает, их создают подклассы через newNode и replacementNode.
+     * Узлы деревьев наследуют этот класс, чтобы превращение корзины в дерево и обратно
+     * не теряло положение узла в списке.
+     *
+     * @param <K> тип ключа
+     * @param <V> тип значения
+     */
+    static class LinkedNode<K, V> extends Node<K, V> {
+        /**
+         * Предыдущий узел списка
+         */
+        LinkedNode<K, V> before;
+        /**
+         * Следующий узел списка
+         */
+        LinkedNode<K, V> after;
+        /**
+         * Вес узла
+         */
+        int weight;
+        /**
+         * Номер списка, в котором находится узел
+         */
+        byte queue;
+        /**
+         * Момент истечения срока жизни по часам мапы
+         */
+        long expiresAt;
+        /**
+         * Предыдущий узел в корзине колеса таймеров, null если узел не запланирован
+         */
+        LinkedNode<K, V> previousInWheel;
+        /**
+         * Следующий узел в корзине колеса таймеров, null если узел не запланирован
+         */
+        LinkedNode<K, V> nextInWheel;
+
+        /**
+         * Конструктор связанного узла
+         *
+         * @param key      ключ с которым связано значение
+         * @param value    значение связанное с ключом
+         * @param hashCode хэш для ключа
+         * @param next     ссылка на следующую ноду
+         */
+        LinkedNode(K key, V value, int hashCode, Node<K, V> next) {
+            super(key, value, hashCode, next);
+        }
+    }
+
+    /**
+     * Класс описывает узел корзины-дерева.
+     * Узлы дерева одновременно остаются связаны в двусвязный список через next/prev,
+     * поэтому итераторы и перенос корзин работают с деревом так же, как с цепочкой.
+     * Корень дерева всегда стоит первым в корзине.
+     *
+     * @param <K> тип ключа
+     * @param <V> тип значения
+     */
+    static final class TreeNode<K, V> extends LinkedNode<K, V> {
+        /**
+         * Родитель в дереве
+         */
+        private TreeNode<K, V> parent;
+        /**
+         * Левый потомок
+         */
+        private TreeNode<K, V> left;
+        /**
+         * Правый потомок
+         */
+        private TreeNode<K, V> right;
+        /**
+         * Предыдущий узел в списке корзины, нужен для удаления за O(1)
+         */
+        private TreeNode<K, V> prev;
+        /**
+         * Цвет узла
+         */
+        private boolean red;
+
+        /**
+         * Конструктор узла дерева
+         *
+         * @param key      ключ с которым связано значение
+         * @param value    значение связанное с ключом
+         * @param hashCode хэш для ключа
+         * @param next     ссылка на следующую ноду
+         */
+        private TreeNode(K key, V value, int hashCode, Node<K, V> next) {
+            super(key, value, hashCode, next);
+        }
+
+        /**
+         * Метод возвращает корень дерева, содержащего этот узел
+         *
+         * @return корень дерева
+         */
+        private TreeNode<K, V> root() {
+            TreeNode<K, V> root = this;
+            while (root.parent != null) {
+                root = root.parent;
+            }
+            return root;
+        }
+
+        /**
+         * Метод ставит корень дерева первым узлом корзины
+         *
+         * @param tab  массив с корзиной
+         * @param root корень дерева
+         */
+        private static <K, V> void moveRootToFront(Node<K, V>[] tab, TreeNode<K, V> root) {
+            if (root == null) {
+                return;
+            }
+            int index = root.hashCode & (tab.length - 1);
+            TreeNode<K, V> first = (TreeNode<K, V>) tab[index];
+            if (root != first) {
+                tab[index] = root;
+                TreeNode<K, V> rootPrev = root.prev;
+                Node<K, V> rootNext = root.next;
+                if (rootNext != null) {
+                    ((TreeNode<K, V>) rootNext).prev = rootPrev;
+                }
+                if (rootPrev != null) {
+                    rootPrev.next = rootNext;
+                }
+                if (first != null) {
+                    first.prev = root;
+                }
+                root.next = first;
+                root.prev = null;
+            }
+        }
+
+        /**
+         * Метод ищет узел с заданным ключом во всем дереве.
+         * После удаления через итератор первым в корзине может оказаться не корень,
+         * поэтому поиск начинается от настоящего корня.
+         *
+         * @param strategy стратегия мапы или null
+         * @param hash     хэш ключа
+         * @param key      ключ
+         * @return найденный узел или null
+         */
+        private TreeNode<K, V> getTreeNode(HashStrategy<Object> strategy, int hash, Object key) {
+            return (parent != null ? root() : this).find(strategy, hash, key, null);
+        }
+
+        /**
+         * Метод ищет узел с заданным ключом в поддереве этого узла.
+         * Со стратегией порядок Comparable не используется: он может не согласовываться с ее равенством
+         *
+         * @param strategy        стратегия мапы или null
+         * @param hash            хэш ключа
+         * @param key             ключ
+         * @param comparableClass класс ключа, если он уже вычислен, иначе null
+         * @return найденный узел или null
+         */
+        private TreeNode<K, V> find(HashStrategy<Object> strategy, int hash, Object key, Class<?> comparableClass) {
+            TreeNode<K, V> node = this;
+            do {
+                TreeNode<K, V> nodeLeft = node.left;
+                TreeNode<K, V> nodeRight = node.right;
+                K nodeKey = node.key;
+                int direction;
+                if (node.hashCode > hash) {
+                    node = nodeLeft;
+                } else if (node.hashCode < hash) {
+                    node = nodeRight;
+                } else if (keyEquals(strategy, key, nodeKey)) {
+                    return node;
+                } else if (nodeLeft == null) {
+                    node = nodeRight;
+                } else if (nodeRight == null) {
+                    node = nodeLeft;
+                } else if (strategy == null
+                        && (comparableClass != null || (comparableClass = comparableClassFor(key)) != null)
+                        && (direction = compareComparables(comparableClass, key, nodeKey)) != 0) {
+                    node = direction < 0 ? nodeLeft : nodeRight;
+                } else {
+                    TreeNode<K, V> found = nodeRight.find(strategy, hash, key, comparableClass);
+                    if (found != null) {
+                        return found;
+                    }
+                    node = nodeLeft;
+                }
+            } while (node != null);
+            return null;
+        }
+
+        /**
+         * Метод вычисляет направление спуска при вставке ключа
+         *
+         * @param hash    хэш вставляемого ключа
+         * @param key     вставляемый ключ
+         * @param node    текущий узел
+         * @param comparableClass класс вставляемого ключа или null
+         * @return отрицательное число для левого поддерева, положительное для правого, 0 если порядок не определен
+         */
+        private static <K, V> int compareForInsert(int hash, Object key, TreeNode<K, V> node, Class<?> comparableClass) {
+            if (node.hashCode > hash) {
+                return -1;
+            }
+            if (node.hashCode < hash) {
+                return 1;
+            }
+            return comparableClass == null ? 0 : compareComparables(comparableClass, key, node.key);
+        }
+
+        /**
+         * Метод строит дерево из списка узлов, начинающегося с этого узла
+         *
+         * @param tab      массив с корзиной
+         * @param strategy стратегия мапы или null
+         */
+        private void treeify(Node<K, V>[] tab, HashStrategy<Object> strategy) {
+            TreeNode<K, V> root = null;
+            TreeNode<K, V> next;
+            for (TreeNode<K, V> node = this; node != null; node = next) {
+                next = (TreeNode<K, V>) node.next;
+                node.left = null;
+                node.right = null;
+                if (root == null) {
+                    node.parent = null;
+                    node.red = false;
+                    root = node;
+                    continue;
+                }
+                K key = node.key;
+                Class<?> comparableClass = strategy == null ? comparableClassFor(key) : null;
+                TreeNode<K, V> current = root;
+                while (true) {
+                    int direction = compareForInsert(node.hashCode, key, current, comparableClass);
+                    if (direction == 0) {
+                        direction = tieBreakOrder(key, current.key);
+                    }
+                    TreeNode<K, V> child = direction < 0 ? current.left : current.right;
+                    if (child == null) {
+                        node.parent = current;
+                        if (direction < 0) {
+                            current.left = node;
+                        } else {
+                            current.right = node;
+                        }
+                        root = balanceInsertion(root, node);
+                        break;
+                    }
+                    current = child;
+                }
+            }
+            moveRootToFront(tab, root);
+        }
+
+        /**
+         * Метод превращает список узлов дерева обратно в обычную цепочку
+         *
+         * @param map мапа, создающая обычные узлы
+         * @return первый узел цепочки
+         */
+        private Node<K, V> untreeify(CustomMap<K, V> map) {
+            Node<K, V> head = null;
+            Node<K, V> tail = null;
+            for (Node<K, V> node = this; node != null; node = node.next) {
+                Node<K, V> replacement = map.replacementNode(node, null);
+                if (tail == null) {
+                    head = replacement;
+                } else {
+                    tail.next = replacement;
+                }
+                tail = replacement;
+            }
+            return head;
+        }
+
+        /**
+         * Метод добавляет ключ в дерево, если его там еще нет
+         *
+         * @param map   мапа, создающая узлы
+         * @param tab   массив с корзиной
+         * @param hash  хэш ключа
+         * @param key   ключ
+         * @param value значение
+         * @return существующий узел с этим ключом или null, если добавлен новый узел
+         */
+        private TreeNode<K, V> putTreeVal(CustomMap<K, V> map, Node<K, V>[] tab, int hash, K key, V value) {
+            Class<?> comparableClass = map.strategy == null ? comparableClassFor(key) : null;
+            boolean searched = false;
+            TreeNode<K, V> root = parent != null ? root() : this;
+            TreeNode<K, V> current = root;
+            while (true) {
+                K currentKey = current.key;
+                if (current.hashCode == hash && keyEquals(map.strategy, key, currentKey)) {
+                    return current;
+                }
+                int direction = compareForInsert(hash, key, current, comparableClass);
+                if (direction == 0) {
+                    if (!searched) {
+                        searched = true;
+                        TreeNode<K, V> found = null;
+                        if (current.left != null) {
+                            found = current.left.find(map.strategy, hash, key, comparableClass);
+                        }
+                        if (found == null && current.right != null) {
+                            found = current.right.find(map.strategy, hash, key, comparableClass);
+                        }
+                        if (found != null) {
+                            return found;
+                        }
+                    }
+                    direction = tieBreakOrder(key, currentKey);
+                }
+                TreeNode<K, V> child = direction < 0 ? current.left : current.right;
+                if (child == null) {
+                    Node<K, V> currentNext = current.next;
+                    TreeNode<K, V> node = map.newTreeNode(key, value, hash, currentNext);
+                    if (direction < 0) {
+                        current.left = node;
+                    } else {
+                        current.right = node;
+                    }
+                    current.next = node;
+                    node.parent = current;
+                    node.prev = current;
+                    if (currentNext != null) {
+                        ((TreeNode<K, V>) currentNext).prev = node;
+                    }
+                    moveRootToFront(tab, balanceInsertion(root, node));
+                    return null;
+                }
+                current = child;
+            }
+        }
+
+        /**
+         * Метод удаляет этот узел из дерева и из списка корзины.
+         * Если дерево стало слишком маленьким, корзина снова превращается в цепочку.
+         *
+         * @param map     мапа, создающая обычные узлы
+         * @param tab     массив с корзиной
+         * @param movable можно ли перестраивать корзину (ставить корень первым, превращать в цепочку)
+         */
+        private void removeTreeNode(CustomMap<K, V> map, Node<K, V>[] tab, boolean movable) {
+            int index = hashCode & (tab.length - 1);
+            TreeNode<K, V> first = (TreeNode<K, V>) tab[index];
+            TreeNode<K, V> root = first;
+            TreeNode<K, V> successor = (TreeNode<K, V>) next;
+            TreeNode<K, V> predecessor = prev;
+            if (predecessor == null) {
+                first = successor;
+                tab[index] = first;
+            } else {
+                predecessor.next = successor;
+            }
+            if (successor != null) {
+                successor.prev = predecessor;
+            }
+            if (first == null) {
+                return;
+            }
+            if (root.parent != null) {
+                root = root.root();
+            }
+            if (movable && (root.right == null || root.left == null || root.left.left == null)) {
+                tab[index] = first.untreeify(map);
+                return;
+            }
+            TreeNode<K, V> node = this;
+            TreeNode<K, V> nodeLeft = left;
+            TreeNode<K, V> nodeRight = right;
+            TreeNode<K, V> replacement;
+            if (nodeLeft != null && nodeRight != null) {
+                TreeNode<K, V> heir = nodeRight;
+                while (heir.left != null) {
+                    heir = heir.left;
+                }
+                boolean color = heir.red;
+                heir.red = node.red;
+                node.red = color;
+                TreeNode<K, V> heirRight = heir.right;
+                TreeNode<K, V> nodeParent = node.parent;
+                if (heir == nodeRight) {
+                    node.parent = heir;
+                    heir.right = node;
+                } else {
+                    TreeNode<K, V> heirParent = heir.parent;
+                    node.parent = heirParent;
+                    if (heir == heirParent.left) {
+                        heirParent.left = node;
+                    } else {
+                        heirParent.right = node;
+                    }
+                    heir.right = nodeRight;
+                    nodeRight.parent = heir;
+                }
+                node.left = null;
+                node.right = heirRight;
+                if (heirRight != null) {
+                    heirRight.parent = node;
+                }
+                heir.left = nodeLeft;
+                nodeLeft.parent = heir;
+                heir.parent = nodeParent;
+                if (nodeParent == null) {
+                    root = heir;
+                } else if (node == nodeParent.left) {
+                    nodeParent.left = heir;
+                } else {
+                    nodeParent.right = heir;
+                }
+                replacement = heirRight != null ? heirRight : node;
+            } else if (nodeLeft != null) {
+                replacement = nodeLeft;
+            } else if (nodeRight != null) {
+                replacement = nodeRight;
+            } else {
+                replacement = node;
+            }
+            if (replacement != node) {
+                TreeNode<K, V> nodeParent = node.parent;
+                replacement.parent = nodeParent;
+                if (nodeParent == null) {
+                    root = replacement;
+                    root.red = false;
+                } else if (node == nodeParent.left) {
+                    nodeParent.left = replacement;
+                } else {
+                    nodeParent.right = replacement;
+                }
+                node.left = null;
+                node.right = null;
+                node.parent = null;
+            }
+            TreeNode<K, V> balancedRoot = node.red ? root : balanceDeletion(root, replacement);
+            if (replacement == node) {
+                TreeNode<K, V> nodeParent = node.parent;
+                node.parent = null;
+                if (nodeParent != null) {
+                    if (node == nodeParent.left) {
+                        nodeParent.left = null;
+                    } else if (node == nodeParent.right) {
+                        nodeParent.right = null;
+                    }
+                }
+            }
+            if (movable) {
+                moveRootToFront(tab, balancedRoot);
+            }
+        }
+
+        /**
+         * Метод делит дерево при удвоении массива на «младший» и «старший» списки,
+         * как splitBucket делит обычную цепочку. Маленькие списки превращаются в цепочки.
+         *
+         * @param map      мапа, создающая обычные узлы
+         * @param newTable новый массив
+         * @param index    индекс корзины в старом массиве
+         * @param bit      длина старого массива
+         */
+        private void split(CustomMap<K, V> map, Node<K, V>[] newTable, int index, int bit) {
+            TreeNode<K, V> lowHead = null;
+            TreeNode<K, V> lowTail = null;
+            TreeNode<K, V> highHead = null;
+            TreeNode<K, V> highTail = null;
+            int lowCount = 0;
+            int highCount = 0;
+            TreeNode<K, V> next;
+            for (TreeNode<K, V> node = this; node != null; node = next) {
+                next = (TreeNode<K, V>) node.next;
+                node.next = null;
+                if ((node.hashCode & bit) == 0) {
+                    node.prev = lowTail;
+                    if (lowTail == null) {
+                        lowHead = node;
+                    } else {
+                        lowTail.next = node;
+                    }
+                    lowTail = node;
+                    lowCount++;
+                } else {
+                    node.prev = highTail;
+                    if (highTail == null) {
+                        highHead = node;
+                    } else {
+                        highTail.next = node;
+                    }
+                    highTail = node;
+                    highCount++;
+                }
+            }
+            if (lowHead != null) {
+                if (lowCount <= UNTREEIFY_THRESHOLD) {
+                    newTable[index] = lowHead.untreeify(map);
+                } else {
+                    newTable[index] = lowHead;
+                    if (highHead != null) {
+                        lowHead.treeify(newTable, map.strategy);
+                    }
+                }
+            }
+            if (highHead != null) {
+                if (highCount <= UNTREEIFY_THRESHOLD) {
+                    newTable[index + bit] = highHead.untreeify(map);
+                } else {
+                    newTable[index + bit] = highHead;
+                    if (lowHead != null) {
+                        highHead.treeify(newTable, map.strategy);
+                    }
+                }
+            }
+        }
+
+        /**
+         * Метод выполняет левый поворот вокруг узла
+         *
+         * @param root корень дерева
+         * @param node узел поворота
+         * @return корень дерева после поворота
+         */
+        private static <K, V> TreeNode<K, V> rotateLeft(TreeNode<K, V> root, TreeNode<K, V> node) {
+            TreeNode<K, V> right;
+            if (node != null && (right = node.right) != null) {
+                TreeNode<K, V> rightLeft = right.left;
+                node.right = rightLeft;
+                if (rightLeft != null) {
+                    rightLeft.parent = node;
+                }
+                TreeNode<K, V> nodeParent = node.parent;
+                right.parent = nodeParent;
+                if (nodeParent == null) {
+                    root = right;
+                    root.red = false;
+                } else if (nodeParent.left == node) {
+                    nodeParent.left = right;
+                } else {
+                    nodeParent.right = right;
+                }
+                right.left = node;
+                node.parent = right;
+            }
+            return root;
+        }
+
+        /**
+         * Метод выполняет правый поворот вокруг узла
+         *
+         * @param root корень дерева
+         * @param node узел поворота
+         * @return корень дерева после поворота
+         */
+        private static <K, V> TreeNode<K, V> rotateRight(TreeNode<K, V> root, TreeNode<K, V> node) {
+            TreeNode<K, V> left;
+            if (node != null && (left = node.left) != null) {
+                TreeNode<K, V> leftRight = left.right;
+                node.left = leftRight;
+                if (leftRight != null) {
+                    leftRight.parent = node;
+                }
+                TreeNode<K, V> nodeParent = node.parent;
+                left.parent = nodeParent;
+                if (nodeParent == null) {
+                    root = left;
+                    root.red = false;
+                } else if (nodeParent.right == node) {
+                    nodeParent.right = left;
+                } else {
+                    nodeParent.left = left;
+                }
+                left.right = node;
+                node.parent = left;
+            }
+            return root;
+        }
+
+        /**
+         * Метод восстанавливает свойства красно-черного дерева после вставки узла
+         *
+         * @param root корень дерева
+         * @param node вставленный узел
+         * @return корень дерева
+         */
+        private static <K, V> TreeNode<K, V> balanceInsertion(TreeNode<K, V> root, TreeNode<K, V> node) {
+            node.red = true;
+            while (true) {
+                TreeNode<K, V> parent = node.parent;
+                if (parent == null) {
+                    node.red = false;
+                    return node;
+                }
+                TreeNode<K, V> grand = parent.parent;
+                if (!parent.red || grand == null) {
+                    return root;
+                }
+                TreeNode<K, V> grandLeft = grand.left;
+                if (parent == grandLeft) {
+                    TreeNode<K, V> uncle = grand.right;
+                    if (uncle != null && uncle.red) {
+                        uncle.red = false;
+                        parent.red = false;
+                        grand.red = true;
+                        node = grand;
+                    } else {
+                        if (node == parent.right) {
+                            node = parent;
+                            root = rotateLeft(root, node);
+                            parent = node.parent;
+                            grand = parent == null ? null : parent.parent;
+                        }
+                        if (parent != null) {
+                            parent.red = false;
+                            if (grand != null) {
+                                grand.red = true;
+                                root = rotateRight(root, grand);
+                            }
+                        }
+                    }
+                } else {
+                    if (grandLeft != null && grandLeft.red) {
+                        grandLeft.red = false;
+                        parent.red = false;
+                        grand.red = true;
+                        node = grand;
+                    } else {
+                        if (node == parent.left) {
+                            node = parent;
+                            root = rotateRight(root, node);
+                            parent = node.parent;
+                            grand = parent == null ? null : parent.parent;
+                        }
+                        if (parent != null) {
+                            parent.red = false;
+                            if (grand != null) {
+                                grand.red = true;
+                                root = rotateLeft(root, grand);
+                            }
+                        }
+                    }
+                }
+            }
+        }
+
+        /**
+         * Метод восстанавливает свойства красно-черного дерева после удаления узла
+         *
+         * @param root корень дерева
+         * @param node узел, занявший место удаленного
+         * @return корень дерева
+         */
+        private static <K, V> TreeNode<K, V> balanceDeletion(TreeNode<K, V> root, TreeNode<K, V> node) {
+            while (true) {
+                if (node == null || node == root) {
+                    return root;
+                }
+                TreeNode<K, V> parent = node.parent;
+                if (parent == null) {
+                    node.red = false;
+                    return node;
+                }
+                if (node.red) {
+                    node.red = false;
+                    return root;
+                }
+                TreeNode<K, V> parentLeft = parent.left;
+                if (parentLeft == node) {
+                    TreeNode<K, V> sibling = parent.right;
+                    if (sibling != null && sibling.red) {
+                        sibling.red = false;
+                        parent.red = true;
+                        root = rotateLeft(root, parent);
+                        parent = node.parent;
+                        sibling = parent == null ? null : parent.right;
+                    }
+                    if (sibling == null) {
+                        node = parent;
+                    } else {
+                        TreeNode<K, V> siblingLeft = sibling.left;
+                        TreeNode<K, V> siblingRight = sibling.right;
+                        if ((siblingRight == null || !siblingRight.red) && (siblingLeft == null || !siblingLeft.red)) {
+                            sibling.red = true;
+                            node = parent;
+                        } else {
+                            if (siblingRight == null || !siblingRight.red) {
+                                if (siblingLeft != null) {
+                                    siblingLeft.red = false;
+                                }
+                                sibling.red = true;
+                                root = rotateRight(root, sibling);
+                                parent = node.parent;
+                                sibling = parent == null ? null : parent.right;
+                            }
+                            if (sibling != null) {
+                                sibling.red = parent != null && parent.red;
+                                if (sibling.right != null) {
+                                    sibling.right.red = false;
+                                }
+                            }
+                            if (parent != null) {
+                                parent.red = false;
+                                root = rotateLeft(root, parent);
+                            }
+                            node = root;
+                        }
+                    }
+                } else {
+                    TreeNode<K, V> sibling = parentLeft;
+                    if (sibling != null && sibling.red) {
+                        sibling.red = false;
+                        parent.red = true;
+                        root = rotateRight(root, parent);
+                        parent = node.parent;
+                        sibling = parent == null ? null : parent.left;
+                    }
+                    if (sibling == null) {
+                        node = parent;
+                    } else {
+                        TreeNode<K, V> siblingLeft = sibling.left;
+                        TreeNode<K, V> siblingRight = sibling.right;
+                        if ((siblingLeft == null || !siblingLeft.red) && (siblingRight == null || !siblingRight.red)) {
+                            sibling.red = true;
+                            node = parent;
+                        } else {
+                            if (siblingLeft == null || !siblingLeft.red) {
+                                if (siblingRight != null) {
+                                    siblingRight.red = false;
+                                }
+                                sibling.red = true;
+                                root = rotateLeft(root, sibling);
+                                parent = node.parent;
+                                sibling = parent == null ? null : parent.left;
+                            }
+                            if (sibling != null) {
+                                sibling.red = parent != null && parent.red;
+                                if (sibling.left != null) {
+                                    sibling.left.red = false;
+                                }
+                            }
+                            if (parent != null) {
+                                parent.red = false;
+                                root = rotateRight(root, parent);
+                            }
+                            node = root;
+                        }
+                    }
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,471 @@
+package HashMap;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+
+/**
+ * Класс описывает снимок мапы в файле, открытый только для чтения через отображение файла в память.
+ * Открытие снимка не читает записи: get сериализует ключ, находит корзину по хэшу его байт
+ * и восстанавливает только найденное значение прямо из отображенной области.
+ * Страницы файла подгружает операционная система при первом обращении, поэтому запуск
+ * со снимком занимает миллисекунды независимо от размера мапы.
+ * Формат файла (все числа big-endian):
+ * заголовок - магическое число, версия, количество записей и корзин;
+ * начала корзин - (корзин + 1) индексов в таблице смещений;
+ * таблица смещений - смещения записей в файле, сгруппированные по корзинам;
+ * записи - хэш ключа, длина ключа, длина значения (-1 для null), байты ключа и значения.
+ * Записи пишутся потоком через FileChannel в порядке обхода мапы, а таблицы дописываются в начало
+ * файла после них, поэтому при записи в памяти держится только по два числа на запись.
+ * Файл сначала пишется во временный и затем атомарно переименовывается.
+ * Как и в CustomOffHeapMap, ключи сравниваются по байтам и ключ null не поддерживается.
+ * Размер снимка ограничен 2 ГБ - размером одного отображения.
+ * Снимок неизменяем, поэтому читать его можно из нескольких потоков без синхронизации.
+ * Тип параметров:
+ * @param <K> тип ключей.
+ * @param <V> тип значений.
+ */
+public final class CustomMapSnapshot<K, V> extends AbstractMap<K, V> implements Map<K, V>, AutoCloseable {
+    /**
+     * Магическое число в начале файла, "CMSN"
+     */
+    private static final int MAGIC = 0x434D534E;
+    /**
+     * Версия формата
+     */
+    private static final int VERSION = 1;
+    /**
+     * Размер заголовка файла
+     */
+    private static final int HEADER_SIZE = 16;
+    /**
+     * Размер заголовка записи: хэш, длина ключа и длина значения
+     */
+    private static final int RECORD_HEADER_SIZE = 12;
+    /**
+     * Длина значения null
+     */
+    private static final int NULL_LENGTH = -1;
+    /**
+     * Размер буфера записи
+     */
+    private static final int WRITE_BUFFER_SIZE = 1 << 20;
+    /**
+     * Максимальное количество корзин
+     */
+    private static final int MAXIMUM_CAPACITY = 1 << 30;
+
+    /**
+     * Сериализатор ключей
+     */
+    private final Serializer<K> keySerializer;
+    /**
+     * Сериализатор значений
+     */
+    private final Serializer<V> valueSerializer;
+    /**
+     * Количество записей
+     */
+    private final int size;
+    /**
+     * Количество корзин, степень двойки
+     */
+    private final int capacity;
+    /**
+     * Смещение таблицы смещений записей
+     */
+    private final int offsetsStart;
+    /**
+     * Смещение первой записи
+     */
+    private final int recordsStart;
+    /**
+     * Отображенный файл, null после закрытия
+     */
+    private ByteBuffer buffer;
+    /**
+     * Представление набора ключ-значений, создается при первом обращении
+     */
+    private Set<Entry<K, V>> entrySetView;
+
+    /**
+     * Конструктор снимка по отображенному файлу
+     *
+     * @param buffer          отображенный файл
+     * @param keySerializer   сериализатор ключей
+     * @param valueSerializer сериализатор значений
+     * @throws IOException если файл не является снимком
+     */
+    private CustomMapSnapshot(ByteBuffer buffer, Serializer<K> keySerializer, Serializer<V> valueSerializer)
+            throws IOException {
+        if (buffer.limit() < HEADER_SIZE || buffer.getInt(0) != MAGIC) {
+            throw new IOException("Not a CustomMap snapshot");
+        }
+        if (buffer.getInt(4) != VERSION) {
+            throw new IOException("Unsupported snapshot version: " + buffer.getInt(4));
+        }
+        this.buffer = buffer;
+        this.keySerializer = keySerializer;
+        this.valueSerializer = valueSerializer;
+        int size = buffer.getInt(8);
+        int capacity = buffer.getInt(12);
+        long recordsStart = HEADER_SIZE + (capacity + 1L) * Integer.BYTES + (long) size * Integer.BYTES;
+        if (size < 0 || Integer.bitCount(capacity) != 1 || recordsStart > buffer.limit()) {
+            throw new IOException("Corrupted snapshot header");
+        }
+        this.size = size;
+        this.capacity = capacity;
+        this.offsetsStart = HEADER_SIZE + (capacity + 1) * Integer.BYTES;
+        this.recordsStart = (int) recordsStart;
+    }
+
+    /**
+     * Метод записывает мапу в файл снимка
+     *
+     * @param map             мапа
+     * @param path            путь к файлу снимка
+     * @param keySerializer   сериализатор ключей
+     * @param valueSerializer сериализатор значений
+     * @param <K>             тип ключей
+     * @param <V>             тип значений
+     * @throws IOException          при ошибке записи или если снимок больше 2 ГБ
+     * @throws NullPointerException если в мапе есть ключ null
+     */
+    public static <K, V> void write(Map<? extends K, ? extends V> map, Path path, Serializer<K> keySerializer,
+                                    Serializer<V> valueSerializer) throws IOException {
+        int size = map.size();
+        int capacity = HashTables.tableSizeFor(size, 1, MAXIMUM_CAPACITY);
+        int[] buckets = new int[size];
+        int[] offsets = new int[size];
+        long recordsStart = HEADER_SIZE + (capacity + 1L) * Integer.BYTES + (long) size * Integer.BYTES;
+        if (recordsStart > Integer.MAX_VALUE) {
+            throw new IOException("Snapshot exceeds " + Integer.MAX_VALUE + " bytes");
+        }
+        Path temporary = path.resolveSibling(path.getFileName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            ByteBuffer out = ByteBuffer.allocateDirect(WRITE_BUFFER_SIZE);
+            long position = recordsStart;
+            channel.position(position);
+            int count = 0;
+            for (Entry<? extends K, ? extends V> entry : map.entrySet()) {
+                if (count == size) {
+                    throw new ConcurrentModificationException();
+                }
+                K key = Objects.requireNonNull(entry.getKey(), "Snapshot does not support null keys");
+                V value = entry.getValue();
+                byte[] keyBytes = keySerializer.serialize(key);
+                byte[] valueBytes = value == null ? null : valueSerializer.serialize(value);
+                int valueLength = valueBytes == null ? 0 : valueBytes.length;
+                int hash = hash(keyBytes);
+                long recordSize = RECORD_HEADER_SIZE + (long) keyBytes.length + valueLength;
+                if (position + recordSize > Integer.MAX_VALUE) {
+                    throw new IOException("Snapshot exceeds " + Integer.MAX_VALUE + " bytes");
+                }
+                buckets[count] = hash & (capacity - 1);
+                offsets[count] = (int) position;
+                count++;
+                position += recordSize;
+                if (recordSize > out.remaining()) {
+                    flush(channel, out);
+                }
+                if (recordSize > out.capacity()) {
+                    ByteBuffer header = ByteBuffer.allocate(RECORD_HEADER_SIZE)
+                            .putInt(hash).putInt(keyBytes.length)
+                            .putInt(valueBytes == null ? NULL_LENGTH : valueLength).flip();
+                    ByteBuffer[] parts = {header, ByteBuffer.wrap(keyBytes),
+                            ByteBuffer.wrap(valueBytes == null ? new byte[0] : valueBytes)};
+                    long written = 0;
+                    while (written < recordSize) {
+                        written += channel.write(parts);
+                    }
+                    continue;
+                }
+                out.putInt(hash).putInt(keyBytes.length).putInt(valueBytes == null ? NULL_LENGTH : valueLength);
+                out.put(keyBytes);
+                if (valueBytes != null) {
+                    out.put(valueBytes);
+                }
+            }
+            if (count != size) {
+                throw new ConcurrentModificationException();
+            }
+            flush(channel, out);
+            channel.position(0);
+            writeIndex(channel, out, size, capacity, buckets, offsets);
+            channel.force(false);
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(temporary);
+            throw e;
+        }
+        Files.move(temporary, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Метод открывает снимок. Файл отображается в память целиком, записи не читаются
+     *
+     * @param path            путь к файлу снимка
+     * @param keySerializer   сериализатор ключей
+     * @param valueSerializer сериализатор значений
+     * @param <K>             тип ключей
+     * @param <V>             тип значений
+     * @return снимок
+     * @throws IOException при ошибке чтения или если файл не является снимком
+     */
+    public static <K, V> CustomMapSnapshot<K, V> open(Path path, Serializer<K> keySerializer,
+                                                      Serializer<V> valueSerializer) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long length = channel.size();
+            if (length > Integer.MAX_VALUE) {
+                throw new IOException("Snapshot exceeds " + Integer.MAX_VALUE + " bytes");
+            }
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, length);
+            return new CustomMapSnapshot<>(buffer, keySerializer, valueSerializer);
+        }
+    }
+
+    /**
+     * Метод возвращает количество элементов в снимке.
+     *
+     * @return размер снимка
+     */
+    @Override
+    public int size() {
+        checkOpen();
+        return size;
+    }
+    /**
+     * Метод проверяет имеется ли ключ в снимке.
+     *
+     * @param key ключ который нужно проверить
+     * @return есть ли ключ в снимке
+     */
+    @Override
+    @SuppressWarnings("unchecked")
+    public boolean containsKey(Object key) {
+        checkOpen();
+        return key != null && findRecord(keySerializer.serialize((K) key)) >= 0;
+    }
+    /**
+     * Метод возвращает значение по ключу, восстанавливая из файла только его
+     *
+     * @param key ключ по которому возвращаем значение
+     * @return значение полученное по ключу
+     */
+    @Override
+    @SuppressWarnings("unchecked")
+    public V get(Object key) {
+        checkOpen();
+        if (key == null) {
+            return null;
+        }
+        int record = findRecord(keySerializer.serialize((K) key));
+        return record < 0 ? null : readValue(record);
+    }
+    /**
+     * Метод возвращает набор всех ключ-значений. Ключи и значения восстанавливаются при обходе
+     *
+     * @return набор entries
+     */
+    @Override
+    public Set<Entry<K, V>> entrySet() {
+        Set<Entry<K, V>> view = entrySetView;
+        if (view == null) {
+            view = new AbstractSet<>() {
+                @Override
+                public Iterator<Entry<K, V>> iterator() {
+                    return new EntryIterator();
+                }
+
+                @Override
+                public int size() {
+                    return CustomMapSnapshot.this.size();
+                }
+            };
+            entrySetView = view;
+        }
+        return view;
+    }
+    /**
+     * Метод закрывает снимок. Отображение освобождается, когда буфер соберет сборщик мусора
+     */
+    @Override
+    public void close() {
+        buffer = null;
+    }
+
+    /**
+     * Метод ищет запись по байтам ключа
+     *
+     * @param keyBytes байты ключа
+     * @return смещение записи или -1
+     */
+    private int findRecord(byte[] keyBytes) {
+        ByteBuffer file = buffer;
+        int hash = hash(keyBytes);
+        int bucket = hash & (capacity - 1);
+        int from = file.getInt(HEADER_SIZE + bucket * Integer.BYTES);
+        int to = file.getInt(HEADER_SIZE + (bucket + 1) * Integer.BYTES);
+        ByteBuffer wanted = ByteBuffer.wrap(keyBytes);
+        for (int slot = from; slot < to; slot++) {
+            int record = file.getInt(offsetsStart + slot * Integer.BYTES);
+            if (file.getInt(record) == hash && file.getInt(record + 4) == keyBytes.length
+                    && file.slice(record + RECORD_HEADER_SIZE, keyBytes.length).mismatch(wanted) < 0) {
+                return record;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Метод восстанавливает ключ записи
+     *
+     * @param record смещение записи
+     * @return ключ
+     */
+    private K readKey(int record) {
+        return keySerializer.deserialize(buffer, record + RECORD_HEADER_SIZE, buffer.getInt(record + 4));
+    }
+
+    /**
+     * Метод восстанавливает значение записи
+     *
+     * @param record смещение записи
+     * @return значение или null
+     */
+    private V readValue(int record) {
+        int keyLength = buffer.getInt(record + 4);
+        int valueLength = buffer.getInt(record + 8);
+        if (valueLength == NULL_LENGTH) {
+            return null;
+        }
+        return valueSerializer.deserialize(buffer, record + RECORD_HEADER_SIZE + keyLength, valueLength);
+    }
+
+    /**
+     * Метод возвращает размер записи
+     *
+     * @param record смещение записи
+     * @return размер в байтах
+     */
+    private int recordSize(int record) {
+        return RECORD_HEADER_SIZE + buffer.getInt(record + 4) + Math.max(0, buffer.getInt(record + 8));
+    }
+
+    /**
+     * Метод проверяет, что снимок не закрыт
+     */
+    private void checkOpen() {
+        if (buffer == null) {
+            throw new IllegalStateException("Snapshot is closed");
+        }
+    }
+
+    /**
+     * Метод записывает заголовок, начала корзин и таблицу смещений, сгруппированную по корзинам
+     *
+     * @param channel  канал файла, установленный на начало
+     * @param out      буфер записи
+     * @param size     количество записей
+     * @param capacity количество корзин
+     * @param buckets  корзина каждой записи
+     * @param offsets  смещение каждой записи
+     * @throws IOException при ошибке записи
+     */
+    private static void writeIndex(FileChannel channel, ByteBuffer out, int size, int capacity,
+                                   int[] buckets, int[] offsets) throws IOException {
+        int[] starts = new int[capacity + 1];
+        for (int bucket : buckets) {
+            starts[bucket + 1]++;
+        }
+        for (int bucket = 0; bucket < capacity; bucket++) {
+            starts[bucket + 1] += starts[bucket];
+        }
+        int[] grouped = new int[size];
+        int[] next = Arrays.copyOf(starts, capacity);
+        for (int record = 0; record < size; record++) {
+            grouped[next[buckets[record]]++] = offsets[record];
+        }
+        out.putInt(MAGIC).putInt(VERSION).putInt(size).putInt(capacity);
+        for (int start : starts) {
+            if (!out.hasRemaining()) {
+                flush(channel, out);
+            }
+            out.putInt(start);
+        }
+        for (int offset : grouped) {
+            if (!out.hasRemaining()) {
+                flush(channel, out);
+            }
+            out.putInt(offset);
+        }
+        flush(channel, out);
+    }
+
+    /**
+     * Метод записывает содержимое буфера в канал и очищает буфер
+     *
+     * @param channel канал
+     * @param out     буфер
+     * @throws IOException при ошибке записи
+     */
+    private static void flush(FileChannel channel, ByteBuffer out) throws IOException {
+        out.flip();
+        while (out.hasRemaining()) {
+            channel.write(out);
+        }
+        out.clear();
+    }
+
+    /**
+     * Метод возвращает хэш байт ключа, так же как CustomOffHeapMap
+     *
+     * @param keyBytes байты ключа
+     * @return хэш
+     */
+    private static int hash(byte[] keyBytes) {
+        int hash = Arrays.hashCode(keyBytes) * 0x9E3779B9;
+        return hash ^ (hash >>> 16);
+    }
+
+    /**
+     * Итератор по записям в порядке их расположения в файле
+     */
+    private final class EntryIterator implements Iterator<Entry<K, V>> {
+        /**
+         * Смещение следующей записи
+         */
+        private int record = recordsStart;
+        /**
+         * Количество возвращенных записей
+         */
+        private int returned;
+
+        EntryIterator() {
+            checkOpen();
+        }
+
+        @Override
+        public boolean hasNext() {
+            return returned < size;
+        }
+
+        @Override
+        public Entry<K, V> next() {
+            if (returned >= size) {
+                throw new NoSuchElementException();
+            }
+            checkOpen();
+            int current = record;
+            record += recordSize(current);
+            returned++;
+            return new SimpleImmutableEntry<>(readKey(current), readValue(current));
+        }
+    }
+}
@@ -0,0 +1,244 @@
+package HashMap;
+
+import java.util.Arrays;
+
+/**
+ * Класс описывает снимок статистики CustomMap, полученный методом CustomMap.stats().
+ * Структура таблицы (длина, загрузка, гистограмма цепочек) считается при каждом вызове.
+ * Счетчики операций и расширений ведутся, только если JVM запущена с -Dcustommap.stats=true,
+ * иначе они равны нулю, а isEnabled() возвращает false.
+ */
+public final class CustomMapStats {
+    /**
+     * Длина массива
+     */
+    private final int capacity;
+    /**
+     * Количество элементов
+     */
+    private final int size;
+    /**
+     * Гистограмма длин цепочек: элемент i равен числу корзин с i узлами
+     */
+    private final int[] chainLengthHistogram;
+    /**
+     * Количество корзин-деревьев
+     */
+    private final int treeBins;
+    /**
+     * Счетчики операций ведутся
+     */
+    private final boolean enabled;
+    /**
+     * Количество расширений массива
+     */
+    private final long resizeCount;
+    /**
+     * Суммарное время расширений, включая постепенный перенос корзин, в наносекундах
+     */
+    private final long resizeTimeNanos;
+    /**
+     * Количество успешных поисков (get, containsKey)
+     */
+    private final long hits;
+    /**
+     * Количество неуспешных поисков
+     */
+    private final long misses;
+    /**
+     * Количество сравненных узлов во всех поисках
+     */
+    private final long getProbes;
+    /**
+     * Количество вызовов put
+     */
+    private final long puts;
+    /**
+     * Количество сравненных узлов во всех put
+     */
+    private final long putProbes;
+    /**
+     * Количество вставок новых ключей
+     */
+    private final long inserts;
+    /**
+     * Количество удалений
+     */
+    private final long removes;
+
+    CustomMapStats(int capacity, int size, int[] chainLengthHistogram, int treeBins, boolean enabled,
+                   long resizeCount, long resizeTimeNanos, long hits, long misses, long getProbes,
+                   long puts, long putProbes, long inserts, long removes) {
+        this.capacity = capacity;
+        this.size = size;
+        this.chainLengthHistogram = chainLengthHistogram;
+        this.treeBins = treeBins;
+        this.enabled = enabled;
+        this.resizeCount = resizeCount;
+        this.resizeTimeNanos = resizeTimeNanos;
+        this.hits = hits;
+        this.misses = misses;
+        this.getProbes = getProbes;
+        this.puts = puts;
+        this.putProbes = putProbes;
+        this.inserts = inserts;
+        this.removes = removes;
+    }
+
+    /**
+     * Метод возвращает длину массива
+     *
+     * @return длина массива
+     */
+    public int getCapacity() {
+        return capacity;
+    }
+
+    /**
+     * Метод возвращает количество элементов
+     *
+     * @return количество элементов
+     */
+    public int getSize() {
+        return size;
+    }
+
+    /**
+     * Метод возвращает загрузку таблицы: отношение количества элементов к длине массива
+     *
+     * @return загрузка
+     */
+    public double getLoad() {
+        return capacity == 0 ? 0 : (double) size / capacity;
+    }
+
+    /**
+     * Метод возвращает гистограмму длин цепочек. Элемент i равен числу корзин с i узлами,
+     * последний элемент соответствует самой длинной цепочке
+     *
+     * @return копия гистограммы
+     */
+    public int[] getChainLengthHistogram() {
+        return chainLengthHistogram.clone();
+    }
+
+    /**
+     * Метод возвращает длину самой длинной цепочки
+     *
+     * @return длина самой длинной цепочки
+     */
+    public int getLongestChain() {
+        return chainLengthHistogram.length - 1;
+    }
+
+    /**
+     * Метод возвращает количество корзин, превращенных в деревья
+     *
+     * @return количество корзин-деревьев
+     */
+    public int getTreeBins() {
+        return treeBins;
+    }
+
+    /**
+     * Метод сообщает, ведутся ли счетчики операций
+     *
+     * @return счетчики включены
+     */
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Метод возвращает количество расширений массива
+     *
+     * @return количество расширений
+     */
+    public long getResizeCount() {
+        return resizeCount;
+    }
+
+    /**
+     * Метод возвращает суммарное время расширений в наносекундах
+     *
+     * @return время расширений
+     */
+    public long getResizeTimeNanos() {
+        return resizeTimeNanos;
+    }
+
+    /**
+     * Метод возвращает количество успешных поисков
+     *
+     * @return количество попаданий
+     */
+    public long getHits() {
+        return hits;
+    }
+
+    /**
+     * Метод возвращает количество неуспешных поисков
+     *
+     * @return количество промахов
+     */
+    public long getMisses() {
+        return misses;
+    }
+
+    /**
+     * Метод возвращает количество вставок новых ключей
+     *
+     * @return количество вставок
+     */
+    public long getInserts() {
+        return inserts;
+    }
+
+    /**
+     * Метод возвращает количество удалений
+     *
+     * @return количество удалений
+     */
+    public long getRemoves() {
+        return removes;
+    }
+
+    /**
+     * Метод возвращает среднее число сравненных узлов на один поиск.
+     * Поиск в корзине-дереве считается за одно сравнение
+     *
+     * @return среднее число проб на get
+     */
+    public double getAverageGetProbes() {
+        long gets = hits + misses;
+        return gets == 0 ? 0 : (double) getProbes / gets;
+    }
+
+    /**
+     * Метод возвращает среднее число сравненных узлов на один put
+     *
+     * @return среднее число проб на put
+     */
+    public double getAveragePutProbes() {
+        return puts == 0 ? 0 : (double) putProbes / puts;
+    }
+
+    @Override
+    public String toString() {
+        return "CustomMapStats{capacity=" + capacity
+                + ", size=" + size
+                + ", load=" + getLoad()
+                + ", chainLengthHistogram=" + Arrays.toString(chainLengthHistogram)
+                + ", treeBins=" + treeBins
+                + ", enabled=" + enabled
+                + ", resizeCount=" + resizeCount
+                + ", resizeTimeNanos=" + resizeTimeNanos
+                + ", hits=" + hits
+                + ", misses=" + misses
+                + ", inserts=" + inserts
+                + ", removes=" + removes
+                + ", averageGetProbes=" + getAverageGetProbes()
+                + ", averagePutProbes=" + getAveragePutProbes()
+                + '}';
+    }
+}
@@ -0,0 +1,822 @@
+package HashMap;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
+import java.util.*;
+
+/**
+ * Класс описывает HashMap, которая хранит индекс корзин и байты ключей и значений вне кучи Java.
+ * Индекс - это прямой буфер адресов первых записей корзин, записи лежат в прямых буферах-чанках
+ * и связаны в цепочки через поле next внутри самой записи. Сборщик мусора видит только
+ * саму мапу, индекс и несколько чанков, сколько бы записей ни было в мапе.
+ * Ключи и значения преобразуются в байты через Serializer, ключи сравниваются по байтам.
+ * Ключ null не поддерживается, значение null допускается.
+ * После работы мапу нужно закрыть методом close(), чтобы сразу освободить память.
+ * put возвращает записанное значение, поэтому старое значение не десериализуется.
+ * Тип параметров:
+ * @param <K> тип ключей.
+ * @param <V> тип значений.
+ */
+public class CustomOffHeapMap<K, V> extends AbstractMap<K, V> implements Map<K, V>, AutoCloseable {
+    /**
+     * Коэффициент загрузки, используемый по умолчанию.
+     */
+    private static final float DEFAULT_LOAD_FACTOR = 0.75f;
+    /**
+     * Емкость хеш-таблицы по умолчанию.
+     */
+    private static final int DEFAULT_INITIAL_CAPACITY = 16;
+    /**
+     * Максимальное количество корзин: индекс должен помещаться в один буфер
+     */
+    private static final int MAXIMUM_CAPACITY = 1 << 27;
+    /**
+     * Размер первого чанка
+     */
+    private static final int INITIAL_CHUNK_SIZE = 1 << 16;
+    /**
+     * Максимальный размер чанка. Записи большего размера получают отдельный чанк
+     */
+    private static final int MAXIMUM_CHUNK_SIZE = 1 << 26;
+    /**
+     * Адрес, обозначающий отсутствие записи
+     */
+    private static final long NO_ADDRESS = 0;
+    /**
+     * Длина значения null
+     */
+    private static final int NULL_LENGTH = -1;
+    /**
+     * Смещение адреса следующей записи цепочки
+     */
+    private static final int NEXT_OFFSET = 0;
+    /**
+     * Смещение хэша ключа
+     */
+    private static final int HASH_OFFSET = 8;
+    /**
+     * Смещение длины ключа
+     */
+    private static final int KEY_LENGTH_OFFSET = 12;
+    /**
+     * Смещение длины значения
+     */
+    private static final int VALUE_LENGTH_OFFSET = 16;
+    /**
+     * Смещение места, отведенного под значение. Значение не длиннее перезаписывается на месте
+     */
+    private static final int VALUE_CAPACITY_OFFSET = 20;
+    /**
+     * Размер заголовка записи, за ним идут байты ключа и значения
+     */
+    private static final int HEADER_SIZE = 24;
+    /**
+     * Объем мусора, после которого мапа может сжать чанки
+     */
+    private static final long MIN_COMPACTION_GARBAGE = 1 << 20;
+    /**
+     * Метод sun.misc.Unsafe.invokeCleaner для немедленного освобождения прямых буферов или null
+     */
+    private static final Method INVOKE_CLEANER;
+    /**
+     * Экземпляр sun.misc.Unsafe или null
+     */
+    private static final Object UNSAFE;
+
+    static {
+        Method invokeCleaner = null;
+        Object unsafe = null;
+        try {
+            Class<?> unsafeClass = Class.forName("sun.misc.Unsafe");
+            Field field = unsafeClass.getDeclaredField("theUnsafe");
+            field.setAccessible(true);
+            unsafe = field.get(null);
+            invokeCleaner = unsafeClass.getMethod("invokeCleaner", ByteBuffer.class);
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            unsafe = null;
+            invokeCleaner = null;
+        }
+        INVOKE_CLEANER = invokeCleaner;
+        UNSAFE = unsafe;
+    }
+
+    /**
+     * Сериализатор ключей
+     */
+    private final Serializer<K> keySerializer;
+    /**
+     * Сериализатор значений
+     */
+    private final Serializer<V> valueSerializer;
+    /**
+     * Коэффициент загрузки
+     */
+    private final float loadFactor;
+    /**
+     * Количество корзин, степень двойки
+     */
+    private int capacity;
+    /**
+     * Индекс корзин: по 8 байт на адрес первой записи корзины
+     */
+    private ByteBuffer index;
+    /**
+     * Чанки с записями. Адрес записи - это номер чанка плюс один в старших 32 битах и смещение в младших
+     */
+    private List<ByteBuffer> chunks = new ArrayList<>();
+    /**
+     * Позиция свободного места в последнем чанке
+     */
+    private int chunkPosition;
+    /**
+     * Количество элементов
+     */
+    private int size;
+    /**
+     * Байты, занятые живыми записями
+     */
+    private long liveBytes;
+    /**
+     * Байты, занятые удаленными и замененными записями
+     */
+    private long garbageBytes;
+    /**
+     * Количество структурных изменений мапы, используется итераторами
+     */
+    private int modCount;
+    /**
+     * Закрыта ли мапа
+     */
+    private boolean closed;
+    /**
+     * Представление набора ключ-значений, создается при первом обращении
+     */
+    private Set<Entry<K, V>> entrySetView;
+
+    /**
+     * Конструктор с параметрами по умолчанию
+     *
+     * @param keySerializer   сериализатор ключей
+     * @param valueSerializer сериализатор значений
+     */
+    public CustomOffHeapMap(Serializer<K> keySerializer, Serializer<V> valueSerializer) {
+        this(keySerializer, valueSerializer, DEFAULT_INITIAL_CAPACITY, DEFAULT_LOAD_FACTOR);
+    }
+    /**
+     * Конструктор инициализируется сериализаторами, количеством корзин и коэффициентом загрузки.
+     *
+     * @param keySerializer   сериализатор ключей
+     * @param valueSerializer сериализатор значений
+     * @param arrayLength     количество корзин, округляется вверх до степени двойки
+     * @param loadFactor      коэффициент загрузки
+     */
+    public CustomOffHeapMap(Serializer<K> keySerializer, Serializer<V> valueSerializer,
+                            int arrayLength, float loadFactor) {
+        if (arrayLength < 0) {
+            throw new IllegalArgumentException("Illegal array length: " + arrayLength);
+        }
+        if (loadFactor <= 0 || Float.isNaN(loadFactor)) {
+            throw new IllegalArgumentException("Illegal load factor: " + loadFactor);
+        }
+        this.keySerializer = Objects.requireNonNull(keySerializer);
+        this.valueSerializer = Objects.requireNonNull(valueSerializer);
+        this.loadFactor = loadFactor;
+        this.capacity = HashTables.tableSizeFor(arrayLength, 1, MAXIMUM_CAPACITY);
+        this.index = ByteBuffer.allocateDirect(capacity * Long.BYTES);
+    }
+    /**
+     * Метод возвращает количество сохраненных элементов.
+     *
+     * @return количество сохраненных элементов.
+     */
+    @Override
+    public int size() {
+        return size;
+    }
+    /**
+     * Метод проверяет имеется ли ключ в мапе.
+     *
+     * @param key ключ который нужно проверить есть ли он в мапе
+     * @return ключ.
+     */
+    @Override
+    @SuppressWarnings("unchecked")
+    public boolean containsKey(Object key) {
+        checkOpen();
+        byte[] keyBytes = keySerializer.serialize((K) key);
+        return findRecord(keyBytes, hash(keyBytes)) != NO_ADDRESS;
+    }
+    /**
+     * Метод возвращает значение по ключу
+     *
+     * @param key ключ по которому возвращаем значение
+     * @return значение полученное по ключу
+     */
+    @Override
+    @SuppressWarnings("unchecked")
+    public V get(Object key) {
+        checkOpen();
+        byte[] keyBytes = keySerializer.serialize((K) key);
+        long address = findRecord(keyBytes, hash(keyBytes));
+        return address == NO_ADDRESS ? null : readValue(address);
+    }
+    /**
+     * Метод добавляет ключ/значение
+     *
+     * @param key   ключ с которым должно быть связано значение
+     * @param value значение, которое связано с ключом
+     * @return добавлено значение, которое соответсвует ключу
+     */
+    @Override
+    public V put(K key, V value) {
+        return put(key, value, true);
+    }
+    /**
+     * Метод добавляет ключ/значение
+     *
+     * @param key     ключ с которым должно быть связано значение
+     * @param value   значение, которое связано с ключом
+     * @param compact можно ли сжимать чанки (нельзя во время обхода итератором)
+     * @return добавлено значение, которое соответсвует ключу
+     */
+    private V put(K key, V value, boolean compact) {
+        checkOpen();
+        byte[] keyBytes = keySerializer.serialize(Objects.requireNonNull(key));
+        byte[] valueBytes = value == null ? null : valueSerializer.serialize(value);
+        int hash = hash(keyBytes);
+        int bucket = hash & (capacity - 1);
+        long previous = NO_ADDRESS;
+        long address = index.getLong(bucket * Long.BYTES);
+        while (address != NO_ADDRESS) {
+            if (matches(address, hash, keyBytes)) {
+                if (!overwriteValue(address, valueBytes)) {
+                    long replacement = writeRecord(next(address), hash, keyBytes, valueBytes);
+                    link(bucket, previous, replacement);
+                    discard(address);
+                    modCount++;
+                    if (compact) {
+                        compactIfNeeded();
+                    }
+                }
+                return value;
+            }
+            previous = address;
+            address = next(address);
+        }
+        long record = writeRecord(index.getLong(bucket * Long.BYTES), hash, keyBytes, valueBytes);
+        index.putLong(bucket * Long.BYTES, record);
+        size++;
+        modCount++;
+        if (size > capacity * loadFactor && capacity < MAXIMUM_CAPACITY) {
+            resizeIndex();
+        }
+        return value;
+    }
+    /**
+     * Метод удаляет ключ и значение связанное с ним
+     *
+     * @param key ключ который должен быть удален
+     * @return удаленное значение
+     */
+    @Override
+    @SuppressWarnings("unchecked")
+    public V remove(Object key) {
+        checkOpen();
+        byte[] keyBytes = keySerializer.serialize((K) key);
+        long address = removeRecord(keyBytes, hash(keyBytes));
+        if (address == NO_ADDRESS) {
+            return null;
+        }
+        V value = readValue(address);
+        compactIfNeeded();
+        return value;
+    }
+    /**
+     * Метод очищает мапу, оставляя выделенные корзины и освобождая чанки
+     */
+    @Override
+    public void clear() {
+        checkOpen();
+        for (int bucket = 0; bucket < capacity; bucket++) {
+            index.putLong(bucket * Long.BYTES, NO_ADDRESS);
+        }
+        chunks.forEach(CustomOffHeapMap::free);
+        chunks = new ArrayList<>();
+        chunkPosition = 0;
+        size = 0;
+        liveBytes = 0;
+        garbageBytes = 0;
+        modCount++;
+    }
+    /**
+     * Метод возвращает набор всех ключ-значений. Ключи и значения восстанавливаются при обходе
+     *
+     * @return набор entries
+     */
+    @Override
+    public Set<Entry<K, V>> entrySet() {
+        Set<Entry<K, V>> view = entrySetView;
+        if (view == null) {
+            view = new AbstractSet<>() {
+                @Override
+                public Iterator<Entry<K, V>> iterator() {
+                    return new EntryIterator();
+                }
+
+                @Override
+                public int size() {
+                    return size;
+                }
+
+                @Override
+                public void clear() {
+                    CustomOffHeapMap.this.clear();
+                }
+            };
+            entrySetView = view;
+        }
+        return view;
+    }
+
+    /**
+     * Метод освобождает всю память вне кучи. После закрытия мапой пользоваться нельзя
+     */
+    @Override
+    public void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        free(index);
+        chunks.forEach(CustomOffHeapMap::free);
+        index = null;
+        chunks = new ArrayList<>();
+        size = 0;
+        liveBytes = 0;
+        garbageBytes = 0;
+        modCount++;
+    }
+
+    /**
+     * Метод возвращает объем памяти вне кучи, выделенный под индекс и чанки
+     *
+     * @return количество байт
+     */
+    public long offHeapBytes() {
+        long bytes = index == null ? 0 : index.capacity();
+        for (ByteBuffer chunk : chunks) {
+            bytes += chunk.capacity();
+        }
+        return bytes;
+    }
+
+    /**
+     * Метод возвращает объем памяти, занятый живыми записями
+     *
+     * @return количество байт
+     */
+    public long liveBytes() {
+        return liveBytes;
+    }
+
+    /**
+     * Метод возвращает объем памяти, занятый удаленными и замененными записями
+     *
+     * @return количество байт
+     */
+    public long garbageBytes() {
+        return garbageBytes;
+    }
+
+    /**
+     * Метод переписывает живые записи в новые чанки подряд, освобождая место удаленных записей
+     */
+    public void compact() {
+        checkOpen();
+        List<ByteBuffer> oldChunks = chunks;
+        chunks = new ArrayList<>();
+        chunkPosition = 0;
+        liveBytes = 0;
+        garbageBytes = 0;
+        for (int bucket = 0; bucket < capacity; bucket++) {
+            long head = NO_ADDRESS;
+            long address = index.getLong(bucket * Long.BYTES);
+            while (address != NO_ADDRESS) {
+                ByteBuffer chunk = oldChunks.get(chunkIndex(address));
+                int offset = offset(address);
+                int keyLength = chunk.getInt(offset + KEY_LENGTH_OFFSET);
+                int valueLength = chunk.getInt(offset + VALUE_LENGTH_OFFSET);
+                int length = keyLength + Math.max(valueLength, 0);
+                long copy = allocateRecord(length);
+                ByteBuffer target = chunks.get(chunkIndex(copy));
+                int targetOffset = offset(copy);
+                target.put(targetOffset + HEADER_SIZE, chunk, offset + HEADER_SIZE, length);
+                target.putLong(targetOffset + NEXT_OFFSET, head);
+                target.putInt(targetOffset + HASH_OFFSET, chunk.getInt(offset + HASH_OFFSET));
+                target.putInt(targetOffset + KEY_LENGTH_OFFSET, keyLength);
+                target.putInt(targetOffset + VALUE_LENGTH_OFFSET, valueLength);
+                target.putInt(targetOffset + VALUE_CAPACITY_OFFSET, Math.max(valueLength, 0));
+                head = copy;
+                address = chunk.getLong(offset + NEXT_OFFSET);
+            }
+            index.putLong(bucket * Long.BYTES, head);
+        }
+        oldChunks.forEach(CustomOffHeapMap::free);
+        modCount++;
+    }
+
+    /**
+     * Метод ищет запись с заданными байтами ключа
+     *
+     * @param keyBytes байты ключа
+     * @param hash     хэш ключа
+     * @return адрес записи или NO_ADDRESS
+     */
+    private long findRecord(byte[] keyBytes, int hash) {
+        long address = index.getLong((hash & (capacity - 1)) * Long.BYTES);
+        while (address != NO_ADDRESS && !matches(address, hash, keyBytes)) {
+            address = next(address);
+        }
+        return address;
+    }
+
+    /**
+     * Метод исключает запись с заданными байтами ключа из цепочки
+     *
+     * @param keyBytes байты ключа
+     * @param hash     хэш ключа
+     * @return адрес исключенной записи или NO_ADDRESS
+     */
+    private long removeRecord(byte[] keyBytes, int hash) {
+        int bucket = hash & (capacity - 1);
+        long previous = NO_ADDRESS;
+        long address = index.getLong(bucket * Long.BYTES);
+        while (address != NO_ADDRESS) {
+            if (matches(address, hash, keyBytes)) {
+                link(bucket, previous, next(address));
+                discard(address);
+                size--;
+                modCount++;
+                return address;
+            }
+            previous = address;
+            address = next(address);
+        }
+        return NO_ADDRESS;
+    }
+
+    /**
+     * Метод записывает адрес следующей записи в предыдущую запись или в индекс
+     *
+     * @param bucket   номер корзины
+     * @param previous предыдущая запись или NO_ADDRESS
+     * @param next     адрес, который нужно записать
+     */
+    private void link(int bucket, long previous, long next) {
+        if (previous == NO_ADDRESS) {
+            index.putLong(bucket * Long.BYTES, next);
+        } else {
+            chunks.get(chunkIndex(previous)).putLong(offset(previous) + NEXT_OFFSET, next);
+        }
+    }
+
+    /**
+     * Метод учитывает место исключенной записи как мусор
+     *
+     * @param address адрес записи
+     */
+    private void discard(long address) {
+        long recordSize = recordSize(address);
+        liveBytes -= recordSize;
+        garbageBytes += recordSize;
+    }
+
+    /**
+     * Метод сжимает чанки, если мусора стало больше, чем живых данных
+     */
+    private void compactIfNeeded() {
+        if (garbageBytes > MIN_COMPACTION_GARBAGE && garbageBytes > liveBytes) {
+            compact();
+        }
+    }
+
+    /**
+     * Метод пишет новую запись в чанк
+     *
+     * @param next       адрес следующей записи цепочки
+     * @param hash       хэш ключа
+     * @param keyBytes   байты ключа
+     * @param valueBytes байты значения или null
+     * @return адрес записи
+     */
+    private long writeRecord(long next, int hash, byte[] keyBytes, byte[] valueBytes) {
+        int valueLength = valueBytes == null ? 0 : valueBytes.length;
+        long address = allocateRecord(keyBytes.length + valueLength);
+        ByteBuffer chunk = chunks.get(chunkIndex(address));
+        int offset = offset(address);
+        chunk.putLong(offset + NEXT_OFFSET, next);
+        chunk.putInt(offset + HASH_OFFSET, hash);
+        chunk.putInt(offset + KEY_LENGTH_OFFSET, keyBytes.length);
+        chunk.putInt(offset + VALUE_LENGTH_OFFSET, valueBytes == null ? NULL_LENGTH : valueLength);
+        chunk.putInt(offset + VALUE_CAPACITY_OFFSET, valueLength);
+        chunk.put(offset + HEADER_SIZE, keyBytes);
+        if (valueBytes != null) {
+            chunk.put(offset + HEADER_SIZE + keyBytes.length, valueBytes);
+        }
+        return address;
+    }
+
+    /**
+     * Метод выделяет место под запись в последнем чанке или в новом чанке.
+     * Размер записи выравнивается до 8 байт
+     *
+     * @param dataLength длина ключа и значения
+     * @return адрес записи
+     */
+    private long allocateRecord(int dataLength) {
+        int recordSize = (HEADER_SIZE + dataLength + Long.BYTES - 1) & -Long.BYTES;
+        ByteBuffer chunk = chunks.isEmpty() ? null : chunks.get(chunks.size() - 1);
+        if (chunk == null || chunkPosition + recordSize > chunk.capacity()) {
+            int chunkSize = chunk == null ? INITIAL_CHUNK_SIZE : Math.min(chunk.capacity() * 2, MAXIMUM_CHUNK_SIZE);
+            chunks.add(ByteBuffer.allocateDirect(Math.max(chunkSize, recordSize)));
+            chunkPosition = 0;
+        }
+        long address = ((long) chunks.size() << 32) | chunkPosition;
+        chunkPosition += recordSize;
+        liveBytes += recordSize;
+        return address;
+    }
+
+    /**
+     * Метод перезаписывает значение на месте, если оно помещается в отведенное место
+     *
+     * @param address    адрес записи
+     * @param valueBytes байты нового значения или null
+     * @return true, если значение записано
+     */
+    private boolean overwriteValue(long address, byte[] valueBytes) {
+        ByteBuffer chunk = chunks.get(chunkIndex(address));
+        int offset = offset(address);
+        if (valueBytes == null) {
+            chunk.putInt(offset + VALUE_LENGTH_OFFSET, NULL_LENGTH);
+            return true;
+        }
+        if (valueBytes.length > chunk.getInt(offset + VALUE_CAPACITY_OFFSET)) {
+            return false;
+        }
+        int keyLength = chunk.getInt(offset + KEY_LENGTH_OFFSET);
+        chunk.put(offset + HEADER_SIZE + keyLength, valueBytes);
+        chunk.putInt(offset + VALUE_LENGTH_OFFSET, valueBytes.length);
+        return true;
+    }
+
+    /**
+     * Метод проверяет, что запись хранит ключ с заданными хэшем и байтами
+     *
+     * @param address  адрес записи
+     * @param hash     хэш ключа
+     * @param keyBytes байты ключа
+     * @return ключи совпадают
+     */
+    private boolean matches(long address, int hash, byte[] keyBytes) {
+        ByteBuffer chunk = chunks.get(chunkIndex(address));
+        int offset = offset(address);
+        if (chunk.getInt(offset + HASH_OFFSET) != hash
+                || chunk.getInt(offset + KEY_LENGTH_OFFSET) != keyBytes.length) {
+            return false;
+        }
+        int keyOffset = offset + HEADER_SIZE;
+        for (int i = 0; i < keyBytes.length; i++) {
+            if (chunk.get(keyOffset + i) != keyBytes[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Метод восстанавливает ключ записи
+     *
+     * @param address адрес записи
+     * @return ключ
+     */
+    private K readKey(long address) {
+        ByteBuffer chunk = chunks.get(chunkIndex(address));
+        int offset = offset(address);
+        return keySerializer.deserialize(chunk, offset + HEADER_SIZE, chunk.getInt(offset + KEY_LENGTH_OFFSET));
+    }
+
+    /**
+     * Метод восстанавливает значение записи
+     *
+     * @param address адрес записи
+     * @return значение
+     */
+    private V readValue(long address) {
+        ByteBuffer chunk = chunks.get(chunkIndex(address));
+        int offset = offset(address);
+        int valueLength = chunk.getInt(offset + VALUE_LENGTH_OFFSET);
+        if (valueLength == NULL_LENGTH) {
+            return null;
+        }
+        int keyLength = chunk.getInt(offset + KEY_LENGTH_OFFSET);
+        return valueSerializer.deserialize(chunk, offset + HEADER_SIZE + keyLength, valueLength);
+    }
+
+    /**
+     * Метод возвращает адрес следующей записи цепочки
+     *
+     * @param address адрес записи
+     * @return адрес следующей записи или NO_ADDRESS
+     */
+    private long next(long address) {
+        return chunks.get(chunkIndex(address)).getLong(offset(address) + NEXT_OFFSET);
+    }
+
+    /**
+     * Метод возвращает место, занятое записью в чанке
+     *
+     * @param address адрес записи
+     * @return размер записи в байтах
+     */
+    private long recordSize(long address) {
+        ByteBuffer chunk = chunks.get(chunkIndex(address));
+        int offset = offset(address);
+        int dataLength = chunk.getInt(offset + KEY_LENGTH_OFFSET) + chunk.getInt(offset + VALUE_CAPACITY_OFFSET);
+        return (HEADER_SIZE + dataLength + Long.BYTES - 1) & -Long.BYTES;
+    }
+
+    /**
+     * Метод увеличивает индекс вдвое, перестраивая цепочки без копирования записей
+     */
+    private void resizeIndex() {
+        int newCapacity = capacity * 2;
+        ByteBuffer newIndex = ByteBuffer.allocateDirect(newCapacity * Long.BYTES);
+        for (int bucket = 0; bucket < capacity; bucket++) {
+            long address = index.getLong(bucket * Long.BYTES);
+            while (address != NO_ADDRESS) {
+                ByteBuffer chunk = chunks.get(chunkIndex(address));
+                int offset = offset(address);
+                long next = chunk.getLong(offset + NEXT_OFFSET);
+                int newBucket = chunk.getInt(offset + HASH_OFFSET) & (newCapacity - 1);
+                chunk.putLong(offset + NEXT_OFFSET, newIndex.getLong(newBucket * Long.BYTES));
+                newIndex.putLong(newBucket * Long.BYTES, address);
+                address = next;
+            }
+        }
+        free(index);
+        index = newIndex;
+        capacity = newCapacity;
+    }
+
+    /**
+     * Метод проверяет, что мапа не закрыта
+     */
+    private void checkOpen() {
+        if (closed) {
+            throw new IllegalStateException("Map is closed");
+        }
+    }
+
+    /**
+     * Метод возвращает номер чанка из адреса
+     *
+     * @param address адрес записи
+     * @return номер чанка
+     */
+    private static int chunkIndex(long address) {
+        return (int) (address >>> 32) - 1;
+    }
+
+    /**
+     * Метод возвращает смещение записи в чанке из адреса
+     *
+     * @param address адрес записи
+     * @return смещение
+     */
+    private static int offset(long address) {
+        return (int) address;
+    }
+
+    /**
+     * Метод возвращает хэш байт ключа
+     *
+     * @param keyBytes байты ключа
+     * @return хэш
+     */
+    private static int hash(byte[] keyBytes) {
+        int hash = Arrays.hashCode(keyBytes) * 0x9E3779B9;
+        return hash ^ (hash >>> 16);
+    }
+
+    /**
+     * Метод сразу освобождает память прямого буфера, если это позволяет JVM.
+     * Иначе память будет освобождена, когда буфер соберет сборщик мусора
+     *
+     * @param buffer прямой буфер
+     */
+    private static void free(ByteBuffer buffer) {
+        if (buffer == null || INVOKE_CLEANER == null) {
+            return;
+        }
+        try {
+            INVOKE_CLEANER.invoke(UNSAFE, buffer);
+        } catch (ReflectiveOperationException e) {
+            // память освободит сборщик мусора
+        }
+    }
+
+    /**
+     * Итератор по записям. Ключи и значения восстанавливаются из байт при каждом next()
+     */
+    private final class EntryIterator implements Iterator<Entry<K, V>> {
+        /**
+         * Корзина, с которой продолжится поиск
+         */
+        private int bucket;
+        /**
+         * Адрес следующей записи
+         */
+        private long next = NO_ADDRESS;
+        /**
+         * Ключ последней возвращенной записи или null
+         */
+        private K currentKey;
+        /**
+         * Была ли возвращена запись, которую еще можно удалить
+         */
+        private boolean canRemove;
+        /**
+         * Ожидаемое значение modCount
+         */
+        private int expectedModCount = modCount;
+
+        EntryIterator() {
+            checkOpen();
+            advance();
+        }
+
+        @Override
+        public boolean hasNext() {
+            return next != NO_ADDRESS;
+        }
+
+        @Override
+        public Entry<K, V> next() {
+            if (modCount != expectedModCount) {
+                throw new ConcurrentModificationException();
+            }
+            if (next == NO_ADDRESS) {
+                throw new NoSuchElementException();
+            }
+            long address = next;
+            next = CustomOffHeapMap.this.next(address);
+            if (next == NO_ADDRESS) {
+                advance();
+            }
+            currentKey = readKey(address);
+            canRemove = true;
+            return new SimpleEntry<>(currentKey, readValue(address)) {
+                @Override
+                public V setValue(V value) {
+                    V previous = super.setValue(value);
+                    checkOpen();
+                    byte[] keyBytes = keySerializer.serialize(getKey());
+                    if (findRecord(keyBytes, hash(keyBytes)) != NO_ADDRESS) {
+                        boolean consistent = modCount == expectedModCount;
+                        put(getKey(), value, false);
+                        if (consistent) {
+                            expectedModCount = modCount;
+                        }
+                    }
+                    return previous;
+                }
+            };
+        }
+
+        @Override
+        public void remove() {
+            if (!canRemove) {
+                throw new IllegalStateException();
+            }
+            if (modCount != expectedModCount) {
+                throw new ConcurrentModificationException();
+            }
+            byte[] keyBytes = keySerializer.serialize(currentKey);
+            removeRecord(keyBytes, hash(keyBytes));
+            canRemove = false;
+            expectedModCount = modCount;
+        }
+
+        /**
+         * Метод переходит к первой непустой корзине
+         */
+        private void advance() {
+            while (next == NO_ADDRESS && bucket < capacity) {
+                next = index.getLong(bucket * Long.BYTES);
+                bucket++;
+            }
+        }
+    }
+}
@@ -0,0 +1,699 @@
+package HashMap;
+
+import java.util.*;
+
+/**
+ * Класс описывает реализацию HashMap с открытой адресацией.
+ * Вместо узлов пары «ключ-значение» хранятся в параллельных массивах ключей, значений и хэшей,
+ * поэтому на каждую запись не создается отдельный объект, а поиск идет по соседним ячейкам памяти.
+ * Коллизии разрешаются линейным пробированием по схеме Robin Hood:
+ * при вставке запись, ушедшая от своей корзины дальше, вытесняет более «богатую» запись.
+ * Удаление выполняется обратным сдвигом, без «надгробий».
+ * Тип параметров:
+ * @param <K> тип ключей.
+ * @param <V> тип значений.
+ */
+public class CustomOpenAddressingMap<K, V> extends AbstractMap<K, V> implements Map<K, V> {
+    /**
+     * Коэффициент загрузки, используемый по умолчанию.
+     */
+    private static final float DEFAULT_LOAD_FACTOR = 0.75f;
+    /**
+     * Емкость хеш-таблицы по умолчанию.
+     */
+    private static final int DEFAULT_INITIAL_CAPACITY = 16;
+    /**
+     * Максимальная длина массивов. Длина всегда является степенью двойки
+     */
+    private static final int MAXIMUM_CAPACITY = 1 << 30;
+    /**
+     * Хэш пустой ячейки. Хэши ключей никогда не равны нулю
+     */
+    private static final int EMPTY = 0;
+    /**
+     * Объект, который хранится в массиве ключей вместо ключа null
+     */
+    private static final Object NULL_KEY = new Object();
+    /**
+     * Количество элементов в массиве
+     */
+    private int size;
+    /**
+     * Коэффициент загрузки
+     */
+    private final float loadFactor;
+    /**
+     * Количество элементов, при превышении которого массивы расширяются
+     */
+    private int threshold;
+    /**
+     * Хэши ключей. Значение EMPTY обозначает свободную ячейку
+     */
+    private int[] hashes;
+    /**
+     * Ключи. Ключ null хранится как NULL_KEY
+     */
+    private Object[] keys;
+    /**
+     * Значения
+     */
+    private Object[] values;
+    /**
+     * Количество структурных изменений мапы.
+     * Используется итераторами представлений для быстрого обнаружения конкурентной модификации.
+     */
+    private int modCount;
+    /**
+     * Представление набора ключей, создается при первом обращении
+     */
+    private Set<K> keySetView;
+    /**
+     * Представление коллекции значений, создается при первом обращении
+     */
+    private Collection<V> valuesView;
+    /**
+     * Представление набора ключ-значений, создается при первом обращении
+     */
+    private Set<Entry<K, V>> entrySetView;
+
+    /**
+     * Конструктор с параметрами по умолчанию
+     */
+    public CustomOpenAddressingMap() {
+        this(DEFAULT_INITIAL_CAPACITY, DEFAULT_LOAD_FACTOR);
+    }
+    /**
+     * Конструктор с заданной длиной массивов
+     *
+     * @param arrayLength длинна массивов
+     */
+    public CustomOpenAddressingMap(int arrayLength) {
+        this(arrayLength, DEFAULT_LOAD_FACTOR);
+    }
+    /**
+     * Конструктор инициализируется произвольной длиной массивов и коэффициентом загрузки.
+     * Длина округляется вверх до степени двойки, коэффициент загрузки должен быть меньше единицы,
+     * так как в таблице всегда должна оставаться свободная ячейка.
+     *
+     * @param arrayLength длинна массивов.
+     * @param loadFactor  коэффициент загрузки.
+     */
+    public CustomOpenAddressingMap(int arrayLength, float loadFactor) {
+        if (arrayLength < 0) {
+            throw new IllegalArgumentException("Illegal array length: " + arrayLength);
+        }
+        if (!(loadFactor > 0 && loadFactor < 1)) {
+            throw new IllegalArgumentException("Illegal load factor: " + loadFactor);
+        }
+        this.loadFactor = loadFactor;
+        allocate(HashTables.tableSizeFor(arrayLength, 2, MAXIMUM_CAPACITY));
+    }
+    /**
+     * Метод возвращает количество сохраненных элементов.
+     *
+     * @return количество сохраненных элементов.
+     */
+    @Override
+    public int size() {
+        return size;
+    }
+    /**
+     * Метод проверяет мапу на наличие элементов
+     *
+     * @return мапа пуста
+     */
+    @Override
+    public boolean isEmpty() {
+        return size == 0;
+    }
+    /**
+     * Метод проверяет имеется ли ключ в мапе.
+     *
+     * @param key ключ который нужно проверить есть ли он в мапе
+     * @return ключ.
+     */
+    @Override
+    public boolean containsKey(Object key) {
+        return findSlot(key) >= 0;
+    }
+    /**
+     * Метод проверяет имеется ли значение в мапе.
+     *
+     * @param value значение которое нужно проверить есть ли он в мапе
+     * @return значение
+     */
+    @Override
+    public boolean containsValue(Object value) {
+        for (int slot = 0; slot < hashes.length; slot++) {
+            if (hashes[slot] != EMPTY && Objects.equals(value, values[slot])) {
+                return true;
+            }
+        }
+        return false;
+    }
+    /**
+     * Метод возвращает значение по ключу
+     *
+     * @param key ключ по которому возвращаем значение
+     * @return значение полученное по ключу
+     */
+    @Override
+    public V get(Object key) {
+        int slot = findSlot(key);
+        return slot < 0 ? null : valueAt(slot);
+    }
+    /**
+     * Метод добавляет ключ/значение
+     *
+     * @param key   ключ с которым должно быть связано значение
+     * @param value значение, которое связано с ключом
+     * @return добавлено значение, которое соответсвует ключу
+     */
+    @Override
+    public V put(K key, V value) {
+        int hash = hash(key);
+        Object maskedKey = maskNull(key);
+        int mask = hashes.length - 1;
+        int slot = hash & mask;
+        int distance = 0;
+        while (true) {
+            int slotHash = hashes[slot];
+            if (slotHash == EMPTY) {
+                break;
+            }
+            if (slotHash == hash && maskedKey.equals(keys[slot])) {
+                values[slot] = value;
+                return value;
+            }
+            if (probeDistance(slotHash, slot, mask) < distance) {
+                break;
+            }
+            slot = (slot + 1) & mask;
+            distance++;
+        }
+        insert(slot, distance, hash, maskedKey, value);
+        size++;
+        modCount++;
+        if (size > threshold) {
+            resize();
+        }
+        return value;
+    }
+    /**
+     * Метод удаляет ключ и значение связанное с ним
+     *
+     * @param key ключ который должен быть удален
+     * @return удаленное значение
+     */
+    @Override
+    public V remove(Object key) {
+        int slot = findSlot(key);
+        if (slot < 0) {
+            return null;
+        }
+        V value = valueAt(slot);
+        removeSlot(slot);
+        return value;
+    }
+    /**
+     * Метод очищает мапу
+     */
+    @Override
+    public void clear() {
+        Arrays.fill(hashes, EMPTY);
+        Arrays.fill(keys, null);
+        Arrays.fill(values, null);
+        size = 0;
+        modCount++;
+    }
+    /**
+     * Метод возвращает набор ключей
+     *
+     * @return набор ключей
+     */
+    @Override
+    public Set<K> keySet() {
+        Set<K> view = keySetView;
+        if (view == null) {
+            view = new KeySet();
+            keySetView = view;
+        }
+        return view;
+    }
+    /**
+     * Метод возвращает коллекцию значений, включая повторяющиеся
+     *
+     * @return коллекция значений
+     */
+    @Override
+    public Collection<V> values() {
+        Collection<V> view = valuesView;
+        if (view == null) {
+            view = new Values();
+            valuesView = view;
+        }
+        return view;
+    }
+    /**
+     * Метод возвращает набор всех ключ-значений
+     *
+     * @return набор entries
+     */
+    @Override
+    public Set<Entry<K, V>> entrySet() {
+        Set<Entry<K, V>> view = entrySetView;
+        if (view == null) {
+            view = new EntrySet();
+            entrySetView = view;
+        }
+        return view;
+    }
+
+    /**
+     * Метод возвращает текущую длину массивов
+     *
+     * @return длина массивов
+     */
+    public int capacity() {
+        return hashes.length;
+    }
+
+    /**
+     * Метод ищет ячейку с заданным ключом.
+     * Поиск прекращается на пустой ячейке или на записи, которая ближе к своей корзине,
+     * чем искомый ключ был бы к своей: по правилу Robin Hood ключ не может находиться дальше.
+     *
+     * @param key ключ
+     * @return индекс ячейки или -1, если ключа нет
+     */
+    private int findSlot(Object key) {
+        int hash = hash(key);
+        Object maskedKey = maskNull(key);
+        int mask = hashes.length - 1;
+        int slot = hash & mask;
+        for (int distance = 0; ; distance++) {
+            int slotHash = hashes[slot];
+            if (slotHash == EMPTY || probeDistance(slotHash, slot, mask) < distance) {
+                return -1;
+            }
+            if (slotHash == hash && maskedKey.equals(keys[slot])) {
+                return slot;
+            }
+            slot = (slot + 1) & mask;
+        }
+    }
+
+    /**
+     * Метод вставляет новую запись, начиная с ячейки slot, вытесняя более близкие к своим корзинам записи
+     *
+     * @param slot     первая ячейка для вставки
+     * @param distance расстояние ячейки от корзины вставляемого ключа
+     * @param hash     хэш ключа
+     * @param key      ключ (NULL_KEY вместо null)
+     * @param value    значение
+     */
+    private void insert(int slot, int distance, int hash, Object key, Object value) {
+        int mask = hashes.length - 1;
+        while (hashes[slot] != EMPTY) {
+            int slotDistance = probeDistance(hashes[slot], slot, mask);
+            if (slotDistance < distance) {
+                int displacedHash = hashes[slot];
+                Object displacedKey = keys[slot];
+                Object displacedValue = values[slot];
+                hashes[slot] = hash;
+                keys[slot] = key;
+                values[slot] = value;
+                hash = displacedHash;
+                key = displacedKey;
+                value = displacedValue;
+                distance = slotDistance;
+            }
+            slot = (slot + 1) & mask;
+            distance++;
+        }
+        hashes[slot] = hash;
+        keys[slot] = key;
+        values[slot] = value;
+    }
+
+    /**
+     * Метод удаляет запись из ячейки и сдвигает назад следующие за ней записи кластера
+     *
+     * @param slot индекс ячейки
+     */
+    private void removeSlot(int slot) {
+        int mask = hashes.length - 1;
+        int next = (slot + 1) & mask;
+        while (hashes[next] != EMPTY && probeDistance(hashes[next], next, mask) > 0) {
+            hashes[slot] = hashes[next];
+            keys[slot] = keys[next];
+            values[slot] = values[next];
+            slot = next;
+            next = (next + 1) & mask;
+        }
+        hashes[slot] = EMPTY;
+        keys[slot] = null;
+        values[slot] = null;
+        size--;
+        modCount++;
+    }
+
+    /**
+     * Метод увеличивает массивы вдвое и заново раскладывает записи
+     */
+    private void resize() {
+        int[] oldHashes = hashes;
+        Object[] oldKeys = keys;
+        Object[] oldValues = values;
+        if (oldHashes.length == MAXIMUM_CAPACITY) {
+            throw new IllegalStateException("Map is full");
+        }
+        allocate(oldHashes.length << 1);
+        int mask = hashes.length - 1;
+        for (int slot = 0; slot < oldHashes.length; slot++) {
+            int hash = oldHashes[slot];
+            if (hash != EMPTY) {
+                insert(hash & mask, 0, hash, oldKeys[slot], oldValues[slot]);
+            }
+        }
+    }
+
+    /**
+     * Метод создает пустые массивы заданной длины
+     *
+     * @param length длина массивов, степень двойки
+     */
+    private void allocate(int length) {
+        hashes = new int[length];
+        keys = new Object[length];
+        values = new Object[length];
+        threshold = Math.min((int) (length * loadFactor), length - 1);
+    }
+
+    /**
+     * Метод возвращает значение из ячейки
+     *
+     * @param slot индекс ячейки
+     * @return значение
+     */
+    @SuppressWarnings("unchecked")
+    private V valueAt(int slot) {
+        return (V) values[slot];
+    }
+
+    /**
+     * Метод возвращает ключ из ячейки
+     *
+     * @param slot индекс ячейки
+     * @return ключ
+     */
+    @SuppressWarnings("unchecked")
+    private K keyAt(int slot) {
+        Object key = keys[slot];
+        return key == NULL_KEY ? null : (K) key;
+    }
+
+    /**
+     * Метод возвращает расстояние записи от ее корзины
+     *
+     * @param hash хэш записи
+     * @param slot ячейка записи
+     * @param mask маска индекса
+     * @return расстояние
+     */
+    private static int probeDistance(int hash, int slot, int mask) {
+        return (slot - (hash & mask)) & mask;
+    }
+
+    /**
+     * Метод возвращает хэш ключа. Для линейного пробирования хэш дополнительно перемешивается,
+     * чтобы последовательные ключи не образовывали длинных кластеров. Хэш никогда не равен EMPTY.
+     *
+     * @param key ключ
+     * @return хэш ключа
+     */
+    private static int hash(Object key) {
+        int hash = key == null ? 0 : key.hashCode();
+        hash *= 0x9E3779B9;
+        hash ^= hash >>> 16;
+        return hash == EMPTY ? 1 : hash;
+    }
+
+    /**
+     * Метод заменяет ключ null на NULL_KEY
+     *
+     * @param key ключ
+     * @return ключ для хранения в массиве
+     */
+    private static Object maskNull(Object key) {
+        return key == null ? NULL_KEY : key;
+    }
+
+    /**
+     * Базовый итератор по ячейкам. Обход начинается со свободной ячейки, поэтому обратный сдвиг
+     * при удалении через итератор перемещает только еще не пройденные записи.
+     *
+     * @param <T> тип возвращаемых элементов
+     */
+    private abstract class SlotIterator<T> implements Iterator<T> {
+        /**
+         * Ячейка, с которой начат обход
+         */
+        private final int start;
+        /**
+         * Количество уже просмотренных ячеек
+         */
+        private int visited;
+        /**
+         * Ячейка следующей записи или -1
+         */
+        private int next = -1;
+        /**
+         * Ячейка последней возвращенной записи или -1
+         */
+        private int current = -1;
+        /**
+         * Ожидаемое значение modCount
+         */
+        private int expectedModCount = modCount;
+
+        SlotIterator() {
+            int slot = 0;
+            while (hashes[slot] != EMPTY) {
+                slot++;
+            }
+            start = slot;
+            advance();
+        }
+
+        @Override
+        public boolean hasNext() {
+            return next >= 0;
+        }
+
+        /**
+         * Метод возвращает ячейку следующей записи
+         *
+         * @return индекс ячейки
+         */
+        int nextSlot() {
+            if (modCount != expectedModCount) {
+                throw new ConcurrentModificationException();
+            }
+            if (next < 0) {
+                throw new NoSuchElementException();
+            }
+            current = next;
+            advance();
+            return current;
+        }
+
+        @Override
+        public void remove() {
+            if (current < 0) {
+                throw new IllegalStateException();
+            }
+            if (modCount != expectedModCount) {
+                throw new ConcurrentModificationException();
+            }
+            removeSlot(current);
+            visited = (current - start) & (hashes.length - 1);
+            advance();
+            current = -1;
+            expectedModCount = modCount;
+        }
+
+        /**
+         * Метод находит следующую занятую ячейку
+         */
+        private void advance() {
+            int mask = hashes.length - 1;
+            next = -1;
+            while (visited < hashes.length) {
+                int slot = (start + visited) & mask;
+                visited++;
+                if (hashes[slot] != EMPTY) {
+                    next = slot;
+                    return;
+                }
+            }
+        }
+    }
+
+    /**
+     * Итератор по ключам
+     */
+    private final class KeyIterator extends SlotIterator<K> {
+        @Override
+        public K next() {
+            return keyAt(nextSlot());
+        }
+    }
+
+    /**
+     * Итератор по значениям
+     */
+    private final class ValueIterator extends SlotIterator<V> {
+        @Override
+        public V next() {
+            return valueAt(nextSlot());
+        }
+    }
+
+    /**
+     * Итератор по парам ключ-значение
+     */
+    private final class EntryIterator extends SlotIterator<Entry<K, V>> {
+        @Override
+        public Entry<K, V> next() {
+            int slot = nextSlot();
+            return new SlotEntry(keyAt(slot), valueAt(slot));
+        }
+    }
+
+    /**
+     * Пара ключ-значение, возвращаемая итератором. Изменение значения записывается в мапу
+     */
+    private final class SlotEntry extends SimpleEntry<K, V> {
+        /**
+         * Версия сериализованной формы
+         */
+        private static final long serialVersionUID = 1L;
+
+        SlotEntry(K key, V value) {
+            super(key, value);
+        }
+
+        @Override
+        public V setValue(V value) {
+            super.setValue(value);
+            int slot = findSlot(getKey());
+            if (slot >= 0) {
+                values[slot] = value;
+            }
+            return value;
+        }
+    }
+
+    /**
+     * Представление набора ключей
+     */
+    private final class KeySet extends AbstractSet<K> {
+        @Override
+        public Iterator<K> iterator() {
+            return new KeyIterator();
+        }
+
+        @Override
+        public int size() {
+            return size;
+        }
+
+        @Override
+        public boolean contains(Object key) {
+            return containsKey(key);
+        }
+
+        @Override
+        public boolean remove(Object key) {
+            int slot = findSlot(key);
+            if (slot < 0) {
+                return false;
+            }
+            removeSlot(slot);
+            return true;
+        }
+
+        @Override
+        public void clear() {
+            CustomOpenAddressingMap.this.clear();
+        }
+    }
+
+    /**
+     * Представление коллекции значений
+     */
+    private final class Values extends AbstractCollection<V> {
+        @Override
+        public Iterator<V> iterator() {
+            return new ValueIterator();
+        }
+
+        @Override
+        public int size() {
+            return size;
+        }
+
+        @Override
+        public boolean contains(Object value) {
+            return containsValue(value);
+        }
+
+        @Override
+        public void clear() {
+            CustomOpenAddressingMap.this.clear();
+        }
+    }
+
+    /**
+     * Представление набора ключ-значений
+     */
+    private final class EntrySet extends AbstractSet<Entry<K, V>> {
+        @Override
+        public Iterator<Entry<K, V>> iterator() {
+            return new EntryIterator();
+        }
+
+        @Override
+        public int size() {
+            return size;
+        }
+
+        @Override
+        public boolean contains(Object object) {
+            if (!(object instanceof Map.Entry<?, ?> entry)) {
+                return false;
+            }
+            int slot = findSlot(entry.getKey());
+            return slot >= 0 && Objects.equals(values[slot], entry.getValue());
+        }
+
+        @Override
+        public boolean remove(Object object) {
+            if (!(object instanceof Map.Entry<?, ?> entry)) {
+                return false;
+            }
+            int slot = findSlot(entry.getKey());
+            if (slot >= 0 && Objects.equals(values[slot], entry.getValue())) {
+                removeSlot(slot);
+                return true;
+            }
+            return false;
+        }
+
+        @Override
+        public void clear() {
+            CustomOpenAddressingMap.this.clear();
+        }
+    }
+}
@@ -0,0 +1,905 @@
+package HashMap;
+
+import java.util.*;
+
+/**
+ * Класс описывает неизменяемую (персистентную) мапу на префиксном дереве хэшей (HAMT).
+ * Каждый узел делит ключи по очередным 5 битам хэша на 32 ветви и хранит только занятые:
+ * битовая маска dataMap отмечает ветви, где лежит одна пара прямо в узле, маска nodeMap - ветви
+ * с поддеревом. Пары лежат в начале массива узла, поддеревья за ними, поэтому индекс считается
+ * через Integer.bitCount. Глубина дерева не больше 7, то есть O(log32 n).
+ * with и without не меняют мапу, а возвращают новую, в которой скопирован только путь от корня
+ * до измененного узла, остальные узлы общие со старой версией. Поэтому снимок стоит O(1):
+ * старая версия остается целой и ее можно читать из других потоков без блокировок.
+ * Для пакетных изменений есть Transient: узлы, созданные им самим, меняются на месте,
+ * а копируются только узлы, общие с уже выданными снимками.
+ * Ключи с полностью совпадающими хэшами хранятся в узле коллизий.
+ * Тип параметров:
+ * @param <K> тип ключей.
+ * @param <V> тип значений.
+ */
+public final class CustomPersistentMap<K, V> extends AbstractMap<K, V> implements Map<K, V> {
+    /**
+     * Количество бит хэша на один уровень дерева
+     */
+    private static final int BITS = 5;
+    /**
+     * Маска для выделения ветви на уровне
+     */
+    private static final int MASK = (1 << BITS) - 1;
+    /**
+     * Метка отсутствующего ключа, чтобы отличать его от значения null
+     */
+    private static final Object NOT_FOUND = new Object();
+    /**
+     * Пустой массив для пустых узлов
+     */
+    private static final Object[] EMPTY_ARRAY = {};
+    /**
+     * Пустая мапа, общая для всех типов
+     */
+    private static final CustomPersistentMap<?, ?> EMPTY =
+            new CustomPersistentMap<>(new TrieNode(null, 0, 0, EMPTY_ARRAY), 0);
+
+    /**
+     * Корень дерева
+     */
+    private final TrieNode root;
+    /**
+     * Количество элементов
+     */
+    private final int size;
+    /**
+     * Представление набора ключ-значений, создается при первом обращении
+     */
+    private Set<Entry<K, V>> entrySetView;
+
+    /**
+     * Конструктор мапы по корню дерева
+     *
+     * @param root корень
+     * @param size количество элементов
+     */
+    private CustomPersistentMap(TrieNode root, int size) {
+        this.root = root;
+        this.size = size;
+    }
+
+    /**
+     * Метод возвращает пустую мапу
+     *
+     * @param <K> тип ключей
+     * @param <V> тип значений
+     * @return пустая мапа
+     */
+    @SuppressWarnings("unchecked")
+    public static <K, V> CustomPersistentMap<K, V> empty() {
+        return (CustomPersistentMap<K, V>) EMPTY;
+    }
+
+    /**
+     * Метод строит персистентную копию мапы
+     *
+     * @param map мапа
+     * @param <K> тип ключей
+     * @param <V> тип значений
+     * @return персистентная мапа
+     */
+    public static <K, V> CustomPersistentMap<K, V> copyOf(Map<? extends K, ? extends V> map) {
+        if (map instanceof CustomPersistentMap<? extends K, ? extends V> persistent) {
+            @SuppressWarnings("unchecked")
+            CustomPersistentMap<K, V> same = (CustomPersistentMap<K, V>) persistent;
+            return same;
+        }
+        Transient<K, V> builder = CustomPersistentMap.<K, V>empty().asTransient();
+        for (Entry<? extends K, ? extends V> entry : map.entrySet()) {
+            builder.put(entry.getKey(), entry.getValue());
+        }
+        return builder.snapshot();
+    }
+
+    /**
+     * Метод возвращает количество элементов в мапе.
+     *
+     * @return размер мапы
+     */
+    @Override
+    public int size() {
+        return size;
+    }
+    /**
+     * Метод проверяет имеется ли ключ в мапе.
+     *
+     * @param key ключ который нужно проверить есть ли он в мапе
+     * @return есть ли ключ в мапе
+     */
+    @Override
+    public boolean containsKey(Object key) {
+        return root.find(key, HashTables.hash(key), 0) != NOT_FOUND;
+    }
+    /**
+     * Метод возвращает значение по ключу
+     *
+     * @param key ключ по которому возвращаем значение
+     * @return значение полученное по ключу
+     */
+    @Override
+    @SuppressWarnings("unchecked")
+    public V get(Object key) {
+        Object value = root.find(key, HashTables.hash(key), 0);
+        return value == NOT_FOUND ? null : (V) value;
+    }
+    /**
+     * Метод возвращает новую мапу, в которой ключу соответствует значение. Копируется только путь
+     * от корня до ключа, эта мапа не меняется
+     *
+     * @param key   ключ
+     * @param value значение
+     * @return новая мапа или эта же, если значение уже было таким
+     */
+    public CustomPersistentMap<K, V> with(K key, V value) {
+        Change change = new Change();
+        TrieNode newRoot = (TrieNode) root.put(null, key, value, HashTables.hash(key), 0, change);
+        if (newRoot == root) {
+            return this;
+        }
+        return new CustomPersistentMap<>(newRoot, change.added ? size + 1 : size);
+    }
+    /**
+     * Метод возвращает новую мапу без ключа. Копируется только путь от корня до ключа,
+     * эта мапа не меняется
+     *
+     * @param key ключ
+     * @return новая мапа или эта же, если ключа не было
+     */
+    public CustomPersistentMap<K, V> without(Object key) {
+        Change change = new Change();
+        TrieNode newRoot = (TrieNode) root.remove(null, key, HashTables.hash(key), 0, change);
+        if (!change.removed) {
+            return this;
+        }
+        return new CustomPersistentMap<>(newRoot, size - 1);
+    }
+    /**
+     * Метод возвращает изменяемый построитель, который начинает с этой мапы. Создание стоит O(1),
+     * эта мапа при изменениях построителя не меняется
+     *
+     * @return построитель
+     */
+    public Transient<K, V> asTransient() {
+        return new Transient<>(root, size);
+    }
+    /**
+     * Метод возвращает набор всех ключ-значений, доступный только для чтения
+     *
+     * @return набор entries
+     */
+    @Override
+    public Set<Entry<K, V>> entrySet() {
+        Set<Entry<K, V>> view = entrySetView;
+        if (view == null) {
+            view = new AbstractSet<>() {
+                @Override
+                public Iterator<Entry<K, V>> iterator() {
+                    return new EntryIterator<>(root);
+                }
+
+                @Override
+                public int size() {
+                    return size;
+                }
+            };
+            entrySetView = view;
+        }
+        return view;
+    }
+
+    /**
+     * Метод возвращает бит ветви для хэша на уровне
+     *
+     * @param hash  хэш
+     * @param shift сдвиг уровня
+     * @return бит ветви
+     */
+    private static int bit(int hash, int shift) {
+        return 1 << ((hash >>> shift) & MASK);
+    }
+
+    /**
+     * Класс описывает изменяемый построитель персистентной мапы. Узлы помечаются владельцем edit:
+     * узел своего владельца меняется на месте, чужой копируется один раз и дальше тоже меняется на месте.
+     * snapshot выдает неизменяемую мапу за O(1) и меняет владельца, поэтому следующие изменения
+     * копируют путь и не трогают узлы выданного снимка.
+     * Методы синхронизированы, чтобы читатели могли брать снимки, пока писатель продолжает работу;
+     * сами снимки читаются без блокировок
+     * Тип параметров:
+     * @param <K> тип ключей.
+     * @param <V> тип значений.
+     */
+    public static final class Transient<K, V> {
+        /**
+         * Текущий владелец узлов
+         */
+        private Object edit = new Object();
+        /**
+         * Корень дерева
+         */
+        private TrieNode root;
+        /**
+         * Количество элементов
+         */
+        private int size;
+
+        /**
+         * Конструктор построителя
+         *
+         * @param root корень
+         * @param size количество элементов
+         */
+        private Transient(TrieNode root, int size) {
+            this.root = root;
+            this.size = size;
+        }
+
+        /**
+         * Метод возвращает количество элементов.
+         *
+         * @return размер
+         */
+        public synchronized int size() {
+            return size;
+        }
+        /**
+         * Метод проверяет имеется ли ключ.
+         *
+         * @param key ключ
+         * @return есть ли ключ
+         */
+        public synchronized boolean containsKey(Object key) {
+            return root.find(key, HashTables.hash(key), 0) != NOT_FOUND;
+        }
+        /**
+         * Метод возвращает значение по ключу
+         *
+         * @param key ключ
+         * @return значение или null
+         */
+        @SuppressWarnings("unchecked")
+        public synchronized V get(Object key) {
+            Object value = root.find(key, HashTables.hash(key), 0);
+            return value == NOT_FOUND ? null : (V) value;
+        }
+        /**
+         * Метод добавляет пару или заменяет значение
+         *
+         * @param key   ключ
+         * @param value значение
+         * @return предыдущее значение или null
+         */
+        @SuppressWarnings("unchecked")
+        public synchronized V put(K key, V value) {
+            Change change = new Change();
+            root = (TrieNode) root.put(edit, key, value, HashTables.hash(key), 0, change);
+            if (change.added) {
+                size++;
+            }
+            return (V) change.oldValue;
+        }
+        /**
+         * Метод удаляет ключ
+         *
+         * @param key ключ
+         * @return удаленное значение или null
+         */
+        @SuppressWarnings("unchecked")
+        public synchronized V remove(Object key) {
+            Change change = new Change();
+            root = (TrieNode) root.remove(edit, key, HashTables.hash(key), 0, change);
+            if (change.removed) {
+                size--;
+            }
+            return (V) change.oldValue;
+        }
+        /**
+         * Метод удаляет все элементы. Выданные снимки не меняются
+         */
+        public synchronized void clear() {
+            root = new TrieNode(edit, 0, 0, EMPTY_ARRAY);
+            size = 0;
+        }
+        /**
+         * Метод возвращает неизменяемый снимок текущего состояния за O(1).
+         * Построитель можно продолжать менять, снимок это не затронет
+         *
+         * @return снимок
+         */
+        public synchronized CustomPersistentMap<K, V> snapshot() {
+            edit = new Object();
+            return new CustomPersistentMap<>(root, size);
+        }
+    }
+
+    /**
+     * Класс описывает результат изменения дерева
+     */
+    private static final class Change {
+        /**
+         * Добавлен ли новый ключ
+         */
+        boolean added;
+        /**
+         * Удален ли ключ
+         */
+        boolean removed;
+        /**
+         * Предыдущее значение
+         */
+        Object oldValue;
+    }
+
+    /**
+     * Класс описывает узел дерева
+     */
+    private abstract static class Node {
+        /**
+         * Владелец, которому разрешено менять узел на месте, или null
+         */
+        final Object edit;
+
+        /**
+         * Конструктор узла
+         *
+         * @param edit владелец
+         */
+        Node(Object edit) {
+            this.edit = edit;
+        }
+
+        /**
+         * Метод ищет значение по ключу
+         *
+         * @param key   ключ
+         * @param hash  хэш ключа
+         * @param shift сдвиг уровня
+         * @return значение или NOT_FOUND
+         */
+        abstract Object find(Object key, int hash, int shift);
+
+        /**
+         * Метод добавляет пару или заменяет значение
+         *
+         * @param edit   владелец или null для копирования
+         * @param key    ключ
+         * @param value  значение
+         * @param hash   хэш ключа
+         * @param shift  сдвиг уровня
+         * @param change результат изменения
+         * @return новый узел или этот же
+         */
+        abstract Node put(Object edit, Object key, Object value, int hash, int shift, Change change);
+
+        /**
+         * Метод удаляет ключ
+         *
+         * @param edit   владелец или null для копирования
+         * @param key    ключ
+         * @param hash   хэш ключа
+         * @param shift  сдвиг уровня
+         * @param change результат изменения
+         * @return новый узел или этот же
+         */
+        abstract Node remove(Object edit, Object key, int hash, int shift, Change change);
+
+        /**
+         * @return количество пар в самом узле
+         */
+        abstract int payloadArity();
+
+        /**
+         * @return количество поддеревьев
+         */
+        abstract int nodeArity();
+
+        /**
+         * @param index номер пары
+         * @return ключ пары
+         */
+        abstract Object keyAt(int index);
+
+        /**
+         * @param index номер пары
+         * @return значение пары
+         */
+        abstract Object valueAt(int index);
+
+        /**
+         * @param index номер поддерева
+         * @return поддерево
+         */
+        abstract Node nodeAt(int index);
+
+        /**
+         * Метод проверяет, что в поддереве осталась одна пара: такой узел родитель встраивает в себя
+         *
+         * @return одна ли пара в поддереве
+         */
+        boolean isSingle() {
+            return payloadArity() == 1 && nodeArity() == 0;
+        }
+    }
+
+    /**
+     * Класс описывает узел с битовыми масками ветвей
+     */
+    private static final class TrieNode extends Node {
+        /**
+         * Ветви, в которых лежит пара
+         */
+        int dataMap;
+        /**
+         * Ветви, в которых лежит поддерево
+         */
+        int nodeMap;
+        /**
+         * Пары ключ-значение, за ними поддеревья
+         */
+        Object[] array;
+
+        /**
+         * Конструктор узла
+         *
+         * @param edit    владелец
+         * @param dataMap ветви с парами
+         * @param nodeMap ветви с поддеревьями
+         * @param array   содержимое
+         */
+        TrieNode(Object edit, int dataMap, int nodeMap, Object[] array) {
+            super(edit);
+            this.dataMap = dataMap;
+            this.nodeMap = nodeMap;
+            this.array = array;
+        }
+
+        @Override
+        Object find(Object key, int hash, int shift) {
+            TrieNode node = this;
+            while (true) {
+                int bit = bit(hash, shift);
+                if ((node.dataMap & bit) != 0) {
+                    int index = node.dataIndex(bit);
+                    return Objects.equals(key, node.array[index]) ? node.array[index + 1] : NOT_FOUND;
+                }
+                if ((node.nodeMap & bit) == 0) {
+                    return NOT_FOUND;
+                }
+                Node child = (Node) node.array[node.nodeIndex(bit)];
+                if (!(child instanceof TrieNode trie)) {
+                    return child.find(key, hash, shift + BITS);
+                }
+                node = trie;
+                shift += BITS;
+            }
+        }
+
+        @Override
+        Node put(Object edit, Object key, Object value, int hash, int shift, Change change) {
+            int bit = bit(hash, shift);
+            if ((dataMap & bit) != 0) {
+                int index = dataIndex(bit);
+                Object current = array[index];
+                if (Objects.equals(key, current)) {
+                    Object oldValue = array[index + 1];
+                    change.oldValue = oldValue;
+                    if (oldValue == value) {
+                        return this;
+                    }
+                    TrieNode node = editable(edit);
+                    node.array[index + 1] = value;
+                    return node;
+                }
+                change.added = true;
+                Node child = merge(edit, current, array[index + 1], HashTables.hash(current), key, value, hash, shift + BITS);
+                return migrateToNode(edit, bit, child);
+            }
+            if ((nodeMap & bit) != 0) {
+                int index = nodeIndex(bit);
+                Node child = (Node) array[index];
+                Node newChild = child.put(edit, key, value, hash, shift + BITS, change);
+                if (newChild == child) {
+                    return this;
+                }
+                TrieNode node = editable(edit);
+                node.array[index] = newChild;
+                return node;
+            }
+            change.added = true;
+            int index = dataIndex(bit);
+            Object[] newArray = new Object[array.length + 2];
+            System.arraycopy(array, 0, newArray, 0, index);
+            newArray[index] = key;
+            newArray[index + 1] = value;
+            System.arraycopy(array, index, newArray, index + 2, array.length - index);
+            return update(edit, dataMap | bit, nodeMap, newArray);
+        }
+
+        @Override
+        Node remove(Object edit, Object key, int hash, int shift, Change change) {
+            int bit = bit(hash, shift);
+            if ((dataMap & bit) != 0) {
+                int index = dataIndex(bit);
+                if (!Objects.equals(key, array[index])) {
+                    return this;
+                }
+                change.removed = true;
+                change.oldValue = array[index + 1];
+                Object[] newArray = new Object[array.length - 2];
+                System.arraycopy(array, 0, newArray, 0, index);
+                System.arraycopy(array, index + 2, newArray, index, array.length - index - 2);
+                return update(edit, dataMap ^ bit, nodeMap, newArray);
+            }
+            if ((nodeMap & bit) == 0) {
+                return this;
+            }
+            int index = nodeIndex(bit);
+            Node child = (Node) array[index];
+            Node newChild = child.remove(edit, key, hash, shift + BITS, change);
+            if (!change.removed) {
+                return this;
+            }
+            if (newChild.isSingle()) {
+                if (shift > 0 && dataMap == 0 && nodeMap == bit) {
+                    return newChild;
+                }
+                return migrateToInline(edit, bit, newChild.keyAt(0), newChild.valueAt(0));
+            }
+            if (newChild == child) {
+                return this;
+            }
+            TrieNode node = editable(edit);
+            node.array[index] = newChild;
+            return node;
+        }
+
+        @Override
+        int payloadArity() {
+            return Integer.bitCount(dataMap);
+        }
+
+        @Override
+        int nodeArity() {
+            return Integer.bitCount(nodeMap);
+        }
+
+        @Override
+        Object keyAt(int index) {
+            return array[2 * index];
+        }
+
+        @Override
+        Object valueAt(int index) {
+            return array[2 * index + 1];
+        }
+
+        @Override
+        Node nodeAt(int index) {
+            return (Node) array[2 * payloadArity() + index];
+        }
+
+        /**
+         * @param bit бит ветви
+         * @return индекс ключа пары в массиве
+         */
+        private int dataIndex(int bit) {
+            return 2 * Integer.bitCount(dataMap & (bit - 1));
+        }
+
+        /**
+         * @param bit бит ветви
+         * @return индекс поддерева в массиве
+         */
+        private int nodeIndex(int bit) {
+            return 2 * Integer.bitCount(dataMap) + Integer.bitCount(nodeMap & (bit - 1));
+        }
+
+        /**
+         * Метод возвращает узел, который можно менять на месте: этот же, если он принадлежит edit,
+         * иначе копию
+         *
+         * @param edit владелец
+         * @return изменяемый узел
+         */
+        private TrieNode editable(Object edit) {
+            if (edit != null && this.edit == edit) {
+                return this;
+            }
+            return new TrieNode(edit, dataMap, nodeMap, array.clone());
+        }
+
+        /**
+         * Метод заменяет содержимое узла: на месте, если узел принадлежит edit, иначе в новом узле
+         *
+         * @param edit     владелец
+         * @param dataMap  ветви с парами
+         * @param nodeMap  ветви с поддеревьями
+         * @param newArray содержимое
+         * @return узел с новым содержимым
+         */
+        private TrieNode update(Object edit, int dataMap, int nodeMap, Object[] newArray) {
+            if (edit != null && this.edit == edit) {
+                this.dataMap = dataMap;
+                this.nodeMap = nodeMap;
+                this.array = newArray;
+                return this;
+            }
+            return new TrieNode(edit, dataMap, nodeMap, newArray);
+        }
+
+        /**
+         * Метод заменяет пару в ветви поддеревом
+         *
+         * @param edit  владелец
+         * @param bit   бит ветви
+         * @param child поддерево
+         * @return узел
+         */
+        private TrieNode migrateToNode(Object edit, int bit, Node child) {
+            int oldIndex = dataIndex(bit);
+            int newIndex = nodeIndex(bit) - 2;
+            Object[] newArray = new Object[array.length - 1];
+            System.arraycopy(array, 0, newArray, 0, oldIndex);
+            System.arraycopy(array, oldIndex + 2, newArray, oldIndex, newIndex - oldIndex);
+            newArray[newIndex] = child;
+            System.arraycopy(array, newIndex + 2, newArray, newIndex + 1, array.length - newIndex - 2);
+            return update(edit, dataMap ^ bit, nodeMap | bit, newArray);
+        }
+
+        /**
+         * Метод заменяет поддерево в ветви его единственной парой
+         *
+         * @param edit  владелец
+         * @param bit   бит ветви
+         * @param key   ключ пары
+         * @param value значение пары
+         * @return узел
+         */
+        private TrieNode migrateToInline(Object edit, int bit, Object key, Object value) {
+            int oldIndex = nodeIndex(bit);
+            int newIndex = dataIndex(bit);
+            Object[] newArray = new Object[array.length + 1];
+            System.arraycopy(array, 0, newArray, 0, newIndex);
+            newArray[newIndex] = key;
+            newArray[newIndex + 1] = value;
+            System.arraycopy(array, newIndex, newArray, newIndex + 2, oldIndex - newIndex);
+            System.arraycopy(array, oldIndex + 1, newArray, oldIndex + 2, array.length - oldIndex - 1);
+            return update(edit, dataMap | bit, nodeMap ^ bit, newArray);
+        }
+
+        /**
+         * Метод строит поддерево из двух пар с разными ключами
+         *
+         * @param edit   владелец
+         * @param key1   первый ключ
+         * @param value1 первое значение
+         * @param hash1  хэш первого ключа
+         * @param key2   второй ключ
+         * @param value2 второе значение
+         * @param hash2  хэш второго ключа
+         * @param shift  сдвиг уровня поддерева
+         * @return поддерево
+         */
+        private static Node merge(Object edit, Object key1, Object value1, int hash1,
+                                  Object key2, Object value2, int hash2, int shift) {
+            if (hash1 == hash2) {
+                return new CollisionNode(edit, hash1, new Object[]{key1, value1, key2, value2});
+            }
+            int bit1 = bit(hash1, shift);
+            int bit2 = bit(hash2, shift);
+            if (bit1 == bit2) {
+                Node child = merge(edit, key1, value1, hash1, key2, value2, hash2, shift + BITS);
+                return new TrieNode(edit, 0, bit1, new Object[]{child});
+            }
+            Object[] array = Integer.compareUnsigned(bit1, bit2) < 0
+                    ? new Object[]{key1, value1, key2, value2}
+                    : new Object[]{key2, value2, key1, value1};
+            return new TrieNode(edit, bit1 | bit2, 0, array);
+        }
+    }
+
+    /**
+     * Класс описывает узел ключей с одинаковым хэшем, пары в нем перебираются по equals
+     */
+    private static final class CollisionNode extends Node {
+        /**
+         * Общий хэш ключей
+         */
+        final int hash;
+        /**
+         * Пары ключ-значение подряд
+         */
+        Object[] array;
+
+        /**
+         * Конструктор узла
+         *
+         * @param edit  владелец
+         * @param hash  общий хэш
+         * @param array пары
+         */
+        CollisionNode(Object edit, int hash, Object[] array) {
+            super(edit);
+            this.hash = hash;
+            this.array = array;
+        }
+
+        @Override
+        Object find(Object key, int hash, int shift) {
+            if (hash == this.hash) {
+                for (int i = 0; i < array.length; i += 2) {
+                    if (Objects.equals(key, array[i])) {
+                        return array[i + 1];
+                    }
+                }
+            }
+            return NOT_FOUND;
+        }
+
+        @Override
+        Node put(Object edit, Object key, Object value, int hash, int shift, Change change) {
+            if (hash != this.hash) {
+                change.added = true;
+                return split(edit, key, value, hash, shift);
+            }
+            for (int i = 0; i < array.length; i += 2) {
+                if (Objects.equals(key, array[i])) {
+                    change.oldValue = array[i + 1];
+                    if (array[i + 1] == value) {
+                        return this;
+                    }
+                    Object[] newArray = array.clone();
+                    newArray[i + 1] = value;
+                    return update(edit, newArray);
+                }
+            }
+            change.added = true;
+            Object[] newArray = Arrays.copyOf(array, array.length + 2);
+            newArray[array.length] = key;
+            newArray[array.length + 1] = value;
+            return update(edit, newArray);
+        }
+
+        @Override
+        Node remove(Object edit, Object key, int hash, int shift, Change change) {
+            if (hash != this.hash) {
+                return this;
+            }
+            for (int i = 0; i < array.length; i += 2) {
+                if (Objects.equals(key, array[i])) {
+                    change.removed = true;
+                    change.oldValue = array[i + 1];
+                    Object[] newArray = new Object[array.length - 2];
+                    System.arraycopy(array, 0, newArray, 0, i);
+                    System.arraycopy(array, i + 2, newArray, i, array.length - i - 2);
+                    return update(edit, newArray);
+                }
+            }
+            return this;
+        }
+
+        @Override
+        int payloadArity() {
+            return array.length / 2;
+        }
+
+        @Override
+        int nodeArity() {
+            return 0;
+        }
+
+        @Override
+        Object keyAt(int index) {
+            return array[2 * index];
+        }
+
+        @Override
+        Object valueAt(int index) {
+            return array[2 * index + 1];
+        }
+
+        @Override
+        Node nodeAt(int index) {
+            throw new IndexOutOfBoundsException(index);
+        }
+
+        /**
+         * Метод заменяет пары узла: на месте, если узел принадлежит edit, иначе в новом узле
+         *
+         * @param edit     владелец
+         * @param newArray пары
+         * @return узел с новыми парами
+         */
+        private CollisionNode update(Object edit, Object[] newArray) {
+            if (edit != null && this.edit == edit) {
+                this.array = newArray;
+                return this;
+            }
+            return new CollisionNode(edit, hash, newArray);
+        }
+
+        /**
+         * Метод строит узел, в котором этот узел и новая пара с другим хэшем расходятся по ветвям
+         *
+         * @param edit  владелец
+         * @param key   ключ
+         * @param value значение
+         * @param hash  хэш ключа
+         * @param shift сдвиг уровня
+         * @return новый узел
+         */
+        private Node split(Object edit, Object key, Object value, int hash, int shift) {
+            int collisionBit = bit(this.hash, shift);
+            int bit = bit(hash, shift);
+            if (collisionBit == bit) {
+                return new TrieNode(edit, 0, bit, new Object[]{split(edit, key, value, hash, shift + BITS)});
+            }
+            return new TrieNode(edit, bit, collisionBit, new Object[]{key, value, this});
+        }
+    }
+
+    /**
+     * Класс описывает итератор по парам дерева в глубину
+     */
+    private static final class EntryIterator<K, V> implements Iterator<Entry<K, V>> {
+        /**
+         * Узлы, которые еще предстоит обойти
+         */
+        private final ArrayDeque<Node> pending = new ArrayDeque<>();
+        /**
+         * Текущий узел
+         */
+        private Node node;
+        /**
+         * Номер следующей пары в текущем узле
+         */
+        private int index;
+
+        /**
+         * Конструктор итератора
+         *
+         * @param root корень дерева
+         */
+        EntryIterator(Node root) {
+            node = root;
+            advance();
+        }
+
+        @Override
+        public boolean hasNext() {
+            return node != null;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public Entry<K, V> next() {
+            if (node == null) {
+                throw new NoSuchElementException();
+            }
+            Entry<K, V> entry = new AbstractMap.SimpleImmutableEntry<>((K) node.keyAt(index), (V) node.valueAt(index));
+            index++;
+            advance();
+            return entry;
+        }
+
+        /**
+         * Метод переходит к следующему узлу с парами, если в текущем они закончились
+         */
+        private void advance() {
+            while (node != null && index >= node.payloadArity()) {
+                for (int i = node.nodeArity() - 1; i >= 0; i--) {
+                    pending.push(node.nodeAt(i));
+                }
+                node = pending.poll();
+                index = 0;
+            }
+        }
+    }
+}
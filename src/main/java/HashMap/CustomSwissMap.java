@@ -0,0 +1,828 @@
+package HashMap;
+
+import java.util.*;
+
+/**
+ * Класс описывает реализацию HashMap по схеме SwissTable.
+ * Рядом с массивом ключей и значений хранится массив управляющих байтов, по одному на ячейку:
+ * младшие 7 бит хэша для занятой ячейки или признак пустой либо удаленной ячейки.
+ * Байты упакованы по восемь в long, а два соседних long образуют группу из 16 ячеек,
+ * которая проверяется целиком арифметикой SWAR (SIMD within a register): несколько операций
+ * над long находят все ячейки с подходящими 7 битами хэша и все пустые ячейки.
+ * Ключ сравнивается через equals только у ячеек с совпавшими битами, поэтому большинство
+ * промахов и попаданий решаются без обращения к объектам ключей даже при высокой загрузке.
+ * Группы выровнены по 16 ячейкам, лежат в одной строке кэша и перебираются треугольным пробированием.
+ * Удаленная ячейка становится пустой, если в ее группе есть пустая ячейка, иначе помечается «надгробием».
+ * Тип параметров:
+ * @param <K> тип ключей.
+ * @param <V> тип значений.
+ */
+public class CustomSwissMap<K, V> extends AbstractMap<K, V> implements Map<K, V> {
+    /**
+     * Коэффициент загрузки, используемый по умолчанию. Группы проверяются целиком,
+     * поэтому таблица остается быстрой при загрузке 7/8
+     */
+    private static final float DEFAULT_LOAD_FACTOR = 0.875f;
+    /**
+     * Емкость хеш-таблицы по умолчанию.
+     */
+    private static final int DEFAULT_INITIAL_CAPACITY = 16;
+    /**
+     * Максимальное количество ячеек. Количество всегда является степенью двойки,
+     * а массив entries вдвое длиннее
+     */
+    private static final int MAXIMUM_CAPACITY = 1 << 29;
+    /**
+     * Количество ячеек в группе: управляющие байты группы занимают два соседних long
+     */
+    private static final int GROUP_WIDTH = 16;
+    /**
+     * Управляющий байт пустой ячейки
+     */
+    private static final int EMPTY = 0x80;
+    /**
+     * Управляющий байт удаленной ячейки («надгробие»)
+     */
+    private static final int DELETED = 0xFE;
+    /**
+     * Младший бит каждого байта группы
+     */
+    private static final long LSB = 0x0101010101010101L;
+    /**
+     * Старший бит каждого байта группы: у занятой ячейки он равен нулю
+     */
+    private static final long MSB = 0x8080808080808080L;
+    /**
+     * Группа из пустых ячеек
+     */
+    private static final long EMPTY_GROUP = LSB * EMPTY;
+    /**
+     * Объект, который хранится в массиве ключей вместо ключа null
+     */
+    private static final Object NULL_KEY = new Object();
+    /**
+     * Количество элементов в массиве
+     */
+    private int size;
+    /**
+     * Коэффициент загрузки
+     */
+    private final float loadFactor;
+    /**
+     * Наибольшее количество занятых и удаленных ячеек
+     */
+    private int threshold;
+    /**
+     * Количество пустых ячеек, которые еще можно занять без перестройки массивов
+     */
+    private int growthLeft;
+    /**
+     * Управляющие байты ячеек, по восемь в каждом long. Байт ячейки slot
+     * находится в controls[slot / 8] со сдвигом 8 * (slot % 8), группа g занимает controls[2g] и controls[2g + 1]
+     */
+    private long[] controls;
+    /**
+     * Ключи и значения вперемешку: ключ ячейки slot в entries[2 * slot], значение в entries[2 * slot + 1],
+     * поэтому попадание читает ключ и значение из одной строки кэша. Ключ null хранится как NULL_KEY
+     */
+    private Object[] entries;
+    /**
+     * Количество структурных изменений мапы.
+     * Используется итераторами представлений для быстрого обнаружения конкурентной модификации.
+     */
+    private int modCount;
+    /**
+     * Представление набора ключей, создается при первом обращении
+     */
+    private Set<K> keySetView;
+    /**
+     * Представление коллекции значений, создается при первом обращении
+     */
+    private Collection<V> valuesView;
+    /**
+     * Представление набора ключ-значений, создается при первом обращении
+     */
+    private Set<Entry<K, V>> entrySetView;
+
+    /**
+     * Конструктор с параметрами по умолчанию
+     */
+    public CustomSwissMap() {
+        this(DEFAULT_INITIAL_CAPACITY, DEFAULT_LOAD_FACTOR);
+    }
+    /**
+     * Конструктор с заданной длиной массивов
+     *
+     * @param arrayLength длинна массивов
+     */
+    public CustomSwissMap(int arrayLength) {
+        this(arrayLength, DEFAULT_LOAD_FACTOR);
+    }
+    /**
+     * Конструктор инициализируется произвольной длиной массивов и коэффициентом загрузки.
+     * Длина округляется вверх до степени двойки, но не меньше одной группы. Коэффициент загрузки
+     * должен быть меньше единицы: пустая ячейка останавливает поиск отсутствующего ключа.
+     *
+     * @param arrayLength длинна массивов.
+     * @param loadFactor  коэффициент загрузки.
+     */
+    public CustomSwissMap(int arrayLength, float loadFactor) {
+        if (arrayLength < 0) {
+            throw new IllegalArgumentException("Illegal array length: " + arrayLength);
+        }
+        if (!(loadFactor > 0 && loadFactor < 1)) {
+            throw new IllegalArgumentException("Illegal load factor: " + loadFactor);
+        }
+        this.loadFactor = loadFactor;
+        allocate(HashTables.tableSizeFor(arrayLength, GROUP_WIDTH, MAXIMUM_CAPACITY));
+    }
+    /**
+     * Метод возвращает количество сохраненных элементов.
+     *
+     * @return количество сохраненных элементов.
+     */
+    @Override
+    public int size() {
+        return size;
+    }
+    /**
+     * Метод проверяет мапу на наличие элементов
+     *
+     * @return мапа пуста
+     */
+    @Override
+    public boolean isEmpty() {
+        return size == 0;
+    }
+    /**
+     * Метод проверяет имеется ли ключ в мапе.
+     *
+     * @param key ключ который нужно проверить есть ли он в мапе
+     * @return ключ.
+     */
+    @Override
+    public boolean containsKey(Object key) {
+        return findSlot(key) >= 0;
+    }
+    /**
+     * Метод проверяет имеется ли значение в мапе.
+     * Занятые ячейки находятся по управляющим байтам, по группе за раз
+     *
+     * @param value значение которое нужно проверить есть ли он в мапе
+     * @return значение
+     */
+    @Override
+    public boolean containsValue(Object value) {
+        for (int word = 0; word < controls.length; word++) {
+            for (long full = matchFull(controls[word]); full != 0; full &= full - 1) {
+                if (Objects.equals(value, entries[(slotOf(word, full) << 1) + 1])) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+    /**
+     * Метод возвращает значение по ключу
+     *
+     * @param key ключ по которому возвращаем значение
+     * @return значение полученное по ключу
+     */
+    @Override
+    public V get(Object key) {
+        int slot = findSlot(key);
+        return slot < 0 ? null : valueAt(slot);
+    }
+    /**
+     * Метод добавляет ключ/значение.
+     * Во время поиска ключа запоминается первая свободная или удаленная ячейка на пути пробирования,
+     * поэтому вставка нового ключа не требует второго прохода
+     *
+     * @param key   ключ с которым должно быть связано значение
+     * @param value значение, которое связано с ключом
+     * @return добавлено значение, которое соответсвует ключу
+     */
+    @Override
+    public V put(K key, V value) {
+        Object maskedKey = maskNull(key);
+        int hash = hash(maskedKey);
+        long pattern = LSB * (hash & 0x7F);
+        int mask = (controls.length >>> 1) - 1;
+        int group = (hash >>> 7) & mask;
+        int target = -1;
+        for (int step = 1; ; step++) {
+            int word = group << 1;
+            long low = controls[word];
+            long high = controls[word + 1];
+            int slot = matchKey(word, low, pattern, maskedKey);
+            if (slot < 0) {
+                slot = matchKey(word + 1, high, pattern, maskedKey);
+            }
+            if (slot >= 0) {
+                entries[(slot << 1) + 1] = value;
+                return value;
+            }
+            if (target < 0) {
+                target = firstFree(word, low, high);
+            }
+            if ((matchEmpty(low) | matchEmpty(high)) != 0) {
+                break;
+            }
+            group = (group + step) & mask;
+        }
+        if (growthLeft == 0 && controlAt(target) == EMPTY) {
+            rehash();
+            target = findFreeSlot(hash);
+        }
+        if (controlAt(target) == EMPTY) {
+            growthLeft--;
+        }
+        setControl(target, hash & 0x7F);
+        entries[target << 1] = maskedKey;
+        entries[(target << 1) + 1] = value;
+        size++;
+        modCount++;
+        return value;
+    }
+    /**
+     * Метод удаляет ключ и значение связанное с ним
+     *
+     * @param key ключ который должен быть удален
+     * @return удаленное значение
+     */
+    @Override
+    public V remove(Object key) {
+        int slot = findSlot(key);
+        if (slot < 0) {
+            return null;
+        }
+        V value = valueAt(slot);
+        removeSlot(slot);
+        return value;
+    }
+    /**
+     * Метод очищает мапу, сохраняя длину массивов
+     */
+    @Override
+    public void clear() {
+        Arrays.fill(controls, EMPTY_GROUP);
+        Arrays.fill(entries, null);
+        size = 0;
+        growthLeft = threshold;
+        modCount++;
+    }
+    /**
+     * Метод возвращает набор ключей
+     *
+     * @return набор ключей
+     */
+    @Override
+    public Set<K> keySet() {
+        Set<K> view = keySetView;
+        if (view == null) {
+            view = new KeySet();
+            keySetView = view;
+        }
+        return view;
+    }
+    /**
+     * Метод возвращает коллекцию значений, включая повторяющиеся
+     *
+     * @return коллекция значений
+     */
+    @Override
+    public Collection<V> values() {
+        Collection<V> view = valuesView;
+        if (view == null) {
+            view = new Values();
+            valuesView = view;
+        }
+        return view;
+    }
+    /**
+     * Метод возвращает набор всех ключ-значений
+     *
+     * @return набор entries
+     */
+    @Override
+    public Set<Entry<K, V>> entrySet() {
+        Set<Entry<K, V>> view = entrySetView;
+        if (view == null) {
+            view = new EntrySet();
+            entrySetView = view;
+        }
+        return view;
+    }
+
+    /**
+     * Метод возвращает текущую длину массивов
+     *
+     * @return длина массивов
+     */
+    public int capacity() {
+        return entries.length >>> 1;
+    }
+
+    /**
+     * Метод ищет ячейку с заданным ключом. В каждой группе equals вызывается только для ячеек,
+     * у которых совпали 7 бит хэша; поиск прекращается на группе с пустой ячейкой
+     *
+     * @param key ключ
+     * @return индекс ячейки или -1, если ключа нет
+     */
+    private int findSlot(Object key) {
+        Object maskedKey = maskNull(key);
+        int hash = hash(maskedKey);
+        long pattern = LSB * (hash & 0x7F);
+        int mask = (controls.length >>> 1) - 1;
+        int group = (hash >>> 7) & mask;
+        for (int step = 1; ; step++) {
+            int word = group << 1;
+            long low = controls[word];
+            long high = controls[word + 1];
+            int slot = matchKey(word, low, pattern, maskedKey);
+            if (slot < 0) {
+                slot = matchKey(word + 1, high, pattern, maskedKey);
+            }
+            if (slot >= 0) {
+                return slot;
+            }
+            if ((matchEmpty(low) | matchEmpty(high)) != 0) {
+                return -1;
+            }
+            group = (group + step) & mask;
+        }
+    }
+
+    /**
+     * Метод сравнивает ключ с ключами ячеек половины группы, у которых совпали 7 бит хэша
+     *
+     * @param word      индекс long с управляющими байтами
+     * @param control   управляющие байты
+     * @param pattern   7 бит хэша, повторенные в каждом байте
+     * @param maskedKey ключ (NULL_KEY вместо null)
+     * @return индекс ячейки с ключом или -1
+     */
+    private int matchKey(int word, long control, long pattern, Object maskedKey) {
+        for (long match = matchByte(control, pattern); match != 0; match &= match - 1) {
+            int slot = slotOf(word, match);
+            Object slotKey = entries[slot << 1];
+            if (slotKey == maskedKey || maskedKey.equals(slotKey)) {
+                return slot;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Метод возвращает первую пустую или удаленную ячейку группы
+     *
+     * @param word индекс первого long группы
+     * @param low  управляющие байты первой половины группы
+     * @param high управляющие байты второй половины группы
+     * @return индекс ячейки или -1, если в группе нет свободных ячеек
+     */
+    private static int firstFree(int word, long low, long high) {
+        long free = low & MSB;
+        if (free != 0) {
+            return slotOf(word, free);
+        }
+        free = high & MSB;
+        return free != 0 ? slotOf(word + 1, free) : -1;
+    }
+
+    /**
+     * Метод находит первую пустую или удаленную ячейку на пути пробирования хэша
+     *
+     * @param hash хэш ключа
+     * @return индекс ячейки
+     */
+    private int findFreeSlot(int hash) {
+        int mask = (controls.length >>> 1) - 1;
+        int group = (hash >>> 7) & mask;
+        for (int step = 1; ; step++) {
+            int word = group << 1;
+            int slot = firstFree(word, controls[word], controls[word + 1]);
+            if (slot >= 0) {
+                return slot;
+            }
+            group = (group + step) & mask;
+        }
+    }
+
+    /**
+     * Метод удаляет запись из ячейки. Если в группе есть пустая ячейка, поиск любого ключа
+     * на этой группе и так останавливается, поэтому ячейка тоже становится пустой.
+     * Иначе она помечается удаленной, чтобы не прервать поиск ключей из следующих групп
+     *
+     * @param slot индекс ячейки
+     */
+    private void removeSlot(int slot) {
+        int word = (slot >>> 4) << 1;
+        if ((matchEmpty(controls[word]) | matchEmpty(controls[word + 1])) != 0) {
+            setControl(slot, EMPTY);
+            growthLeft++;
+        } else {
+            setControl(slot, DELETED);
+        }
+        entries[slot << 1] = null;
+        entries[(slot << 1) + 1] = null;
+        size--;
+        modCount++;
+    }
+
+    /**
+     * Метод перестраивает массивы, когда закончились пустые ячейки. Если живые записи занимают
+     * больше 7/8 допустимых ячеек, массивы удваиваются, иначе только убираются «надгробия»:
+     * при постоянной смене ключей таблица не растет, а следующая перестройка наступит
+     * не раньше, чем через threshold / 8 вставок
+     */
+    private void rehash() {
+        long[] oldControls = controls;
+        Object[] oldEntries = entries;
+        int newLength = oldEntries.length >>> 1;
+        if (size > threshold - threshold / 8) {
+            if (newLength == MAXIMUM_CAPACITY) {
+                throw new IllegalStateException("Map is full");
+            }
+            newLength <<= 1;
+        }
+        allocate(newLength);
+        for (int word = 0; word < oldControls.length; word++) {
+            for (long full = matchFull(oldControls[word]); full != 0; full &= full - 1) {
+                int oldSlot = slotOf(word, full);
+                Object key = oldEntries[oldSlot << 1];
+                int hash = hash(key);
+                int slot = findFreeSlot(hash);
+                setControl(slot, hash & 0x7F);
+                entries[slot << 1] = key;
+                entries[(slot << 1) + 1] = oldEntries[(oldSlot << 1) + 1];
+            }
+        }
+        growthLeft -= size;
+        modCount++;
+    }
+
+    /**
+     * Метод создает пустые массивы заданной длины
+     *
+     * @param length длина массивов, степень двойки не меньше GROUP_WIDTH
+     */
+    private void allocate(int length) {
+        controls = new long[length >>> 3];
+        Arrays.fill(controls, EMPTY_GROUP);
+        entries = new Object[length << 1];
+        threshold = Math.min((int) (length * loadFactor), length - 1);
+        growthLeft = threshold;
+    }
+
+    /**
+     * Метод возвращает управляющий байт ячейки
+     *
+     * @param slot индекс ячейки
+     * @return управляющий байт от 0 до 255
+     */
+    private int controlAt(int slot) {
+        return (int) (controls[slot >>> 3] >>> ((slot & 7) << 3)) & 0xFF;
+    }
+
+    /**
+     * Метод записывает управляющий байт ячейки
+     *
+     * @param slot    индекс ячейки
+     * @param control управляющий байт
+     */
+    private void setControl(int slot, int control) {
+        int shift = (slot & 7) << 3;
+        int group = slot >>> 3;
+        controls[group] = (controls[group] & ~(0xFFL << shift)) | ((long) control << shift);
+    }
+
+    /**
+     * Метод находит среди восьми управляющих байтов занятые ячейки с заданными 7 битами хэша.
+     * После XOR с образцом совпавшие байты обнуляются, а выражение (x - LSB) & ~x & MSB
+     * выставляет старший бит нулевых байтов. Заем при вычитании может дать ложное совпадение
+     * в байте выше настоящего, его отсеивает сравнение ключей
+     *
+     * @param control управляющие байты
+     * @param pattern 7 бит хэша, повторенные в каждом байте
+     * @return старшие биты совпавших байтов
+     */
+    private static long matchByte(long control, long pattern) {
+        long x = control ^ pattern;
+        return (x - LSB) & ~x & MSB;
+    }
+
+    /**
+     * Метод находит среди восьми управляющих байтов пустые ячейки. У EMPTY и DELETED старший бит выставлен,
+     * а второй бит есть только у DELETED: сдвиг на 6 переносит его на место старшего
+     *
+     * @param control управляющие байты
+     * @return старшие биты пустых байтов
+     */
+    private static long matchEmpty(long control) {
+        return control & ~(control << 6) & MSB;
+    }
+
+    /**
+     * Метод находит среди восьми управляющих байтов занятые ячейки
+     *
+     * @param control управляющие байты
+     * @return старшие биты занятых байтов
+     */
+    private static long matchFull(long control) {
+        return ~control & MSB;
+    }
+
+    /**
+     * Метод возвращает ячейку младшего выставленного бита маски
+     *
+     * @param word  индекс long с управляющими байтами
+     * @param match маска со старшими битами байтов
+     * @return индекс ячейки
+     */
+    private static int slotOf(int word, long match) {
+        return (word << 3) | (Long.numberOfTrailingZeros(match) >>> 3);
+    }
+
+    /**
+     * Метод возвращает значение из ячейки
+     *
+     * @param slot индекс ячейки
+     * @return значение
+     */
+    @SuppressWarnings("unchecked")
+    private V valueAt(int slot) {
+        return (V) entries[(slot << 1) + 1];
+    }
+
+    /**
+     * Метод возвращает ключ из ячейки
+     *
+     * @param slot индекс ячейки
+     * @return ключ
+     */
+    @SuppressWarnings("unchecked")
+    private K keyAt(int slot) {
+        Object key = entries[slot << 1];
+        return key == NULL_KEY ? null : (K) key;
+    }
+
+    /**
+     * Метод возвращает хэш ключа. Хэш перемешивается, так как младшие 7 бит идут в управляющий байт,
+     * а старшие выбирают группу, и оба поля должны зависеть от всех бит hashCode
+     *
+     * @param key ключ (NULL_KEY вместо null)
+     * @return хэш ключа
+     */
+    private static int hash(Object key) {
+        int hash = key == NULL_KEY ? 0 : key.hashCode();
+        hash *= 0x9E3779B9;
+        return hash ^ (hash >>> 16);
+    }
+
+    /**
+     * Метод заменяет ключ null на NULL_KEY
+     *
+     * @param key ключ
+     * @return ключ для хранения в массиве
+     */
+    private static Object maskNull(Object key) {
+        return key == null ? NULL_KEY : key;
+    }
+
+    /**
+     * Базовый итератор по ячейкам. Занятые ячейки находятся по управляющим байтам группы.
+     * Удаление через итератор не перемещает записи, поэтому обход продолжается с той же позиции.
+     *
+     * @param <T> тип возвращаемых элементов
+     */
+    private abstract class SlotIterator<T> implements Iterator<T> {
+        /**
+         * Ячейка следующей записи или -1
+         */
+        private int next = -1;
+        /**
+         * Ячейка последней возвращенной записи или -1
+         */
+        private int current = -1;
+        /**
+         * Ожидаемое значение modCount
+         */
+        private int expectedModCount = modCount;
+
+        SlotIterator() {
+            advance(0);
+        }
+
+        @Override
+        public boolean hasNext() {
+            return next >= 0;
+        }
+
+        /**
+         * Метод возвращает ячейку следующей записи
+         *
+         * @return индекс ячейки
+         */
+        int nextSlot() {
+            if (modCount != expectedModCount) {
+                throw new ConcurrentModificationException();
+            }
+            if (next < 0) {
+                throw new NoSuchElementException();
+            }
+            current = next;
+            advance(next + 1);
+            return current;
+        }
+
+        @Override
+        public void remove() {
+            if (current < 0) {
+                throw new IllegalStateException();
+            }
+            if (modCount != expectedModCount) {
+                throw new ConcurrentModificationException();
+            }
+            removeSlot(current);
+            current = -1;
+            expectedModCount = modCount;
+        }
+
+        /**
+         * Метод находит первую занятую ячейку, начиная с заданной
+         *
+         * @param from индекс ячейки, с которой начинается поиск
+         */
+        private void advance(int from) {
+            next = -1;
+            int slot = from;
+            while (slot < controls.length << 3) {
+                long full = matchFull(controls[slot >>> 3]) & (-1L << ((slot & 7) << 3));
+                if (full != 0) {
+                    next = slotOf(slot >>> 3, full);
+                    return;
+                }
+                slot = (slot | 7) + 1;
+            }
+        }
+    }
+
+    /**
+     * Итератор по ключам
+     */
+    private final class KeyIterator extends SlotIterator<K> {
+        @Override
+        public K next() {
+            return keyAt(nextSlot());
+        }
+    }
+
+    /**
+     * Итератор по значениям
+     */
+    private final class ValueIterator extends SlotIterator<V> {
+        @Override
+        public V next() {
+            return valueAt(nextSlot());
+        }
+    }
+
+    /**
+     * Итератор по парам ключ-значение
+     */
+    private final class EntryIterator extends SlotIterator<Entry<K, V>> {
+        @Override
+        public Entry<K, V> next() {
+            int slot = nextSlot();
+            return new SlotEntry(keyAt(slot), valueAt(slot));
+        }
+    }
+
+    /**
+     * Пара ключ-значение, возвращаемая итератором. Изменение значения записывается в мапу
+     */
+    private final class SlotEntry extends SimpleEntry<K, V> {
+        /**
+         * Версия сериализованной формы
+         */
+        private static final long serialVersionUID = 1L;
+
+        SlotEntry(K key, V value) {
+            super(key, value);
+        }
+
+        @Override
+        public V setValue(V value) {
+            super.setValue(value);
+            int slot = findSlot(getKey());
+            if (slot >= 0) {
+                entries[(slot << 1) + 1] = value;
+            }
+            return value;
+        }
+    }
+
+    /**
+     * Представление набора ключей
+     */
+    private final class KeySet extends AbstractSet<K> {
+        @Override
+        public Iterator<K> iterator() {
+            return new KeyIterator();
+        }
+
+        @Override
+        public int size() {
+            return size;
+        }
+
+        @Override
+        public boolean contains(Object key) {
+            return containsKey(key);
+        }
+
+        @Override
+        public boolean remove(Object key) {
+            int slot = findSlot(key);
+            if (slot < 0) {
+                return false;
+            }
+            removeSlot(slot);
+            return true;
+        }
+
+        @Override
+        public void clear() {
+            CustomSwissMap.this.clear();
+        }
+    }
+
+    /**
+     * Представление коллекции значений
+     */
+    private final class Values extends AbstractCollection<V> {
+        @Override
+        public Iterator<V> iterator() {
+            return new ValueIterator();
+        }
+
+        @Override
+        public int size() {
+            return size;
+        }
+
+        @Override
+        public boolean contains(Object value) {
+            return containsValue(value);
+        }
+
+        @Override
+        public void clear() {
+            CustomSwissMap.this.clear();
+        }
+    }
+
+    /**
+     * Представление набора ключ-значений
+     */
+    private final class EntrySet extends AbstractSet<Entry<K, V>> {
+        @Override
+        public Iterator<Entry<K, V>> iterator() {
+            return new EntryIterator();
+        }
+
+        @Override
+        public int size() {
+            return size;
+        }
+
+        @Override
+        public boolean contains(Object object) {
+            if (!(object instanceof Map.Entry<?, ?> entry)) {
+                return false;
+            }
+            int slot = findSlot(entry.getKey());
+            return slot >= 0 && Objects.equals(valueAt(slot), entry.getValue());
+        }
+
+        @Override
+        public boolean remove(Object object) {
+            if (!(object instanceof Map.Entry<?, ?> entry)) {
+                return false;
+            }
+            int slot = findSlot(entry.getKey());
+            if (slot >= 0 && Objects.equals(valueAt(slot), entry.getValue())) {
+                removeSlot(slot);
+                return true;
+            }
+            return false;
+        }
+
+        @Override
+        public void clear() {
+            CustomSwissMap.this.clear();
+        }
+    }
+}
@@ -0,0 +1,134 @@
+package HashMap;
+
+/**
+ * Класс описывает приблизительный счетчик частот ключей (count-min sketch) для фильтра допуска TinyLFU.
+ * Каждый long хранит 16 четырехбитных счетчиков, ключ учитывается в четырех счетчиках
+ * разных слов, частота ключа равна минимуму из них и не превышает 15.
+ * После sampleSize увеличений все счетчики делятся пополам, поэтому старая популярность
+ * постепенно забывается.
+ */
+final class FrequencySketch {
+    /**
+     * Множители для четырех независимых хэшей
+     */
+    private static final long[] SEEDS = {
+            0xc3a5c85c97cb3127L, 0xb492b66fbe98f273L, 0x9ae16a3b2f90404fL, 0xcbf29ce484222325L};
+    /**
+     * Маска, обнуляющая старший бит каждого счетчика после сдвига вправо
+     */
+    private static final long RESET_MASK = 0x7777777777777777L;
+    /**
+     * Максимальное количество слов таблицы
+     */
+    private static final int MAXIMUM_TABLE_LENGTH = 1 << 20;
+    /**
+     * Максимальное значение счетчика
+     */
+    private static final int MAXIMUM_FREQUENCY = 15;
+    /**
+     * Слова со счетчиками
+     */
+    private final long[] table;
+    /**
+     * Количество увеличений, после которого счетчики делятся пополам
+     */
+    private final int sampleSize;
+    /**
+     * Количество увеличений с последнего деления
+     */
+    private int additions;
+
+    /**
+     * Конструктор счетчика для кэша заданного размера
+     *
+     * @param expectedSize ожидаемое количество элементов кэша
+     */
+    FrequencySketch(long expectedSize) {
+        int length = (int) Math.min(Math.max(expectedSize, 8), MAXIMUM_TABLE_LENGTH);
+        this.table = new long[Integer.highestOneBit(length - 1) << 1];
+        this.sampleSize = 10 * table.length;
+    }
+
+    /**
+     * Метод возвращает оценку частоты ключа
+     *
+     * @param key ключ
+     * @return частота от 0 до 15
+     */
+    int frequency(Object key) {
+        int hash = spread(key);
+        int frequency = MAXIMUM_FREQUENCY;
+        for (int row = 0; row < SEEDS.length; row++) {
+            int offset = counterOffset(hash, row);
+            frequency = Math.min(frequency, (int) ((table[indexOf(hash, row)] >>> offset) & 0xF));
+        }
+        return frequency;
+    }
+
+    /**
+     * Метод увеличивает частоту ключа
+     *
+     * @param key ключ
+     */
+    void increment(Object key) {
+        int hash = spread(key);
+        boolean added = false;
+        for (int row = 0; row < SEEDS.length; row++) {
+            int index = indexOf(hash, row);
+            int offset = counterOffset(hash, row);
+            if (((table[index] >>> offset) & 0xF) != MAXIMUM_FREQUENCY) {
+                table[index] += 1L << offset;
+                added = true;
+            }
+        }
+        if (added && ++additions == sampleSize) {
+            reset();
+        }
+    }
+
+    /**
+     * Метод делит все счетчики пополам
+     */
+    private void reset() {
+        for (int index = 0; index < table.length; index++) {
+            table[index] = (table[index] >>> 1) & RESET_MASK;
+        }
+        additions /= 2;
+    }
+
+    /**
+     * Метод возвращает индекс слова для строки row
+     *
+     * @param hash хэш ключа
+     * @param row  номер строки
+     * @return индекс слова
+     */
+    private int indexOf(int hash, int row) {
+        long mixed = (hash + SEEDS[row]) * SEEDS[row];
+        mixed += mixed >>> 32;
+        return (int) mixed & (table.length - 1);
+    }
+
+    /**
+     * Метод возвращает сдвиг счетчика внутри слова. Строка row использует
+     * свою четверть слова, а конкретный счетчик из четырех выбирается битами хэша
+     *
+     * @param hash хэш ключа
+     * @param row  номер строки
+     * @return сдвиг в битах
+     */
+    private static int counterOffset(int hash, int row) {
+        return ((row << 2) + ((hash >>> (row << 3)) & 3)) << 2;
+    }
+
+    /**
+     * Метод перемешивает хэш ключа
+     *
+     * @param key ключ, может быть null
+     * @return перемешанный хэш
+     */
+    private static int spread(Object key) {
+        int hash = key == null ? 0 : key.hashCode() * 0x9E3779B9;
+        return hash ^ (hash >>> 16);
+    }
+}
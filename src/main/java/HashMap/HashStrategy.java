@@ -0,0 +1,218 @@
+package HashMap;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteOrder;
+import java.util.Arrays;
+
+/**
+ * Интерфейс описывает хэширование и равенство ключей для CustomMap вместо hashCode и equals самих ключей.
+ * Позволяет хранить ключами массивы байт и искать строковые ключи по изменяемому буферу символов
+ * без копирования в String. Мапа вычисляет хэш один раз при вставке и хранит его в узле,
+ * поэтому хранимые ключи нельзя изменять; изменяемый буфер годится только как ключ поиска.
+ * Методы никогда не получают null: ключ null мапа обрабатывает сама.
+ * Поиск ключом другого типа, чем ожидает стратегия, бросает ClassCastException.
+ *
+ * @param <K> тип ключей
+ */
+public interface HashStrategy<K> {
+    /**
+     * Стратегия по hashCode и equals ключей. CustomMap без стратегии работает так же
+     */
+    HashStrategy<Object> NATURAL = new HashStrategy<>() {
+        @Override
+        public int hash(Object key) {
+            return key.hashCode();
+        }
+
+        @Override
+        public boolean equivalent(Object left, Object right) {
+            return left.equals(right);
+        }
+    };
+    /**
+     * Стратегия по ссылкам, как в IdentityHashMap
+     */
+    HashStrategy<Object> IDENTITY = new HashStrategy<>() {
+        @Override
+        public int hash(Object key) {
+            return System.identityHashCode(key);
+        }
+
+        @Override
+        public boolean equivalent(Object left, Object right) {
+            return left == right;
+        }
+    };
+    /**
+     * Стратегия по содержимому массивов байт с нулевым зерном
+     */
+    HashStrategy<byte[]> BYTE_ARRAY = byteArray(0L);
+    /**
+     * Стратегия по последовательности символов с нулевым зерном: String, StringBuilder и CharBuffer
+     * с одинаковыми символами равны и имеют одинаковый хэш
+     */
+    HashStrategy<CharSequence> CHAR_SEQUENCE = charSequence(0L);
+
+    /**
+     * Метод возвращает хэш ключа
+     *
+     * @param key ключ, не null
+     * @return хэш
+     */
+    int hash(K key);
+
+    /**
+     * Метод проверяет, считаются ли ключи одним ключом. Равные ключи обязаны иметь равные хэши
+     *
+     * @param left  первый ключ, не null
+     * @param right второй ключ, не null
+     * @return ключи равны
+     */
+    boolean equivalent(K left, K right);
+
+    /**
+     * Метод возвращает стратегию по содержимому массивов байт. Хэш считается по восемь байт за шаг
+     * перемешиванием в стиле wyhash, зерно позволяет получить независимую хэш-функцию
+     *
+     * @param seed зерно хэш-функции
+     * @return стратегия
+     */
+    static HashStrategy<byte[]> byteArray(long seed) {
+        return new HashStrategy<>() {
+            @Override
+            public int hash(byte[] key) {
+                long hash = seed ^ Mixer.SECRET0;
+                int length = key.length;
+                int offset = 0;
+                for (; offset + Long.BYTES <= length; offset += Long.BYTES) {
+                    hash = Mixer.mix((long) Mixer.LONGS.get(key, offset) ^ Mixer.SECRET1, hash ^ Mixer.SECRET2);
+                }
+                long tail = 0;
+                for (int shift = 0; offset < length; offset++, shift += Byte.SIZE) {
+                    tail |= (key[offset] & 0xFFL) << shift;
+                }
+                return Mixer.finish(hash, tail, length);
+            }
+
+            @Override
+            public boolean equivalent(byte[] left, byte[] right) {
+                return Arrays.equals(left, right);
+            }
+        };
+    }
+
+    /**
+     * Метод возвращает стратегию по последовательности символов. Хэш считается по четыре символа за шаг
+     * тем же перемешиванием, что и для массивов байт, и не зависит от класса последовательности
+     *
+     * @param seed зерно хэш-функции
+     * @return стратегия
+     */
+    static HashStrategy<CharSequence> charSequence(long seed) {
+        return new HashStrategy<>() {
+            @Override
+            public int hash(CharSequence key) {
+                long hash = seed ^ Mixer.SECRET0;
+                int length = key.length();
+                int index = 0;
+                for (; index + 4 <= length; index += 4) {
+                    long word = key.charAt(index)
+                            | (long) key.charAt(index + 1) << 16
+                            | (long) key.charAt(index + 2) << 32
+                            | (long) key.charAt(index + 3) << 48;
+                    hash = Mixer.mix(word ^ Mixer.SECRET1, hash ^ Mixer.SECRET2);
+                }
+                long tail = 0;
+                for (int shift = 0; index < length; index++, shift += Character.SIZE) {
+                    tail |= (long) key.charAt(index) << shift;
+                }
+                return Mixer.finish(hash, tail, length);
+            }
+
+            @Override
+            public boolean equivalent(CharSequence left, CharSequence right) {
+                return CharSequence.compare(left, right) == 0;
+            }
+        };
+    }
+
+    /**
+     * Метод возвращает стратегию по equals ключей, которая перемешивает hashCode с зерном.
+     * Помогает ключам с плохо распределенным hashCode, например последовательным числам,
+     * но не ключам с одинаковым hashCode
+     *
+     * @param seed зерно хэш-функции
+     * @return стратегия
+     */
+    static HashStrategy<Object> seeded(long seed) {
+        return new HashStrategy<>() {
+            @Override
+            public int hash(Object key) {
+                long hash = Mixer.mix(key.hashCode() ^ seed ^ Mixer.SECRET1, seed ^ Mixer.SECRET2);
+                return (int) (hash ^ (hash >>> 32));
+            }
+
+            @Override
+            public boolean equivalent(Object left, Object right) {
+                return left.equals(right);
+            }
+        };
+    }
+
+    /**
+     * Перемешивание хэшей в стиле wyhash: произведение двух 64-битных чисел,
+     * старшая половина которого сложена по XOR с младшей
+     */
+    final class Mixer {
+        /**
+         * Константа wyhash, смешиваемая с зерном
+         */
+        private static final long SECRET0 = 0xa0761d6478bd642fL;
+        /**
+         * Константа wyhash, смешиваемая с данными ключа
+         */
+        private static final long SECRET1 = 0xe7037ed1a0b428dbL;
+        /**
+         * Константа wyhash, смешиваемая с накопленным хэшем
+         */
+        private static final long SECRET2 = 0x8ebc6af09c88c6e3L;
+        /**
+         * Константа wyhash для финального перемешивания
+         */
+        private static final long SECRET3 = 0x589965cc75374cc3L;
+        /**
+         * Чтение восьми байт массива как long в порядке little-endian
+         */
+        private static final VarHandle LONGS =
+                MethodHandles.byteArrayViewVarHandle(long[].class, ByteOrder.LITTLE_ENDIAN);
+
+        private Mixer() {
+        }
+
+        /**
+         * Метод перемешивает два числа
+         *
+         * @param left  первое число
+         * @param right второе число
+         * @return перемешанное значение
+         */
+        private static long mix(long left, long right) {
+            return Math.multiplyHigh(left, right) ^ (left * right);
+        }
+
+        /**
+         * Метод добавляет к хэшу хвост и длину и сворачивает результат в int
+         *
+         * @param hash   накопленный хэш
+         * @param tail   оставшиеся байты или символы
+         * @param length длина ключа
+         * @return хэш
+         */
+        private static int finish(long hash, long tail, int length) {
+            hash = mix(tail ^ SECRET1, hash ^ SECRET2);
+            hash = mix(hash ^ length, SECRET3);
+            return (int) (hash ^ (hash >>> 32));
+        }
+    }
+}
@@ -0,0 +1,49 @@
+package HashMap;
+
+/**
+ * Общие вычисления хэш-таблиц пакета: длина массива и хэш ключа по hashCode
+ */
+final class HashTables {
+    private HashTables() {
+    }
+
+    /**
+     * Метод возвращает ближайшую степень двойки, не меньшую заданной длины,
+     * в пределах от minimum до maximum
+     *
+     * @param length  желаемая длина массива
+     * @param minimum наименьшая длина, степень двойки
+     * @param maximum наибольшая длина, степень двойки
+     * @return длина массива
+     */
+    static int tableSizeFor(int length, int minimum, int maximum) {
+        if (length <= minimum) {
+            return minimum;
+        }
+        if (length >= maximum) {
+            return maximum;
+        }
+        return Integer.highestOneBit(length - 1) << 1;
+    }
+
+    /**
+     * Метод примешивает старшие 16 бит хэша к младшим, так как индекс корзины
+     * берется только из младших бит
+     *
+     * @param hash хэш-код
+     * @return перемешанный хэш
+     */
+    static int spread(int hash) {
+        return hash ^ (hash >>> 16);
+    }
+
+    /**
+     * Метод возвращает хэш ключа по его hashCode, для null - 0
+     *
+     * @param key ключ
+     * @return хэш ключа
+     */
+    static int hash(Object key) {
+        return key == null ? 0 : spread(key.hashCode());
+    }
+}
@@ -0,0 +1,15 @@
+package HashMap;
+
+/**
+ * Действие над парой int-ключа и int-значения без упаковки
+ */
+@FunctionalInterface
+public interface IntIntConsumer {
+    /**
+     * Метод выполняет действие над парой
+     *
+     * @param key   ключ
+     * @param value значение
+     */
+    void accept(int key, int value);
+}
@@ -0,0 +1,17 @@
+package HashMap;
+
+/**
+ * Действие над парой int-ключа и значения без упаковки ключа
+ *
+ * @param <V> тип значения
+ */
+@FunctionalInterface
+public interface IntObjectConsumer<V> {
+    /**
+     * Метод выполняет действие над парой
+     *
+     * @param key   ключ
+     * @param value значение
+     */
+    void accept(int key, V value);
+}
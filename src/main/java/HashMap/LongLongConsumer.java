@@ -0,0 +1,15 @@
+package HashMap;
+
+/**
+ * Действие над парой long-ключа и long-значения без упаковки
+ */
+@FunctionalInterface
+public interface LongLongConsumer {
+    /**
+     * Метод выполняет действие над парой
+     *
+     * @param key   ключ
+     * @param value значение
+     */
+    void accept(long key, long value);
+}
@@ -0,0 +1,93 @@
+package HashMap;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Интерфейс описывает преобразование ключей и значений в байты и обратно
+ * для мап, которые хранят данные вне кучи Java.
+ * Два ключа считаются равными, если равны их байтовые представления.
+ *
+ * @param <T> тип преобразуемых объектов
+ */
+public interface Serializer<T> {
+    /**
+     * Сериализатор строк в UTF-8
+     */
+    Serializer<String> STRING = new Serializer<>() {
+        @Override
+        public byte[] serialize(String value) {
+            return value.getBytes(StandardCharsets.UTF_8);
+        }
+
+        @Override
+        public String deserialize(ByteBuffer buffer, int offset, int length) {
+            byte[] bytes = new byte[length];
+            buffer.get(offset, bytes);
+            return new String(bytes, StandardCharsets.UTF_8);
+        }
+    };
+    /**
+     * Сериализатор Integer в 4 байта
+     */
+    Serializer<Integer> INTEGER = new Serializer<>() {
+        @Override
+        public byte[] serialize(Integer value) {
+            int number = value;
+            return new byte[]{(byte) (number >>> 24), (byte) (number >>> 16), (byte) (number >>> 8), (byte) number};
+        }
+
+        @Override
+        public Integer deserialize(ByteBuffer buffer, int offset, int length) {
+            return buffer.getInt(offset);
+        }
+    };
+    /**
+     * Сериализатор Long в 8 байт
+     */
+    Serializer<Long> LONG = new Serializer<>() {
+        @Override
+        public byte[] serialize(Long value) {
+            return ByteBuffer.allocate(Long.BYTES).putLong(value).array();
+        }
+
+        @Override
+        public Long deserialize(ByteBuffer buffer, int offset, int length) {
+            return buffer.getLong(offset);
+        }
+    };
+    /**
+     * Сериализатор массивов байт, записывает массив как есть
+     */
+    Serializer<byte[]> BYTES = new Serializer<>() {
+        @Override
+        public byte[] serialize(byte[] value) {
+            return value;
+        }
+
+        @Override
+        public byte[] deserialize(ByteBuffer buffer, int offset, int length) {
+            byte[] bytes = new byte[length];
+            buffer.get(offset, bytes);
+            return bytes;
+        }
+    };
+
+    /**
+     * Метод преобразует объект в байты
+     *
+     * @param value объект, не null
+     * @return байтовое представление
+     */
+    byte[] serialize(T value);
+
+    /**
+     * Метод восстанавливает объект из байт буфера. Позиция буфера не меняется
+     *
+     * @param buffer буфер
+     * @param offset смещение первого байта
+     * @param length количество байт
+     * @return восстановленный объект
+     */
+    T deserialize(ByteBuffer buffer, int offset, int length);
+}
@@ -0,0 +1,200 @@
+package HashMap;
+
+import java.util.function.Consumer;
+
+/**
+ * Класс описывает иерархическое колесо таймеров для истечения срока жизни элементов.
+ * Уровень i состоит из 64 корзин шириной 2^SHIFT[i] наносекунд и покрывает ширину одной корзины
+ * следующего уровня: примерно 16 мс, 1 с, 69 с, 73 мин и 3 дня. Последний уровень из одной корзины
+ * принимает все более далекие сроки. Узел попадает в корзину по своему сроку и хранится в ней
+ * двусвязным кольцом, поэтому планирование и отмена стоят O(1). При продвижении времени просматриваются
+ * только прошедшие корзины: истекшие узлы отдаются обработчику, остальные перекладываются
+ * на более низкий уровень. Стоимость продвижения пропорциональна количеству истекших узлов,
+ * а не размеру мапы.
+ *
+ * @param <K> тип ключа
+ * @param <V> тип значения
+ */
+final class TimerWheel<K, V> {
+    /**
+     * Количество корзин на каждом уровне, степени двойки
+     */
+    private static final int[] BUCKETS = {64, 64, 64, 64, 1};
+    /**
+     * Логарифм ширины корзины каждого уровня в наносекундах
+     */
+    private static final int[] SHIFT = {24, 30, 36, 42, 48};
+    /**
+     * Корзины: в каждой кольцо с узлом-стражем
+     */
+    private final CustomMap.LinkedNode<K, V>[][] wheel;
+    /**
+     * Время, до которого колесо продвинуто
+     */
+    private long nanos;
+
+    /**
+     * Конструктор колеса
+     *
+     * @param nanos начальное время
+     */
+    @SuppressWarnings({"rawtypes", "unchecked"})
+    TimerWheel(long nanos) {
+        this.nanos = nanos;
+        this.wheel = new CustomMap.LinkedNode[BUCKETS.length][];
+        for (int level = 0; level < BUCKETS.length; level++) {
+            wheel[level] = new CustomMap.LinkedNode[BUCKETS[level]];
+            for (int index = 0; index < BUCKETS[level]; index++) {
+                wheel[level][index] = newSentinel();
+            }
+        }
+    }
+
+    /**
+     * Метод планирует узел по его сроку expiresAt, снимая прежнее планирование
+     *
+     * @param node узел
+     */
+    void schedule(CustomMap.LinkedNode<K, V> node) {
+        deschedule(node);
+        linkLast(findBucket(node.expiresAt), node);
+    }
+
+    /**
+     * Метод снимает узел с колеса, если он запланирован
+     *
+     * @param node узел
+     */
+    void deschedule(CustomMap.LinkedNode<K, V> node) {
+        if (node.nextInWheel != null) {
+            node.previousInWheel.nextInWheel = node.nextInWheel;
+            node.nextInWheel.previousInWheel = node.previousInWheel;
+            node.previousInWheel = null;
+            node.nextInWheel = null;
+        }
+    }
+
+    /**
+     * Метод продвигает колесо до заданного времени и отдает обработчику истекшие узлы.
+     * К моменту вызова обработчика узел уже снят с колеса
+     *
+     * @param currentTime текущее время
+     * @param expire      обработчик истекших узлов
+     */
+    void advance(long currentTime, Consumer<CustomMap.LinkedNode<K, V>> expire) {
+        long previous = nanos;
+        if (currentTime <= previous) {
+            return;
+        }
+        nanos = currentTime;
+        for (int level = 0; level < SHIFT.length; level++) {
+            long previousTicks = previous >>> SHIFT[level];
+            long delta = (currentTime >>> SHIFT[level]) - previousTicks;
+            if (delta <= 0) {
+                break;
+            }
+            expire(level, previousTicks, delta, expire);
+        }
+    }
+
+    /**
+     * Метод очищает колесо
+     */
+    void clear() {
+        for (CustomMap.LinkedNode<K, V>[] buckets : wheel) {
+            for (CustomMap.LinkedNode<K, V> sentinel : buckets) {
+                CustomMap.LinkedNode<K, V> node = sentinel.nextInWheel;
+                while (node != sentinel) {
+                    CustomMap.LinkedNode<K, V> next = node.nextInWheel;
+                    node.previousInWheel = null;
+                    node.nextInWheel = null;
+                    node = next;
+                }
+                sentinel.previousInWheel = sentinel;
+                sentinel.nextInWheel = sentinel;
+            }
+        }
+    }
+
+    /**
+     * Метод обрабатывает корзины уровня, через которые прошло время.
+     * Содержимое корзины сначала переносится в отдельное кольцо: обработчик может заменять узлы
+     * (превращение дерева в цепочку), а перепланированный узел может вернуться в ту же корзину
+     *
+     * @param level         уровень
+     * @param previousTicks номер корзины, на которой колесо стояло
+     * @param delta         количество пройденных корзин
+     * @param expire        обработчик истекших узлов
+     */
+    private void expire(int level, long previousTicks, long delta, Consumer<CustomMap.LinkedNode<K, V>> expire) {
+        CustomMap.LinkedNode<K, V>[] buckets = wheel[level];
+        int mask = buckets.length - 1;
+        int steps = (int) Math.min(delta + 1, buckets.length);
+        int start = (int) (previousTicks & mask);
+        CustomMap.LinkedNode<K, V> pending = newSentinel();
+        for (int step = 0; step < steps; step++) {
+            CustomMap.LinkedNode<K, V> sentinel = buckets[(start + step) & mask];
+            if (sentinel.nextInWheel == sentinel) {
+                continue;
+            }
+            pending.nextInWheel = sentinel.nextInWheel;
+            pending.previousInWheel = sentinel.previousInWheel;
+            pending.nextInWheel.previousInWheel = pending;
+            pending.previousInWheel.nextInWheel = pending;
+            sentinel.nextInWheel = sentinel;
+            sentinel.previousInWheel = sentinel;
+            while (pending.nextInWheel != pending) {
+                CustomMap.LinkedNode<K, V> node = pending.nextInWheel;
+                deschedule(node);
+                if (node.expiresAt <= nanos) {
+                    expire.accept(node);
+                } else {
+                    linkLast(findBucket(node.expiresAt), node);
+                }
+            }
+        }
+    }
+
+    /**
+     * Метод находит корзину для заданного срока
+     *
+     * @param time срок
+     * @return страж корзины
+     */
+    private CustomMap.LinkedNode<K, V> findBucket(long time) {
+        long duration = time - nanos;
+        int last = BUCKETS.length - 1;
+        for (int level = 0; level < last; level++) {
+            if (duration < 1L << SHIFT[level + 1]) {
+                long ticks = time >>> SHIFT[level];
+                return wheel[level][(int) (ticks & (BUCKETS[level] - 1))];
+            }
+        }
+        return wheel[last][0];
+    }
+
+    /**
+     * Метод добавляет узел в конец кольца корзины
+     *
+     * @param sentinel страж корзины
+     * @param node     узел
+     */
+    private static <K, V> void linkLast(CustomMap.LinkedNode<K, V> sentinel, CustomMap.LinkedNode<K, V> node) {
+        node.previousInWheel = sentinel.previousInWheel;
+        node.nextInWheel = sentinel;
+        sentinel.previousInWheel.nextInWheel = node;
+        sentinel.previousInWheel = node;
+    }
+
+    /**
+     * Метод создает стража пустой корзины
+     *
+     * @return страж
+     */
+    private static <K, V> CustomMap.LinkedNode<K, V> newSentinel() {
+        CustomMap.LinkedNode<K, V> sentinel = new CustomMap.LinkedNode<>(null, null, 0, null);
+        sentinel.previousInWheel = sentinel;
+        sentinel.nextInWheel = sentinel;
+        return sentinel;
+    }
+}
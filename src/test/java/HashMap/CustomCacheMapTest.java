@@ -0,0 +1,260 @@
+package HashMap;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+class CustomCacheMapTest extends MapContractTest {
+    @Override
+    protected <K, V> Map<K, V> createMap() {
+        return new CustomCacheMap<>(Long.MAX_VALUE);
+    }
+
+    private record BadHashKey(int id) implements Comparable<BadHashKey> {
+        @Override
+        public int hashCode() {
+            return id % 8;
+        }
+
+        @Override
+        public int compareTo(BadHashKey other) {
+            return Integer.compare(id, other.id);
+        }
+    }
+
+    @Test
+    void lruTestEvictsLeastRecentlyUsed() {
+        CustomCacheMap<String, Integer> cache = new CustomCacheMap<>(3);
+        List<String> evicted = new ArrayList<>();
+        cache.addEvictionListener((key, value) -> evicted.add(key));
+        cache.put("a", 1);
+        cache.put("b", 2);
+        cache.put("c", 3);
+        cache.get("a");
+        cache.put("d", 4);
+        Assertions.assertEquals(List.of("b"), evicted);
+        cache.put("c", 30);
+        cache.put("e", 5);
+        Assertions.assertEquals(List.of("b", "a"), evicted);
+        Assertions.assertEquals(3, cache.size());
+        Assertions.assertEquals(2, cache.getEvictionCount());
+        Assertions.assertEquals(1, cache.getHitCount());
+        Assertions.assertNull(cache.get("b"));
+        Assertions.assertEquals(1, cache.getMissCount());
+        Assertions.assertEquals(0.5, cache.hitRate());
+    }
+
+    @Test
+    void lruTestMatchesAccessOrderedLinkedHashMap() {
+        int maximumSize = 100;
+        CustomCacheMap<BadHashKey, Integer> cache = new CustomCacheMap<>(maximumSize);
+        Map<BadHashKey, Integer> model = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<BadHashKey, Integer> eldest) {
+                return size() > maximumSize;
+            }
+        };
+        Random random = new Random(12);
+        for (int step = 0; step < 50_000; step++) {
+            BadHashKey key = new BadHashKey(random.nextInt(300));
+            int operation = random.nextInt(10);
+            if (operation < 5) {
+                cache.put(key, step);
+                model.put(key, step);
+            } else if (operation < 9) {
+                Assertions.assertEquals(model.get(key), cache.get(key));
+            } else {
+                Assertions.assertEquals(model.remove(key), cache.remove(key));
+            }
+            Assertions.assertEquals(model.size(), cache.size());
+            Assertions.assertEquals(model.size(), cache.weightedSize());
+        }
+        Assertions.assertEquals(model, cache);
+    }
+
+    @Test
+    void bulkTestGoesThroughPolicy() {
+        CustomCacheMap<String, Integer> cache = new CustomCacheMap<>(2);
+        cache.putAll(new LinkedHashMap<>(Map.of("a", 1)));
+        cache.putAll(new LinkedHashMap<>(Map.of("b", 2)));
+        Assertions.assertEquals(Map.of("a", 1), cache.getAll(List.of("a", "x")));
+        cache.put("c", 3);
+        Assertions.assertFalse(cache.containsKey("b"));
+        Assertions.assertEquals(1, cache.getHitCount());
+        Assertions.assertEquals(1, cache.getMissCount());
+        Assertions.assertEquals(2, cache.removeAll(List.of("a", "c")));
+        Assertions.assertTrue(cache.isEmpty());
+    }
+
+    @Test
+    void computeTestGoesThroughPolicy() {
+        long[] time = {0};
+        CustomCacheMap<String, Integer> cache = new CustomCacheMap<String, Integer>(2)
+                .clock(() -> time[0])
+                .expireAfterWrite(10, TimeUnit.SECONDS);
+        Assertions.assertEquals(1, cache.merge("a", 1, Integer::sum));
+        Assertions.assertEquals(1, cache.computeIfAbsent("b", key -> 1));
+        Assertions.assertEquals(2, cache.merge("a", 1, Integer::sum));
+        cache.put("c", 1);
+        Assertions.assertFalse(cache.containsKey("b"));
+        Assertions.assertEquals(-1, cache.getOrDefault("b", -1));
+        time[0] = TimeUnit.SECONDS.toNanos(10);
+        Assertions.assertEquals(1, cache.merge("a", 1, Integer::sum));
+        Assertions.assertNull(cache.replace("c", 5));
+        Assertions.assertEquals(1, cache.size());
+    }
+
+    @Test
+    void weightTestEvictsByWeight() {
+        CustomCacheMap<String, String> cache = new CustomCacheMap<>(10,
+                (key, value) -> value.length(), CustomCacheMap.Policy.LRU);
+        cache.put("a", "12345");
+        cache.put("b", "1234");
+        Assertions.assertEquals(9, cache.weightedSize());
+        cache.put("c", "12");
+        Assertions.assertFalse(cache.containsKey("a"));
+        Assertions.assertEquals(6, cache.weightedSize());
+        cache.put("b", "1");
+        Assertions.assertEquals(3, cache.weightedSize());
+        cache.put("huge", "12345678901");
+        Assertions.assertFalse(cache.containsKey("huge"));
+        Assertions.assertEquals(2, cache.size());
+    }
+
+    @Test
+    void tinyLfuTestKeepsPopularKeysThroughScan() {
+        CustomCacheMap<Integer, Integer> lru = new CustomCacheMap<>(100, CustomCacheMap.Policy.LRU);
+        CustomCacheMap<Integer, Integer> tinyLfu = new CustomCacheMap<>(100, CustomCacheMap.Policy.W_TINY_LFU);
+        for (CustomCacheMap<Integer, Integer> cache : List.of(lru, tinyLfu)) {
+            for (int key = 0; key < 50; key++) {
+                cache.put(key, key);
+                cache.get(key);
+            }
+            for (int key = 1000; key < 11_000; key += 2) {
+                cache.put(key, key);
+                cache.put(key + 1, key + 1);
+                int popular = (key / 2) % 50;
+                if (cache.get(popular) == null) {
+                    cache.put(popular, popular);
+                }
+            }
+            Assertions.assertTrue(cache.size() <= 100);
+        }
+        Assertions.assertTrue(tinyLfu.hitRate() > 0.99, "W-TinyLFU hit rate " + tinyLfu.hitRate());
+        Assertions.assertTrue(lru.hitRate() < 0.1, "LRU hit rate " + lru.hitRate());
+    }
+
+    @Test
+    void tinyLfuTestHigherHitRateThanLruOnSkewedKeys() {
+        CustomCacheMap<Integer, Integer> lru = new CustomCacheMap<>(500, CustomCacheMap.Policy.LRU);
+        CustomCacheMap<Integer, Integer> tinyLfu = new CustomCacheMap<>(500, CustomCacheMap.Policy.W_TINY_LFU);
+        Random random = new Random(3);
+        double[] cumulative = zipf(50_000, 1.0);
+        for (int step = 0; step < 200_000; step++) {
+            int key = step % 10 == 0 ? 1_000_000 + step : sample(cumulative, random.nextDouble());
+            for (CustomCacheMap<Integer, Integer> cache : List.of(lru, tinyLfu)) {
+                if (cache.get(key) == null) {
+                    cache.put(key, key);
+                }
+            }
+        }
+        Assertions.assertTrue(tinyLfu.hitRate() > lru.hitRate(),
+                "W-TinyLFU " + tinyLfu.hitRate() + " vs LRU " + lru.hitRate());
+        Assertions.assertTrue(tinyLfu.size() <= 500);
+    }
+
+    @Test
+    void expireTestAfterWrite() {
+        long[] time = {0};
+        CustomCacheMap<String, String> cache = new CustomCacheMap<String, String>(Long.MAX_VALUE)
+                .clock(() -> time[0])
+                .expireAfterWrite(10, TimeUnit.SECONDS);
+        cache.put("a", "1");
+        time[0] = TimeUnit.SECONDS.toNanos(5);
+        Assertions.assertEquals("1", cache.get("a"));
+        cache.put("b", "2");
+        time[0] = TimeUnit.SECONDS.toNanos(10);
+        Assertions.assertNull(cache.get("a"));
+        Assertions.assertTrue(cache.containsKey("b"));
+        time[0] = TimeUnit.SECONDS.toNanos(16);
+        cache.cleanUp();
+        Assertions.assertTrue(cache.isEmpty());
+        Assertions.assertEquals(2, cache.getExpirationCount());
+    }
+
+    @Test
+    void expireTestAfterAccessAndPerEntryTtl() {
+        long[] time = {0};
+        CustomCacheMap<String, String> cache = new CustomCacheMap<String, String>(Long.MAX_VALUE)
+                .clock(() -> time[0])
+                .expireAfterAccess(1, TimeUnit.MINUTES);
+        List<String> removed = new ArrayList<>();
+        cache.addEvictionListener((key, value) -> removed.add(key));
+        cache.put("session", "s");
+        cache.put("token", "t", 5, TimeUnit.SECONDS);
+        for (int second = 30; second <= 300; second += 30) {
+            time[0] = TimeUnit.SECONDS.toNanos(second);
+            Assertions.assertEquals("s", cache.get("session"));
+        }
+        Assertions.assertFalse(cache.containsKey("token"));
+        time[0] += TimeUnit.SECONDS.toNanos(61);
+        cache.cleanUp();
+        Assertions.assertEquals(List.of("token", "session"), removed);
+        Assertions.assertEquals(0, cache.size());
+    }
+
+    @Test
+    void expireTestMatchesModelWithTreeBins() {
+        long[] time = {0};
+        CustomCacheMap<BadHashKey, Integer> cache = new CustomCacheMap<BadHashKey, Integer>(Long.MAX_VALUE)
+                .clock(() -> time[0]);
+        Map<BadHashKey, Long> expiries = new HashMap<>();
+        Random random = new Random(8);
+        for (int step = 0; step < 30_000; step++) {
+            time[0] += random.nextInt(1_000_000);
+            BadHashKey key = new BadHashKey(random.nextInt(400));
+            int operation = random.nextInt(10);
+            if (operation < 4) {
+                long ttl = random.nextInt(2_000_000_000);
+                cache.put(key, step, ttl, TimeUnit.NANOSECONDS);
+                expiries.put(key, time[0] + ttl);
+            } else if (operation < 9) {
+                Long expiresAt = expiries.get(key);
+                boolean live = expiresAt != null && expiresAt > time[0];
+                Assertions.assertEquals(live, cache.get(key) != null);
+            } else {
+                cache.remove(key);
+                expiries.remove(key);
+            }
+        }
+        time[0] += TimeUnit.SECONDS.toNanos(3);
+        cache.cleanUp();
+        Assertions.assertTrue(cache.isEmpty());
+    }
+
+    private static double[] zipf(int keys, double exponent) {
+        double[] cumulative = new double[keys];
+        double sum = 0;
+        for (int rank = 0; rank < keys; rank++) {
+            sum += 1 / Math.pow(rank + 1, exponent);
+            cumulative[rank] = sum;
+        }
+        for (int rank = 0; rank < keys; rank++) {
+            cumulative[rank] /= sum;
+        }
+        return cumulative;
+    }
+
+    private static int sample(double[] cumulative, double point) {
+        int index = Arrays.binarySearch(cumulative, point);
+        return index >= 0 ? index : -index - 1;
+    }
+}
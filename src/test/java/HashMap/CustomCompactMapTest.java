@@ -0,0 +1,74 @@
+package HashMap;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Random;
+
+class CustomCompactMapTest extends MapContractTest {
+    @Override
+    protected <K, V> Map<K, V> createMap() {
+        return new CustomCompactMap<>();
+    }
+
+    @Test
+    void slotTestReusesFreedSlots() {
+        CustomCompactMap<Integer, Integer> customMap = new CustomCompactMap<>();
+        Map<Integer, Integer> expected = new HashMap<>();
+        Random random = new Random(11);
+        for (int i = 0; i < 200_000; i++) {
+            int key = random.nextInt(5_000);
+            if (random.nextBoolean()) {
+                customMap.put(key, i);
+                expected.put(key, i);
+            } else {
+                Assertions.assertEquals(expected.remove(key), customMap.remove(key));
+            }
+        }
+        Assertions.assertEquals(expected, customMap);
+        long footprint = customMap.memoryFootprint();
+        for (int i = 0; i < 100_000; i++) {
+            customMap.put(-1 - i % 100, i);
+            customMap.remove(-1 - i % 100);
+        }
+        Assertions.assertEquals(footprint, customMap.memoryFootprint());
+        Assertions.assertEquals(expected, customMap);
+    }
+
+    @Test
+    void clearTestKeepsCapacity() {
+        CustomCompactMap<String, Integer> customMap = new CustomCompactMap<>();
+        for (int i = 0; i < 10_000; i++) {
+            customMap.put("key " + i, i);
+        }
+        int capacity = customMap.capacity();
+        long footprint = customMap.memoryFootprint();
+        Assertions.assertTrue(footprint < 28L * 10_000);
+        customMap.clear();
+        Assertions.assertTrue(customMap.isEmpty());
+        Assertions.assertNull(customMap.get("key 1"));
+        Assertions.assertFalse(customMap.values().iterator().hasNext());
+        for (int i = 0; i < 10_000; i++) {
+            customMap.put("key " + i, -i);
+        }
+        customMap.put(null, 0);
+        Assertions.assertEquals(capacity, customMap.capacity());
+        Assertions.assertEquals(-5, customMap.get("key 5"));
+        Assertions.assertEquals(0, customMap.get(null));
+        Iterator<Map.Entry<String, Integer>> iterator = customMap.entrySet().iterator();
+        while (iterator.hasNext()) {
+            Map.Entry<String, Integer> entry = iterator.next();
+            if (entry.getValue() % 2 == 0) {
+                iterator.remove();
+            } else {
+                entry.setValue(1);
+            }
+        }
+        Assertions.assertEquals(5_000, customMap.size());
+        Assertions.assertEquals(1, customMap.get("key 3"));
+        Assertions.assertFalse(customMap.containsKey(null));
+    }
+}
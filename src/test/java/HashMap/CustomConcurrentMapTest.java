@@ -0,0 +1,221 @@
+package HashMap;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+class CustomConcurrentMapTest {
+    private static final int THREADS = 8;
+
+    @Test
+    void putTestGetRemoveAndResize() {
+        CustomConcurrentMap<Integer, String> customMap = new CustomConcurrentMap<>(2);
+        for (int i = 0; i < 1000; i++) {
+            customMap.put(i, "value " + i);
+        }
+        Assertions.assertEquals(1000, customMap.size());
+        Assertions.assertTrue(customMap.capacity() >= 1024);
+        Assertions.assertEquals("value 999", customMap.get(999));
+        Assertions.assertEquals("value 5", customMap.remove(5));
+        Assertions.assertNull(customMap.get(5));
+        Assertions.assertEquals(999, customMap.size());
+        customMap.clear();
+        Assertions.assertTrue(customMap.isEmpty());
+    }
+
+    @Test
+    void putTestNullsRejected() {
+        CustomConcurrentMap<String, String> customMap = new CustomConcurrentMap<>();
+        Assertions.assertThrows(NullPointerException.class, () -> customMap.put(null, "value"));
+        Assertions.assertThrows(NullPointerException.class, () -> customMap.put("key", null));
+        Assertions.assertThrows(NullPointerException.class, () -> customMap.get(null));
+    }
+
+    @Test
+    void atomicTestConditionalOperations() {
+        CustomConcurrentMap<String, Integer> customMap = new CustomConcurrentMap<>();
+        Assertions.assertNull(customMap.putIfAbsent("a", 1));
+        Assertions.assertEquals(1, customMap.putIfAbsent("a", 2));
+        Assertions.assertFalse(customMap.replace("a", 2, 3));
+        Assertions.assertTrue(customMap.replace("a", 1, 3));
+        Assertions.assertEquals(3, customMap.replace("a", 4));
+        Assertions.assertFalse(customMap.remove("a", 3));
+        Assertions.assertTrue(customMap.remove("a", 4));
+        Assertions.assertEquals(5, customMap.computeIfAbsent("b", key -> 5));
+        Assertions.assertEquals(5, customMap.computeIfAbsent("b", key -> 6));
+        Assertions.assertEquals(7, customMap.merge("b", 2, Integer::sum));
+        Assertions.assertNull(customMap.computeIfPresent("b", (key, value) -> null));
+        Assertions.assertNull(customMap.compute("c", (key, value) -> null));
+        Assertions.assertTrue(customMap.isEmpty());
+    }
+
+    @Test
+    void computeIfAbsentTestHitDoesNotLockBin() {
+        CustomConcurrentMap<String, Integer> customMap = new CustomConcurrentMap<>();
+        customMap.put("a", 1);
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            customMap.compute("a", (key, value) -> {
+                Future<Integer> hit = executor.submit(() -> customMap.computeIfAbsent("a", k -> 2));
+                return Assertions.assertDoesNotThrow(() -> hit.get(5, TimeUnit.SECONDS)) + 1;
+            });
+        } finally {
+            executor.shutdownNow();
+        }
+        Assertions.assertEquals(2, customMap.get("a"));
+    }
+
+    @Test
+    void concurrentTestDisjointPuts() throws Exception {
+        CustomConcurrentMap<Integer, Integer> customMap = new CustomConcurrentMap<>(1);
+        int perThread = 20_000;
+        runConcurrently(thread -> {
+            for (int i = 0; i < perThread; i++) {
+                int key = thread * perThread + i;
+                customMap.put(key, key);
+            }
+        });
+        Assertions.assertEquals(THREADS * perThread, customMap.size());
+        for (int key = 0; key < THREADS * perThread; key++) {
+            Assertions.assertEquals(key, customMap.get(key));
+        }
+        Assertions.assertEquals(THREADS * perThread, customMap.entrySet().stream().count());
+    }
+
+    @Test
+    void concurrentTestRepeatedResizes() throws Exception {
+        int perThread = 500;
+        for (int round = 0; round < 200; round++) {
+            CustomConcurrentMap<Integer, Integer> customMap = new CustomConcurrentMap<>(1);
+            runConcurrently(thread -> {
+                for (int i = 0; i < perThread; i++) {
+                    int key = thread * perThread + i;
+                    customMap.put(key, key);
+                }
+            });
+            Assertions.assertEquals(THREADS * perThread, customMap.size());
+            for (int key = 0; key < THREADS * perThread; key++) {
+                Assertions.assertEquals(key, customMap.get(key));
+            }
+        }
+    }
+
+    @Test
+    void concurrentTestMergeCounters() throws Exception {
+        CustomConcurrentMap<Integer, Integer> customMap = new CustomConcurrentMap<>();
+        int increments = 10_000;
+        runConcurrently(thread -> {
+            for (int i = 0; i < increments; i++) {
+                customMap.merge(i % 100, 1, Integer::sum);
+            }
+        });
+        Assertions.assertEquals(100, customMap.size());
+        for (int key = 0; key < 100; key++) {
+            Assertions.assertEquals(THREADS * increments / 100, customMap.get(key));
+        }
+    }
+
+    @Test
+    void concurrentTestPutIfAbsentSingleWinner() throws Exception {
+        CustomConcurrentMap<Integer, Integer> customMap = new CustomConcurrentMap<>();
+        CustomConcurrentMap<Integer, Integer> winners = new CustomConcurrentMap<>();
+        runConcurrently(thread -> {
+            for (int key = 0; key < 5_000; key++) {
+                if (customMap.putIfAbsent(key, thread) == null) {
+                    winners.merge(key, 1, Integer::sum);
+                }
+            }
+        });
+        Assertions.assertEquals(5_000, winners.size());
+        for (Integer wins : winners.values()) {
+            Assertions.assertEquals(1, wins);
+        }
+    }
+
+    @Test
+    void iteratorTestDuringConcurrentResize() throws Exception {
+        CustomConcurrentMap<Integer, Integer> customMap = new CustomConcurrentMap<>(1);
+        for (int key = 0; key < 1000; key++) {
+            customMap.put(-key - 1, key);
+        }
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            Future<?> writer = executor.submit(() -> {
+                for (int key = 0; key < 100_000; key++) {
+                    customMap.put(key, key);
+                }
+            });
+            while (!writer.isDone()) {
+                Set<Integer> seen = new HashSet<>();
+                for (Integer key : customMap.keySet()) {
+                    Assertions.assertTrue(seen.add(key), "duplicate key " + key);
+                }
+                for (int key = -1000; key < 0; key++) {
+                    Assertions.assertTrue(seen.contains(key), "missing key " + key);
+                }
+            }
+            writer.get();
+        } finally {
+            executor.shutdownNow();
+        }
+        Assertions.assertEquals(101_000, customMap.size());
+    }
+
+    @Test
+    void iteratorTestRemoveAndEntrySetValue() {
+        CustomConcurrentMap<Integer, String> customMap = new CustomConcurrentMap<>();
+        for (int i = 0; i < 10; i++) {
+            customMap.put(i, "value " + i);
+        }
+        Iterator<Map.Entry<Integer, String>> iterator = customMap.entrySet().iterator();
+        while (iterator.hasNext()) {
+            Map.Entry<Integer, String> entry = iterator.next();
+            if (entry.getKey() % 2 == 0) {
+                iterator.remove();
+            } else {
+                entry.setValue("odd");
+            }
+        }
+        Assertions.assertEquals(5, customMap.size());
+        Assertions.assertEquals("odd", customMap.get(3));
+        Assertions.assertFalse(customMap.containsKey(4));
+        Assertions.assertTrue(customMap.containsValue("odd"));
+    }
+
+    private interface ThreadBody {
+        void run(int thread) throws Exception;
+    }
+
+    private static void runConcurrently(ThreadBody body) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int thread = 0; thread < THREADS; thread++) {
+                int id = thread;
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    body.run(id);
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> future : futures) {
+                future.get(60, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,172 @@
+package HashMap;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.stream.Stream;
+
+class CustomDurableMapTest {
+    @TempDir
+    Path directory;
+
+    private CustomDurableMap<String, String> open(CustomDurableMap.SyncPolicy policy) throws IOException {
+        return CustomDurableMap.open(directory, Serializer.STRING, Serializer.STRING, policy);
+    }
+
+    private List<Path> files(String prefix) throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(path -> path.getFileName().toString().startsWith(prefix)).toList();
+        }
+    }
+
+    @Test
+    void recoveryTestReplaysLog() throws IOException {
+        try (CustomDurableMap<String, String> map = open(CustomDurableMap.SyncPolicy.ALWAYS)) {
+            for (int i = 0; i < 1000; i++) {
+                map.put("key " + i, "value " + i);
+            }
+            map.put("null", null);
+            map.remove("key 1");
+            map.putAll(Map.of("key 2", "two", "extra", "x"));
+            Iterator<String> iterator = map.keySet().iterator();
+            while (iterator.hasNext()) {
+                if (iterator.next().endsWith("7")) {
+                    iterator.remove();
+                }
+            }
+        }
+        try (CustomDurableMap<String, String> map = open(CustomDurableMap.SyncPolicy.OS)) {
+            Assertions.assertEquals(901, map.size());
+            Assertions.assertNull(map.get("key 1"));
+            Assertions.assertNull(map.get("key 17"));
+            Assertions.assertEquals("two", map.get("key 2"));
+            Assertions.assertTrue(map.containsKey("null"));
+            Assertions.assertEquals("value 999", map.get("key 999"));
+            map.clear();
+            map.put("after", "clear");
+        }
+        try (CustomDurableMap<String, String> map = open(CustomDurableMap.SyncPolicy.every(5))) {
+            Assertions.assertEquals(Map.of("after", "clear"), new HashMap<>(map));
+            Assertions.assertThrows(NullPointerException.class, () -> map.put(null, "value"));
+        }
+    }
+
+    @Test
+    void recoveryTestReplaysComputedValues() throws IOException {
+        try (CustomDurableMap<String, String> map = open(CustomDurableMap.SyncPolicy.ALWAYS)) {
+            map.merge("a", "1", String::concat);
+            map.merge("a", "2", String::concat);
+            map.computeIfAbsent("b", key -> "b");
+            map.compute("c", (key, value) -> "c");
+            map.computeIfPresent("c", (key, value) -> null);
+            map.putIfAbsent("d", "d");
+            map.replace("d", "D");
+            Assertions.assertFalse(map.replace("d", "d", "x"));
+        }
+        try (CustomDurableMap<String, String> map = open(CustomDurableMap.SyncPolicy.OS)) {
+            Assertions.assertEquals(Map.of("a", "12", "b", "b", "d", "D"), new HashMap<>(map));
+            Assertions.assertEquals("none", map.getOrDefault("c", "none"));
+        }
+    }
+
+    @Test
+    void recoveryTestDropsTornTail() throws IOException {
+        CustomDurableMap<String, String> crashed = open(CustomDurableMap.SyncPolicy.OS);
+        crashed.put("a", "1");
+        crashed.put("b", "2");
+        Path segment = files("wal-").get(0);
+        long valid = Files.size(segment);
+        Files.write(segment, new byte[]{0, 0, 0, 40, 1, 2, 3}, StandardOpenOption.APPEND);
+        try (CustomDurableMap<String, String> map = open(CustomDurableMap.SyncPolicy.ALWAYS)) {
+            Assertions.assertEquals(Map.of("a", "1", "b", "2"), new HashMap<>(map));
+            Assertions.assertEquals(valid, Files.size(segment));
+            map.put("c", "3");
+        }
+        try (CustomDurableMap<String, String> map = open(CustomDurableMap.SyncPolicy.ALWAYS)) {
+            Assertions.assertEquals(3, map.size());
+        }
+        crashed.close();
+        Assertions.assertThrows(IllegalStateException.class, () -> crashed.put("d", "4"));
+        Iterator<String> iterator = crashed.keySet().iterator();
+        iterator.next();
+        Assertions.assertThrows(IllegalStateException.class, iterator::remove);
+        Assertions.assertThrows(IllegalStateException.class, () -> crashed.entrySet().removeIf(entry -> true));
+    }
+
+    @Test
+    void recoveryTestDropsOversizedLength() throws IOException {
+        try (CustomDurableMap<String, String> map = open(CustomDurableMap.SyncPolicy.ALWAYS)) {
+            map.put("a", "1");
+        }
+        Path segment = files("wal-").get(0);
+        long valid = Files.size(segment);
+        Files.write(segment, new byte[]{0x7f, (byte) 0xff, (byte) 0xff, (byte) 0xf0, 1, 2, 3, 4, 5},
+                StandardOpenOption.APPEND);
+        try (CustomDurableMap<String, String> map = open(CustomDurableMap.SyncPolicy.ALWAYS)) {
+            Assertions.assertEquals(Map.of("a", "1"), new HashMap<>(map));
+            Assertions.assertEquals(valid, Files.size(segment));
+        }
+    }
+
+    @Test
+    void compactionTestFoldsLogIntoSnapshot() throws IOException {
+        Map<String, String> model = new HashMap<>();
+        Random random = new Random(5);
+        try (CustomDurableMap<String, String> map = CustomDurableMap.open(directory, Serializer.STRING,
+                Serializer.STRING, CustomDurableMap.SyncPolicy.OS, 16 << 10)) {
+            for (int step = 0; step < 20_000; step++) {
+                String key = "key " + random.nextInt(2000);
+                if (random.nextInt(4) == 0) {
+                    map.remove(key);
+                    model.remove(key);
+                } else {
+                    map.put(key, "value " + step);
+                    model.put(key, "value " + step);
+                }
+            }
+            map.compact();
+            Assertions.assertEquals(1, files("snapshot-").size());
+            Assertions.assertEquals(1, files("wal-").size());
+            map.put("last", "write");
+            model.put("last", "write");
+        }
+        try (CustomDurableMap<String, String> map = open(CustomDurableMap.SyncPolicy.OS)) {
+            Assertions.assertEquals(model, new HashMap<>(map));
+        }
+    }
+
+    @Test
+    void groupCommitTestConcurrentWriters() throws Exception {
+        try (CustomDurableMap<String, String> map = open(CustomDurableMap.SyncPolicy.ALWAYS)) {
+            List<Thread> threads = new ArrayList<>();
+            for (int thread = 0; thread < 8; thread++) {
+                int id = thread;
+                threads.add(new Thread(() -> {
+                    for (int i = 0; i < 200; i++) {
+                        map.put(id + ":" + i, "value");
+                    }
+                }));
+            }
+            threads.forEach(Thread::start);
+            for (Thread thread : threads) {
+                thread.join();
+            }
+            Assertions.assertEquals(1600, map.size());
+        }
+        try (CustomDurableMap<String, String> map = open(CustomDurableMap.SyncPolicy.ALWAYS)) {
+            Assertions.assertEquals(1600, map.size());
+            Assertions.assertEquals("value", map.get("7:199"));
+        }
+    }
+}
@@ -0,0 +1,72 @@
+package HashMap;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+
+class CustomFrozenMapTest {
+    private record SameHashKey(int id) {
+        @Override
+        public int hashCode() {
+            return id % 3;
+        }
+    }
+
+    @Test
+    void freezeTestLookups() {
+        CustomMap<Integer, String> customMap = new CustomMap<>();
+        for (int i = 0; i < 200_000; i++) {
+            customMap.put(i, "value " + i);
+        }
+        CustomFrozenMap<Integer, String> frozen = customMap.freeze();
+        Assertions.assertEquals(200_000, frozen.size());
+        for (int i = 0; i < 200_000; i++) {
+            Assertions.assertEquals("value " + i, frozen.get(i));
+        }
+        for (int i = 200_000; i < 210_000; i++) {
+            Assertions.assertNull(frozen.get(i));
+            Assertions.assertFalse(frozen.containsKey(i));
+        }
+        Assertions.assertNull(frozen.get("not an integer"));
+        Assertions.assertEquals(frozen, customMap);
+        Assertions.assertTrue(frozen.memoryFootprint() < 12L * 200_000);
+        Assertions.assertSame(frozen, CustomFrozenMap.copyOf(frozen));
+    }
+
+    @Test
+    void freezeTestCollidingHashesAndNulls() {
+        Map<Object, Object> source = new HashMap<>();
+        for (int i = 0; i < 100; i++) {
+            source.put(new SameHashKey(i), i);
+        }
+        for (int i = 0; i < 1000; i++) {
+            source.put("key " + i, i % 10 == 0 ? null : i);
+        }
+        source.put(null, "null key");
+        CustomFrozenMap<Object, Object> frozen = CustomFrozenMap.copyOf(source);
+        Assertions.assertEquals(source.size(), frozen.size());
+        Assertions.assertEquals(source, new HashMap<>(frozen));
+        Assertions.assertEquals(42, frozen.get(new SameHashKey(42)));
+        Assertions.assertNull(frozen.get(new SameHashKey(100)));
+        Assertions.assertTrue(frozen.containsKey("key 10"));
+        Assertions.assertNull(frozen.get("key 10"));
+        Assertions.assertEquals("null key", frozen.get(null));
+    }
+
+    @Test
+    void freezeTestImmutableAndEmpty() {
+        CustomFrozenMap<String, String> frozen = CustomFrozenMap.copyOf(Map.of("a", "1"));
+        Assertions.assertThrows(UnsupportedOperationException.class, () -> frozen.put("b", "2"));
+        Assertions.assertThrows(UnsupportedOperationException.class, () -> frozen.remove("a"));
+        Iterator<Map.Entry<String, String>> iterator = frozen.entrySet().iterator();
+        Assertions.assertThrows(UnsupportedOperationException.class, () -> iterator.next().setValue("2"));
+        Assertions.assertThrows(UnsupportedOperationException.class, iterator::remove);
+        CustomFrozenMap<String, String> empty = new CustomMap<String, String>().freeze();
+        Assertions.assertTrue(empty.isEmpty());
+        Assertions.assertNull(empty.get("a"));
+        Assertions.assertFalse(empty.entrySet().iterator().hasNext());
+    }
+}
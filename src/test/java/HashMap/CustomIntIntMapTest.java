@@ -0,0 +1,95 @@
+package HashMap;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Random;
+
+class CustomIntIntMapTest {
+    @Test
+    void putTestGetAndOverwrite() {
+        CustomIntIntMap customMap = new CustomIntIntMap();
+        Assertions.assertEquals(0, customMap.put(1, 200));
+        Assertions.assertEquals(200, customMap.put(1, 300));
+        customMap.put(2, 2200);
+        Assertions.assertEquals(2, customMap.size());
+        Assertions.assertEquals(300, customMap.get(1));
+        Assertions.assertEquals(2200, customMap.get(2));
+        Assertions.assertEquals(0, customMap.get(3));
+        Assertions.assertEquals(-1, customMap.getOrDefault(3, -1));
+    }
+
+    @Test
+    void putTestZeroKeyAndNoEntryValue() {
+        CustomIntIntMap customMap = new CustomIntIntMap(16, 0.75f, -1);
+        Assertions.assertFalse(customMap.containsKey(0));
+        Assertions.assertEquals(-1, customMap.get(0));
+        customMap.put(0, 5);
+        Assertions.assertTrue(customMap.containsKey(0));
+        Assertions.assertEquals(5, customMap.get(0));
+        Assertions.assertEquals(1, customMap.size());
+        Assertions.assertEquals(5, customMap.remove(0));
+        Assertions.assertEquals(-1, customMap.remove(0));
+        Assertions.assertTrue(customMap.isEmpty());
+    }
+
+    @Test
+    void removeTestRandomAgainstHashMap() {
+        CustomIntIntMap customMap = new CustomIntIntMap();
+        Map<Integer, Integer> expected = new HashMap<>();
+        Random random = new Random(11);
+        for (int i = 0; i < 200_000; i++) {
+            int key = random.nextInt(4_000) - 2_000;
+            if (random.nextInt(3) > 0) {
+                customMap.put(key, i);
+                expected.put(key, i);
+            } else {
+                Integer removed = expected.remove(key);
+                Assertions.assertEquals(removed == null ? 0 : removed, customMap.remove(key));
+            }
+        }
+        Assertions.assertEquals(expected, customMap.asMap());
+    }
+
+    @Test
+    void forEachTestSum() {
+        CustomIntIntMap customMap = new CustomIntIntMap();
+        for (int i = 0; i < 1000; i++) {
+            customMap.put(i, i * 2);
+        }
+        long[] sums = new long[2];
+        customMap.forEach((key, value) -> {
+            sums[0] += key;
+            sums[1] += value;
+        });
+        Assertions.assertEquals(999 * 1000 / 2, sums[0]);
+        Assertions.assertEquals(999 * 1000, sums[1]);
+    }
+
+    @Test
+    void asMapTestLiveView() {
+        CustomIntIntMap customMap = new CustomIntIntMap();
+        Map<Integer, Integer> view = customMap.asMap();
+        Assertions.assertNull(view.put(0, 1));
+        Assertions.assertEquals(1, view.put(0, 2));
+        view.put(7, 70);
+        Assertions.assertEquals(70, customMap.get(7));
+        Assertions.assertNull(view.get(8));
+        Assertions.assertNull(view.get("7"));
+        Iterator<Map.Entry<Integer, Integer>> iterator = view.entrySet().iterator();
+        while (iterator.hasNext()) {
+            Map.Entry<Integer, Integer> entry = iterator.next();
+            if (entry.getKey() == 0) {
+                iterator.remove();
+            } else {
+                entry.setValue(71);
+            }
+        }
+        Assertions.assertFalse(customMap.containsKey(0));
+        Assertions.assertEquals(71, customMap.get(7));
+        Assertions.assertEquals(1, view.size());
+    }
+}
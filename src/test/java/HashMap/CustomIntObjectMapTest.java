@@ -0,0 +1,46 @@
+package HashMap;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+
+class CustomIntObjectMapTest {
+    @Test
+    void putTestGetAndRemove() {
+        CustomIntObjectMap<String> customMap = new CustomIntObjectMap<>();
+        for (int i = -500; i < 500; i++) {
+            customMap.put(i, "value " + i);
+        }
+        Assertions.assertEquals(1000, customMap.size());
+        Assertions.assertEquals("value 0", customMap.get(0));
+        Assertions.assertEquals("value -500", customMap.get(-500));
+        Assertions.assertNull(customMap.get(500));
+        Assertions.assertEquals("value 10", customMap.remove(10));
+        Assertions.assertNull(customMap.remove(10));
+        Assertions.assertEquals(999, customMap.size());
+    }
+
+    @Test
+    void putTestNullValue() {
+        CustomIntObjectMap<String> customMap = new CustomIntObjectMap<>();
+        customMap.put(3, null);
+        Assertions.assertTrue(customMap.containsKey(3));
+        Assertions.assertNull(customMap.get(3));
+        Assertions.assertEquals("default", customMap.getOrDefault(4, "default"));
+    }
+
+    @Test
+    void forEachTestAndAsMap() {
+        CustomIntObjectMap<String> customMap = new CustomIntObjectMap<>();
+        customMap.put(0, "zero");
+        customMap.put(1, "one");
+        StringBuilder keys = new StringBuilder();
+        customMap.forEach((key, value) -> keys.append(key));
+        Assertions.assertEquals(2, keys.length());
+        Map<Integer, String> view = customMap.asMap();
+        Assertions.assertEquals(Map.of(0, "zero", 1, "one"), view);
+        view.remove(0);
+        Assertions.assertFalse(customMap.containsKey(0));
+    }
+}
@@ -0,0 +1,48 @@
+package HashMap;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+
+class CustomLongLongMapTest {
+    @Test
+    void putTestLargeKeys() {
+        CustomLongLongMap customMap = new CustomLongLongMap();
+        for (long i = 0; i < 100_000; i++) {
+            customMap.put(i << 32, i);
+        }
+        Assertions.assertEquals(100_000, customMap.size());
+        for (long i = 0; i < 100_000; i++) {
+            Assertions.assertEquals(i, customMap.get(i << 32));
+        }
+        Assertions.assertTrue(customMap.containsKey(0L));
+        Assertions.assertFalse(customMap.containsKey(1L));
+    }
+
+    @Test
+    void removeTestEveryOther() {
+        CustomLongLongMap customMap = new CustomLongLongMap(4);
+        for (long i = 1; i <= 10_000; i++) {
+            customMap.put(-i, i);
+        }
+        for (long i = 1; i <= 10_000; i += 2) {
+            Assertions.assertEquals(i, customMap.remove(-i));
+        }
+        Assertions.assertEquals(5_000, customMap.size());
+        for (long i = 1; i <= 10_000; i++) {
+            Assertions.assertEquals(i % 2 == 0, customMap.containsKey(-i));
+        }
+        long[] sum = new long[1];
+        customMap.forEach((key, value) -> sum[0] += key + value);
+        Assertions.assertEquals(0, sum[0]);
+    }
+
+    @Test
+    void asMapTestEquals() {
+        CustomLongLongMap customMap = new CustomLongLongMap();
+        customMap.put(1L, 10L);
+        customMap.put(0L, 5L);
+        Assertions.assertEquals(Map.of(1L, 10L, 0L, 5L), customMap.asMap());
+    }
+}
@@ -0,0 +1,66 @@
+package HashMap;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Map;
+
+class CustomMapSnapshotTest {
+    @TempDir
+    Path directory;
+
+    @Test
+    void snapshotTestRoundTrip() throws IOException {
+        CustomMap<String, String> customMap = new CustomMap<>();
+        for (int i = 0; i < 50_000; i++) {
+            customMap.put("key " + i, i % 100 == 0 ? null : "value " + i);
+        }
+        customMap.put("big", "x".repeat(3 << 20));
+        Path path = directory.resolve("map.snapshot");
+        customMap.writeSnapshot(path, Serializer.STRING, Serializer.STRING);
+        try (CustomMapSnapshot<String, String> snapshot = CustomMapSnapshot.open(path, Serializer.STRING, Serializer.STRING)) {
+            Assertions.assertEquals(customMap.size(), snapshot.size());
+            Assertions.assertEquals("value 12345", snapshot.get("key 12345"));
+            Assertions.assertNull(snapshot.get("key 200"));
+            Assertions.assertTrue(snapshot.containsKey("key 200"));
+            Assertions.assertFalse(snapshot.containsKey("missing"));
+            Assertions.assertNull(snapshot.get(null));
+            Assertions.assertEquals(3 << 20, snapshot.get("big").length());
+            Assertions.assertEquals(new HashMap<>(customMap), new HashMap<>(snapshot));
+            Assertions.assertThrows(UnsupportedOperationException.class, () -> snapshot.put("key", "value"));
+        }
+        Assertions.assertFalse(Files.exists(directory.resolve("map.snapshot.tmp")));
+    }
+
+    @Test
+    void snapshotTestEmptyAndReplaced() throws IOException {
+        Path path = directory.resolve("map.snapshot");
+        CustomMapSnapshot.write(Map.of(1, 10L, 2, 20L), path, Serializer.INTEGER, Serializer.LONG);
+        CustomMapSnapshot<Integer, Long> old = CustomMapSnapshot.open(path, Serializer.INTEGER, Serializer.LONG);
+        new CustomMap<Integer, Long>().writeSnapshot(path, Serializer.INTEGER, Serializer.LONG);
+        CustomMapSnapshot<Integer, Long> empty = CustomMapSnapshot.open(path, Serializer.INTEGER, Serializer.LONG);
+        Assertions.assertEquals(20L, old.get(2));
+        Assertions.assertTrue(empty.isEmpty());
+        Assertions.assertNull(empty.get(1));
+        old.close();
+        Assertions.assertThrows(IllegalStateException.class, () -> old.get(1));
+    }
+
+    @Test
+    void snapshotTestRejectsNullKeysAndForeignFiles() throws IOException {
+        Path path = directory.resolve("map.snapshot");
+        CustomMap<String, String> customMap = new CustomMap<>();
+        customMap.put(null, "value");
+        Assertions.assertThrows(NullPointerException.class,
+                () -> customMap.writeSnapshot(path, Serializer.STRING, Serializer.STRING));
+        Assertions.assertFalse(Files.exists(directory.resolve("map.snapshot.tmp")));
+        Files.write(path, new byte[]{1, 2, 3, 4, 5, 6, 7, 8, 9, 10, 11, 12, 13, 14, 15, 16});
+        Assertions.assertThrows(IOException.class,
+                () -> CustomMapSnapshot.open(path, Serializer.STRING, Serializer.STRING));
+    }
+}
@@ -0,0 +1,104 @@
+package HashMap;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Assumptions;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+
+class CustomMapStatsTest {
+    private record SameHashKey(int id) implements Comparable<SameHashKey> {
+        @Override
+        public int compareTo(SameHashKey other) {
+            return Integer.compare(id, other.id);
+        }
+
+        @Override
+        public int hashCode() {
+            return 7;
+        }
+    }
+
+    @Test
+    void statsTestChainLengthHistogram() {
+        CustomMap<Object, String> customMap = new CustomMap<>(16);
+        for (int i = 0; i < 5; i++) {
+            customMap.put(new SameHashKey(i), "value " + i);
+        }
+        customMap.put("key", "value");
+        CustomMapStats stats = customMap.stats();
+        Assertions.assertEquals(16, stats.getCapacity());
+        Assertions.assertEquals(6, stats.getSize());
+        Assertions.assertEquals(6.0 / 16, stats.getLoad());
+        Assertions.assertEquals(5, stats.getLongestChain());
+        int[] histogram = stats.getChainLengthHistogram();
+        Assertions.assertEquals(14, histogram[0]);
+        Assertions.assertEquals(1, histogram[5]);
+        Assertions.assertEquals(16, Arrays.stream(histogram).sum());
+        Assertions.assertEquals(0, stats.getTreeBins());
+    }
+
+    @Test
+    void statsTestTreeBinsAndMigration() {
+        CustomMap<Object, Integer> customMap = new CustomMap<>(64, 0.75f, true);
+        for (int i = 0; i < 10; i++) {
+            customMap.put(new SameHashKey(i), i);
+        }
+        for (int i = 0; i < 100; i++) {
+            customMap.put(i, i);
+        }
+        CustomMapStats stats = customMap.stats();
+        Assertions.assertEquals(1, stats.getTreeBins());
+        Assertions.assertEquals(customMap.size(), totalNodes(stats.getChainLengthHistogram()));
+    }
+
+    @Test
+    void statsTestOperationCounters() {
+        Assumptions.assumeTrue(CustomMap.STATS_ENABLED);
+        CustomMap<String, String> customMap = new CustomMap<>(2);
+        for (int i = 0; i < 100; i++) {
+            customMap.put("key " + i, "value " + i);
+        }
+        customMap.put("key 1", "updated");
+        customMap.get("key 2");
+        customMap.containsKey("missing");
+        customMap.remove("key 3");
+        customMap.remove("missing");
+        CustomMapStats stats = customMap.stats();
+        Assertions.assertTrue(stats.isEnabled());
+        Assertions.assertEquals(100, stats.getInserts());
+        Assertions.assertEquals(1, stats.getHits());
+        Assertions.assertEquals(1, stats.getMisses());
+        Assertions.assertEquals(1, stats.getRemoves());
+        Assertions.assertEquals(7, stats.getResizeCount());
+        Assertions.assertTrue(stats.getResizeTimeNanos() > 0);
+        Assertions.assertTrue(stats.getAveragePutProbes() > 0);
+        Assertions.assertTrue(stats.getAverageGetProbes() >= 0.5);
+    }
+
+    @Test
+    void statsTestPresizeRehashesOnce() {
+        Assumptions.assumeTrue(CustomMap.STATS_ENABLED);
+        for (boolean incremental : new boolean[]{false, true}) {
+            CustomMap<Integer, Integer> customMap = new CustomMap<>(16, 0.75f, incremental);
+            for (int i = 0; i < 10; i++) {
+                customMap.put(i, i);
+            }
+            customMap.ensureCapacity(100_000);
+            CustomMapStats stats = customMap.stats();
+            Assertions.assertEquals(1, stats.getResizeCount());
+            Assertions.assertEquals(262_144, stats.getCapacity());
+            for (int i = 0; i < 10; i++) {
+                Assertions.assertEquals(i, customMap.get(i));
+            }
+        }
+    }
+
+    private static int totalNodes(int[] histogram) {
+        int total = 0;
+        for (int length = 0; length < histogram.length; length++) {
+            total += length * histogram[length];
+        }
+        return total;
+    }
+}
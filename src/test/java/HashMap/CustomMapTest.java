@@ -1,231 +1,621 @@
 package HashMap;
 
 import org.junit.jupiter.api.Assertions;
-import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
-import org.junit.jupiter.params.ParameterizedTest;
-import org.junit.jupiter.params.provider.ValueSource;
 
-import java.util.Collection;
+import java.nio.CharBuffer;
+import java.util.ArrayList;
+import java.util.ConcurrentModificationException;
 import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
-import java.util.Set;
+import java.util.Random;
+import java.util.Spliterator;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.LongAdder;
 
-class CustomMapTest {
-    private static CustomMap<String, String> mySmallMap() {
-        CustomMap<String, String> myMap = new CustomMap<>();
-        for (int i = 0; i < 20; i++) {
-            myMap.put("key " + i, "value " + i);
-        }
-        return myMap;
+class CustomMapTest extends MapContractTest {
+    @Override
+    protected <K, V> Map<K, V> createMap() {
+        return new CustomMap<>();
     }
 
-    private static CustomMap<String, String> myBigMap() {
-        CustomMap<String, String> myMap2 = new CustomMap<>();
-        for (int i = 0; i < 2_000_000; i++) {
-            myMap2.put("key " + i, "value " + i);
+    @Test
+    void equalsTestIgnoresLayoutAndMatchesHashMap() {
+        CustomMap<Object, Integer> customMap = new CustomMap<>();
+        CustomMap<Object, Integer> otherMap = new CustomMap<>(1024, 0.5f, true);
+        Map<Object, Integer> expected = new HashMap<>();
+        for (int i = 0; i < 5000; i++) {
+            Object key = i % 10 == 0 ? new CollidingKey(i, 3) : "key " + i;
+            customMap.put(key, i % 7 == 0 ? null : i);
+            expected.put(key, i % 7 == 0 ? null : i);
         }
-        return myMap2;
-    }
-
-    private static CustomMap<String, String> myEmptyMap() {
-        CustomMap<String, String> myMap = new CustomMap<>();
-        return myMap;
+        for (int i = 4999; i >= 0; i--) {
+            Object key = i % 10 == 0 ? new CollidingKey(i, 3) : "key " + i;
+            otherMap.put(key, i % 7 == 0 ? null : i);
+        }
+        Assertions.assertEquals(customMap, otherMap);
+        Assertions.assertEquals(otherMap, customMap);
+        Assertions.assertEquals(expected, customMap);
+        Assertions.assertEquals(customMap, expected);
+        Assertions.assertEquals(expected.hashCode(), customMap.hashCode());
+        Assertions.assertEquals(customMap.hashCode(), otherMap.hashCode());
+        Map.Entry<Object, Integer> entry = customMap.entrySet().stream()
+                .filter(candidate -> "key 1".equals(candidate.getKey()))
+                .findFirst()
+                .orElseThrow();
+        Assertions.assertEquals(Map.entry("key 1", 1), entry);
+        Assertions.assertEquals(entry, Map.entry("key 1", 1));
+        Assertions.assertEquals(Map.entry("key 1", 1).hashCode(), entry.hashCode());
+        otherMap.put("key 1", 2);
+        Assertions.assertNotEquals(customMap, otherMap);
+        otherMap.put("key 1", 1);
+        otherMap.put("key 7", 7);
+        Assertions.assertNotEquals(customMap, otherMap);
+        otherMap.put("key 7", null);
+        otherMap.remove("key 2");
+        otherMap.put("missing", 2);
+        Assertions.assertNotEquals(customMap, otherMap);
+        otherMap.remove("missing");
+        otherMap.put("key 2", 2);
+        Assertions.assertEquals(customMap, otherMap);
+        customMap.clear();
+        otherMap.clear();
+        Assertions.assertEquals(customMap, otherMap);
+        Assertions.assertEquals(Map.of(), customMap);
     }
-
     @Test
-    void sizeTestFullMap() {
-        CustomMap<String, String> customMap = mySmallMap();
-        Assertions.assertEquals(20, customMap.size());
+    void increaseSizeTestKeepsAllNodes() {
+        CustomMap<Integer, Integer> customMap = new CustomMap<>(3);
+        for (int i = -500; i < 500; i++) {
+            customMap.put(i * 31, i);
+        }
+        Assertions.assertEquals(1000, customMap.size());
+        for (int i = -500; i < 500; i++) {
+            Assertions.assertEquals(i, customMap.get(i * 31));
+        }
+        int count = 0;
+        for (Map.Entry<Integer, Integer> ignored : customMap.entrySet()) {
+            count++;
+        }
+        Assertions.assertEquals(1000, count);
     }
-
     @Test
-    void sizeTestEmptyMap() {
-        CustomMap<String, String> customMap = myEmptyMap();
-        Assertions.assertEquals(0, customMap.size());
+    void incrementalResizeTestPutGetRemove() {
+        CustomMap<String, String> customMap = new CustomMap<>(16, 0.75f, true);
+        for (int i = 0; i < 100_000; i++) {
+            customMap.put("key " + i, "value " + i);
+            Assertions.assertEquals("value " + (i / 2), customMap.get("key " + (i / 2)));
+        }
+        Assertions.assertEquals(100_000, customMap.size());
+        for (int i = 0; i < 100_000; i += 2) {
+            Assertions.assertEquals("value " + i, customMap.remove("key " + i));
+        }
+        Assertions.assertEquals(50_000, customMap.size());
+        for (int i = 0; i < 100_000; i++) {
+            Assertions.assertEquals(i % 2 == 1, customMap.containsKey("key " + i));
+        }
     }
-
     @Test
-    void isEmptyTestEmptyMap() {
-        CustomMap<String, String> customMap = myEmptyMap();
-        Assertions.assertTrue(customMap.isEmpty());
+    void incrementalResizeTestIterationDuringMigration() {
+        CustomMap<Integer, Integer> customMap = new CustomMap<>(16, 0.75f, true);
+        for (int i = 0; i < 1000; i++) {
+            customMap.put(i, i);
+        }
+        Assertions.assertTrue(customMap.containsValue(999));
+        int sum = 0;
+        for (Integer key : customMap.keySet()) {
+            sum += key;
+        }
+        Assertions.assertEquals(999 * 1000 / 2, sum);
     }
-
     @Test
-    void isEmptyTestFullMap() {
-        CustomMap<String, String> customMap = myBigMap();
-        Assertions.assertFalse(customMap.isEmpty());
+    void constructorTestPowerOfTwoLength() {
+        Assertions.assertEquals(128, new CustomMap<String, String>(100).capacity());
+        Assertions.assertEquals(16, new CustomMap<String, String>(16).capacity());
+        Assertions.assertEquals(1, new CustomMap<String, String>(0).capacity());
+        Assertions.assertThrows(IllegalArgumentException.class, () -> new CustomMap<String, String>(-1));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> new CustomMap<String, String>(0f));
     }
-
-    @ParameterizedTest
-    @ValueSource(strings = {"key 2", "key 10", "key 19"})
-    void containsKeyTestKeyHave(String key) {
-        CustomMap<String, String> customMap = mySmallMap();
-        Assertions.assertTrue(customMap.containsKey(key));
-    }
-
     @Test
-    void containsKeyTestKeyNotHave() {
-        CustomMap<String, String> customMap = myEmptyMap();
-        Assertions.assertFalse(customMap.containsKey("key 1"));
+    void putTestMinValueHashKey() {
+        CustomMap<Integer, String> customMap = new CustomMap<>(10);
+        customMap.put(Integer.MIN_VALUE, "min");
+        customMap.put(Integer.MAX_VALUE, "max");
+        Assertions.assertEquals("min", customMap.get(Integer.MIN_VALUE));
+        Assertions.assertEquals("max", customMap.get(Integer.MAX_VALUE));
     }
-
     @Test
-    void containsKeyTestKeyNull() {
-        CustomMap<String, String> customMap = mySmallMap();
-        Assertions.assertFalse(customMap.containsKey(null));
+    void treeBinTestComparableCollidingKeys() {
+        CustomMap<CollidingKey, Integer> customMap = new CustomMap<>();
+        for (int i = 0; i < 2000; i++) {
+            customMap.put(new CollidingKey(i, (i % 2) * 1024), i);
+        }
+        Assertions.assertEquals(2000, customMap.size());
+        for (int i = 0; i < 2000; i++) {
+            Assertions.assertEquals(i, customMap.get(new CollidingKey(i, (i % 2) * 1024)));
+        }
+        Assertions.assertNull(customMap.get(new CollidingKey(5000, 0)));
+        for (int i = 0; i < 2000; i += 3) {
+            Assertions.assertEquals(i, customMap.remove(new CollidingKey(i, (i % 2) * 1024)));
+        }
+        for (int i = 0; i < 2000; i++) {
+            Assertions.assertEquals(i % 3 != 0, customMap.containsKey(new CollidingKey(i, (i % 2) * 1024)));
+        }
+        int count = 0;
+        for (CollidingKey ignored : customMap.keySet()) {
+            count++;
+        }
+        Assertions.assertEquals(customMap.size(), count);
     }
-
-    @ParameterizedTest
-    @ValueSource(strings = {"value 2", "value 17"})
-    void containsValueTestValueHave(String value) {
-        CustomMap<String, String> customMap = mySmallMap();
-        Assertions.assertTrue(customMap.containsValue(value));
+    @Test
+    void treeBinTestNotComparableCollidingKeys() {
+        CustomMap<Object, Integer> customMap = new CustomMap<>(16, 0.75f, true);
+        List<Object> keys = new ArrayList<>();
+        for (int i = 0; i < 300; i++) {
+            Object key = new Object() {
+                @Override
+                public int hashCode() {
+                    return 42;
+                }
+            };
+            keys.add(key);
+            customMap.put(key, i);
+        }
+        customMap.put(null, -1);
+        for (int i = 0; i < 300; i++) {
+            Assertions.assertEquals(i, customMap.get(keys.get(i)));
+        }
+        Iterator<Object> iterator = customMap.keySet().iterator();
+        while (iterator.hasNext()) {
+            if (iterator.next() != null) {
+                iterator.remove();
+            }
+        }
+        Assertions.assertEquals(1, customMap.size());
+        Assertions.assertEquals(-1, customMap.get(null));
     }
-
     @Test
-    void containsValueTestValueNotHave() {
-        CustomMap<String, String> customMap = mySmallMap();
-        Assertions.assertFalse(customMap.containsValue(5));
+    void putAllTestPresizesOnce() {
+        CustomMap<Integer, Integer> source = new CustomMap<>();
+        for (int i = 0; i < 10_000; i++) {
+            source.put(i, i * 2);
+        }
+        CustomMap<Integer, Integer> customMap = new CustomMap<>();
+        customMap.put(-1, -1);
+        customMap.putAll(source);
+        Assertions.assertEquals(16_384, customMap.capacity());
+        Assertions.assertEquals(10_001, customMap.size());
+        for (int i = 0; i < 10_000; i++) {
+            Assertions.assertEquals(i * 2, customMap.get(i));
+        }
+        CustomMap<Integer, Integer> empty = new CustomMap<>(16, 0.75f, true);
+        empty.putAll(source);
+        Assertions.assertEquals(16_384, empty.capacity());
+        Assertions.assertEquals(source, empty);
     }
-
     @Test
-    void containsValueTestValueHaveNull() {
-        CustomMap<String, String> customMap = mySmallMap();
-        CustomMap<String, String> customMap2 = myBigMap();
-        Assertions.assertFalse(customMap.containsValue(null));
-        Assertions.assertFalse(customMap2.containsValue(null));
+    void getAllTestReturnsPresentKeys() {
+        CustomMap<CollidingKey, Integer> customMap = new CustomMap<>();
+        List<CollidingKey> keys = new ArrayList<>();
+        for (int i = 0; i < 500; i++) {
+            customMap.put(new CollidingKey(i, i % 4), i);
+            keys.add(new CollidingKey(i * 2, (i * 2) % 4));
+        }
+        Map<CollidingKey, Integer> found = customMap.getAll(keys);
+        Assertions.assertEquals(250, found.size());
+        for (int i = 0; i < 500; i += 2) {
+            Assertions.assertEquals(i, found.get(new CollidingKey(i, i % 4)));
+        }
+        Assertions.assertTrue(customMap.getAll(List.of()).isEmpty());
     }
-
     @Test
-    void getTestExistingKey() {
-        CustomMap<String, String> customMap = mySmallMap();
-        Assertions.assertEquals("value 0", customMap.get("key 0"));
-        Assertions.assertEquals("value 19", customMap.get("key 19"));
+    void removeAllTestCountsRemoved() {
+        CustomMap<String, String> customMap = new CustomMap<>(16, 0.75f, true);
+        List<String> keys = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            customMap.put("key " + i, "value " + i);
+            if (i % 3 == 0) {
+                keys.add("key " + i);
+            }
+        }
+        keys.add("missing");
+        Assertions.assertEquals(334, customMap.removeAll(keys));
+        Assertions.assertEquals(666, customMap.size());
+        for (int i = 0; i < 1000; i++) {
+            Assertions.assertEquals(i % 3 != 0, customMap.containsKey("key " + i));
+        }
     }
-
     @Test
-    void getTestMissingKey() {
-        CustomMap<String, String> customMap = mySmallMap();
-        Assertions.assertNull(customMap.get("key"));
+    void bulkLoadTestBuildsMap() {
+        Integer[] keys = new Integer[1000];
+        String[] values = new String[1000];
+        for (int i = 0; i < keys.length; i++) {
+            keys[i] = i % 900;
+            values[i] = "value " + i;
+        }
+        CustomMap<Integer, String> customMap = CustomMap.bulkLoad(keys, values);
+        Assertions.assertEquals(900, customMap.size());
+        Assertions.assertEquals(2048, customMap.capacity());
+        Assertions.assertEquals("value 905", customMap.get(5));
+        Assertions.assertEquals("value 899", customMap.get(899));
+        Assertions.assertThrows(IllegalArgumentException.class,
+                () -> CustomMap.bulkLoad(new Integer[2], new String[1]));
     }
-
     @Test
-    void getTestNullKey() {
-        CustomMap<String, String> customMap = mySmallMap();
-        customMap.put(null, "5");
-        Assertions.assertEquals("5", customMap.get(null));
+    void spliteratorTestParallelStream() {
+        CustomMap<Integer, Integer> customMap = new CustomMap<>(16, 0.75f, true);
+        for (int i = 0; i < 100_000; i++) {
+            customMap.put(i, i);
+        }
+        Spliterator<Integer> spliterator = customMap.keySet().spliterator();
+        Assertions.assertTrue(spliterator.hasCharacteristics(Spliterator.SIZED | Spliterator.DISTINCT));
+        Assertions.assertEquals(100_000, spliterator.getExactSizeIfKnown());
+        Spliterator<Integer> prefix = spliterator.trySplit();
+        Assertions.assertNotNull(prefix);
+        Assertions.assertEquals(-1, prefix.getExactSizeIfKnown());
+        Assertions.assertEquals(100_000L * 99_999 / 2,
+                customMap.keySet().parallelStream().mapToLong(Integer::longValue).sum());
+        Assertions.assertEquals(100_000, customMap.values().parallelStream().distinct().count());
+        Assertions.assertEquals(100_000, customMap.entrySet().parallelStream()
+                .filter(entry -> entry.getKey().equals(entry.getValue()))
+                .count());
+        Spliterator<Integer> failing = customMap.values().spliterator();
+        Assertions.assertThrows(ConcurrentModificationException.class,
+                () -> failing.tryAdvance(value -> customMap.put(-1, -1)));
     }
-
     @Test
-    void putTestString() {
-        CustomMap<String, String> customMap = new CustomMap<>();
-        customMap.put("key1", "Ivan");
-        Assertions.assertEquals(1, customMap.size());
-        Assertions.assertEquals("Ivan", customMap.get("key1"));
+    void bulkTestParallelForEachReduceSearch() {
+        CustomMap<Integer, Long> customMap = new CustomMap<>();
+        for (int i = 0; i < 200_000; i++) {
+            customMap.put(i, (long) i);
+        }
+        LongAdder sum = new LongAdder();
+        customMap.forEach(1, (key, value) -> sum.add(value));
+        Assertions.assertEquals(200_000L * 199_999 / 2, sum.sum());
+        Long total = customMap.reduce(1_000, (key, value) -> value, Long::sum);
+        Assertions.assertEquals(200_000L * 199_999 / 2, total);
+        Long max = customMap.reduce(Long.MAX_VALUE, (key, value) -> value, Long::max);
+        Assertions.assertEquals(199_999L, max);
+        Assertions.assertNull(customMap.<Long>reduce(1, (key, value) -> null, Long::max));
+        Integer found = customMap.search(1, (key, value) -> value == 123_456L ? key : null);
+        Assertions.assertEquals(123_456, found);
+        Assertions.assertNull(customMap.search(1, (key, value) -> null));
+        ForkJoinPool pool = new ForkJoinPool(3);
+        try {
+            customMap.replaceAll(pool, 1, (key, value) -> value * 2);
+        } finally {
+            pool.shutdown();
+        }
+        for (int i = 0; i < 200_000; i += 1000) {
+            Assertions.assertEquals(i * 2L, customMap.get(i));
+        }
+        Assertions.assertThrows(ConcurrentModificationException.class,
+                () -> customMap.forEach(Long.MAX_VALUE, (key, value) -> customMap.remove(key)));
     }
-
     @Test
-    void putTestInteger() {
+    void memoryFootprintTestCountsNodes() {
         CustomMap<Integer, Integer> customMap = new CustomMap<>();
-        customMap.put(1, 200);
-        customMap.put(2, 2200);
-        Assertions.assertEquals(2, customMap.size());
-        Assertions.assertEquals(200, customMap.get(1));
-        Assertions.assertEquals(2200, customMap.get(2));
+        for (int i = 0; i < 1000; i++) {
+            customMap.put(i, i);
+        }
+        Assertions.assertEquals(80L + 4L * customMap.capacity() + 32L * 1000, customMap.memoryFootprint());
+        CustomMap<CollidingKey, Integer> treeMap = new CustomMap<>(64);
+        for (int i = 0; i < 20; i++) {
+            treeMap.put(new CollidingKey(i, 7), i);
+        }
+        Assertions.assertTrue(treeMap.memoryFootprint() > 80L + 4L * treeMap.capacity() + 32L * 20);
     }
-
     @Test
-    void putTestNullArgs() {
-        CustomMap<String, String> customMap = myBigMap();
-        Assertions.assertEquals("value", customMap.put(null, "value"));
-        Assertions.assertNull(customMap.put(null, null));
-        Assertions.assertNull(customMap.get(null));
+    void computeTestMatchesHashMap() {
+        CustomMap<Object, Integer> myMap = new CustomMap<>(16, 0.75f, true);
+        Map<Object, Integer> model = new HashMap<>();
+        Random random = new Random(7);
+        for (int i = 0; i < 100_000; i++) {
+            int id = random.nextInt(2_000);
+            Object key = id % 4 == 0 ? new CollidingKey(id, 42) : id;
+            int value = random.nextInt(5);
+            switch (random.nextInt(8)) {
+                case 0 -> Assertions.assertEquals(model.merge(key, value, (a, b) -> a + b > 6 ? null : a + b),
+                        myMap.merge(key, value, (a, b) -> a + b > 6 ? null : a + b));
+                case 1 -> Assertions.assertEquals(model.compute(key, (k, v) -> v == null ? Integer.valueOf(value) : v == value ? null : v + 1),
+                        myMap.compute(key, (k, v) -> v == null ? Integer.valueOf(value) : v == value ? null : v + 1));
+                case 2 -> Assertions.assertEquals(model.computeIfAbsent(key, k -> value == 0 ? null : value),
+                        myMap.computeIfAbsent(key, k -> value == 0 ? null : value));
+                case 3 -> Assertions.assertEquals(model.computeIfPresent(key, (k, v) -> value == 0 ? null : v + value),
+                        myMap.computeIfPresent(key, (k, v) -> value == 0 ? null : v + value));
+                case 4 -> Assertions.assertEquals(model.putIfAbsent(key, value), myMap.putIfAbsent(key, value));
+                case 5 -> Assertions.assertEquals(model.replace(key, value), myMap.replace(key, value));
+                case 6 -> Assertions.assertEquals(model.replace(key, value, value + 1), myMap.replace(key, value, value + 1));
+                default -> Assertions.assertEquals(model.getOrDefault(key, -1), myMap.getOrDefault(key, -1));
+            }
+        }
+        Assertions.assertEquals(model.size(), myMap.size());
+        Assertions.assertEquals(model, new HashMap<>(myMap));
     }
-
     @Test
-    void putTestValueReturn() {
+    void computeTestNullValuesAndConcurrentModification() {
         CustomMap<String, Integer> customMap = new CustomMap<>();
-        Assertions.assertEquals(100, customMap.put("key", 100));
-        Assertions.assertNull(customMap.put("key", null));
+        customMap.put("null", null);
+        Assertions.assertEquals(0, customMap.getOrDefault("missing", 0));
+        Assertions.assertNull(customMap.getOrDefault("null", 0));
+        Assertions.assertNull(customMap.computeIfAbsent("null", key -> null));
+        Assertions.assertTrue(customMap.containsKey("null"));
+        Assertions.assertNull(customMap.putIfAbsent("null", 1));
+        Assertions.assertEquals(1, customMap.get("null"));
+        Assertions.assertEquals(3, customMap.merge("null", 2, Integer::sum));
+        Assertions.assertThrows(NullPointerException.class, () -> customMap.merge("null", null, Integer::sum));
+        Assertions.assertThrows(ConcurrentModificationException.class,
+                () -> customMap.computeIfAbsent("new", key -> customMap.put("other", 1)));
     }
-
     @Test
-    void putTestBigValueNodes() {
-        CustomMap<String, String> customMap = myBigMap();
-        Assertions.assertEquals(2000000, customMap.size());
+    void shrinkTestFollowsSize() {
+        CustomMap<Integer, Integer> customMap = new CustomMap<>();
+        for (int i = 0; i < 100_000; i++) {
+            customMap.put(i, i);
+        }
+        Assertions.assertEquals(262_144, customMap.capacity());
+        for (int i = 1; i < 100_000; i++) {
+            customMap.remove(i);
+        }
+        Assertions.assertEquals(16, customMap.capacity());
+        Assertions.assertEquals(Map.of(0, 0), customMap);
+        for (int i = 0; i < 1000; i++) {
+            customMap.put(1, i);
+            customMap.remove(1);
+        }
+        Assertions.assertEquals(16, customMap.capacity());
+        CustomMap<CollidingKey, Integer> treeMap = new CustomMap<>();
+        for (int i = 0; i < 2000; i++) {
+            treeMap.put(new CollidingKey(i, i % 64 == 0 ? 0 : i), i);
+        }
+        for (int i = 1999; i >= 100; i--) {
+            if (i % 64 != 0) {
+                treeMap.remove(new CollidingKey(i, i));
+            }
+        }
+        Assertions.assertEquals(512, treeMap.capacity());
+        for (int i = 0; i < 100; i++) {
+            Assertions.assertEquals(i, treeMap.get(new CollidingKey(i, i % 64 == 0 ? 0 : i)));
+        }
+        Assertions.assertEquals(1984, treeMap.get(new CollidingKey(1984, 0)));
     }
-
     @Test
-    void removeTest() {
-        CustomMap<String, String> customMap = mySmallMap();
-        Assertions.assertTrue(customMap.containsKey("key 1") & customMap.containsValue("value 1"));
-        customMap.remove("key 1");
-        Assertions.assertFalse(customMap.containsKey("key 1") & customMap.containsValue("value 1"));
+    void shrinkTestIteratorRemoveKeepsTable() {
+        CustomMap<Integer, Integer> customMap = new CustomMap<>();
+        for (int i = 0; i < 10_000; i++) {
+            customMap.put(i, i);
+        }
+        int capacity = customMap.capacity();
+        Iterator<Integer> iterator = customMap.keySet().iterator();
+        while (iterator.hasNext()) {
+            if (iterator.next() != 5) {
+                iterator.remove();
+            }
+        }
+        Assertions.assertEquals(capacity, customMap.capacity());
+        Assertions.assertEquals(Map.of(5, 5), customMap);
+        customMap.remove(5);
+        Assertions.assertEquals(16, customMap.capacity());
     }
-
     @Test
-    void removeTestMillionNodes() {
-        CustomMap<String, String> customMap = myBigMap();
-        for (int i = 1; i <= 1_999_999; i++) {
-            customMap.remove("key " + i);
+    void shrinkTestIncrementalRemoveNeverMigratesWholeTable() {
+        CustomMap<Integer, Integer> customMap = new CustomMap<>(16, 0.01f, true);
+        int key = 0;
+        while (customMap.capacity() < 65_536) {
+            customMap.put(key * 100, key);
+            key++;
         }
-        Assertions.assertEquals(1, customMap.size());
+        int removed = 0;
+        while (customMap.size() >= 65_536 * 0.01f / 4) {
+            customMap.remove(removed * 100);
+            removed++;
+        }
+        Assertions.assertEquals(65_536, customMap.capacity());
+        int migrated = 0;
+        for (CustomMap.Node<Integer, Integer> first : customMap.getTable()) {
+            for (CustomMap.Node<Integer, Integer> node = first; node != null; node = node.next) {
+                migrated++;
+            }
+        }
+        Assertions.assertTrue(migrated < customMap.size());
+        for (int i = 0; i < key; i++) {
+            Assertions.assertEquals(i < removed ? null : i, customMap.get(i * 100));
+        }
+        customMap.trimToSize();
+        Assertions.assertTrue(customMap.capacity() < 65_536);
+        Assertions.assertEquals(key - removed, customMap.size());
     }
     @Test
-    void putAllTest() {
-        CustomMap<String, String> customMap = mySmallMap();
-
-        Map<String, String> additionalMap = new HashMap<>();
-        for (int i = 10; i < 15; i++) {
-            additionalMap.put("key " + i, "value");
+    void clearTestKeepsCapacity() {
+        CustomMap<String, Integer> customMap = new CustomMap<>();
+        for (int i = 0; i < 10_000; i++) {
+            customMap.put("key " + i, i);
         }
-
-        Assertions.assertEquals(20,customMap.size());
-        customMap.putAll(additionalMap);
-
-        for (int i = 10; i < 15; i++) {
-            Assertions.assertTrue(
-                    customMap.containsKey("key " + i) & customMap.containsValue("value")
-            );
+        int capacity = customMap.capacity();
+        customMap.clear();
+        Assertions.assertEquals(capacity, customMap.capacity());
+        Assertions.assertNull(customMap.get("key 1"));
+        Assertions.assertFalse(customMap.entrySet().iterator().hasNext());
+        for (int i = 0; i < 10_000; i++) {
+            customMap.put("key " + i, -i);
+        }
+        Assertions.assertEquals(capacity, customMap.capacity());
+        Assertions.assertEquals(-5, customMap.get("key 5"));
+    }
+    @Test
+    void trimToSizeTestAndEnsureCapacity() {
+        CustomMap<Integer, Integer> customMap = new CustomMap<>();
+        customMap.ensureCapacity(10_000);
+        Assertions.assertEquals(16_384, customMap.capacity());
+        for (int i = 0; i < 10_000; i++) {
+            customMap.put(i, i);
+        }
+        for (int i = 100; i < 10_000; i++) {
+            customMap.remove(i);
         }
-        Assertions.assertEquals(20, customMap.size());
+        Assertions.assertEquals(16_384, customMap.capacity());
+        customMap.trimToSize();
+        Assertions.assertEquals(256, customMap.capacity());
+        for (int i = 0; i < 100; i++) {
+            Assertions.assertEquals(i, customMap.get(i));
+        }
+        for (int i = 0; i < 90; i++) {
+            customMap.remove(i);
+        }
+        Assertions.assertEquals(256, customMap.capacity());
+        customMap.clear();
+        customMap.trimToSize();
+        Assertions.assertEquals(1, customMap.capacity());
+        customMap.put(1, 1);
+        Assertions.assertEquals(1, customMap.get(1));
     }
     @Test
-    void clearTest() {
-        CustomMap<String, String> myHashMap = mySmallMap();
-        Assertions.assertFalse(myHashMap.isEmpty());
-        Assertions.assertEquals(20, myHashMap.size());
-        myHashMap.clear();
-        Assertions.assertTrue(myHashMap.isEmpty());
-        Assertions.assertEquals(0, myHashMap.size());
+    void strategyTestByteArrayKeys() {
+        CustomMap<byte[], Integer> customMap = new CustomMap<>(HashStrategy.BYTE_ARRAY);
+        for (int i = 0; i < 1000; i++) {
+            customMap.put(("key-" + i).repeat(i % 5 + 1).getBytes(), i);
+        }
+        customMap.put(null, -1);
+        Assertions.assertEquals(1001, customMap.size());
+        for (int i = 0; i < 1000; i++) {
+            Assertions.assertEquals(i, customMap.get(("key-" + i).repeat(i % 5 + 1).getBytes()));
+        }
+        Assertions.assertEquals(-1, customMap.get(null));
+        Assertions.assertNull(customMap.get(new byte[0]));
+        Assertions.assertEquals(7, customMap.remove(("key-7").repeat(3).getBytes()));
+        Assertions.assertFalse(customMap.containsKey(("key-7").repeat(3).getBytes()));
+        CustomMap<byte[], Integer> other = new CustomMap<>(HashStrategy.BYTE_ARRAY);
+        for (Map.Entry<byte[], Integer> entry : customMap.entrySet()) {
+            other.put(entry.getKey() == null ? null : entry.getKey().clone(), entry.getValue());
+        }
+        Assertions.assertEquals(customMap, other);
+        Assertions.assertEquals(customMap.hashCode(), other.hashCode());
+        Map<byte[], Integer> found = customMap.getAll(List.of("key-1".repeat(2).getBytes(), "absent".getBytes()));
+        Assertions.assertEquals(1, found.size());
+        Assertions.assertEquals(1, found.get("key-1".repeat(2).getBytes()));
     }
     @Test
-    void keySetTest() {
-        CustomMap<String, String> myHashMap = mySmallMap();
-        Set<?> keySet = myHashMap.keySet();
-        Assertions.assertTrue(keySet.size() == myHashMap.size());
-        for (int i = 0; i < 20; i++) {
-            Assertions.assertTrue(keySet.contains("key " + i));
+    void strategyTestCharSequenceLookupByBuffer() {
+        CustomMap<CharSequence, Integer> customMap = new CustomMap<>(16, 0.75f, true, HashStrategy.CHAR_SEQUENCE);
+        for (int i = 0; i < 1000; i++) {
+            customMap.put("value" + i, i);
+        }
+        StringBuilder buffer = new StringBuilder();
+        for (int i = 0; i < 1000; i++) {
+            buffer.setLength(0);
+            buffer.append("value").append(i);
+            Assertions.assertEquals(i, customMap.get(buffer));
+            Assertions.assertEquals(HashStrategy.CHAR_SEQUENCE.hash("value" + i), HashStrategy.CHAR_SEQUENCE.hash(buffer));
         }
-        Assertions.assertFalse(keySet.contains("key 20"));
+        buffer.setLength(0);
+        Assertions.assertNull(customMap.get(buffer.append("value1000")));
+        Assertions.assertEquals(5, customMap.get(CharBuffer.wrap("value5")));
+        Assertions.assertNotEquals(HashStrategy.charSequence(1L).hash("value5"), HashStrategy.CHAR_SEQUENCE.hash("value5"));
+    }
+    @Test
+    void putAllTestAcrossStrategies() {
+        CustomMap<CharSequence, Integer> charSequenceMap = new CustomMap<>(HashStrategy.CHAR_SEQUENCE);
+        charSequenceMap.put("hello", 1);
+        CustomMap<CharSequence, Integer> naturalMap = new CustomMap<>();
+        naturalMap.putAll(charSequenceMap);
+        Assertions.assertEquals(1, naturalMap.get("hello"));
+        Assertions.assertTrue(naturalMap.containsKey("hello"));
+        naturalMap.put("hello", 2);
+        Assertions.assertEquals(1, naturalMap.size());
+
+        CustomMap<CharSequence, Integer> source = new CustomMap<>();
+        source.put("hello", 3);
+        CustomMap<CharSequence, Integer> copy = new CustomMap<>(HashStrategy.CHAR_SEQUENCE);
+        copy.putAll(source);
+        Assertions.assertEquals(3, copy.get(new StringBuilder("hello")));
+        copy.put(new StringBuilder("hello"), 4);
+        Assertions.assertEquals(1, copy.size());
     }
     @Test
-    void entrySetTest() {
-        CustomMap<String, String> myHashMap = mySmallMap();
-        Set<?> entrySet = myHashMap.entrySet();
-        Assertions.assertEquals(entrySet.size(), myHashMap.size());
+    void freezeTestRejectsStrategy() {
+        CustomMap<byte[], String> customMap = new CustomMap<>(HashStrategy.byteArray(7));
+        customMap.put(new byte[]{1, 2, 3}, "x");
+        Assertions.assertThrows(IllegalStateException.class, customMap::freeze);
+        CustomMap<byte[], String> naturalMap = new CustomMap<>();
+        byte[] key = {1, 2, 3};
+        naturalMap.put(key, "x");
+        Assertions.assertEquals("x", naturalMap.freeze().get(key));
     }
     @Test
-    void equalsTestSameMap() {
-        CustomMap<String, String> myHashMap = mySmallMap();
-        CustomMap<String, String> sameLinkMyHashMap = myHashMap;
-        Assertions.assertTrue(myHashMap.equals(sameLinkMyHashMap));
+    void toPersistentTestRejectsStrategy() {
+        CustomMap<String, Integer> identityMap = new CustomMap<>(HashStrategy.IDENTITY);
+        identityMap.put(new String("k"), 1);
+        identityMap.put(new String("k"), 2);
+        Assertions.assertThrows(IllegalStateException.class, identityMap::toPersistent);
+        CustomMap<String, Integer> naturalMap = new CustomMap<>();
+        naturalMap.put("k", 1);
+        Assertions.assertEquals(Map.of("k", 1), naturalMap.toPersistent());
     }
     @Test
-    void equalsTestEqualMap() {
-        CustomMap<String, String> myHashMap = mySmallMap();
-        CustomMap<String, String > equalMyHashMap = mySmallMap();
-        Assertions.assertTrue(myHashMap.equals(equalMyHashMap));
+    void strategyTestIdentityAndSeeded() {
+        CustomMap<String, Integer> identityMap = new CustomMap<>(HashStrategy.IDENTITY);
+        String first = new String("key");
+        String second = new String("key");
+        identityMap.put(first, 1);
+        identityMap.put(second, 2);
+        Assertions.assertEquals(2, identityMap.size());
+        Assertions.assertEquals(1, identityMap.get(first));
+        Assertions.assertNull(identityMap.get("key"));
+        CustomMap<String, Integer> naturalMap = new CustomMap<>();
+        naturalMap.put("key", 1);
+        Assertions.assertNotEquals(naturalMap, identityMap);
+
+        CustomMap<Integer, Integer> seededMap = new CustomMap<>(HashStrategy.seeded(42L));
+        Map<Integer, Integer> expected = new HashMap<>();
+        for (int i = 0; i < 10_000; i++) {
+            seededMap.put(i << 16, i);
+            expected.put(i << 16, i);
+        }
+        Assertions.assertEquals(expected, seededMap);
+        Assertions.assertEquals(seededMap, expected);
+        Assertions.assertNotEquals(HashStrategy.seeded(1L).hash(1), HashStrategy.seeded(2L).hash(1));
+    }
+    @Test
+    void strategyTestTreeBins() {
+        HashStrategy<Integer> colliding = new HashStrategy<>() {
+            @Override
+            public int hash(Integer key) {
+                return key % 3;
+            }
+
+            @Override
+            public boolean equivalent(Integer left, Integer right) {
+                return left.intValue() == right.intValue();
+            }
+        };
+        CustomMap<Integer, Integer> customMap = new CustomMap<>(64, 0.75f, false, colliding);
+        for (int i = 0; i < 2000; i++) {
+            customMap.put(i, i);
+        }
+        for (int i = 0; i < 2000; i += 2) {
+            Assertions.assertEquals(i, customMap.remove(i));
+        }
+        for (int i = 0; i < 2000; i++) {
+            Assertions.assertEquals(i % 2 == 1 ? i : null, customMap.get(i));
+        }
+        Assertions.assertEquals(1000, customMap.size());
+        Assertions.assertThrows(NullPointerException.class, () -> new CustomMap<>((HashStrategy<Object>) null));
+    }
+
+    /**
+     * Ключ с управляемым хэшем для проверки корзин-деревьев
+     */
+    private record CollidingKey(int id, int hash) implements Comparable<CollidingKey> {
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+
+        @Override
+        public int compareTo(CollidingKey other) {
+            return Integer.compare(id, other.id);
+        }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,110 @@
+package HashMap;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.ConcurrentModificationException;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+
+class CustomOffHeapMapTest {
+    @Test
+    void putTestBigMap() {
+        try (CustomOffHeapMap<String, String> customMap = new CustomOffHeapMap<>(Serializer.STRING, Serializer.STRING)) {
+            for (int i = 0; i < 2_000_000; i++) {
+                customMap.put("key " + i, "value " + i);
+            }
+            Assertions.assertEquals(2_000_000, customMap.size());
+            Assertions.assertEquals("value 0", customMap.get("key 0"));
+            Assertions.assertEquals("value 1999999", customMap.get("key 1999999"));
+            Assertions.assertNull(customMap.get("key 2000000"));
+            Assertions.assertTrue(customMap.offHeapBytes() >= customMap.liveBytes());
+        }
+    }
+
+    @Test
+    void putTestOverwriteValue() {
+        try (CustomOffHeapMap<String, String> customMap = new CustomOffHeapMap<>(Serializer.STRING, Serializer.STRING)) {
+            customMap.put("key", "long value");
+            long liveBytes = customMap.liveBytes();
+            customMap.put("key", "short");
+            Assertions.assertEquals("short", customMap.get("key"));
+            Assertions.assertEquals(liveBytes, customMap.liveBytes());
+            customMap.put("key", "a much longer value than before");
+            Assertions.assertEquals("a much longer value than before", customMap.get("key"));
+            Assertions.assertTrue(customMap.garbageBytes() > 0);
+            customMap.put("key", null);
+            Assertions.assertTrue(customMap.containsKey("key"));
+            Assertions.assertNull(customMap.get("key"));
+            Assertions.assertEquals(1, customMap.size());
+        }
+    }
+
+    @Test
+    void removeTestCompaction() {
+        try (CustomOffHeapMap<Integer, String> customMap = new CustomOffHeapMap<>(Serializer.INTEGER, Serializer.STRING)) {
+            for (int i = 0; i < 200_000; i++) {
+                customMap.put(i, "value " + i);
+            }
+            for (int i = 0; i < 200_000; i++) {
+                if (i % 10 != 0) {
+                    Assertions.assertEquals("value " + i, customMap.remove(i));
+                }
+            }
+            Assertions.assertEquals(20_000, customMap.size());
+            Assertions.assertTrue(customMap.garbageBytes() <= customMap.liveBytes());
+            for (int i = 0; i < 200_000; i += 10) {
+                Assertions.assertEquals("value " + i, customMap.get(i));
+            }
+        }
+    }
+
+    @Test
+    void entrySetTestIterationAndRemove() {
+        try (CustomOffHeapMap<Long, Long> customMap = new CustomOffHeapMap<>(Serializer.LONG, Serializer.LONG)) {
+            Map<Long, Long> expected = new HashMap<>();
+            for (long i = 0; i < 1000; i++) {
+                customMap.put(i, i * i);
+                expected.put(i, i * i);
+            }
+            Assertions.assertEquals(expected, customMap);
+            Iterator<Map.Entry<Long, Long>> iterator = customMap.entrySet().iterator();
+            while (iterator.hasNext()) {
+                Map.Entry<Long, Long> entry = iterator.next();
+                if (entry.getKey() % 2 == 0) {
+                    iterator.remove();
+                } else {
+                    entry.setValue(-entry.getValue());
+                }
+            }
+            Assertions.assertEquals(500, customMap.size());
+            Assertions.assertEquals(-9L, customMap.get(3L));
+        }
+    }
+
+    @Test
+    void entrySetTestSetValueAfterRemove() {
+        try (CustomOffHeapMap<Long, Long> customMap = new CustomOffHeapMap<>(Serializer.LONG, Serializer.LONG)) {
+            for (long i = 0; i < 10; i++) {
+                customMap.put(i, i);
+            }
+            Iterator<Map.Entry<Long, Long>> iterator = customMap.entrySet().iterator();
+            Map.Entry<Long, Long> entry = iterator.next();
+            customMap.remove(entry.getKey());
+            entry.setValue(100L);
+            Assertions.assertFalse(customMap.containsKey(entry.getKey()));
+            Assertions.assertEquals(9, customMap.size());
+            Assertions.assertThrows(ConcurrentModificationException.class, iterator::next);
+        }
+    }
+
+    @Test
+    void closeTestRejectsAccess() {
+        CustomOffHeapMap<String, String> customMap = new CustomOffHeapMap<>(Serializer.STRING, Serializer.STRING);
+        customMap.put("key", "value");
+        customMap.close();
+        Assertions.assertEquals(0, customMap.offHeapBytes());
+        Assertions.assertThrows(IllegalStateException.class, () -> customMap.get("key"));
+    }
+}
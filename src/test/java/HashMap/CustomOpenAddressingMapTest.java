@@ -0,0 +1,69 @@
+package HashMap;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Random;
+
+class CustomOpenAddressingMapTest extends MapContractTest {
+    @Override
+    protected <K, V> Map<K, V> createMap() {
+        return new CustomOpenAddressingMap<>();
+    }
+
+    @Test
+    void removeTestBackwardShift() {
+        CustomOpenAddressingMap<Integer, Integer> customMap = new CustomOpenAddressingMap<>();
+        Map<Integer, Integer> expected = new HashMap<>();
+        Random random = new Random(7);
+        for (int i = 0; i < 200_000; i++) {
+            int key = random.nextInt(5_000);
+            if (random.nextBoolean()) {
+                customMap.put(key, i);
+                expected.put(key, i);
+            } else {
+                Assertions.assertEquals(expected.remove(key), customMap.remove(key));
+            }
+        }
+        Assertions.assertEquals(expected, customMap);
+    }
+
+    @Test
+    void iteratorTestRemoveEveryOther() {
+        CustomOpenAddressingMap<Integer, Integer> customMap = new CustomOpenAddressingMap<>(4, 0.9f);
+        for (int i = 0; i < 1000; i++) {
+            customMap.put(i, i);
+        }
+        Iterator<Integer> iterator = customMap.keySet().iterator();
+        int seen = 0;
+        while (iterator.hasNext()) {
+            int key = iterator.next();
+            seen++;
+            if (key % 2 == 0) {
+                iterator.remove();
+            }
+        }
+        Assertions.assertEquals(1000, seen);
+        Assertions.assertEquals(500, customMap.size());
+        for (int i = 0; i < 1000; i++) {
+            Assertions.assertEquals(i % 2 == 1, customMap.containsKey(i));
+        }
+    }
+
+    @Test
+    void entrySetTestSetValue() {
+        CustomOpenAddressingMap<String, Integer> customMap = new CustomOpenAddressingMap<>();
+        customMap.put("key", 1);
+        customMap.entrySet().iterator().next().setValue(2);
+        Assertions.assertEquals(2, customMap.get("key"));
+    }
+
+    @Test
+    void constructorTestLoadFactor() {
+        Assertions.assertThrows(IllegalArgumentException.class, () -> new CustomOpenAddressingMap<>(16, 1f));
+        Assertions.assertEquals(128, new CustomOpenAddressingMap<>(100).capacity());
+    }
+}
@@ -0,0 +1,93 @@
+package HashMap;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+class CustomPersistentMapTest {
+    private record SameHashKey(int id) {
+        @Override
+        public int hashCode() {
+            return id % 4;
+        }
+    }
+
+    @Test
+    void persistentTestVersionsAreIndependent() {
+        CustomPersistentMap<Integer, String> empty = CustomPersistentMap.empty();
+        CustomPersistentMap<Integer, String> first = empty.with(1, "one").with(2, "two");
+        CustomPersistentMap<Integer, String> second = first.with(2, "TWO").with(3, "three");
+        CustomPersistentMap<Integer, String> third = second.without(1);
+        Assertions.assertTrue(empty.isEmpty());
+        Assertions.assertEquals(Map.of(1, "one", 2, "two"), first);
+        Assertions.assertEquals(Map.of(1, "one", 2, "TWO", 3, "three"), second);
+        Assertions.assertEquals(Map.of(2, "TWO", 3, "three"), third);
+        Assertions.assertSame(third, third.without(1));
+        Assertions.assertSame(third, third.with(3, "three"));
+        CustomPersistentMap<Integer, String> withNull = third.with(null, null);
+        Assertions.assertTrue(withNull.containsKey(null));
+        Assertions.assertFalse(third.containsKey(null));
+        Assertions.assertEquals(3, withNull.size());
+        Assertions.assertThrows(UnsupportedOperationException.class, () -> third.put(4, "four"));
+    }
+
+    @Test
+    void persistentTestMatchesHashMapUnderRandomOperations() {
+        Random random = new Random(42);
+        Map<Object, Integer> expected = new HashMap<>();
+        CustomPersistentMap<Object, Integer> persistent = CustomPersistentMap.empty();
+        CustomPersistentMap.Transient<Object, Integer> builder = persistent.asTransient();
+        for (int i = 0; i < 200_000; i++) {
+            int id = random.nextInt(5_000);
+            Object key = id % 3 == 0 ? new SameHashKey(id) : id;
+            if (random.nextInt(3) == 0) {
+                Assertions.assertEquals(expected.remove(key), builder.remove(key));
+                persistent = persistent.without(key);
+            } else {
+                Assertions.assertEquals(expected.put(key, i), builder.put(key, i));
+                persistent = persistent.with(key, i);
+            }
+        }
+        Assertions.assertEquals(expected.size(), builder.size());
+        Assertions.assertEquals(expected, persistent);
+        Assertions.assertEquals(expected, builder.snapshot());
+        for (Object key : expected.keySet()) {
+            persistent = persistent.without(key);
+            builder.remove(key);
+        }
+        Assertions.assertTrue(persistent.isEmpty());
+        Assertions.assertFalse(persistent.entrySet().iterator().hasNext());
+        Assertions.assertEquals(0, builder.size());
+    }
+
+    @Test
+    void persistentTestSnapshotsSurviveTransientWrites() {
+        CustomMap<Integer, Integer> customMap = new CustomMap<>();
+        for (int i = 0; i < 10_000; i++) {
+            customMap.put(i, i);
+        }
+        CustomPersistentMap<Integer, Integer> base = customMap.toPersistent();
+        CustomPersistentMap.Transient<Integer, Integer> builder = base.asTransient();
+        for (int i = 0; i < 10_000; i += 2) {
+            builder.put(i, -i);
+        }
+        CustomPersistentMap<Integer, Integer> snapshot = builder.snapshot();
+        for (int i = 0; i < 10_000; i++) {
+            builder.remove(i);
+        }
+        builder.put(1, 100);
+        Assertions.assertEquals(1, builder.size());
+        Assertions.assertEquals(100, builder.get(1));
+        Assertions.assertEquals(new HashMap<>(customMap), base);
+        Assertions.assertEquals(10_000, snapshot.size());
+        for (int i = 0; i < 10_000; i++) {
+            Assertions.assertEquals(i % 2 == 0 ? -i : i, snapshot.get(i));
+        }
+        builder.clear();
+        Assertions.assertTrue(builder.snapshot().isEmpty());
+        Assertions.assertEquals(10_000, snapshot.size());
+    }
+}
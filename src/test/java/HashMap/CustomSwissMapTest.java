@@ -0,0 +1,82 @@
+package HashMap;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Random;
+
+class CustomSwissMapTest extends MapContractTest {
+    @Override
+    protected <K, V> Map<K, V> createMap() {
+        return new CustomSwissMap<>();
+    }
+
+    /**
+     * Ключ с управляемым хэшем: много ключей с одинаковыми 7 битами хэша в одной группе
+     */
+    private record SameHashKey(int id) {
+        @Override
+        public int hashCode() {
+            return id % 16;
+        }
+    }
+
+    @Test
+    void removeTestTombstonesAtHighLoad() {
+        CustomSwissMap<Object, Integer> customMap = new CustomSwissMap<>(16, 0.95f);
+        Map<Object, Integer> expected = new HashMap<>();
+        Random random = new Random(7);
+        for (int i = 0; i < 300_000; i++) {
+            int id = random.nextInt(5_000);
+            Object key = id % 5 == 0 ? new SameHashKey(id) : id;
+            if (random.nextBoolean()) {
+                customMap.put(key, i);
+                expected.put(key, i);
+            } else {
+                Assertions.assertEquals(expected.remove(key), customMap.remove(key));
+            }
+        }
+        Assertions.assertEquals(expected, customMap);
+        int capacity = customMap.capacity();
+        for (int i = 0; i < 100_000; i++) {
+            customMap.put(-1 - i, i);
+            customMap.remove(-1 - i);
+        }
+        Assertions.assertEquals(capacity, customMap.capacity());
+        Assertions.assertEquals(expected, customMap);
+    }
+
+    @Test
+    void iteratorTestRemoveEveryOther() {
+        CustomSwissMap<Integer, Integer> customMap = new CustomSwissMap<>(4, 0.9f);
+        for (int i = 0; i < 1000; i++) {
+            customMap.put(i, i);
+        }
+        customMap.put(null, -1);
+        Iterator<Integer> iterator = customMap.keySet().iterator();
+        int seen = 0;
+        while (iterator.hasNext()) {
+            Integer key = iterator.next();
+            seen++;
+            if (key == null || key % 2 == 0) {
+                iterator.remove();
+            }
+        }
+        Assertions.assertEquals(1001, seen);
+        Assertions.assertEquals(500, customMap.size());
+        Assertions.assertFalse(customMap.containsKey(null));
+        for (int i = 0; i < 1000; i++) {
+            Assertions.assertEquals(i % 2 == 1, customMap.containsKey(i));
+        }
+    }
+
+    @Test
+    void constructorTestLoadFactor() {
+        Assertions.assertThrows(IllegalArgumentException.class, () -> new CustomSwissMap<>(16, 1f));
+        Assertions.assertEquals(16, new CustomSwissMap<>(0).capacity());
+        Assertions.assertEquals(128, new CustomSwissMap<>(100).capacity());
+    }
+}
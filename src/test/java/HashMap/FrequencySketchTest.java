@@ -0,0 +1,34 @@
+package HashMap;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+class FrequencySketchTest {
+    @Test
+    void frequencyTestCountsAndSaturates() {
+        FrequencySketch sketch = new FrequencySketch(1000);
+        Assertions.assertEquals(0, sketch.frequency("key"));
+        for (int i = 0; i < 5; i++) {
+            sketch.increment("key");
+        }
+        Assertions.assertEquals(5, sketch.frequency("key"));
+        for (int i = 0; i < 100; i++) {
+            sketch.increment("key");
+        }
+        Assertions.assertEquals(15, sketch.frequency("key"));
+        sketch.increment(null);
+        Assertions.assertEquals(1, sketch.frequency(null));
+    }
+
+    @Test
+    void frequencyTestAgesCounters() {
+        FrequencySketch sketch = new FrequencySketch(8);
+        for (int i = 0; i < 10; i++) {
+            sketch.increment("old");
+        }
+        for (int i = 0; i < 1000; i++) {
+            sketch.increment(i);
+        }
+        Assertions.assertTrue(sketch.frequency("old") < 10);
+    }
+}
@@ -0,0 +1,299 @@
+package HashMap;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.util.Collection;
+import java.util.ConcurrentModificationException;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
+
+abstract class MapContractTest {
+    /**
+     * Метод создает пустую мапу проверяемой реализации
+     *
+     * @param <K> тип ключей
+     * @param <V> тип значений
+     * @return пустая мапа
+     */
+    protected abstract <K, V> Map<K, V> createMap();
+
+    private Map<String, String> mySmallMap() {
+        Map<String, String> myMap = createMap();
+        for (int i = 0; i < 20; i++) {
+            myMap.put("key " + i, "value " + i);
+        }
+        return myMap;
+    }
+
+    private Map<String, String> myBigMap() {
+        Map<String, String> myMap2 = createMap();
+        for (int i = 0; i < 2_000_000; i++) {
+            myMap2.put("key " + i, "value " + i);
+        }
+        return myMap2;
+    }
+
+    private Map<String, String> myEmptyMap() {
+        Map<String, String> myMap = createMap();
+        return myMap;
+    }
+
+    @Test
+    void sizeTestFullMap() {
+        Map<String, String> customMap = mySmallMap();
+        Assertions.assertEquals(20, customMap.size());
+    }
+
+    @Test
+    void sizeTestEmptyMap() {
+        Map<String, String> customMap = myEmptyMap();
+        Assertions.assertEquals(0, customMap.size());
+    }
+
+    @Test
+    void isEmptyTestEmptyMap() {
+        Map<String, String> customMap = myEmptyMap();
+        Assertions.assertTrue(customMap.isEmpty());
+    }
+
+    @Test
+    void isEmptyTestFullMap() {
+        Map<String, String> customMap = myBigMap();
+        Assertions.assertFalse(customMap.isEmpty());
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"key 2", "key 10", "key 19"})
+    void containsKeyTestKeyHave(String key) {
+        Map<String, String> customMap = mySmallMap();
+        Assertions.assertTrue(customMap.containsKey(key));
+    }
+
+    @Test
+    void containsKeyTestKeyNotHave() {
+        Map<String, String> customMap = myEmptyMap();
+        Assertions.assertFalse(customMap.containsKey("key 1"));
+    }
+
+    @Test
+    void containsKeyTestKeyNull() {
+        Map<String, String> customMap = mySmallMap();
+        Assertions.assertFalse(customMap.containsKey(null));
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"value 2", "value 17"})
+    void containsValueTestValueHave(String value) {
+        Map<String, String> customMap = mySmallMap();
+        Assertions.assertTrue(customMap.containsValue(value));
+    }
+
+    @Test
+    void containsValueTestValueNotHave() {
+        Map<String, String> customMap = mySmallMap();
+        Assertions.assertFalse(customMap.containsValue(5));
+    }
+
+    @Test
+    void containsValueTestValueHaveNull() {
+        Map<String, String> customMap = mySmallMap();
+        Map<String, String> customMap2 = myBigMap();
+        Assertions.assertFalse(customMap.containsValue(null));
+        Assertions.assertFalse(customMap2.containsValue(null));
+    }
+
+    @Test
+    void getTestExistingKey() {
+        Map<String, String> customMap = mySmallMap();
+        Assertions.assertEquals("value 0", customMap.get("key 0"));
+        Assertions.assertEquals("value 19", customMap.get("key 19"));
+    }
+
+    @Test
+    void getTestMissingKey() {
+        Map<String, String> customMap = mySmallMap();
+        Assertions.assertNull(customMap.get("key"));
+    }
+
+    @Test
+    void getTestNullKey() {
+        Map<String, String> customMap = mySmallMap();
+        customMap.put(null, "5");
+        Assertions.assertEquals("5", customMap.get(null));
+    }
+
+    @Test
+    void putTestString() {
+        Map<String, String> customMap = createMap();
+        customMap.put("key1", "Ivan");
+        Assertions.assertEquals(1, customMap.size());
+        Assertions.assertEquals("Ivan", customMap.get("key1"));
+    }
+
+    @Test
+    void putTestInteger() {
+        Map<Integer, Integer> customMap = createMap();
+        customMap.put(1, 200);
+        customMap.put(2, 2200);
+        Assertions.assertEquals(2, customMap.size());
+        Assertions.assertEquals(200, customMap.get(1));
+        Assertions.assertEquals(2200, customMap.get(2));
+    }
+
+    @Test
+    void putTestNullArgs() {
+        Map<String, String> customMap = myBigMap();
+        Assertions.assertEquals("value", customMap.put(null, "value"));
+        Assertions.assertNull(customMap.put(null, null));
+        Assertions.assertNull(customMap.get(null));
+    }
+
+    @Test
+    void putTestValueReturn() {
+        Map<String, Integer> customMap = createMap();
+        Assertions.assertEquals(100, customMap.put("key", 100));
+        Assertions.assertNull(customMap.put("key", null));
+    }
+
+    @Test
+    void putTestBigValueNodes() {
+        Map<String, String> customMap = myBigMap();
+        Assertions.assertEquals(2000000, customMap.size());
+    }
+
+    @Test
+    void removeTest() {
+        Map<String, String> customMap = mySmallMap();
+        Assertions.assertTrue(customMap.containsKey("key 1") & customMap.containsValue("value 1"));
+        customMap.remove("key 1");
+        Assertions.assertFalse(customMap.containsKey("key 1") & customMap.containsValue("value 1"));
+    }
+
+    @Test
+    void removeTestMillionNodes() {
+        Map<String, String> customMap = myBigMap();
+        for (int i = 1; i <= 1_999_999; i++) {
+            customMap.remove("key " + i);
+        }
+        Assertions.assertEquals(1, customMap.size());
+    }
+    @Test
+    void putAllTest() {
+        Map<String, String> customMap = mySmallMap();
+
+        Map<String, String> additionalMap = new HashMap<>();
+        for (int i = 10; i < 15; i++) {
+            additionalMap.put("key " + i, "value");
+        }
+
+        Assertions.assertEquals(20,customMap.size());
+        customMap.putAll(additionalMap);
+
+        for (int i = 10; i < 15; i++) {
+            Assertions.assertTrue(
+                    customMap.containsKey("key " + i) & customMap.containsValue("value")
+            );
+        }
+        Assertions.assertEquals(20, customMap.size());
+    }
+    @Test
+    void clearTest() {
+        Map<String, String> myHashMap = mySmallMap();
+        Assertions.assertFalse(myHashMap.isEmpty());
+        Assertions.assertEquals(20, myHashMap.size());
+        myHashMap.clear();
+        Assertions.assertTrue(myHashMap.isEmpty());
+        Assertions.assertEquals(0, myHashMap.size());
+    }
+    @Test
+    void keySetTest() {
+        Map<String, String> myHashMap = mySmallMap();
+        Set<?> keySet = myHashMap.keySet();
+        Assertions.assertTrue(keySet.size() == myHashMap.size());
+        for (int i = 0; i < 20; i++) {
+            Assertions.assertTrue(keySet.contains("key " + i));
+        }
+        Assertions.assertFalse(keySet.contains("key 20"));
+    }
+    @Test
+    void entrySetTest() {
+        Map<String, String> myHashMap = mySmallMap();
+        Set<?> entrySet = myHashMap.entrySet();
+        Assertions.assertEquals(entrySet.size(), myHashMap.size());
+    }
+    @Test
+    void equalsTestSameMap() {
+        Map<String, String> myHashMap = mySmallMap();
+        Map<String, String> sameLinkMyHashMap = myHashMap;
+        Assertions.assertTrue(myHashMap.equals(sameLinkMyHashMap));
+    }
+    @Test
+    void equalsTestEqualMap() {
+        Map<String, String> myHashMap = mySmallMap();
+        Map<String, String > equalMyHashMap = mySmallMap();
+        Assertions.assertTrue(myHashMap.equals(equalMyHashMap));
+    }
+    @Test
+    void containsKeyTestNullKeyHave() {
+        Map<String, String> customMap = mySmallMap();
+        customMap.put(null, "value null");
+        Assertions.assertTrue(customMap.containsKey(null));
+        Assertions.assertEquals(21, customMap.size());
+        Assertions.assertEquals("value 7", customMap.get("key 7"));
+    }
+    @Test
+    void valuesTestKeepsDuplicates() {
+        Map<String, String> customMap = createMap();
+        for (int i = 0; i < 10; i++) {
+            customMap.put("key " + i, "value");
+        }
+        Collection<String> values = customMap.values();
+        Assertions.assertEquals(10, values.size());
+        int count = 0;
+        for (String value : values) {
+            Assertions.assertEquals("value", value);
+            count++;
+        }
+        Assertions.assertEquals(10, count);
+    }
+    @Test
+    void keySetTestLiveView() {
+        Map<String, String> customMap = mySmallMap();
+        Set<String> keySet = customMap.keySet();
+        customMap.put("key 20", "value 20");
+        Assertions.assertEquals(21, keySet.size());
+        Assertions.assertTrue(keySet.contains("key 20"));
+        Assertions.assertTrue(keySet.remove("key 0"));
+        Assertions.assertFalse(customMap.containsKey("key 0"));
+        Assertions.assertEquals(20, customMap.size());
+    }
+    @Test
+    void entrySetTestIteratorRemove() {
+        Map<String, String> customMap = mySmallMap();
+        Iterator<Map.Entry<String, String>> iterator = customMap.entrySet().iterator();
+        int removed = 0;
+        while (iterator.hasNext()) {
+            Map.Entry<String, String> entry = iterator.next();
+            if (entry.getKey().endsWith("1")) {
+                iterator.remove();
+                removed++;
+            }
+        }
+        Assertions.assertEquals(2, removed);
+        Assertions.assertEquals(18, customMap.size());
+        Assertions.assertFalse(customMap.containsKey("key 11"));
+    }
+    @Test
+    void keySetTestIteratorFailFast() {
+        Map<String, String> customMap = mySmallMap();
+        Iterator<String> iterator = customMap.keySet().iterator();
+        iterator.next();
+        customMap.put("key 100", "value 100");
+        Assertions.assertThrows(ConcurrentModificationException.class, iterator::next);
+    }
+}
@@ -0,0 +1,70 @@
+package HashMap;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+class TimerWheelTest {
+    private static final long TICK = 1L << 24;
+
+    private static CustomMap.LinkedNode<Integer, Integer> node(int key, long expiresAt) {
+        CustomMap.LinkedNode<Integer, Integer> node = new CustomMap.LinkedNode<>(key, key, key, null);
+        node.expiresAt = expiresAt;
+        return node;
+    }
+
+    @Test
+    void advanceTestExpiresOnlyDueNodes() {
+        TimerWheel<Integer, Integer> wheel = new TimerWheel<>(0);
+        long[] delays = {TimeUnit.MILLISECONDS.toNanos(5), TimeUnit.SECONDS.toNanos(2),
+                TimeUnit.MINUTES.toNanos(3), TimeUnit.HOURS.toNanos(5), TimeUnit.DAYS.toNanos(10)};
+        for (int key = 0; key < delays.length; key++) {
+            wheel.schedule(node(key, delays[key]));
+        }
+        List<Integer> expired = new ArrayList<>();
+        for (int key = 0; key < delays.length; key++) {
+            wheel.advance(delays[key] - TICK * 2, node -> expired.add(node.key));
+            Assertions.assertEquals(key, expired.size());
+            wheel.advance(delays[key] + TICK * 2, node -> expired.add(node.key));
+            Assertions.assertEquals(key + 1, expired.size());
+            Assertions.assertEquals(key, expired.get(key));
+        }
+    }
+
+    @Test
+    void advanceTestRandomSchedules() {
+        TimerWheel<Integer, Integer> wheel = new TimerWheel<>(0);
+        Random random = new Random(5);
+        List<CustomMap.LinkedNode<Integer, Integer>> nodes = new ArrayList<>();
+        for (int key = 0; key < 10_000; key++) {
+            CustomMap.LinkedNode<Integer, Integer> node = node(key, (long) (random.nextDouble() * TimeUnit.HOURS.toNanos(2)));
+            nodes.add(node);
+            wheel.schedule(node);
+        }
+        for (int key = 0; key < 1000; key++) {
+            wheel.deschedule(nodes.get(key));
+        }
+        Set<Integer> expired = new HashSet<>();
+        long now = 0;
+        while (now < TimeUnit.HOURS.toNanos(3)) {
+            now += (long) (random.nextDouble() * TimeUnit.SECONDS.toNanos(30));
+            long time = now;
+            wheel.advance(time, node -> {
+                Assertions.assertTrue(node.expiresAt <= time);
+                Assertions.assertTrue(expired.add(node.key));
+            });
+            for (CustomMap.LinkedNode<Integer, Integer> node : nodes.subList(1000, nodes.size())) {
+                if (node.expiresAt < time - TICK) {
+                    Assertions.assertTrue(expired.contains(node.key), "late node " + node.key);
+                }
+            }
+        }
+        Assertions.assertEquals(9000, expired.size());
+    }
+}